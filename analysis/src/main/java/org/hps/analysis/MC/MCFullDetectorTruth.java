@@ -14,18 +14,17 @@ import java.util.Set;
 import org.apache.commons.math3.util.Pair;
 import org.hps.recon.tracking.CoordinateTransformations;
 import org.hps.recon.tracking.TrackUtils;
+import org.hps.recon.tracking.TrackerTruthAssociation;
 import org.lcsim.detector.IDetectorElement;
 import org.lcsim.detector.tracker.silicon.HpsSiSensor;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.LCRelation;
 import org.lcsim.event.MCParticle;
 import org.lcsim.event.RawTrackerHit;
-import org.lcsim.event.RelationalTable;
 import org.lcsim.event.SimCalorimeterHit;
 import org.lcsim.event.SimTrackerHit;
 import org.lcsim.event.Track;
 import org.lcsim.event.TrackerHit;
-import org.lcsim.event.base.BaseRelationalTable;
 import org.lcsim.geometry.FieldMap;
 import org.lcsim.geometry.IDDecoder;
 import org.lcsim.geometry.compact.Subdetector;
@@ -65,24 +64,15 @@ public class MCFullDetectorTruth{
     
     private void doTruth(EventHeader event, Track trk, FieldMap bFieldMap, List<HpsSiSensor> sensors, Subdetector trackerSubdet){
     
-        List<SimTrackerHit> trackerHits = event.get(SimTrackerHit.class, trackerHitsCollectionName);
-        List<SimTrackerHit> trackerHits_Inactive = null;
         List<Track> tracks = event.get(Track.class, trackCollectionName);
         
-        if(event.hasCollection(SimTrackerHit.class , inactiveTrackerHitsCollectionName)){
-            trackerHits_Inactive = event.get(SimTrackerHit.class, inactiveTrackerHitsCollectionName);
-        }
-        Map<MCParticle, List<SimTrackerHit>> trackerHitMap = BuildTrackerHitMap(trackerHits);
-        Map<MCParticle, List<SimTrackerHit>> trackerInHitMap = BuildTrackerHitMap(trackerHits_Inactive);
-        
-        RelationalTable rawtomc = new BaseRelationalTable(RelationalTable.Mode.MANY_TO_MANY, RelationalTable.Weighting.UNWEIGHTED);
-        if (event.hasCollection(LCRelation.class, "SVTTrueHitRelations")) {
-            List<LCRelation> trueHitRelations = event.get(LCRelation.class, "SVTTrueHitRelations");
-            for (LCRelation relation : trueHitRelations)
-                if (relation != null && relation.getFrom() != null && relation.getTo() != null)
-                    rawtomc.add(relation.getFrom(), relation.getTo());
-        }
-        _pTruth = new TrackTruthMatching(trk, rawtomc, trackerHits);
+        // built once per event and shared by all tracks and drivers
+        TrackerTruthAssociation truth = TrackerTruthAssociation.read(event, trackerHitsCollectionName,
+                inactiveTrackerHitsCollectionName);
+        if (truth == null)
+            truth = new TrackerTruthAssociation(new ArrayList<LCRelation>(), new ArrayList<SimTrackerHit>(),
+                    new ArrayList<SimTrackerHit>());
+        _pTruth = new TrackTruthMatching(trk, truth, false);
         
         MCParticle truthp = _pTruth.getMCParticle();
         
@@ -121,8 +111,8 @@ public class MCFullDetectorTruth{
             }
         }
         
-        _truthActHits = trackerHitMap.get(truthp);
-        List<SimTrackerHit> truthInActHits = trackerInHitMap.get(truthp);
+        _truthActHits = truth.getSimHits(truthp);
+        List<SimTrackerHit> truthInActHits = truth.getInactiveSimHits(truthp);
         
         ComputeSVTVars(truthp, _truthActHits, truthInActHits, bFieldMap, sensors, trackerSubdet);
         
@@ -9,6 +9,7 @@ import java.util.logging.Logger;
 import org.hps.recon.tracking.CoordinateTransformations;
 import org.hps.recon.tracking.TrackData;
 import org.hps.recon.tracking.TrackDataDriver;
+import org.hps.recon.tracking.TrackExtrapolations;
 import org.hps.recon.tracking.TrackResidualsData;
 import org.hps.recon.tracking.TrackType;
 import org.hps.recon.tracking.TrackUtils;
@@ -103,6 +104,7 @@ public final class TrackDataDriverWithTruth extends Driver {
             return;
         
         int runNumber = event.getRunNumber();
+        TrackExtrapolations extrapolations = TrackExtrapolations.read(event);
 
         // Get all collections of the type Track from the event. This is
         // required since the event contains a track collection for each of the
@@ -222,9 +224,7 @@ public final class TrackDataDriverWithTruth extends Driver {
 
                 // Extrapolate the track to the face of the Ecal and get the TrackState
                 if (TrackType.isGBL(track.getType())) {
-                    TrackState stateEcal = TrackUtils.getTrackExtrapAtEcalRK(track, bFieldMap,runNumber);
-                    if (stateEcal != null)
-                        track.getTrackStates().add(stateEcal);
+                    TrackExtrapolations.addTrackState(track, extrapolations.getAtEcal(track, bFieldMap, runNumber));
                 }
 
                 LOGGER.fine(Integer.toString(track.getTrackStates().size()) + " track states for this track at this point:");
@@ -8,9 +8,7 @@ import java.util.List;
 import java.util.ArrayList;
 
 import org.lcsim.event.LCRelation;
-import org.lcsim.event.RelationalTable;
 import org.lcsim.event.base.BaseLCRelation;
-import org.lcsim.event.base.BaseRelationalTable;
 
 import org.lcsim.event.MCParticle;
 import org.lcsim.event.Track;
@@ -18,9 +16,10 @@ import org.lcsim.event.TrackState;
 import org.lcsim.event.base.BaseTrack;
 import org.lcsim.event.base.BaseTrackState;
 import org.hps.recon.tracking.TrackUtils;
+import org.hps.recon.tracking.TrackerTruthAssociation;
+import org.hps.recon.tracking.TrackerTruthAssociation.TrackMatch;
 import org.lcsim.fit.helicaltrack.HelicalTrackFit;
 
-import org.lcsim.event.SimTrackerHit;
 import org.lcsim.util.Driver;
 import org.lcsim.geometry.Detector;
 import org.lcsim.event.EventHeader;
@@ -87,20 +86,10 @@ public class TrackToMCParticleRelationsDriver extends Driver {
         
         //Retrieve rawhits to mc
         
-        RelationalTable rawtomc = new BaseRelationalTable(RelationalTable.Mode.MANY_TO_MANY, RelationalTable.Weighting.UNWEIGHTED);
-        if (event.hasCollection(LCRelation.class, "SVTTrueHitRelations")) {
-            List<LCRelation> trueHitRelations = event.get(LCRelation.class, "SVTTrueHitRelations");
-            for (LCRelation relation : trueHitRelations)
-                if (relation != null && relation.getFrom() != null && relation.getTo() != null)
-                    rawtomc.add(relation.getFrom(), relation.getTo());
-        }
-        else
+        TrackerTruthAssociation truth = TrackerTruthAssociation.read(event);
+        if (truth == null)
             return;
 
-        //Retrieve all simulated hits
-        String MCHitInputCollectionName = "TrackerHits";
-        List<SimTrackerHit> allsimhits = event.get(SimTrackerHit.class, MCHitInputCollectionName);
-
 
         //MCParticleRelations
         
@@ -113,7 +102,7 @@ public class TrackToMCParticleRelationsDriver extends Driver {
         for (Track track : trackCollection) {
             
             //Truth Matching tool
-            TrackTruthMatching ttm = new TrackTruthMatching(track, rawtomc, allsimhits, kalmanTracks);
+            TrackMatch ttm = truth.matchTrack(track, kalmanTracks);
             if (ttm != null) {
                 MCParticle mcp = ttm.getMCParticle();
                 
@@ -173,7 +162,7 @@ public class TrackToMCParticleRelationsDriver extends Driver {
                 }
             } //ttm not null
             else {
-                System.out.printf("Error::TrackTruthMatching returns null \n");
+                System.out.printf("Error::TrackerTruthAssociation returns null \n");
             }
         }
         
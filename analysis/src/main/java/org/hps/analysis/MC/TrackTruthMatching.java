@@ -8,6 +8,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.hps.recon.tracking.TrackerTruthAssociation;
+import org.hps.recon.tracking.TrackerTruthAssociation.TrackMatch;
 import org.lcsim.event.MCParticle;
 import org.lcsim.event.RawTrackerHit;
 import org.lcsim.event.RelationalTable;
@@ -48,14 +50,21 @@ public class TrackTruthMatching {
      */
     
     public TrackTruthMatching(Track trk, RelationalTable rawtomc, List<SimTrackerHit> allsimhits) {
-        doAnalysis(trk,rawtomc,allsimhits,false);
+        doAnalysis(trk,rawtomc,allsimhits,null,false);
     }
     
     public TrackTruthMatching(Track trk, RelationalTable rawtomc, List<SimTrackerHit> allsimhits, boolean isKalman) {
-        doAnalysis(trk, rawtomc, allsimhits, isKalman);
+        doAnalysis(trk, rawtomc, allsimhits, null, isKalman);
     }
     
-    private void doAnalysis(Track trk, RelationalTable rawtomc, List<SimTrackerHit> allsimhits, boolean isKalman){
+    /**
+     * Match using the per-event truth association, which also holds the sim hits of each MCParticle.
+     */
+    public TrackTruthMatching(Track trk, TrackerTruthAssociation truth, boolean isKalman) {
+        doAnalysis(trk, null, null, truth, isKalman);
+    }
+    
+    private void doAnalysis(Track trk, RelationalTable rawtomc, List<SimTrackerHit> allsimhits, TrackerTruthAssociation truth, boolean isKalman){
         //  Get the number of hits on the track
         _nhits = trk.getTrackerHits().size();
         
@@ -72,7 +81,7 @@ public class TrackTruthMatching {
             Set<MCParticle> mcPartList2 = new HashSet<MCParticle>();
             for(RawTrackerHit rawhit : rawhits){
                 //Get all the SimTrackerHits associated with the raw hits
-                Set<SimTrackerHit> simhits = rawtomc.allFrom(rawhit);
+                Collection<SimTrackerHit> simhits = truth != null ? truth.getSimHits(rawhit) : rawtomc.allFrom(rawhit);
                 for (SimTrackerHit simhit : simhits){
                     if (simhit != null && simhit.getMCParticle() != null){
                         simhitsontrack.add(simhit);
@@ -82,6 +91,9 @@ public class TrackTruthMatching {
                             mcPartList1.add(simhitpart);
                         if(simlay % 2 == 0)
                             mcPartList2.add(simhitpart);
+                        //The association matches the whole track at once, see below
+                        if(truth != null)
+                            continue;
                         if(mapGoodHitList.get(simhitpart) == null){
                             Map<Integer,Boolean> dummy = new HashMap<Integer,Boolean>();
                             dummy.put(simlay, true);
@@ -108,6 +120,29 @@ public class TrackTruthMatching {
             trackerlayerhitlist.add(trackhitlayer + 1);
         }
         
+        //The association matches the track to the particle with the most layers
+        if(truth != null){
+            TrackMatch match = truth.matchTrack(trk, isKalman);
+            _mcp = match.getMCParticle();
+            _ngoodhits = match.getNGoodHits();
+            _nbadhits = match.getNBadHits();
+            _purity = match.getPurity();
+            if(_mcp != null){
+                _goodHitList = new HashMap<Integer,Boolean>();
+                for(Integer layer : match.getLayersOnTrack())
+                    _goodHitList.put(layer,false);
+                for(Integer layer : match.getGoodHitLayers())
+                    _goodHitList.put(layer,true);
+                for(SimTrackerHit besthit : truth.getSimHits(_mcp)){
+                    if(!simhitsontrack.contains(besthit))
+                        _hitListNotMatched.add(besthit);
+                }
+            }
+            else
+                _goodHitList = null;
+            return;
+        }
+        
         //Create good hit map list
         for (TrackerHit hit : trk.getTrackerHits()){
             List<RawTrackerHit> rawhits = hit.getRawHits();
@@ -173,14 +208,7 @@ public class TrackTruthMatching {
         }
         
         for(SimTrackerHit besthit : mcbesthits){
-            boolean hastrackerhit = false;
-            for(SimTrackerHit hit : simhitsontrack){
-                if(hit.equals(besthit)){
-                    hastrackerhit = true;
-                    break;
-                }
-            }
-            if(!hastrackerhit)
+            if(!simhitsontrack.contains(besthit))
                 _hitListNotMatched.add(besthit);
         }
     }
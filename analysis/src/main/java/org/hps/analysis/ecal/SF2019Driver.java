@@ -86,6 +86,18 @@ public class SF2019Driver extends Driver {
         PID = pid;
     }
 
+    /**
+     * Evaluate the energy corrections from the tabulated parametrization (the
+     * default) or from the splines; see ClusterCorrectionUtilities.
+     */
+    public void setUseCorrectionTables(boolean useCorrectionTables) {
+        ClusterCorrectionUtilities.setUseCorrectionTables(useCorrectionTables);
+    }
+
+    public void setValidateCorrectionTables(boolean validateCorrectionTables) {
+        ClusterCorrectionUtilities.setValidateCorrectionTables(validateCorrectionTables);
+    }
+
 
     @Override
     protected void detectorChanged(Detector detector) {
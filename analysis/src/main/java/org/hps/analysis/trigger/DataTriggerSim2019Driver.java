@@ -3,6 +3,7 @@ package org.hps.analysis.trigger;
 import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -23,6 +24,8 @@ import org.hps.record.daqconfig2019.ConfigurationManager2019;
 import org.hps.record.daqconfig2019.DAQConfig2019;
 import org.hps.record.daqconfig2019.SinglesTriggerConfig2019;
 import org.hps.record.daqconfig2019.PairTriggerConfig2019;
+import org.hps.record.triggerbank.CompiledTriggerModule2019;
+import org.hps.record.triggerbank.TriggerClusterArrays2019;
 import org.hps.record.triggerbank.VTPCluster;
 import org.hps.record.triggerbank.VTPData;
 import org.hps.record.triggerbank.TriggerModule2019;
@@ -127,6 +130,9 @@ public class DataTriggerSim2019Driver extends Driver {
     private boolean[][] singlesCutsEnabled = new boolean[4][12];
     private TriggerModule2019[] singlesTrigger = new TriggerModule2019[4];
     private TriggerModule2019[] pairsTrigger = new TriggerModule2019[4];
+    // Cut values of the trigger modules, as used in the event loop.
+    private CompiledTriggerModule2019[] singlesCuts = new CompiledTriggerModule2019[4];
+    private CompiledTriggerModule2019[] pairsCuts = new CompiledTriggerModule2019[4];
 
     // Reference variables.
     private static final int ENERGY_MIN = 0;
@@ -303,6 +309,12 @@ public class DataTriggerSim2019Driver extends Driver {
 
                 // In evio, -31 for cluster xmin is written as 33 during DAQ since variable is not set as unsigned
                 if((int)singlesTrigger[0].getCutValue(TriggerModule2019.CLUSTER_XMIN) == 33) singlesTrigger[0].setCutValue(TriggerModule2019.CLUSTER_XMIN, -31);
+
+                // Take the final cut values for the event loop.
+                for (int i = 0; i < 4; i++) {
+                    singlesCuts[i] = new CompiledTriggerModule2019(singlesTrigger[i]);
+                    pairsCuts[i] = new CompiledTriggerModule2019(pairsTrigger[i]);
+                }
                 
 
             }
@@ -566,9 +578,13 @@ public class DataTriggerSim2019Driver extends Driver {
         singlesTriggers.add(new ArrayList<SinglesTrigger2019<E>>());
         singlesTriggers.add(new ArrayList<SinglesTrigger2019<E>>());
 
+        // Get the cluster quantities used by the trigger cuts.
+        TriggerClusterArrays2019 clusterData = TriggerClusterArrays2019.of(clusters, clusterType);
+
         // Run the clusters through the singles trigger to determine
         // whether or not they pass it.
-        for (E cluster : clusters) {
+        for (int clusterIndex = 0; clusterIndex < clusters.size(); clusterIndex++) {
+            E cluster = clusters.get(clusterIndex);
             // Simulate each of the cluster singles triggers.
             triggerLoop: for (int triggerNum = 0; triggerNum < 4; triggerNum++) {
                 // Indicator to indicate the cluster is at top or bot
@@ -605,21 +621,21 @@ public class DataTriggerSim2019Driver extends Driver {
                         topnbot = 0;
 
                     // Perform each trigger cut.
-                    passClusterLow = singlesTrigger[triggerNum].clusterTotalEnergyCutLow(c);
-                    passClusterHigh = singlesTrigger[triggerNum].clusterTotalEnergyCutHigh(c);
-                    passHitCount = singlesTrigger[triggerNum].clusterHitCountCut(c);
-                    passClusterXMin = singlesTrigger[triggerNum].clusterXMinCut(c);
+                    passClusterLow = singlesCuts[triggerNum].clusterTotalEnergyCutLow(clusterData, clusterIndex);
+                    passClusterHigh = singlesCuts[triggerNum].clusterTotalEnergyCutHigh(clusterData, clusterIndex);
+                    passHitCount = singlesCuts[triggerNum].clusterHitCountCut(clusterData, clusterIndex);
+                    passClusterXMin = singlesCuts[triggerNum].clusterXMinCut(clusterData, clusterIndex);
                     //2021 update
                     if(singlesMollerModeEnabled[triggerNum])
-                        passClusterPDE = singlesTrigger[triggerNum].clusterMollerPDECut(c);
+                        passClusterPDE = singlesCuts[triggerNum].clusterMollerPDECut(clusterData, clusterIndex);
                     else                        
-                        passClusterPDE = singlesTrigger[triggerNum].clusterPDECut(c);
+                        passClusterPDE = singlesCuts[triggerNum].clusterPDECut(clusterData, clusterIndex);
                     
                     //2021 update
                     if(singlesXYMinMaxEnabled[1]) {
-                        passClusterXMax = singlesTrigger[triggerNum].clusterXMaxCut(c);
-                        passClusterYMin = singlesTrigger[triggerNum].clusterYMinCut(c);
-                        passClusterYMax = singlesTrigger[triggerNum].clusterYMaxCut(c);
+                        passClusterXMax = singlesCuts[triggerNum].clusterXMaxCut(clusterData, clusterIndex);
+                        passClusterYMin = singlesCuts[triggerNum].clusterYMinCut(clusterData, clusterIndex);
+                        passClusterYMax = singlesCuts[triggerNum].clusterYMaxCut(clusterData, clusterIndex);
                     }
                     
                     if (topnbot == 1) {
@@ -694,21 +710,21 @@ public class DataTriggerSim2019Driver extends Driver {
                         topnbot = 0;
 
                     // Perform each trigger cut.
-                    passClusterLow = singlesTrigger[triggerNum].clusterTotalEnergyCutLow(c);
-                    passClusterHigh = singlesTrigger[triggerNum].clusterTotalEnergyCutHigh(c);
-                    passHitCount = singlesTrigger[triggerNum].clusterHitCountCut(c);
-                    passClusterXMin = singlesTrigger[triggerNum].clusterXMinCut(c);
+                    passClusterLow = singlesCuts[triggerNum].clusterTotalEnergyCutLow(clusterData, clusterIndex);
+                    passClusterHigh = singlesCuts[triggerNum].clusterTotalEnergyCutHigh(clusterData, clusterIndex);
+                    passHitCount = singlesCuts[triggerNum].clusterHitCountCut(clusterData, clusterIndex);
+                    passClusterXMin = singlesCuts[triggerNum].clusterXMinCut(clusterData, clusterIndex);
                     //2021 update
                     if(singlesMollerModeEnabled[triggerNum])
-                        passClusterPDE = singlesTrigger[triggerNum].clusterMollerPDECut(c);
+                        passClusterPDE = singlesCuts[triggerNum].clusterMollerPDECut(clusterData, clusterIndex);
                     else                        
-                        passClusterPDE = singlesTrigger[triggerNum].clusterPDECut(c);
+                        passClusterPDE = singlesCuts[triggerNum].clusterPDECut(clusterData, clusterIndex);
                     
                     //2021 update
                     if(singlesXYMinMaxEnabled[1]) {
-                        passClusterXMax = singlesTrigger[triggerNum].clusterXMaxCut(c);
-                        passClusterYMin = singlesTrigger[triggerNum].clusterYMinCut(c);
-                        passClusterYMax = singlesTrigger[triggerNum].clusterYMaxCut(c);
+                        passClusterXMax = singlesCuts[triggerNum].clusterXMaxCut(clusterData, clusterIndex);
+                        passClusterYMin = singlesCuts[triggerNum].clusterYMinCut(clusterData, clusterIndex);
+                        passClusterYMax = singlesCuts[triggerNum].clusterYMaxCut(clusterData, clusterIndex);
                     }
                     
                     if (topnbot == 1) {
@@ -866,13 +882,30 @@ public class DataTriggerSim2019Driver extends Driver {
             }
         }
 
-        // Store cluster pairs.
-        List<E[]> pairs = TriggerModule2019.getTopBottomPairs(clusters, clusterType);
+        // Store cluster pairs, by top and bottom cluster index. A pair is
+        // shared by all pair triggers it is considered for.
+        Map<Integer, E[]> pairs = new HashMap<Integer, E[]>();
+
+        // Simulate each of the cluster pair triggers.
+        for (int triggerIndex = 0; triggerIndex < 4; triggerIndex++) {
+            // Only the top/bottom pairs that pass the time coincidence
+            // cut can be valid pairs, so only these are formed.
+            int[] pairIndices = clusterData.getTopBottomPairs(pairsCuts[triggerIndex].getTimeCoincidence());
+
+            // Simulate the pair trigger and record the results.
+            pairTriggerLoop: for (int pairIndex = 0; pairIndex < pairIndices.length; pairIndex += 2) {
+                int topIndex = pairIndices[pairIndex];
+                int botIndex = pairIndices[pairIndex + 1];
+                E[] pair = pairs.get(topIndex * clusters.size() + botIndex);
+                if (pair == null) {
+                    @SuppressWarnings("unchecked")
+                    E[] newPair = (E[]) Array.newInstance(clusterType, 2);
+                    newPair[0] = clusters.get(topIndex);
+                    newPair[1] = clusters.get(botIndex);
+                    pairs.put(topIndex * clusters.size() + botIndex, newPair);
+                    pair = newPair;
+                }
 
-        // Simulate the pair triggers and record the results.
-        for (E[] pair : pairs) {
-            // Simulate each of the cluster pair triggers.
-            pairTriggerLoop: for (int triggerIndex = 0; triggerIndex < 4; triggerIndex++) {
                 // Track whether the cluster passed each singles cut.
                 boolean passClusterLow = false;
                 boolean passClusterHigh = false;
@@ -909,13 +942,6 @@ public class DataTriggerSim2019Driver extends Driver {
                     // Cast the cluster object.
                     Cluster[] reconPair = { (Cluster) pair[0], (Cluster) pair[1] };
 
-                    // Check that the pair passes the time coincidence cut.
-                    // If it does not, it is not a valid pair and should be
-                    // destroyed.
-                    if (!pairsTrigger[triggerIndex].pairTimeCoincidenceCut(reconPair)) {
-                        continue pairTriggerLoop;
-                    }
-
                     if (verbose) {
                         System.out.printf("Pair %d :: (%3d, %3d);  E = %5.3f;  N = %1.0f;  t = %3.0f%n", triggerIndex,
                                 TriggerModule2019.getClusterXIndex(reconPair[0]),
@@ -932,18 +958,18 @@ public class DataTriggerSim2019Driver extends Driver {
                     }                    
 
                     // Perform each trigger cut.
-                    passClusterLow = pairsTrigger[triggerIndex].clusterTotalEnergyCutLow(reconPair[0])
-                            && pairsTrigger[triggerIndex].clusterTotalEnergyCutLow(reconPair[1]);
-                    passClusterHigh = pairsTrigger[triggerIndex].clusterTotalEnergyCutHigh(reconPair[0])
-                            && pairsTrigger[triggerIndex].clusterTotalEnergyCutHigh(reconPair[1]);
-                    passHitCount = pairsTrigger[triggerIndex].clusterHitCountCut(reconPair[0])
-                            && pairsTrigger[triggerIndex].clusterHitCountCut(reconPair[1]);
-                    passPairEnergySumLow = pairsTrigger[triggerIndex].pairEnergySumCutLow(reconPair);
-                    passPairEnergySumHigh = pairsTrigger[triggerIndex].pairEnergySumCutHigh(reconPair);
-                    passPairEnergyDifference = pairsTrigger[triggerIndex].pairEnergyDifferenceCut(reconPair);
-                    passPairEnergySlope = pairsTrigger[triggerIndex].pairEnergySlopeCut(reconPair);
-                    passPairCoplanarity = pairsTrigger[triggerIndex].pairCoplanarityCut(reconPair);
-                    passTimeCoincidence = pairsTrigger[triggerIndex].pairTimeCoincidenceCut(reconPair);
+                    passClusterLow = pairsCuts[triggerIndex].clusterTotalEnergyCutLow(clusterData, topIndex)
+                            && pairsCuts[triggerIndex].clusterTotalEnergyCutLow(clusterData, botIndex);
+                    passClusterHigh = pairsCuts[triggerIndex].clusterTotalEnergyCutHigh(clusterData, topIndex)
+                            && pairsCuts[triggerIndex].clusterTotalEnergyCutHigh(clusterData, botIndex);
+                    passHitCount = pairsCuts[triggerIndex].clusterHitCountCut(clusterData, topIndex)
+                            && pairsCuts[triggerIndex].clusterHitCountCut(clusterData, botIndex);
+                    passPairEnergySumLow = pairsCuts[triggerIndex].pairEnergySumCutLow(clusterData, topIndex, botIndex);
+                    passPairEnergySumHigh = pairsCuts[triggerIndex].pairEnergySumCutHigh(clusterData, topIndex, botIndex);
+                    passPairEnergyDifference = pairsCuts[triggerIndex].pairEnergyDifferenceCut(clusterData, topIndex, botIndex);
+                    passPairEnergySlope = pairsCuts[triggerIndex].pairEnergySlopeCut(clusterData, topIndex, botIndex);
+                    passPairCoplanarity = pairsCuts[triggerIndex].pairCoplanarityCut(clusterData, topIndex, botIndex);
+                    passTimeCoincidence = pairsCuts[triggerIndex].pairTimeCoincidenceCut(clusterData, topIndex, botIndex);
                     // Only pair3 trigger requires geometry matching for hodoscope and Ecal
                     if(triggerIndex == 3 && pairCutsEnabled[3][3 + PAIR_L1_MATCHING] == true) {       
                         Cluster clusterTop = null;
@@ -998,13 +1024,6 @@ public class DataTriggerSim2019Driver extends Driver {
                     // Cast the cluster object.
                     VTPCluster[] vtpPair = { (VTPCluster) pair[0], (VTPCluster) pair[1] };
 
-                    // Check that the pair passes the time coincidence cut.
-                    // If it does not, it is not a valid pair and should be
-                    // destroyed.
-                    if (!pairsTrigger[triggerIndex].pairTimeCoincidenceCut(vtpPair)) {
-                        continue pairTriggerLoop;
-                    }
-
                     if (verbose) {
                         System.out.printf("Pair %d :: (%3d, %3d);  E = %5.3f;  N = %1.0f;  t = %3.0f%n", triggerIndex,
                                 TriggerModule2019.getClusterXIndex(vtpPair[0]),
@@ -1021,18 +1040,18 @@ public class DataTriggerSim2019Driver extends Driver {
                     }
 
                     // Perform each trigger cut.
-                    passClusterLow = pairsTrigger[triggerIndex].clusterTotalEnergyCutLow(vtpPair[0])
-                            && pairsTrigger[triggerIndex].clusterTotalEnergyCutLow(vtpPair[1]);
-                    passClusterHigh = pairsTrigger[triggerIndex].clusterTotalEnergyCutHigh(vtpPair[0])
-                            && pairsTrigger[triggerIndex].clusterTotalEnergyCutHigh(vtpPair[1]);
-                    passHitCount = pairsTrigger[triggerIndex].clusterHitCountCut(vtpPair[0])
-                            && pairsTrigger[triggerIndex].clusterHitCountCut(vtpPair[1]);
-                    passPairEnergySumLow = pairsTrigger[triggerIndex].pairEnergySumCutLow(vtpPair);
-                    passPairEnergySumHigh = pairsTrigger[triggerIndex].pairEnergySumCutHigh(vtpPair);
-                    passPairEnergyDifference = pairsTrigger[triggerIndex].pairEnergyDifferenceCut(vtpPair);
-                    passPairEnergySlope = pairsTrigger[triggerIndex].pairEnergySlopeCut(vtpPair);
-                    passPairCoplanarity = pairsTrigger[triggerIndex].pairCoplanarityCut(vtpPair);
-                    passTimeCoincidence = pairsTrigger[triggerIndex].pairTimeCoincidenceCut(vtpPair);
+                    passClusterLow = pairsCuts[triggerIndex].clusterTotalEnergyCutLow(clusterData, topIndex)
+                            && pairsCuts[triggerIndex].clusterTotalEnergyCutLow(clusterData, botIndex);
+                    passClusterHigh = pairsCuts[triggerIndex].clusterTotalEnergyCutHigh(clusterData, topIndex)
+                            && pairsCuts[triggerIndex].clusterTotalEnergyCutHigh(clusterData, botIndex);
+                    passHitCount = pairsCuts[triggerIndex].clusterHitCountCut(clusterData, topIndex)
+                            && pairsCuts[triggerIndex].clusterHitCountCut(clusterData, botIndex);
+                    passPairEnergySumLow = pairsCuts[triggerIndex].pairEnergySumCutLow(clusterData, topIndex, botIndex);
+                    passPairEnergySumHigh = pairsCuts[triggerIndex].pairEnergySumCutHigh(clusterData, topIndex, botIndex);
+                    passPairEnergyDifference = pairsCuts[triggerIndex].pairEnergyDifferenceCut(clusterData, topIndex, botIndex);
+                    passPairEnergySlope = pairsCuts[triggerIndex].pairEnergySlopeCut(clusterData, topIndex, botIndex);
+                    passPairCoplanarity = pairsCuts[triggerIndex].pairCoplanarityCut(clusterData, topIndex, botIndex);
+                    passTimeCoincidence = pairsCuts[triggerIndex].pairTimeCoincidenceCut(clusterData, topIndex, botIndex);
                     // Only pair3 trigger requires geometry matching for hodoscope and Ecal
                     if(triggerIndex == 3 && pairCutsEnabled[3][3 + PAIR_L1_MATCHING] == true) {       
                         VTPCluster clusterTop = null;
@@ -27,7 +27,7 @@ import org.hps.recon.tracking.TrackType;
 import org.hps.recon.tracking.TrackUtils;
 import org.hps.recon.tracking.gbl.GBLKinkData;
 import org.hps.recon.vertexing.BilliorVertex;
-import org.hps.record.triggerbank.AbstractIntData;
+import org.hps.record.triggerbank.EventSummary;
 import org.hps.record.triggerbank.TIData;
 import org.lcsim.event.CalorimeterHit;
 import org.lcsim.event.Cluster;
@@ -280,14 +280,7 @@ public abstract class TupleMaker extends Driver {
     }
 
     public TIData checkTrigger(EventHeader event) {
-        TIData triggerData = null;
-        if (event.hasCollection(GenericObject.class, "TriggerBank")) {
-            for (GenericObject data : event.get(GenericObject.class, "TriggerBank")) {
-                if (AbstractIntData.getTag(data) == TIData.BANK_TAG) {
-                    triggerData = new TIData(data);
-                }
-            }
-        }
+        TIData triggerData = EventSummary.read(event).getTIData();
         //check to see if this event is from the correct trigger (or "all");
         if (triggerData != null && !matchTriggerType(triggerData)) {
             return null;
@@ -25,6 +25,8 @@ import org.apache.commons.cli.PosixParser;
 import org.hps.detector.ecal.EcalCrystal;
 import org.hps.detector.ecal.HPSEcalDetectorElement;
 import org.hps.recon.tracking.TrackUtils;
+import org.hps.util.RandomService;
+import org.hps.util.RandomStream;
 import org.jdom.JDOMException;
 import org.lcsim.detector.ITransform3D;
 import org.lcsim.detector.Rotation3D;
@@ -775,7 +777,7 @@ public class CalcAccFromMadGraphWithDetector {
     }
 
     private static int process(String infile) throws IOException {
-        Random generator = new Random();
+        RandomStream generator = RandomService.getStream(CalcAccFromMadGraphWithDetector.class.getName());
 
         FileReader lc = new FileReader(infile);
         StreamTokenizer lctok = new StreamTokenizer(lc);
@@ -903,7 +905,7 @@ public class CalcAccFromMadGraphWithDetector {
     }
 
     static private double findMaxWeight() {
-        Random generator = new Random();
+        RandomStream generator = RandomService.getStream(CalcAccFromMadGraphWithDetector.class.getName());
         int ntrials = 100000;
         double maxlength = maxLen;
         double maxWeight = 0;
@@ -917,7 +919,7 @@ public class CalcAccFromMadGraphWithDetector {
     }
 
     static private double getDecayLength(double MaxWeight, double gamma) {
-        Random generator = new Random();
+        RandomStream generator = RandomService.getStream(CalcAccFromMadGraphWithDetector.class.getName());
         double maxlength = maxLen;
         double dl = 0;
         double draw = generator.nextDouble();
@@ -930,7 +932,7 @@ public class CalcAccFromMadGraphWithDetector {
     }
 
     static private double getDecayLength(double MaxWeight) {
-        Random generator = new Random();
+        RandomStream generator = RandomService.getStream(CalcAccFromMadGraphWithDetector.class.getName());
         double maxlength = maxLen;
         double dl = 0;
         double draw = generator.nextDouble();
@@ -943,7 +945,7 @@ public class CalcAccFromMadGraphWithDetector {
     }
 
     private static void readLHEEvent(StreamTokenizer tok, double[] beam, int nevhep) throws IOException {
-        Random generator = new Random();
+        RandomStream generator = RandomService.getStream(CalcAccFromMadGraphWithDetector.class.getName());
         getToNextEvent(tok);
         List<Double> nums = getNumbersInLine(tok);
 
@@ -23,7 +23,8 @@ import org.hps.readout.util.collection.LCIOCollection;
 import org.hps.readout.util.collection.LCIOCollectionFactory;
 import org.hps.readout.util.collection.TriggeredLCIOData;
 import org.hps.recon.ecal.EcalUtils;
-import org.hps.util.RandomGaussian;
+import org.hps.util.RandomService;
+import org.hps.util.RandomStream;
 import org.lcsim.event.CalorimeterHit;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.LCRelation;
@@ -70,6 +71,11 @@ public abstract class DigitizationWithPulserDataMergingReadoutDriver<D extends S
      * Specifies the name of the subdetector geometry object.
      */
     private String geometryName = null;
+    /**
+     * The random number stream used for the noise, set from the
+     * job seed when the driver starts.
+     */
+    private RandomStream random = null;
     /**
      * The name of the input {@link org.lcsim.event.SimCalorimeterHit
      * SimCalorimeterHit} truth hit collection from SLIC.
@@ -306,6 +312,8 @@ public abstract class DigitizationWithPulserDataMergingReadoutDriver<D extends S
     
     @Override
     public void startOfData() {
+        random = RandomService.getStream(getClass().getName());
+        
         // Validate that all the collection names are defined.
         if(truthHitCollectionName == null || PulserDataCollectionName == null || outputHitCollectionName == null || truthRelationsCollectionName == null
                 || triggerTruthRelationsCollectionName == null || readoutCollectionName == null) {
@@ -529,7 +537,7 @@ public abstract class DigitizationWithPulserDataMergingReadoutDriver<D extends S
                     // the noise and add it to the ADC value. 
                     if(addNoise) {
                         double sigma = getNoiseConditions(hitCellID);
-                        currentValue += RandomGaussian.getGaussian(0, sigma);
+                        currentValue += random.nextGaussian(0, sigma);
                     }
                     
                     // An ADC value is not allowed to exceed 4095. If a
@@ -1034,7 +1042,7 @@ public abstract class DigitizationWithPulserDataMergingReadoutDriver<D extends S
      */
     protected double getAmplitudeFluctuation(CalorimeterHit hit) {
         double sigma = Math.sqrt(hit.getRawEnergy() * EcalUtils.MeV / pePerMeV);
-        return RandomGaussian.getGaussian(0, sigma);
+        return random.nextGaussian(0, sigma);
     }
     
     @Override
@@ -34,7 +34,8 @@ import org.hps.readout.util.collection.LCIOCollection;
 import org.hps.readout.util.collection.LCIOCollectionFactory;
 import org.hps.readout.util.collection.TriggeredLCIOData;
 import org.hps.recon.tracking.PulseShape;
-import org.hps.util.RandomGaussian;
+import org.hps.util.RandomService;
+import org.hps.util.RandomStream;
 
 /**
  * SVT readout simulation.
@@ -50,6 +51,7 @@ public class SvtDigitizationWithPulserDataMergingReadoutDriver extends ReadoutDr
     
     private SimTrackerHitReadoutDriver readoutDriver = new SimTrackerHitReadoutDriver();
     private SiSensorSim siSimulation = new CDFSiSensorSim();
+    private RandomStream random = null;
     private Map<SiSensor, PriorityQueue<StripHit>[]> hitMap = new HashMap<SiSensor, PriorityQueue<StripHit>[]>();
     private Map<SiSensor, PriorityQueue<StripHit>[]> pulserHitMap = new HashMap<SiSensor, PriorityQueue<StripHit>[]>();
     private List<HpsSiSensor> sensors = null;
@@ -539,6 +541,8 @@ public class SvtDigitizationWithPulserDataMergingReadoutDriver extends ReadoutDr
     
     @Override
     public void startOfData() {
+        random = RandomService.getStream(getClass().getName());
+        
         // The output collection is only handled by the readout data
         // manager if no pile-up simulation is included. Otherwise,
         // the driver outputs its own collection at readout.
@@ -681,7 +685,7 @@ public class SvtDigitizationWithPulserDataMergingReadoutDriver extends ReadoutDr
      */
     private void addNoise(SiSensor sensor, int channel, double[] signal) {
         for(int sampleN = 0; sampleN < 6; sampleN++) {
-            signal[sampleN] += RandomGaussian.getGaussian(0, ((HpsSiSensor) sensor).getNoise(channel, sampleN));
+            signal[sampleN] += random.nextGaussian(0, ((HpsSiSensor) sensor).getNoise(channel, sampleN));
         }
     }
     
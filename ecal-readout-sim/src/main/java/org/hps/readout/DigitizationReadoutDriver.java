@@ -20,7 +20,8 @@ import org.hps.readout.util.collection.LCIOCollection;
 import org.hps.readout.util.collection.LCIOCollectionFactory;
 import org.hps.readout.util.collection.TriggeredLCIOData;
 import org.hps.recon.ecal.EcalUtils;
-import org.hps.util.RandomGaussian;
+import org.hps.util.RandomService;
+import org.hps.util.RandomStream;
 import org.lcsim.event.CalorimeterHit;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.LCRelation;
@@ -65,6 +66,11 @@ public abstract class DigitizationReadoutDriver<D extends Subdetector> extends R
      * Specifies the name of the subdetector geometry object.
      */
     private String geometryName = null;
+    /**
+     * The random number stream used for the noise, set from the
+     * job seed when the driver starts.
+     */
+    private RandomStream random = null;
     /**
      * The name of the input {@link org.lcsim.event.SimCalorimeterHit
      * SimCalorimeterHit} truth hit collection from SLIC.
@@ -282,6 +288,8 @@ public abstract class DigitizationReadoutDriver<D extends Subdetector> extends R
     
     @Override
     public void startOfData() {
+        random = RandomService.getStream(getClass().getName());
+        
         // Validate that all the collection names are defined.
         if(truthHitCollectionName == null || outputHitCollectionName == null || truthRelationsCollectionName == null
                 || triggerTruthRelationsCollectionName == null || readoutCollectionName == null) {
@@ -464,7 +472,7 @@ public abstract class DigitizationReadoutDriver<D extends Subdetector> extends R
             // the noise and add it to the ADC value. 
             if(addNoise) {
                 double sigma = getNoiseConditions(cellID);
-                currentValue += RandomGaussian.getGaussian(0, sigma);
+                currentValue += random.nextGaussian(0, sigma);
             }
             
             // Get the pedestal for the channel.
@@ -877,7 +885,7 @@ public abstract class DigitizationReadoutDriver<D extends Subdetector> extends R
      */
     protected double getAmplitudeFluctuation(CalorimeterHit hit) {
         double sigma = Math.sqrt(hit.getRawEnergy() * EcalUtils.MeV / pePerMeV);
-        return RandomGaussian.getGaussian(0, sigma);
+        return random.nextGaussian(0, sigma);
     }
 
     @Override
@@ -6,6 +6,7 @@ import org.hps.conditions.database.DatabaseConditionsManager;
 import org.hps.conditions.ecal.EcalChannel;
 import org.hps.conditions.ecal.EcalChannelConstants;
 import org.hps.conditions.ecal.EcalConditions;
+import org.hps.recon.ecal.Ecal3PoleFitter;
 import org.hps.recon.ecal.Ecal3PoleFunction;
 import org.hps.recon.ecal.EcalPulseFitter;
 import org.lcsim.event.EventHeader;
@@ -100,6 +101,16 @@ public class EcalMode1RawConverter extends AbstractMode1RawConverter {
         pulseFitter.fixShapeParameter = true;
     }
     
+    /**
+     * Sets whether fits with a fixed width use the analytic fitter
+     * rather than Minuit.
+     * @param useAnalyticFit - <code>true</code> uses the analytic
+     * fitter and <code>false</code> uses Minuit.
+     */
+    public void setUseAnalyticFit(boolean useAnalyticFit) {
+        pulseFitter.useAnalyticFit = useAnalyticFit;
+    }
+    
     /**
      * Defines whether or not to perform pulse-fitting.
      * @param useFit - <code>true</code> indicates that pulse-fitting
@@ -144,7 +155,13 @@ public class EcalMode1RawConverter extends AbstractMode1RawConverter {
         double[] values = super.convertWaveformToPulse(hit, thresholdCrossing);
         
         // If pulse-fitting is supported, perform the pulse fit.
-        if(useFit) {
+        if(useFit && pulseFitter.isAnalytic()) {
+            Ecal3PoleFitter fit = pulseFitter.fitPulseAnalytic(hit, thresholdCrossing, values[3]);
+            if(fit != null && fit.getQuality() > 0) {
+                return new double[] { fit.getTime0() * NS_PER_SAMPLE, fit.getIntegral(), fit.getPedestal(),
+                        fit.getMaximum(), fit.getQuality() };
+            }
+        } else if(useFit) {
             // Get the results. If the fit results exist and are of
             // a non-negative fit quality, use the fitted results.
             IFitResult fitResult = pulseFitter.fitPulse(hit, thresholdCrossing, values[3]);
@@ -214,4 +231,4 @@ public class EcalMode1RawConverter extends AbstractMode1RawConverter {
     private EcalChannelConstants findChannel(long cellID) {
         return ecalConditions.getChannelConstants(ecalConditions.getChannelCollection().findGeometric(cellID));
     }
-}
+}
@@ -0,0 +1,247 @@
+package org.hps.recon.ecal;
+
+/**
+ * Least-squares fit of an FADC Mode-1 waveform with the fixed-width "3-pole" function of {@link Ecal3PoleFunction}:
+ *
+ * <pre>
+ * PEDESTAL + INTEGRAL / WIDTH^3 / 2 * (TIME-TIME0)**2 * exp(-(TIME-TIME0)/WIDTH)
+ * </pre>
+ *
+ * With the width fixed, the function is linear in pedestal and integral, so for a given time0 they are solved in
+ * closed form and the chi2 becomes a function of time0 alone. That function is scanned on a grid of half samples
+ * around the starting time and its minimum is refined by root finding on its analytic derivative, within the time0
+ * limits. The integral is constrained to be non-negative, like in the Minuit fit of {@link EcalPulseFitter}.
+ * <p>
+ * The fitter keeps its work arrays between fits and holds the result of the last fit, so one instance should be used
+ * per thread.
+ */
+public class Ecal3PoleFitter {
+
+    /**
+     * Spacing of the time0 grid scan (units = samples).
+     */
+    private static final double GRID_STEP = 0.5;
+
+    /**
+     * Half-width of the time0 grid scan around the starting value (units = samples).
+     */
+    private static final double GRID_RANGE = 4;
+
+    /**
+     * Tolerance on time0 of the final root finding (units = samples).
+     */
+    private static final double TIME_TOLERANCE = 1e-4;
+
+    private static final int MAX_ITERATIONS = 50;
+
+    // work arrays, grown as needed
+    private double[] shape = new double[32];
+    private double[] shapeDerivative = new double[32];
+
+    // waveform being fit
+    private short[] samples;
+    private int first;
+    private int nPoints;
+    private double width;
+    private double norm;
+    private double sumY;
+    private double sumYY;
+
+    // result of the last profile evaluation
+    private double pedestal;
+    private double integral;
+    private double chi2;
+
+    // result of the last fit
+    private double fitPedestal;
+    private double fitTime0;
+    private double fitIntegral;
+    private double fitChi2;
+    private double fitWidth;
+    private int fitNdf;
+
+    /**
+     * Fit the samples <code>first</code> to <code>last - 1</code> of a waveform; sample i is at time i.
+     *
+     * @param samples the ADC samples
+     * @param first the first sample to fit
+     * @param last one past the last sample to fit
+     * @param noise the noise of one sample (units = ADC)
+     * @param width the fixed pulse width (units = samples)
+     * @param time0Start starting value of time0 (units = samples)
+     * @param time0Lo lower limit of time0
+     * @param time0Hi upper limit of time0
+     * @return false if there are too few samples to fit
+     */
+    public boolean fit(short[] samples, int first, int last, double noise, double width, double time0Start,
+            double time0Lo, double time0Hi) {
+        this.samples = samples;
+        this.first = first;
+        this.nPoints = last - first;
+        this.width = width;
+        this.norm = 0.5 / (width * width * width);
+        if (nPoints < 4 || time0Hi < time0Lo) {
+            return false;
+        }
+        if (shape.length < nPoints) {
+            shape = new double[nPoints];
+            shapeDerivative = new double[nPoints];
+        }
+        sumY = 0;
+        sumYY = 0;
+        for (int ii = first; ii < last; ii++) {
+            sumY += samples[ii];
+            sumYY += (double) samples[ii] * samples[ii];
+        }
+
+        // coarse scan of the profile chi2:
+        final double start = Math.max(time0Lo, Math.min(time0Hi, time0Start));
+        final double lo = Math.max(time0Lo, start - GRID_RANGE);
+        final double hi = Math.min(time0Hi, start + GRID_RANGE);
+        double bestTime = lo;
+        double bestChi2 = Double.MAX_VALUE;
+        for (double t = lo; t <= hi + 1e-9; t += GRID_STEP) {
+            if (profile(t) < bestChi2) {
+                bestChi2 = chi2;
+                bestTime = t;
+            }
+        }
+
+        // refine: find the zero of the derivative around the best grid point
+        double a = Math.max(lo, bestTime - GRID_STEP);
+        double b = Math.min(hi, bestTime + GRID_STEP);
+        double fitTime = bestTime;
+        double da = derivative(a);
+        double db = derivative(b);
+        if (da < 0 && db > 0) {
+            // Illinois variant of regula falsi, always keeping the bracket
+            int side = 0;
+            for (int iter = 0; iter < MAX_ITERATIONS && b - a > TIME_TOLERANCE; iter++) {
+                double t = (a * db - b * da) / (db - da);
+                if (!(t > a && t < b)) {
+                    t = 0.5 * (a + b);
+                }
+                double dt = derivative(t);
+                if (dt > 0) {
+                    b = t;
+                    db = dt;
+                    if (side == -1) {
+                        da *= 0.5;
+                    }
+                    side = -1;
+                } else {
+                    a = t;
+                    da = dt;
+                    if (side == 1) {
+                        db *= 0.5;
+                    }
+                    side = 1;
+                }
+            }
+            fitTime = 0.5 * (a + b);
+            if (profile(fitTime) > bestChi2) {
+                fitTime = bestTime;
+            }
+        }
+
+        profile(fitTime);
+        fitTime0 = fitTime;
+        fitPedestal = pedestal;
+        fitIntegral = integral;
+        fitWidth = width;
+        fitChi2 = chi2 / (noise * noise);
+        fitNdf = nPoints - 3;
+        return true;
+    }
+
+    /**
+     * Solve pedestal and integral for a given time0 and return the unnormalized chi2.
+     */
+    private double profile(double time0) {
+        double sumG = 0;
+        double sumGG = 0;
+        double sumGY = 0;
+        for (int i = 0; i < nPoints; i++) {
+            final double dt = first + i - time0;
+            double g = 0;
+            double gp = 0;
+            if (dt > 0) {
+                final double e = Math.exp(-dt / width) * norm;
+                g = dt * dt * e;
+                gp = dt * (2 - dt / width) * e;
+            }
+            shape[i] = g;
+            shapeDerivative[i] = gp;
+            sumG += g;
+            sumGG += g * g;
+            sumGY += g * samples[first + i];
+        }
+        final double n = nPoints;
+        final double det = n * sumGG - sumG * sumG;
+        integral = det > 1e-12 ? (n * sumGY - sumG * sumY) / det : 0;
+        if (integral < 0) {
+            integral = 0;
+        }
+        pedestal = (sumY - integral * sumG) / n;
+        chi2 = sumYY - 2 * pedestal * sumY - 2 * integral * sumGY + n * pedestal * pedestal + 2 * pedestal * integral
+                * sumG + integral * integral * sumGG;
+        if (chi2 < 0) {
+            chi2 = 0;
+        }
+        return chi2;
+    }
+
+    /**
+     * Derivative of the profile chi2 with respect to time0. Pedestal and integral are at their optimum, so only the
+     * explicit dependence on time0 remains.
+     */
+    private double derivative(double time0) {
+        profile(time0);
+        double sum = 0;
+        for (int i = 0; i < nPoints; i++) {
+            final double residual = samples[first + i] - pedestal - integral * shape[i];
+            sum += residual * shapeDerivative[i];
+        }
+        return 2 * integral * sum;
+    }
+
+    public double getPedestal() {
+        return fitPedestal;
+    }
+
+    /**
+     * @return the pulse start time (units = samples)
+     */
+    public double getTime0() {
+        return fitTime0;
+    }
+
+    /**
+     * @return the pulse integral above pedestal (units = ADC x samples)
+     */
+    public double getIntegral() {
+        return fitIntegral;
+    }
+
+    public double getChi2() {
+        return fitChi2;
+    }
+
+    public int getNdf() {
+        return fitNdf;
+    }
+
+    /**
+     * @return chi2 per degree of freedom, which is also what the converters use as fit quality
+     */
+    public double getQuality() {
+        return fitNdf > 0 ? fitChi2 / fitNdf : 0;
+    }
+
+    /**
+     * @return the fitted function at its maximum, as {@link Ecal3PoleFunction#maximum()}
+     */
+    public double getMaximum() {
+        return fitPedestal + 2 * fitIntegral * Math.exp(-2) / fitWidth;
+    }
+}
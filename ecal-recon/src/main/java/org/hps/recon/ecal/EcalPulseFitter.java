@@ -12,6 +12,7 @@ import hep.aida.IPlotter;
 
 // import java.io.FileWriter;
 // import java.io.IOException;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -62,6 +63,11 @@ public class EcalPulseFitter {
      */
     public double globalThreePoleWidth = -999;
 
+    /**
+     * If this is true and the width is fixed, fit with {@link Ecal3PoleFitter} instead of Minuit.
+     */
+    public boolean useAnalyticFit = false;
+
     /**
      * 442 channels' widths, measured from 2015 data (units = samples)
      */
@@ -117,6 +123,8 @@ public class EcalPulseFitter {
     IFunction fitFcn3Pole = new Ecal3PoleFunction();
     IDataPointSet fitData = aida.analysisFactory().createDataPointSetFactory(null).create("ADC DataPointSet", 2);
 
+    private final Ecal3PoleFitter analyticFitter = new Ecal3PoleFitter();
+
     private boolean debug;
     private IPlotter plotter1;
     private IPlotter plotter2;
@@ -344,6 +352,93 @@ public class EcalPulseFitter {
         return fitResult;
     }
 
+    /**
+     * @return true if {@link #fitPulseAnalytic(RawTrackerHit, int, double)} is used instead of
+     *         {@link #fitPulse(RawTrackerHit, int, double)}: the width is fixed and the fits are not being displayed.
+     */
+    public boolean isAnalytic() {
+        return useAnalyticFit && fixShapeParameter && !debug;
+    }
+
+    /**
+     * Perform "3-pole" fit of ECAL raw waveform with fixed width, with the same sample selection and limits as
+     * {@link #fitPulse(RawTrackerHit, int, double)}.
+     *
+     * @param hit the RawTrackerHit (Mode-1 FADC ECal readout) to be fit
+     * @param threshCross the sample of threshold crossing, used to initialize fit parameters
+     * @param maxADC the ADC at pulse maximum
+     * @return the fitter holding the result, which is overwritten by the next fit, or null if certain conditions are
+     *         not met
+     */
+    public Ecal3PoleFitter fitPulseAnalytic(RawTrackerHit hit, int threshCross, double maxADC) {
+
+        // don't bother with pulses far from trigger:
+        if (threshCross < threshRange[0] || threshCross > threshRange[1])
+            return null;
+
+        final short samples[] = hit.getADCValues();
+
+        // pedestal, only to decide whether to fit:
+        int nped = 0;
+        double ped = 0;
+        final int pedLast = Math.min(samples.length, threshCross + pedRange[1]);
+        for (int ii = Math.max(0, threshCross + pedRange[0]); ii < pedLast; ii++) {
+            ped += samples[ii];
+            nped++;
+        }
+        if (nped == 0)
+            return null;
+        ped /= nped;
+
+        final int first = Math.max(0, threshCross + fitRange[0]);
+        final int last = Math.min(samples.length, threshCross + fitRange[1]);
+        if (last - first < 10)
+            return null;
+        if (maxADC < ped)
+            return null;
+
+        final long cellID = hit.getCellID();
+        final double noise = findChannel(cellID).getCalibration().getNoise();
+        final double width;
+        if (globalThreePoleWidth > 0)
+            width = globalThreePoleWidth;
+        else
+            width = threePoleWidths[ecalConditions.getChannelCollection().findGeometric(cellID).getChannelId() - 1];
+
+        if (!analyticFitter.fit(samples, first, last, noise, width, threshCross - 2, t0limits[0], t0limits[1]))
+            return null;
+        return analyticFitter;
+    }
+
+    /**
+     * Fit a list of hits with {@link #fitPulseAnalytic(RawTrackerHit, int, double)}.
+     *
+     * @param hits the hits
+     * @param threshCross the sample of threshold crossing of each hit
+     * @param maxADC the ADC at pulse maximum of each hit
+     * @param results filled with time0 (units = samples), integral, pedestal, maximum and fit quality of each hit, 5
+     *            entries per hit; fit quality is 0 for hits that were not fit
+     * @return the number of hits that were fit
+     */
+    public int fitPulses(List<RawTrackerHit> hits, int[] threshCross, double[] maxADC, double[] results) {
+        int nFit = 0;
+        for (int i = 0; i < hits.size(); i++) {
+            Ecal3PoleFitter fit = fitPulseAnalytic(hits.get(i), threshCross[i], maxADC[i]);
+            final int j = 5 * i;
+            if (fit == null) {
+                results[j] = results[j + 1] = results[j + 2] = results[j + 3] = results[j + 4] = 0;
+                continue;
+            }
+            results[j] = fit.getTime0();
+            results[j + 1] = fit.getIntegral();
+            results[j + 2] = fit.getPedestal();
+            results[j + 3] = fit.getMaximum();
+            results[j + 4] = fit.getQuality();
+            nFit++;
+        }
+        return nFit;
+    }
+
     /**
      * calculate chi2 for debug
      * 
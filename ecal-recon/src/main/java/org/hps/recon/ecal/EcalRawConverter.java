@@ -174,6 +174,13 @@ public class EcalRawConverter {
         this.useFit = useFit;
     }
 
+    /**
+     * Fit with fixed width using the analytic fitter rather than Minuit (default).
+     */
+    public void setUseAnalyticFit(boolean useAnalyticFit) {
+        pulseFitter.useAnalyticFit = useAnalyticFit;
+    }
+
     public void setFixShapeParameter(boolean fix) {
         pulseFitter.fixShapeParameter = fix;
     }
@@ -346,7 +353,15 @@ public class EcalRawConverter {
             return config.getPedestal(cellID);
         }
         if (useRunningPedestal && event != null) {
-            if (event.hasItem("EcalRunningPedestals")) {
+            if (event.hasItem(RunningPedestals.ECAL_COLLECTION_NAME)) {
+                RunningPedestals runningPeds = (RunningPedestals) event.get(RunningPedestals.ECAL_COLLECTION_NAME);
+                EcalChannel chan = ecalConditions.getChannelCollection().findGeometric(cellID);
+                if (chan == null || !runningPeds.hasChannel(chan.getChannelId())) {
+                    System.err.println("************** Missing Pedestal");
+                } else {
+                    return runningPeds.getPedestal(chan.getChannelId());
+                }
+            } else if (event.hasItem("EcalRunningPedestals")) {
                 Map<EcalChannel, Double> runningPedMap = (Map<EcalChannel, Double>) event.get("EcalRunningPedestals");
                 EcalChannel chan = ecalConditions.getChannelCollection().findGeometric(cellID);
                 if (!runningPedMap.containsKey(chan)) {
@@ -480,7 +495,18 @@ public class EcalRawConverter {
             }
         }
 
-        if (useFit) {
+        if (useFit && pulseFitter.isAnalytic()) {
+            Ecal3PoleFitter fit = pulseFitter.fitPulseAnalytic(hit, thresholdCrossing, maxADC);
+            if (fit != null) {
+                fitQuality = fit.getQuality();
+                if (fitQuality > 0) {
+                    pulseTime = fit.getTime0() * nsPerSample;
+                    sumADC = fit.getIntegral();
+                    minADC = fit.getPedestal();
+                    maxADC = fit.getMaximum();
+                }
+            }
+        } else if (useFit) {
             IFitResult fitResult = pulseFitter.fitPulse(hit, thresholdCrossing, maxADC);
             if (fitResult != null) {
                 fitQuality = fitResult.quality();
@@ -132,6 +132,13 @@ public class EcalRawConverter3Driver extends Driver {
         converter.setFixShapeParameter(fix);
     }
 
+    /**
+     * Set to <code>true</code> to fit fixed-width pulses with the analytic fitter instead of Minuit.
+     */
+    public void setUseAnalyticFit(boolean useAnalyticFit) {
+        converter.setUseAnalyticFit(useAnalyticFit);
+    }
+
     /**
      * Limit threshold crossing range that is candidate for pulse-fitting. Units=samples.
      */
@@ -131,6 +131,11 @@ public class EcalRawConverterDriver extends Driver {
      * Set to <code>true</code> to fix fitted pulse widths to their channel's mean value:<br/>
      */
     public void setFixShapeParameter(boolean fix) { converter.setFixShapeParameter(fix); }
+
+    /**
+     * Set to <code>true</code> to fit fixed-width pulses with the analytic fitter instead of Minuit.
+     */
+    public void setUseAnalyticFit(boolean useAnalyticFit) { converter.setUseAnalyticFit(useAnalyticFit); }
    
     /**
      * Limit threshold crossing range that is candidate for pulse-fitting.   Units=samples.
@@ -130,13 +130,20 @@ public class HodoRawConverter {
 
         if (useRunningPedestal && event != null) {
 
-            Map<HodoscopeChannel, Double> runningPedMap = (Map<HodoscopeChannel, Double>) event.get("HodoRunningPedestals");
-            
             HodoscopeChannel chan;
             if(!isMC)
                 chan = hodoConditions.getChannels().findGeometric(cellid);
             else
                 chan = hodoConditions.getChannels().findChannel((int)cellid);
+
+            if (event.hasItem(RunningPedestals.HODO_COLLECTION_NAME)) {
+                RunningPedestals runningPeds = (RunningPedestals) event.get(RunningPedestals.HODO_COLLECTION_NAME);
+                if (runningPeds.hasChannel(chan.getChannelId())) {
+                    return runningPeds.getPedestal(chan.getChannelId());
+                }
+            }
+
+            Map<HodoscopeChannel, Double> runningPedMap = (Map<HodoscopeChannel, Double>) event.get("HodoRunningPedestals");
             
             return runningPedMap.get(chan);
         } else {
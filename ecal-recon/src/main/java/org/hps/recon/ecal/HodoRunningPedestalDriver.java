@@ -1,6 +1,5 @@
 package org.hps.recon.ecal;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,9 +48,8 @@ public class HodoRunningPedestalDriver extends Driver {
     // running pedestal averages, one for each channel:
     private Map<HodoscopeChannel, Double> runningPedestals = new HashMap<HodoscopeChannel, Double>(nChannels);
 
-    // recent event-by-event pedestals and timestamps:
-    private Map<HodoscopeChannel, List<Double>> eventPedestals = new HashMap<HodoscopeChannel, List<Double>>();
-    private Map<HodoscopeChannel, List<Long>> eventTimestamps = new HashMap<HodoscopeChannel, List<Long>>();
+    // recent event-by-event pedestals and timestamps, indexed by channel ID:
+    private RunningPedestals pedestals = null;
 
     private boolean debug = false;
     private HodoscopeConditions hodoConditions = null;
@@ -78,11 +76,12 @@ public class HodoRunningPedestalDriver extends Driver {
         
         mydet = detector;
         hodoConditions = DatabaseConditionsManager.getInstance().getHodoConditions();
+        pedestals = new RunningPedestals(nChannels, minLookbackEvents,
+                maxLookbackEvents > 0 ? maxLookbackEvents : limitLookbackEvents, maxLookbackTime);
         for (int ii = 0; ii < nChannels; ii++) {
             HodoscopeChannel chan = findChannel(ii + 1);
             runningPedestals.put(chan, getStaticPedestal(chan));
-            eventPedestals.put(chan, new ArrayList<Double>());
-            eventTimestamps.put(chan, new ArrayList<Long>());
+            pedestals.reset(chan.getChannelId(), getStaticPedestal(chan));
         }
         if (debug) {
             System.out.println("Running and static pedestals better match here:");
@@ -152,12 +151,14 @@ public class HodoRunningPedestalDriver extends Driver {
 //                System.out.println(Arrays.toString(samples));
 //                System.out.println( "Conditions " + hodoConditions.getChannelConstants(findChannel(hit)).getCalibration().toString());
                 
+                HodoscopeChannel chan = findChannel(hit);
+                final double threshold = getStaticPedestal(chan) + 12;
                 boolean good = true;
                 double ped = 0;
                 for (int ii = 0; ii < nSamples; ii++) {
                     // reject pulses from pedestal calculation:
 
-                    if (samples[ii] > getStaticPedestal(findChannel(hit)) + 12) {
+                    if (samples[ii] > threshold) {
                         good = false;
                         break;
                     }
@@ -166,12 +167,13 @@ public class HodoRunningPedestalDriver extends Driver {
                                 
                 if (good) {
                     ped /= nSamples;
-                    updatePedestal(event, findChannel(hit), ped);
+                    updatePedestal(event, chan, ped);
                 }
             }
         }
 
         event.put(runningPedestalsName, runningPedestals);
+        event.put(RunningPedestals.HODO_COLLECTION_NAME, pedestals);
 
         if (debug) {
             printPedestals();
@@ -215,59 +217,18 @@ public class HodoRunningPedestalDriver extends Driver {
     private void updatePedestal(EventHeader event, HodoscopeChannel chan, double min) {
 
         final long timestamp = event.getTimeStamp();
-
-        List<Double> peds = eventPedestals.get(chan);
-        List<Long> times = eventTimestamps.get(chan);
-
-        if (maxLookbackTime > 0) {
-            // If new timestamp is older than previous one, restart pedestals.
-            // This should never happen unless firmware counter cycles back to zero,
-            // in which case it could be dealt with if max timestamp is known.
-            if (times.size() > 0 && times.get(0) > timestamp) {
-                System.err.println(String.format("Event #%d, Old Timestamp:  %d < %d", event.getEventNumber(),
-                        timestamp, times.get(0)));
-                peds.clear();
-                times.clear();
-            }
-        }
-
-        // add pedestal to the list:
-        peds.add(min);
-        times.add(timestamp);
-
-        if (peds.size() > 1) {
-
-            // remove oldest pedestal if surpassed limit on #events:
-            if (peds.size() > limitLookbackEvents || (maxLookbackEvents > 0 && peds.size() > maxLookbackEvents)) {
-                peds.remove(0);
-                times.remove(0);
-            }
-
-            // remove old pedestals surpassing limit on lookback time:
-            if (maxLookbackTime > 0) {
-                while (times.size() > 1) {
-                    if (times.get(0) < timestamp - maxLookbackTime * 1e6) {
-                        times.remove(0);
-                        peds.remove(0);
-                    } else {
-                        break;
-                    }
-                }
-            }
-        }
-
-        // Update running pedestal average:
-        double ped = 0;
-        if (peds.size() >= minLookbackEvents) {
-            for (int jj = 0; jj < peds.size(); jj++) {
-                ped += peds.get(jj);
-            }
-            ped /= peds.size();
-        } else {
-            ped = getStaticPedestal(chan);
+        final int channelId = chan.getChannelId();
+
+        // If new timestamp is older than previous one, the pedestals are restarted.
+        // This should never happen unless firmware counter cycles back to zero,
+        // in which case it could be dealt with if max timestamp is known.
+        final long oldest = pedestals.getOldestTimestamp(channelId);
+        if (!pedestals.add(channelId, min, timestamp)) {
+            System.err.println(String.format("Event #%d, Old Timestamp:  %d < %d", event.getEventNumber(),
+                    timestamp, oldest));
         }
 
-        runningPedestals.put(chan, ped);
+        runningPedestals.put(chan, pedestals.getPedestal(channelId));
     }
 
     public double getStaticPedestal(HodoscopeChannel chan) {                
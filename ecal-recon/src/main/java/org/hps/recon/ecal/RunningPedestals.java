@@ -0,0 +1,188 @@
+package org.hps.recon.ecal;
+
+import java.util.Arrays;
+
+/**
+ * Running pedestal averages for a set of FADC channels, indexed by channel number.
+ * <p>
+ * Each channel keeps its recent event-by-event pedestals and timestamps in a primitive ring buffer together with
+ * their sum, so adding a pedestal and reading the average are O(1). The lookback rules are those of
+ * {@link EcalRunningPedestalDriver}: at most <code>maxLookbackEvents</code> entries, entries older than
+ * <code>maxLookbackTime</code> are dropped, and the static pedestal from the database is returned until
+ * <code>minLookbackEvents</code> entries are available.
+ * <p>
+ * The running pedestal drivers put their instance into the event (see {@link #ECAL_COLLECTION_NAME} and
+ * {@link #HODO_COLLECTION_NAME}) so that the raw converters can read it directly.
+ */
+public class RunningPedestals {
+
+    /** Name of the event item holding the ECal running pedestals. */
+    public static final String ECAL_COLLECTION_NAME = "EcalRunningPedestalTable";
+
+    /** Name of the event item holding the hodoscope running pedestals. */
+    public static final String HODO_COLLECTION_NAME = "HodoRunningPedestalTable";
+
+    private final int nChannels;
+    private final int capacity;
+
+    private final double[] staticPedestals;
+    private final double[] pedestals;
+
+    // ring buffers: entries of channel ii are stored in [ii*capacity, (ii+1)*capacity)
+    private final double[] eventPedestals;
+    private final long[] eventTimestamps;
+    private final int[] first;
+    private final int[] size;
+    private final double[] sum;
+
+    private final int minLookbackEvents;
+    private final long maxLookbackTime; // units = ms, negative = no time limit
+
+    /**
+     * Create empty running pedestals.
+     *
+     * @param nChannels number of channels; channel numbers run from 1 to <code>nChannels</code>
+     * @param minLookbackEvents minimum number of entries for a running average
+     * @param maxLookbackEvents maximum number of entries in a running average
+     * @param maxLookbackTime oldest allowed entry in ms, or negative for no time limit
+     */
+    public RunningPedestals(int nChannels, int minLookbackEvents, int maxLookbackEvents, long maxLookbackTime) {
+        if (maxLookbackEvents < 1) {
+            throw new IllegalArgumentException("maxLookbackEvents must be positive: " + maxLookbackEvents);
+        }
+        this.nChannels = nChannels;
+        this.capacity = maxLookbackEvents;
+        this.minLookbackEvents = minLookbackEvents;
+        this.maxLookbackTime = maxLookbackTime;
+        staticPedestals = new double[nChannels];
+        pedestals = new double[nChannels];
+        eventPedestals = new double[nChannels * capacity];
+        eventTimestamps = new long[nChannels * capacity];
+        first = new int[nChannels];
+        size = new int[nChannels];
+        sum = new double[nChannels];
+    }
+
+    public int getChannelCount() {
+        return nChannels;
+    }
+
+    /**
+     * Set the static pedestal of a channel and clear its history.
+     *
+     * @param channel the channel number, from 1 to {@link #getChannelCount()}
+     * @param pedestal the pedestal from the conditions database
+     */
+    public void reset(int channel, double pedestal) {
+        int ii = channel - 1;
+        staticPedestals[ii] = pedestal;
+        pedestals[ii] = pedestal;
+        first[ii] = 0;
+        size[ii] = 0;
+        sum[ii] = 0;
+    }
+
+    /**
+     * Clear the history of every channel, going back to the static pedestals.
+     */
+    public void clear() {
+        System.arraycopy(staticPedestals, 0, pedestals, 0, nChannels);
+        Arrays.fill(first, 0);
+        Arrays.fill(size, 0);
+        Arrays.fill(sum, 0);
+    }
+
+    /**
+     * @param channel the channel number
+     * @return true if the channel number is covered by this table
+     */
+    public boolean hasChannel(int channel) {
+        return channel >= 1 && channel <= nChannels;
+    }
+
+    /**
+     * Get the current pedestal of a channel.
+     *
+     * @param channel the channel number, from 1 to {@link #getChannelCount()}
+     * @return the running average, or the static pedestal if there are not enough entries yet
+     */
+    public double getPedestal(int channel) {
+        return pedestals[channel - 1];
+    }
+
+    public double getStaticPedestal(int channel) {
+        return staticPedestals[channel - 1];
+    }
+
+    /**
+     * @param channel the channel number
+     * @return number of entries in the running average of the channel
+     */
+    public int getEntries(int channel) {
+        return size[channel - 1];
+    }
+
+    /**
+     * @param channel the channel number
+     * @return timestamp of the oldest entry of the channel, or -1 if it has none
+     */
+    public long getOldestTimestamp(int channel) {
+        int ii = channel - 1;
+        return size[ii] > 0 ? eventTimestamps[ii * capacity + first[ii]] : -1;
+    }
+
+    /**
+     * Add the pedestal measured in one event to a channel and update its running average.
+     *
+     * @param channel the channel number, from 1 to {@link #getChannelCount()}
+     * @param pedestal the pedestal measured in the event
+     * @param timestamp the event timestamp in ns
+     * @return false if the timestamp was older than the oldest entry, in which case the history was restarted
+     */
+    public boolean add(int channel, double pedestal, long timestamp) {
+        final int ii = channel - 1;
+        final int offset = ii * capacity;
+        boolean ordered = true;
+
+        if (maxLookbackTime > 0) {
+            // If new timestamp is older than previous one, restart pedestals.
+            if (size[ii] > 0 && eventTimestamps[offset + first[ii]] > timestamp) {
+                first[ii] = 0;
+                size[ii] = 0;
+                sum[ii] = 0;
+                ordered = false;
+            }
+        }
+
+        // remove oldest pedestal if the buffer is full:
+        if (size[ii] == capacity) {
+            sum[ii] -= eventPedestals[offset + first[ii]];
+            first[ii] = (first[ii] + 1) % capacity;
+            size[ii]--;
+        }
+
+        // add pedestal to the buffer:
+        int last = (first[ii] + size[ii]) % capacity;
+        eventPedestals[offset + last] = pedestal;
+        eventTimestamps[offset + last] = timestamp;
+        sum[ii] += pedestal;
+        size[ii]++;
+
+        // remove old pedestals surpassing limit on lookback time:
+        if (maxLookbackTime > 0) {
+            while (size[ii] > 1 && eventTimestamps[offset + first[ii]] < timestamp - maxLookbackTime * 1e6) {
+                sum[ii] -= eventPedestals[offset + first[ii]];
+                first[ii] = (first[ii] + 1) % capacity;
+                size[ii]--;
+            }
+        }
+
+        // The entries are ADC counts or averages of a few of them, so the sum stays exact and never drifts.
+        if (size[ii] >= minLookbackEvents) {
+            pedestals[ii] = sum[ii] / size[ii];
+        } else {
+            pedestals[ii] = staticPedestals[ii];
+        }
+        return ordered;
+    }
+}
@@ -3,6 +3,7 @@ package org.hps.recon.ecal.cluster;
 import hep.physics.vec.Hep3Vector;
 import java.util.List;
 import java.util.Random;
+import java.util.logging.Logger;
 import org.hps.detector.ecal.EcalCrystal;
 import org.hps.detector.ecal.HPSEcalDetectorElement;
 import org.jdom.DataConversionException;
@@ -12,6 +13,8 @@ import org.lcsim.geometry.subdetector.HPSEcal3;
 
 public final class ClusterCorrectionUtilities {
 
+    private static final Logger LOG = Logger.getLogger(ClusterCorrectionUtilities.class.getName());
+
     static final double CUTOFF_OFFSET = 35.0;
 
     // Variables derived as the difference between data and mc noise in
@@ -32,6 +35,45 @@ public final class ClusterCorrectionUtilities {
     static final double deltaClusterX_thr2021 = 0.5; // abs dX in mm
     static final double deltaClusterY_thr2021 = 0.5; // abs dY in mm
 
+    // Evaluate the 2019 and 2021 energy corrections from SamplingFractionTable
+    // instead of the splines, and optionally compare the two.
+    static volatile boolean useCorrectionTables = true;
+    static volatile boolean validateCorrectionTables = false;
+    static final double VALIDATION_TOLERANCE = 1e-9; // relative
+    private static double maxValidationDifference = 0;
+
+    // Beam gap edge of the current detector, see computeYDistanceFromEdge
+    private static volatile EdgeGeometry edgeGeometry = null;
+
+    /**
+     * Set whether the 2019 and 2021 energy corrections are evaluated from the
+     * tabulated parametrization (the default) or from the splines.
+     */
+    public static void setUseCorrectionTables(boolean useCorrectionTables) {
+        ClusterCorrectionUtilities.useCorrectionTables = useCorrectionTables;
+    }
+
+    /**
+     * Set whether every tabulated energy correction is also computed from the
+     * splines and compared; differences above a relative 1e-9 are logged.
+     */
+    public static void setValidateCorrectionTables(boolean validateCorrectionTables) {
+        ClusterCorrectionUtilities.validateCorrectionTables = validateCorrectionTables;
+    }
+
+    static synchronized void validateCorrection(String correction, int pdg, double r, double rawEnergy,
+            double tabulated, double spline) {
+        double difference = Math.abs(tabulated / spline - 1);
+        if (difference > maxValidationDifference) {
+            maxValidationDifference = difference;
+            LOG.fine(correction + ": largest relative difference of table and splines so far " + difference);
+        }
+        if (difference > VALIDATION_TOLERANCE) {
+            LOG.warning(String.format("%s: tabulated correction %.9f differs from splines %.9f for pdg %d, E = %f,"
+                    + " r = %f", correction, tabulated, spline, pdg, rawEnergy, r));
+        }
+    }
+
     // Calculate the noise factor to smear the Ecal energy by
     public static double calcNoise(double energy) {
         return random.nextGaussian() * Math.sqrt(NOISE_A + NOISE_B * energy + NOISE_C * Math.pow(energy, 2));
@@ -339,59 +381,99 @@ public final class ClusterCorrectionUtilities {
     }
 
     public static final double computeYDistanceFromEdge(HPSEcal3 ecal, double xpos, double ypos) {
-        // distance to beam gap edge
-        double ydist;
-        // Get these values from the Ecal geometry:
-        HPSEcalDetectorElement detElement = (HPSEcalDetectorElement) ecal.getDetectorElement();
-        double BEAMGAPTOP = 20.0;
-        try {
-            BEAMGAPTOP = ecal.getNode().getChild("layout").getAttribute("beamgapTop").getDoubleValue();
-        } catch (DataConversionException e) {
+        return getEdgeGeometry(ecal).computeYDistanceFromEdge(xpos, ypos);
+    }
+
+    /**
+     * Get the beam gap edge of a detector, reading it from the geometry the
+     * first time the detector is seen.
+     */
+    private static EdgeGeometry getEdgeGeometry(HPSEcal3 ecal) {
+        EdgeGeometry edge = edgeGeometry;
+        if (edge == null || edge.ecal != ecal) {
+            edge = new EdgeGeometry(ecal);
+            edgeGeometry = edge;
+        }
+        return edge;
+    }
+
+    /**
+     * The beam gap edges of the calorimeter and the x extent of the row 1 cut
+     * out, which computeYDistanceFromEdge used to read from the geometry for
+     * every cluster.
+     */
+    private static final class EdgeGeometry {
+        final HPSEcal3 ecal;
+        final double beamGapTop;
+        final double beamGapBot;
+        final double beamGapTopC;
+        final double beamGapBotC;
+        final double xMin;
+        final double xMax;
+
+        EdgeGeometry(HPSEcal3 ecal) {
+            this.ecal = ecal;
+            // Get these values from the Ecal geometry:
+            HPSEcalDetectorElement detElement = (HPSEcalDetectorElement) ecal.getDetectorElement();
+            double BEAMGAPTOP = 20.0;
             try {
-                BEAMGAPTOP = ecal.getNode().getChild("layout").getAttribute("beamgap").getDoubleValue();
-            } catch (DataConversionException ee) {
-                ee.printStackTrace();
+                BEAMGAPTOP = ecal.getNode().getChild("layout").getAttribute("beamgapTop").getDoubleValue();
+            } catch (DataConversionException e) {
+                try {
+                    BEAMGAPTOP = ecal.getNode().getChild("layout").getAttribute("beamgap").getDoubleValue();
+                } catch (DataConversionException ee) {
+                    ee.printStackTrace();
+                }
             }
-        }
-        double BEAMGAPBOT = -20.0;
-        try {
-            BEAMGAPBOT = -ecal.getNode().getChild("layout").getAttribute("beamgapBottom").getDoubleValue();
-        } catch (DataConversionException e) {
+            double BEAMGAPBOT = -20.0;
             try {
-                BEAMGAPBOT = -ecal.getNode().getChild("layout").getAttribute("beamgap").getDoubleValue();
-            } catch (DataConversionException ee) {
-                ee.printStackTrace();
+                BEAMGAPBOT = -ecal.getNode().getChild("layout").getAttribute("beamgapBottom").getDoubleValue();
+            } catch (DataConversionException e) {
+                try {
+                    BEAMGAPBOT = -ecal.getNode().getChild("layout").getAttribute("beamgap").getDoubleValue();
+                } catch (DataConversionException ee) {
+                    ee.printStackTrace();
+                }
             }
+            beamGapTop = BEAMGAPTOP;
+            beamGapBot = BEAMGAPBOT;
+            beamGapTopC = BEAMGAPTOP + 13.0; // mm
+            beamGapBotC = BEAMGAPBOT - 13.0; // mm
+            // x-coordinates of crystals on either side of row 1 cut out
+            EcalCrystal crystalM = detElement.getCrystal(-11, 1);
+            Hep3Vector posM = crystalM.getPositionFront();
+            EcalCrystal crystalP = detElement.getCrystal(-1, 1);
+            Hep3Vector posP = crystalP.getPositionFront();
+            xMin = posM.x();
+            xMax = posP.x();
         }
-        double BEAMGAPTOPC = BEAMGAPTOP + 13.0; // mm
-        double BEAMGAPBOTC = BEAMGAPBOT - 13.0; // mm
-        // x-coordinates of crystals on either side of row 1 cut out
-        EcalCrystal crystalM = detElement.getCrystal(-11, 1);
-        Hep3Vector posM = crystalM.getPositionFront();
-        EcalCrystal crystalP = detElement.getCrystal(-1, 1);
-        Hep3Vector posP = crystalP.getPositionFront();
-        if ((xpos < posM.x()) || (xpos > posP.x())) {
-            if (ypos > 0) {
-                ydist = Math.abs(ypos - BEAMGAPTOP);
-            } else {
-                ydist = Math.abs(ypos - BEAMGAPBOT);
-            }
-        } else {
-            if (ypos > 0) {
-                if (ypos > (CUTOFF_OFFSET + BEAMGAPTOP)) {
-                    ydist = Math.abs(ypos - BEAMGAPTOP);
+
+        double computeYDistanceFromEdge(double xpos, double ypos) {
+            // distance to beam gap edge
+            double ydist;
+            if ((xpos < xMin) || (xpos > xMax)) {
+                if (ypos > 0) {
+                    ydist = Math.abs(ypos - beamGapTop);
                 } else {
-                    ydist = Math.abs(ypos - BEAMGAPTOPC);
+                    ydist = Math.abs(ypos - beamGapBot);
                 }
             } else {
-                if (ypos > (-CUTOFF_OFFSET + BEAMGAPBOT)) {
-                    ydist = Math.abs(ypos - BEAMGAPBOTC);
+                if (ypos > 0) {
+                    if (ypos > (CUTOFF_OFFSET + beamGapTop)) {
+                        ydist = Math.abs(ypos - beamGapTop);
+                    } else {
+                        ydist = Math.abs(ypos - beamGapTopC);
+                    }
                 } else {
-                    ydist = Math.abs(ypos - BEAMGAPBOT);
+                    if (ypos > (-CUTOFF_OFFSET + beamGapBot)) {
+                        ydist = Math.abs(ypos - beamGapBotC);
+                    } else {
+                        ydist = Math.abs(ypos - beamGapBot);
+                    }
                 }
             }
+            return ydist;
         }
-        return ydist;
     }
 
 }
@@ -48,6 +48,9 @@ public final class ClusterEnergyCorrection2021 {
     static PolynomialSplineFunction psf_parP0;
     static PolynomialSplineFunction psf_parP1;
 
+    // The splines above tabulated for electrons, positrons and photons, for data and MC
+    static SamplingFractionTable[][] tables = new SamplingFractionTable[2][];
+
     private static void loadDataCorrectionParameters() {
         String fname;
         fname = "2021SF_parameters_data.dat";
@@ -178,10 +181,33 @@ public final class ClusterEnergyCorrection2021 {
             if (type == DATA) {
                 loadDataCorrectionParameters();
             }
+            buildTables(type);
         }
         hasLoaded[type] = true;
     }
 
+    private static void buildTables(int type) {
+        PolynomialSplineFunction p0 = type == DATA ? psf_parP0 : null;
+        PolynomialSplineFunction p1 = type == DATA ? psf_parP1 : null;
+        tables[type] = new SamplingFractionTable[] {
+                new SamplingFractionTable(psf_parA_em, psf_parB_em, psf_parC_em, p0, p1),
+                new SamplingFractionTable(psf_parA_ep, psf_parB_ep, psf_parC_ep, p0, p1),
+                new SamplingFractionTable(psf_parA_p, psf_parB_p, psf_parC_p, p0, p1) };
+    }
+
+    private static int tableIndex(int pdg) {
+        switch (pdg) {
+            case 11:
+                return 0;
+            case -11:
+                return 1;
+            case 22:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
     /**
      * Calculates energy correction based on cluster raw energy and particle
      * type as per <a href=
@@ -214,6 +240,27 @@ public final class ClusterEnergyCorrection2021 {
             r = 2.5;
         }
 
+        if (ClusterCorrectionUtilities.useCorrectionTables) {
+            final int index = tableIndex(pdg);
+            if (index < 0) {
+                // unknown
+                return rawEnergy;
+            }
+            final double corrEnergy = tables[type][index].correctedEnergy(r, rawEnergy);
+            if (ClusterCorrectionUtilities.validateCorrectionTables) {
+                ClusterCorrectionUtilities.validateCorrection(name, pdg, r, rawEnergy, corrEnergy,
+                        computeSplineCorrectedEnergy(pdg, r, rawEnergy, isMC));
+            }
+            return corrEnergy;
+        }
+        return computeSplineCorrectedEnergy(pdg, r, rawEnergy, isMC);
+    }
+
+    /**
+     * Calculates the energy correction from the splines, for an edge distance
+     * already limited to the range of the parametrization.
+     */
+    private static double computeSplineCorrectedEnergy(int pdg, double r, double rawEnergy, boolean isMC) {
         if (isMC) {
             switch (pdg) {
                 case 11:
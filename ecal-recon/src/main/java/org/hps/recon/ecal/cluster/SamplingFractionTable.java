@@ -0,0 +1,112 @@
+package org.hps.recon.ecal.cluster;
+
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+
+/**
+ * Sampling fraction parametrization of the 2019 and 2021 cluster energy corrections, tabulated on a fine grid of the
+ * distance to the beam gap edge.
+ * <p>
+ * The sampling fraction of a cluster of raw energy E at a distance r from the edge is
+ *
+ * <pre>
+ * SF = A(r) / E + B(r) / sqrt(E) + C(r)
+ * </pre>
+ *
+ * multiplied by <code>p0(r) + p1(r) * E</code> for data, where A, B, C, p0 and p1 are cubic splines read from resource
+ * files. The table divides the range of r in cells of {@link #STEP} and stores, for each cell, the cubic of each
+ * parameter over the cell, all parameters of a cell being adjacent. A correction is then an index computation and a
+ * few polynomial evaluations, instead of a binary search through the knots of each spline. The energy dependence is
+ * kept analytic.
+ * <p>
+ * The knots of the resource files, and the point beyond which p0 and p1 are held constant, fall on cell boundaries,
+ * so the splines are reproduced to rounding. Parametrizations with other knots would be approximated within the cells
+ * containing a knot; {@link ClusterCorrectionUtilities#setValidateCorrectionTables(boolean)} compares with the splines.
+ */
+final class SamplingFractionTable {
+
+    /**
+     * Range of the distance to the edge covered by the parametrization (units = mm). The corrections clamp the
+     * distance to this range.
+     */
+    static final double R_MIN = 2.5;
+    static final double R_MAX = 65.5;
+
+    /**
+     * Cell size (units = mm).
+     */
+    static final double STEP = 0.01;
+
+    private static final int N_CELLS = (int) Math.round((R_MAX - R_MIN) / STEP);
+
+    private final int nPar;
+    private final double[] table;
+
+    /**
+     * @param a the A spline
+     * @param b the B spline
+     * @param c the C spline
+     * @param p0 the p0 spline for data, or <code>null</code> for MC
+     * @param p1 the p1 spline for data, or <code>null</code> for MC
+     */
+    SamplingFractionTable(PolynomialSplineFunction a, PolynomialSplineFunction b, PolynomialSplineFunction c,
+            PolynomialSplineFunction p0, PolynomialSplineFunction p1) {
+        nPar = p0 == null ? 3 : 5;
+        table = new double[N_CELLS * nPar * 4];
+        final double[] y = new double[4 * nPar];
+        for (int i = 0; i < N_CELLS; i++) {
+            // sample each parameter at 0, 1/3, 2/3 and 1 of the cell...
+            for (int j = 0; j < 4; j++) {
+                final double r = Math.min(R_MAX, R_MIN + (i + j / 3.0) * STEP);
+                y[j] = a.value(r);
+                y[4 + j] = b.value(r);
+                y[8 + j] = c.value(r);
+                if (p0 != null) {
+                    // p0 and p1 are not extrapolated beyond their knots
+                    y[12 + j] = p0.value(clamp(r, p0.getKnots()));
+                    y[16 + j] = p1.value(clamp(r, p1.getKnots()));
+                }
+            }
+            // ...and store the cubic through the samples in powers of the fraction of the cell
+            for (int k = 0; k < nPar; k++) {
+                final int s = 4 * k;
+                final int t = (i * nPar + k) * 4;
+                table[t] = y[s];
+                table[t + 1] = (-11 * y[s] + 18 * y[s + 1] - 9 * y[s + 2] + 2 * y[s + 3]) / 2;
+                table[t + 2] = (18 * y[s] - 45 * y[s + 1] + 36 * y[s + 2] - 9 * y[s + 3]) / 2;
+                table[t + 3] = (-9 * y[s] + 27 * y[s + 1] - 27 * y[s + 2] + 9 * y[s + 3]) / 2;
+            }
+        }
+    }
+
+    /**
+     * @param r the distance to the edge, within {@link #R_MIN} and {@link #R_MAX} (units = mm)
+     * @param rawEnergy the raw cluster energy (units = GeV)
+     * @return the corrected energy
+     */
+    double correctedEnergy(double r, double rawEnergy) {
+        double x = (r - R_MIN) / STEP;
+        int i = (int) x;
+        if (i < 0) {
+            i = 0;
+            x = 0;
+        } else if (i >= N_CELLS) {
+            i = N_CELLS - 1;
+            x = N_CELLS;
+        }
+        final double f = x - i;
+        final int t = i * nPar * 4;
+        double sf = evaluate(t, f) / rawEnergy + evaluate(t + 4, f) / Math.sqrt(rawEnergy) + evaluate(t + 8, f);
+        if (nPar == 5) {
+            sf *= evaluate(t + 12, f) + evaluate(t + 16, f) * rawEnergy;
+        }
+        return rawEnergy / sf;
+    }
+
+    private double evaluate(int t, double f) {
+        return table[t] + f * (table[t + 1] + f * (table[t + 2] + f * table[t + 3]));
+    }
+
+    private static double clamp(double r, double[] knots) {
+        return Math.max(knots[0], Math.min(knots[knots.length - 1], r));
+    }
+}
@@ -0,0 +1,118 @@
+package org.hps.recon.ecal;
+
+import hep.aida.IDataPointSet;
+import hep.aida.IFitResult;
+import hep.aida.IFitter;
+import hep.aida.IFunction;
+
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+import org.lcsim.util.aida.AIDA;
+
+/**
+ * Compare the analytic fixed-width 3-pole fit of {@link Ecal3PoleFitter} with the Minuit fit through AIDA, set up
+ * as in {@link EcalPulseFitter#fitPulse(org.lcsim.event.RawTrackerHit, int, double)}, on synthetic noisy pulses.
+ */
+public class Ecal3PoleFitterTest extends TestCase {
+
+    private static final int NSAMPLES = 50;
+    private static final double NOISE = 1.5;
+    private static final double WIDTH = 2.44;
+    private static final int[] FIT_RANGE = {-10, 15};
+    private static final int[] T0_LIMITS = {1, 30};
+
+    public void testAgreesWithMinuit() {
+        AIDA aida = AIDA.defaultInstance();
+        IFitter fitter = aida.analysisFactory().createFitFactory().createFitter();
+        IFunction function = new Ecal3PoleFunction();
+        IDataPointSet data = aida.analysisFactory().createDataPointSetFactory(null).create("3-pole test", 2);
+        Ecal3PoleFitter analytic = new Ecal3PoleFitter();
+        Logger.getLogger("org.freehep.math.minuit").setLevel(Level.OFF);
+
+        Random random = new Random(12345);
+        int nFit = 0;
+        for (int iPulse = 0; iPulse < 200; iPulse++) {
+            final double pedestal = 90 + 20 * random.nextDouble();
+            final double time0 = 12 + 6 * random.nextDouble();
+            final double integral = 200 + 5000 * random.nextDouble();
+            short[] samples = makePulse(pedestal, time0, integral, random);
+
+            // threshold crossing 12 ADC above the pedestal, as in the converters
+            int threshCross = -1;
+            for (int ii = 0; ii < NSAMPLES; ii++) {
+                if (samples[ii] > pedestal + 12) {
+                    threshCross = ii;
+                    break;
+                }
+            }
+            assertTrue(threshCross > 0);
+            final int first = Math.max(0, threshCross + FIT_RANGE[0]);
+            final int last = Math.min(NSAMPLES, threshCross + FIT_RANGE[1]);
+
+            assertTrue(analytic.fit(samples, first, last, NOISE, WIDTH, threshCross - 2, T0_LIMITS[0], T0_LIMITS[1]));
+
+            data.clear();
+            double sumADC = 0;
+            for (int ii = first; ii < last; ii++) {
+                final int n = data.size();
+                data.addPoint();
+                data.point(n).coordinate(0).setValue(ii);
+                data.point(n).coordinate(1).setValue(samples[ii]);
+                data.point(n).coordinate(1).setErrorMinus(NOISE);
+                data.point(n).coordinate(1).setErrorPlus(NOISE);
+                sumADC += samples[ii];
+            }
+            double ped = 0;
+            for (int ii = threshCross - 10; ii < threshCross - 5; ii++) {
+                ped += samples[ii];
+            }
+            ped /= 5;
+            final double pulseIntegral = sumADC - ped * data.size();
+            function.setParameter("pedestal", ped);
+            function.setParameter("time0", (double) threshCross - 2);
+            function.setParameter("integral", pulseIntegral > 0 ? pulseIntegral : 2);
+            function.setParameter("width", WIDTH);
+            fitter.fitParameterSettings("time0").setBounds(T0_LIMITS[0], T0_LIMITS[1]);
+            fitter.fitParameterSettings("width").setBounds(0.1, 5);
+            fitter.fitParameterSettings("integral").setBounds(0, 999999);
+            fitter.fitParameterSettings("width").setFixed(true);
+            IFitResult result = fitter.fit(data, function);
+            if (!result.isValid()) {
+                continue;
+            }
+            nFit++;
+
+            final double minuitTime0 = result.fittedParameter("time0");
+            final double minuitIntegral = result.fittedParameter("integral");
+            assertEquals("time0 of pulse " + iPulse, minuitTime0, analytic.getTime0(), 0.05);
+            assertEquals("integral of pulse " + iPulse, minuitIntegral, analytic.getIntegral(),
+                    2. + 0.005 * minuitIntegral);
+            assertEquals("pedestal of pulse " + iPulse, result.fittedParameter("pedestal"), analytic.getPedestal(),
+                    0.1);
+            assertEquals("quality of pulse " + iPulse, result.quality(), analytic.getQuality(),
+                    0.02 + 0.01 * result.quality());
+
+            // both fits recover the generated pulse
+            assertEquals(time0, analytic.getTime0(), 0.5);
+            assertEquals(integral, analytic.getIntegral(), 0.1 * integral);
+        }
+        assertTrue(nFit > 150);
+    }
+
+    private static short[] makePulse(double pedestal, double time0, double integral, Random random) {
+        short[] samples = new short[NSAMPLES];
+        for (int ii = 0; ii < NSAMPLES; ii++) {
+            double value = pedestal;
+            final double dt = ii - time0;
+            if (dt > 0) {
+                value += integral / (2 * WIDTH * WIDTH * WIDTH) * dt * dt * Math.exp(-dt / WIDTH);
+            }
+            samples[ii] = (short) Math.round(value + NOISE * random.nextGaussian());
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,138 @@
+package org.hps.recon.ecal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the ring buffers of {@link RunningPedestals} against a plain list of the entries of each channel, and the
+ * lookback rules of {@link EcalRunningPedestalDriver}.
+ */
+public class RunningPedestalsTest extends TestCase {
+
+    private static final int NCHANNELS = 3;
+
+    public void testFullBuffer() {
+        RunningPedestals pedestals = new RunningPedestals(NCHANNELS, 3, 5, -1);
+        for (int channel = 1; channel <= NCHANNELS; channel++) {
+            pedestals.reset(channel, 100 + channel);
+        }
+
+        // the running mean over the last five entries, with the static pedestal until there are three
+        Random random = new Random(30);
+        List<List<Double>> entries = new ArrayList<List<Double>>();
+        for (int channel = 1; channel <= NCHANNELS; channel++) {
+            entries.add(new ArrayList<Double>());
+        }
+        for (int event = 0; event < 200; event++) {
+            int channel = 1 + random.nextInt(NCHANNELS);
+            double pedestal = 90 + random.nextInt(40);
+            assertTrue(pedestals.add(channel, pedestal, 1000L * event));
+
+            List<Double> list = entries.get(channel - 1);
+            list.add(pedestal);
+            if (list.size() > 5) {
+                list.remove(0);
+            }
+            assertEquals(list.size(), pedestals.getEntries(channel));
+            if (list.size() < 3) {
+                assertEquals(100. + channel, pedestals.getPedestal(channel));
+            } else {
+                double sum = 0;
+                for (double entry : list) {
+                    sum += entry;
+                }
+                assertEquals(sum / list.size(), pedestals.getPedestal(channel), 1e-12);
+            }
+        }
+        for (int channel = 1; channel <= NCHANNELS; channel++) {
+            assertEquals(100. + channel, pedestals.getStaticPedestal(channel));
+        }
+
+        pedestals.clear();
+        for (int channel = 1; channel <= NCHANNELS; channel++) {
+            assertEquals(0, pedestals.getEntries(channel));
+            assertEquals(-1, pedestals.getOldestTimestamp(channel));
+            assertEquals(100. + channel, pedestals.getPedestal(channel));
+        }
+    }
+
+    public void testEviction() {
+        RunningPedestals pedestals = new RunningPedestals(NCHANNELS, 1, 3, -1);
+        pedestals.reset(2, 100);
+        for (int i = 1; i <= 3; i++) {
+            pedestals.add(2, 100 + i, 10L * i);
+        }
+        assertEquals(10L, pedestals.getOldestTimestamp(2));
+        assertEquals(102., pedestals.getPedestal(2));
+
+        // the oldest entry makes room for the new one
+        pedestals.add(2, 110, 40L);
+        assertEquals(3, pedestals.getEntries(2));
+        assertEquals(20L, pedestals.getOldestTimestamp(2));
+        assertEquals((102. + 103. + 110.) / 3, pedestals.getPedestal(2), 1e-12);
+
+        // the other channels are untouched
+        assertEquals(0, pedestals.getEntries(1));
+        assertEquals(0, pedestals.getEntries(3));
+
+        // entries older than the lookback time are dropped, but the newest one is kept
+        pedestals = new RunningPedestals(NCHANNELS, 1, 10, 5);
+        pedestals.reset(1, 100);
+        pedestals.add(1, 101, 500000L);
+        pedestals.add(1, 102, 4000000L);
+        pedestals.add(1, 103, 6000000L);
+        assertEquals(2, pedestals.getEntries(1));
+        assertEquals(4000000L, pedestals.getOldestTimestamp(1));
+        assertEquals(102.5, pedestals.getPedestal(1), 1e-12);
+        pedestals.add(1, 110, 20000000L);
+        assertEquals(1, pedestals.getEntries(1));
+        assertEquals(110., pedestals.getPedestal(1));
+    }
+
+    public void testOutOfOrderTimestamp() {
+        RunningPedestals pedestals = new RunningPedestals(NCHANNELS, 2, 10, 1000);
+        pedestals.reset(3, 100);
+        assertTrue(pedestals.add(3, 104, 5000L));
+        assertTrue(pedestals.add(3, 106, 6000L));
+        assertEquals(105., pedestals.getPedestal(3), 1e-12);
+
+        // a timestamp older than the oldest entry restarts the history
+        assertFalse(pedestals.add(3, 120, 4000L));
+        assertEquals(1, pedestals.getEntries(3));
+        assertEquals(4000L, pedestals.getOldestTimestamp(3));
+        assertEquals(100., pedestals.getPedestal(3));
+        assertTrue(pedestals.add(3, 122, 4500L));
+        assertEquals(121., pedestals.getPedestal(3), 1e-12);
+
+        // without a lookback time the order is not checked
+        pedestals = new RunningPedestals(NCHANNELS, 1, 10, -1);
+        pedestals.reset(3, 100);
+        assertTrue(pedestals.add(3, 104, 5000L));
+        assertTrue(pedestals.add(3, 106, 4000L));
+        assertEquals(2, pedestals.getEntries(3));
+    }
+
+    public void testHasChannel() {
+        // the raw converters report a missing pedestal for the channels outside the table
+        RunningPedestals pedestals = new RunningPedestals(NCHANNELS, 1, 10, -1);
+        assertEquals(NCHANNELS, pedestals.getChannelCount());
+        for (int channel = 1; channel <= NCHANNELS; channel++) {
+            assertTrue(pedestals.hasChannel(channel));
+        }
+        assertFalse(pedestals.hasChannel(0));
+        assertFalse(pedestals.hasChannel(-1));
+        assertFalse(pedestals.hasChannel(NCHANNELS + 1));
+    }
+
+    public void testNoLookbackEvents() {
+        try {
+            new RunningPedestals(NCHANNELS, 1, 0, -1);
+            fail("a table without entries must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
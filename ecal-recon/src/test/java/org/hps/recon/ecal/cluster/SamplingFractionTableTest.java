@@ -0,0 +1,133 @@
+package org.hps.recon.ecal.cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.math3.analysis.interpolation.SplineInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+
+/**
+ * Test that {@link SamplingFractionTable} gives the corrected energy of the analytic sampling fraction evaluated with
+ * the splines of the 2019 and 2021 resource files, at the knots, between the knots and outside the range of the
+ * parametrization.
+ */
+public class SamplingFractionTableTest extends TestCase {
+
+    private static final String[] PARTICLES = {"electrons", "positrons", "photons"};
+    private static final double[] ENERGIES = {0.15, 0.8, 2.3, 4.55};
+
+    public void test2019() throws IOException {
+        checkYear("2019");
+    }
+
+    public void test2021() throws IOException {
+        checkYear("2021");
+    }
+
+    private void checkYear(String year) throws IOException {
+        PolynomialSplineFunction[] data = readSplines(year + "SF_parameters_data.dat", 2);
+        for (String particle : PARTICLES) {
+            PolynomialSplineFunction[] mc = readSplines(year + "SF_MC_parameters_" + particle + ".dat", 3);
+            String what = year + " " + particle;
+            checkTable(what + " MC", mc, null);
+            checkTable(what + " data", mc, data);
+        }
+    }
+
+    private void checkTable(String what, PolynomialSplineFunction[] abc, PolynomialSplineFunction[] p) {
+        SamplingFractionTable table = p == null ? new SamplingFractionTable(abc[0], abc[1], abc[2], null, null)
+                : new SamplingFractionTable(abc[0], abc[1], abc[2], p[0], p[1]);
+
+        // the knots of all splines, the points half way and a third of the way between them, and random points
+        List<Double> points = new ArrayList<Double>();
+        addKnots(points, abc[0].getKnots());
+        if (p != null) {
+            addKnots(points, p[0].getKnots());
+        }
+        Random rnd = new Random(2019);
+        for (int i = 0; i < 500; i++) {
+            points.add(SamplingFractionTable.R_MIN + rnd.nextDouble() * (SamplingFractionTable.R_MAX - SamplingFractionTable.R_MIN));
+        }
+        points.add(SamplingFractionTable.R_MIN);
+        points.add(SamplingFractionTable.R_MAX);
+
+        for (double r : points) {
+            if (r < SamplingFractionTable.R_MIN || r > SamplingFractionTable.R_MAX) {
+                continue;
+            }
+            for (double energy : ENERGIES) {
+                double expected = analytic(abc, p, r, energy);
+                assertEquals(what + " r=" + r + " E=" + energy, expected, table.correctedEnergy(r, energy),
+                        1e-9 * Math.abs(expected));
+            }
+        }
+
+        // outside the range the table holds the values at the ends
+        for (double energy : ENERGIES) {
+            assertEquals(what + " below range", table.correctedEnergy(SamplingFractionTable.R_MIN, energy),
+                    table.correctedEnergy(SamplingFractionTable.R_MIN - 1.3, energy), 0);
+            assertEquals(what + " above range", table.correctedEnergy(SamplingFractionTable.R_MAX, energy),
+                    table.correctedEnergy(SamplingFractionTable.R_MAX + 4.7, energy), 0);
+        }
+    }
+
+    private static void addKnots(List<Double> points, double[] knots) {
+        for (int i = 0; i < knots.length; i++) {
+            points.add(knots[i]);
+            if (i + 1 < knots.length) {
+                points.add(0.5 * (knots[i] + knots[i + 1]));
+                points.add(knots[i] + (knots[i + 1] - knots[i]) / 3);
+            }
+        }
+    }
+
+    /**
+     * The corrected energy E / SF with SF = A / E + B / sqrt(E) + C, times p0 + p1 * E for data, with p0 and p1 held
+     * constant beyond their knots.
+     */
+    private static double analytic(PolynomialSplineFunction[] abc, PolynomialSplineFunction[] p, double r,
+            double energy) {
+        double sf = abc[0].value(r) / energy + abc[1].value(r) / Math.sqrt(energy) + abc[2].value(r);
+        if (p != null) {
+            double[] knots = p[0].getKnots();
+            double rp = Math.max(knots[0], Math.min(knots[knots.length - 1], r));
+            sf *= p[0].value(rp) + p[1].value(rp) * energy;
+        }
+        return energy / sf;
+    }
+
+    /**
+     * Read a parameter file: the number of knots on the first line, then the knot and the parameter values on each
+     * line.
+     */
+    private static PolynomialSplineFunction[] readSplines(String resource, int nParameters) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SamplingFractionTable.class.getResourceAsStream(resource)));
+        try {
+            int n = Integer.parseInt(reader.readLine().trim());
+            double[] x = new double[n];
+            double[][] y = new double[nParameters][n];
+            for (int i = 0; i < n; i++) {
+                String[] fields = reader.readLine().trim().split(" ");
+                assertEquals(resource, nParameters + 1, fields.length);
+                x[i] = Double.parseDouble(fields[0]);
+                for (int k = 0; k < nParameters; k++) {
+                    y[k][i] = Double.parseDouble(fields[k + 1]);
+                }
+            }
+            PolynomialSplineFunction[] splines = new PolynomialSplineFunction[nParameters];
+            for (int k = 0; k < nParameters; k++) {
+                splines[k] = new SplineInterpolator().interpolate(x, y[k]);
+            }
+            return splines;
+        } finally {
+            reader.close();
+        }
+    }
+}
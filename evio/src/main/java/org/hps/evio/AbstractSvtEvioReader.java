@@ -37,6 +37,12 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
                   HpsSiSensor /* Sensor */> daqPairToSensor 
                       = new HashMap<Pair<Integer, Integer>, HpsSiSensor>();
     
+    // Flat table from FEB ID and FEB hybrid ID to the corresponding sensor, 
+    // indexed by febID*FEB_HYBRIDS + febHybridID.  It holds the same sensors as
+    // daqPairToSensor but is used by the decoding loop so that no Pair has to
+    // be boxed and hashed for every multisample.
+    private HpsSiSensor[] febSensors = new HpsSiSensor[0];
+    
     // Flag indicating whether the DAQ map has been setup
     protected boolean isDaqMapSetup = false;
 
@@ -46,6 +52,12 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
     // Constants
     private static final String SUBDETECTOR_NAME = "Tracker";
     private static final String READOUT_NAME = "TrackerHits";
+    private static final int FEB_HYBRIDS = 4;
+    
+    /** Number of 32 bit words in a multisample */
+    protected static final int MULTISAMPLE_LENGTH = 4;
+    /** Index of the tail word within a multisample */
+    protected static final int MULTISAMPLE_TAIL_INDEX = 3;
 
     /**
      *  Get the minimum SVT ROC bank tag in the event.
@@ -114,6 +126,38 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
      */
     abstract protected HpsSiSensor getSensor(int[] data);
 
+    /**
+     *  Add a sensor to the DAQ map using its FEB ID and FEB hybrid ID.
+     *
+     *  @param febID - FEB ID of the sensor
+     *  @param febHybridID - FEB hybrid ID of the sensor
+     *  @param sensor - the sensor
+     */
+    protected void addDaqSensor(int febID, int febHybridID, HpsSiSensor sensor) {
+        daqPairToSensor.put(new Pair<Integer, Integer>(febID, febHybridID), sensor);
+        if (febID < 0 || febHybridID < 0 || febHybridID >= FEB_HYBRIDS) return;
+        int index = febID * FEB_HYBRIDS + febHybridID;
+        if (index >= febSensors.length) {
+            HpsSiSensor[] table = new HpsSiSensor[(febID + 1) * FEB_HYBRIDS];
+            System.arraycopy(febSensors, 0, table, 0, febSensors.length);
+            febSensors = table;
+        }
+        febSensors[index] = sensor;
+    }
+
+    /**
+     *  Get the sensor read out by a FEB hybrid.
+     *
+     *  @param febID - FEB ID
+     *  @param febHybridID - FEB hybrid ID
+     *  @return The sensor, or null if no sensor is mapped to that hybrid
+     */
+    protected HpsSiSensor getSensor(int febID, int febHybridID) {
+        int index = febID * FEB_HYBRIDS + febHybridID;
+        if (febID < 0 || febHybridID < 0 || febHybridID >= FEB_HYBRIDS || index >= febSensors.length) return null;
+        return febSensors[index];
+    }
+
     /**
      * Check whether the samples are valid
      * 
@@ -140,6 +184,20 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
      */
     abstract protected List<RawTrackerHit> makeHits(int bankNumber, int[] data) throws SvtEvioReaderException;
 
+    /**
+     *  Make {@link RawTrackerHit}s out of the multisamples of a data bank and
+     *  append them to a list.  Readers that decode the bank in place override
+     *  this; by default the hits are made by {@link #makeHits(int, int[])}.
+     *
+     *  @param bankNumber - number of the data bank
+     *  @param data - data bank words
+     *  @param rawHits - list the hits are added to
+     *  @throws SvtEvioReaderException
+     */
+    protected void makeHits(int bankNumber, int[] data, List<RawTrackerHit> rawHits) throws SvtEvioReaderException {
+        rawHits.addAll(this.makeHits(bankNumber, data));
+    }
+
     /**
      *  Make {@link RawTrackerHit}s out of all sample sets in an SVT EVIO bank
      *  and put them into an LCSim event.
@@ -171,7 +229,14 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
             this.setupDaqMap(lcsimEvent.getDetector().getSubdetector(
                     SUBDETECTOR_NAME));
 
-        List<RawTrackerHit> rawHits = new ArrayList<RawTrackerHit>();
+        // Size the hit list for the largest possible number of multisamples so 
+        // that it never has to grow while the hits are added
+        int maxHits = 0;
+        for (BaseStructure dataBank : dataBanks) {
+            int[] data = dataBank.getIntData();
+            if (data != null) maxHits += data.length / MULTISAMPLE_LENGTH;
+        }
+        List<RawTrackerHit> rawHits = new ArrayList<RawTrackerHit>(maxHits);
 
         // Loop over all of the data banks contained by the ROC banks and 
         // processed them
@@ -184,7 +249,7 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
             //System.out.println("Total number of integers contained by the data bank: " + data.length);
            
             // Process the data
-            rawHits.addAll(this.makeHits(dataBank.getHeader().getNumber(), data)); 
+            this.makeHits(dataBank.getHeader().getNumber(), data, rawHits); 
 
         }
         
@@ -310,4 +375,25 @@ public abstract class AbstractSvtEvioReader extends EvioReader {
         }
     }
 
+    /**
+     *  Make a {@link RawTrackerHit} from a multisample without copying it out 
+     *  of the data bank.  The sensor is found from the FEB ID and FEB hybrid ID
+     *  in the multisample tail.
+     * 
+     *  @param data : data bank words
+     *  @param offset : index of the first word of the multisample
+     *  @param channel : Channel number associated with these samples
+     *  @return A raw hit, or null if no sensor is mapped to the hybrid
+     */
+    protected RawTrackerHit makeHit(int[] data, int offset, int channel) {
+        int tail = data[offset + MULTISAMPLE_TAIL_INDEX];
+        HpsSiSensor sensor = this.getSensor(SvtEvioUtils.getFebIDFromMultisampleTail(tail),
+                SvtEvioUtils.getFebHybridIDFromMultisampleTail(tail));
+        if (sensor == null) {
+            LOGGER.warning("makeHit: Bad sensor codes in hit evio data. " );
+            return null;
+        }
+        return new BaseRawTrackerHit(0, sensor.makeChannelID(channel), SvtEvioUtils.getSamples(data, offset), null, sensor);
+    }
+
 }
@@ -19,7 +19,7 @@ public class AugmentedSvtEvioReader extends SvtEvioReader {
     @Override
     protected void processSvtHeaders(List<SvtHeaderDataInfo> headers, EventHeader lcsimEvent) throws SvtEvioHeaderException {
 
-        LOGGER.finest("Process " + headers.size() + " SVT headers for run " + lcsimEvent.getRunNumber() + " and event " + lcsimEvent.getEventNumber());
+        LOGGER.finest(() -> "Process " + headers.size() + " SVT headers for run " + lcsimEvent.getRunNumber() + " and event " + lcsimEvent.getEventNumber());
         
         // Check that the SVT header data is valid
         // Catch the exceptions locally, add stuff to the event, then throw it again
@@ -31,7 +31,7 @@ public class AugmentedSvtEvioReader extends SvtEvioReader {
 
         if( !exceptions.isEmpty() ) {
 
-            LOGGER.finest("Found " + exceptions.size() + " " + SvtEvioHeaderException.class.getSimpleName() + " exceptions");
+            LOGGER.finest(() -> "Found " + exceptions.size() + " " + SvtEvioHeaderException.class.getSimpleName() + " exceptions");
             
             // print some debug info 
             
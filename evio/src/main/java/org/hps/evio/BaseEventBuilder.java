@@ -35,6 +35,7 @@ public class BaseEventBuilder implements LCSimEventBuilder, ConditionsListener {
     protected int sspBankTag = 0xe106; //SSP bank's tag
     private static Logger LOGGER = Logger.getLogger(BaseEventBuilder.class.getCanonicalName());
     protected List<IntBankDefinition> intBanks = null;
+    protected EventObjectPool objectPool = null; //pool of the per-event objects, or null if pooling is off
 
     public BaseEventBuilder() {
         ecalReader = new EcalEvioReader(0x1, 0x2);
@@ -50,6 +51,48 @@ public class BaseEventBuilder implements LCSimEventBuilder, ConditionsListener {
         ecalReader.setHitCollectionName(ecalHitCollectionName);
     }
 
+    /**
+     * Enable or disable reuse of the collection lists and bank objects between
+     * events. When enabled, {@link #releaseEvent()} must be called after each
+     * event made by {@link #makeLCSimEvent(EvioEvent)} is done with, and no
+     * driver may keep references to its collections; see
+     * {@link EventObjectPool}.
+     *
+     * @param pooling true to reuse the per-event objects
+     * @param debug true to check that released objects are not used again
+     */
+    public void setObjectPooling(boolean pooling, boolean debug) {
+        if (objectPool != null) {
+            objectPool.releaseEvent();
+        }
+        objectPool = pooling ? new EventObjectPool(debug) : null;
+        setReaderObjectPool(objectPool);
+    }
+
+    /**
+     * Release the objects of the last event to the object pool. Does nothing
+     * if pooling is off.
+     */
+    public void releaseEvent() {
+        if (objectPool != null) {
+            objectPool.releaseEvent();
+        }
+    }
+
+    /**
+     * Set the object pool of the EVIO readers. Builders with additional readers
+     * should extend this.
+     *
+     * @param objectPool the pool, or null
+     */
+    protected void setReaderObjectPool(EventObjectPool objectPool) {
+        ecalReader.setObjectPool(objectPool);
+        vtpReader.setObjectPool(objectPool);
+        if (hodoReader != null) {
+            hodoReader.setObjectPool(objectPool);
+        }
+    }
+
     @Override
     public void readEvioEvent(EvioEvent evioEvent) {
         if (EvioEventUtilities.isSyncEvent(evioEvent)) {
@@ -124,6 +167,9 @@ public class BaseEventBuilder implements LCSimEventBuilder, ConditionsListener {
     }
 
     protected EventHeader getEventData(EvioEvent evioEvent) {
+        if (objectPool != null) {
+            objectPool.beginEvent();
+        }
         int[] eventID = null;
         //array of length 3: {event number, trigger code, readout status}
 
@@ -142,7 +188,8 @@ public class BaseEventBuilder implements LCSimEventBuilder, ConditionsListener {
             LOGGER.warning("no event ID bank found");
             eventID = new int[3];
         } else {
-            LOGGER.finest("read EVIO event number " + eventID[0]);
+            final int eventNumber = eventID[0];
+            LOGGER.finest(() -> "read EVIO event number " + eventNumber);
             // Stop hardcoding event tags.
             if (eventID[2] != 0) {
                 LOGGER.warning("Readout status is usually 0 but got " + eventID[2]);
@@ -181,13 +228,24 @@ public class BaseEventBuilder implements LCSimEventBuilder, ConditionsListener {
     }
 
     protected List<AbstractIntData> getTriggerData(EvioEvent evioEvent) {
-        List<AbstractIntData> triggerList = new ArrayList<AbstractIntData>();
+        List<AbstractIntData> triggerList;
+        if (objectPool != null) {
+            triggerList = objectPool.getList();
+        } else {
+            triggerList = new ArrayList<AbstractIntData>();
+        }
 
         for (IntBankDefinition def : intBanks) {
             BaseStructure bank = def.findBank(evioEvent);
             if (bank != null) { //returns null if no banks found
                 try {
-                    AbstractIntData data = (AbstractIntData) def.getDataClass().getConstructor(int[].class).newInstance(bank.getIntData());
+                    AbstractIntData data;
+                    if (objectPool != null) {
+                        data = objectPool.getIntData(def.getDataClass(), bank.getIntData());
+                    } else {
+                        data = (AbstractIntData) def.getDataClass().getConstructor(int[].class)
+                                .newInstance(bank.getIntData());
+                    }
                     triggerList.add(data);
                 } catch (Exception ex) {
                     LOGGER.log(Level.SEVERE, ex.getMessage(), ex);
@@ -213,6 +271,7 @@ public class BaseEventBuilder implements LCSimEventBuilder, ConditionsListener {
                 hodoReader = new HodoEvioReader(0x1, 0x2);   // Rafo: Have to understand what are 0x1 and 0x2 = Topbank and Bottombank (MWH).
                 hodoReader.setTopBankTag(0x25);
                 hodoReader.setBotBankTag(0x27);
+                hodoReader.setObjectPool(objectPool);
 //                hodoReader.setTopBankTag(0x41);  // Temporary for the EEL test setup
 //                hodoReader.setBotBankTag(0x41);  // Temporary for the EEL test setup
             }
@@ -9,7 +9,7 @@ import java.util.logging.Logger;
 
 import org.hps.conditions.database.DatabaseConditionsManager;
 import org.hps.conditions.ecal.EcalChannel;
-import org.hps.conditions.ecal.EcalChannel.DaqId;
+import org.hps.conditions.ecal.EcalChannel.EcalChannelCollection;
 import org.hps.conditions.ecal.EcalChannel.GeometryId;
 import org.hps.conditions.ecal.EcalConditions;
 import org.hps.recon.ecal.FADCGenericHit;
@@ -20,6 +20,7 @@ import org.jlab.coda.jevio.BaseStructureHeader;
 import org.jlab.coda.jevio.CompositeData;
 import org.jlab.coda.jevio.EvioEvent;
 import org.jlab.coda.jevio.EvioException;
+import org.lcsim.detector.IDetectorElementContainer;
 import org.lcsim.detector.identifier.IIdentifierHelper;
 import org.lcsim.detector.identifier.Identifier;
 import org.lcsim.event.EventHeader;
@@ -57,6 +58,9 @@ public class EcalEvioReader extends EvioReader {
     private static EcalConditions ecalConditions = null;
     private static IIdentifierHelper helper = null;
 
+    // (crate, slot, channel) lookup, rebuilt on every conditions change
+    private FadcChannelTable channelTable = null;
+
     private int topBankTag, botBankTag;
 
     private int rfBankTag = -1;
@@ -86,10 +90,10 @@ public class EcalEvioReader extends EvioReader {
     @Override
     public boolean makeHits(EvioEvent event, EventHeader lcsimEvent) {
         boolean foundHits = false;
-        List<Object> hits = new ArrayList<Object>();
-        genericHits = new ArrayList<FADCGenericHit>();
-        extraDataList = new ArrayList<HitExtraData>();
-        extraDataRelations = new ArrayList<LCRelation>();
+        List<Object> hits = newCollectionList();
+        genericHits = newCollectionList();
+        extraDataList = newCollectionList();
+        extraDataRelations = newCollectionList();
         int flags = 0;
         for (BaseStructure bank : event.getChildrenList()) {
             BaseStructureHeader header = bank.getHeader();
@@ -195,17 +199,21 @@ public class EcalEvioReader extends EvioReader {
         return foundHits;
     }
 
-    private BaseRawTrackerHit makeECalRawHit(int time, long id, CompositeData cdata, int nSamples) {
+    private BaseRawTrackerHit makeECalRawHit(int time, int channelIndex, CompositeData cdata, int nSamples) {
         short[] adcValues = new short[nSamples];
         for (int i = 0; i < nSamples; i++) {
             adcValues[i] = cdata.getShort();
         }
+        long id = channelTable.getHitId(channelIndex);
+        if (channelTable.getDetectorElement(channelIndex) == null) {
+            throw new RuntimeException("No detector element was found for hit ID: " + helper.unpack(new Identifier(id)));
+        }
         return new BaseRawTrackerHit( // need to use the complicated constructor, simhit collection can't be null
                 time,
                 id,
                 adcValues,
                 new ArrayList<SimTrackerHit>(),
-                subDetector.getDetectorElement().findDetectorElement(new Identifier(id)).get(0));
+                channelTable.getDetectorElement(channelIndex));
     }
 
     private static FADCGenericHit makeGenericRawHit(int mode, int crate, short slot, short channel, CompositeData cdata, int nSamples) {
@@ -243,14 +251,13 @@ public class EcalEvioReader extends EvioReader {
                     System.out.println("  channel=" + channel + "; nSamples=" + nSamples);
                 }
 
-                Long id = daqToGeometryId(crate, slot, channel);
-//                Long id = EcalConditions.daqToPhysicalID(crate, slot, channel);
+                int channelIndex = channelTable.index(crate, slot, channel);
 
-                if (debug) {
-                    System.out.println("The long id is: " + id);
+                if (debug && channelIndex >= 0) {
+                    System.out.println("The long id is: " + channelTable.getHitId(channelIndex));
                 }
 
-                if (id == null) {
+                if (channelIndex < 0) {
                     //
                     // FIXME:
                     //
@@ -295,7 +302,7 @@ public class EcalEvioReader extends EvioReader {
                     processUnrecognizedChannel(hit);  
 
                 } else {
-                    BaseRawTrackerHit hit = makeECalRawHit(0, id, cdata, nSamples);
+                    BaseRawTrackerHit hit = makeECalRawHit(0, channelIndex, cdata, nSamples);
                     hits.add(hit);
                 }
             }
@@ -303,17 +310,40 @@ public class EcalEvioReader extends EvioReader {
         return hits;
     }
 
-    private Long daqToGeometryId(int crate, short slot, short channel) {
-        DaqId daqId = new DaqId(new int[]{crate, slot, channel});
-        EcalChannel ecalChannel = ecalConditions.getChannelCollection().findChannel(daqId);
-        if (ecalChannel == null) {
-            return null;
-        }
+    private long geometryId(EcalChannel ecalChannel) {
         int ix = ecalChannel.getX();
         int iy = ecalChannel.getY();
         GeometryId geometryId = new GeometryId(helper, new int[]{subDetector.getSystemID(), ix, iy});
-        Long id = geometryId.encode();
-        return id;
+        return geometryId.encode();
+    }
+
+    /**
+     * Build the (crate, slot, channel) lookup table from the ECal channel map of the current conditions.
+     */
+    private void buildChannelTable() {
+        EcalChannelCollection channels = ecalConditions.getChannelCollection();
+        int maxCrate = 0, maxSlot = 0, maxChannel = 0;
+        for (EcalChannel ecalChannel : channels) {
+            maxCrate = Math.max(maxCrate, ecalChannel.getCrate());
+            maxSlot = Math.max(maxSlot, ecalChannel.getSlot());
+            maxChannel = Math.max(maxChannel, ecalChannel.getChannel());
+        }
+        channelTable = new FadcChannelTable(maxCrate, maxSlot, maxChannel);
+        for (EcalChannel ecalChannel : channels) {
+            long id = geometryId(ecalChannel);
+            IDetectorElementContainer elements = subDetector.getDetectorElement().findDetectorElement(new Identifier(id));
+            channelTable.put(ecalChannel.getCrate(), ecalChannel.getSlot(), ecalChannel.getChannel(), id, id,
+                    elements.size() > 0 ? elements.get(0) : null);
+        }
+    }
+
+    /**
+     * Get the (crate, slot, channel) lookup table of the current conditions.
+     *
+     * @return the table, or <code>null</code> before the reader is initialized
+     */
+    FadcChannelTable getChannelTable() {
+        return channelTable;
     }
 
     private List<BaseRawTrackerHit> makePulseHits(CompositeData cdata, int crate) {
@@ -342,16 +372,16 @@ public class EcalEvioReader extends EvioReader {
                 if (debug) {
                     System.out.println("  channel=" + channel + "; npulses=" + npulses);
                 }
-                Long id = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelTable.index(crate, slot, channel);
                 for (int k = 0; k < npulses; k++) {
                     short pulseNum = cdata.getByte();
                     int sampleCount = cdata.getNValue();
 
-                    if (id == null) {
+                    if (channelIndex < 0) {
                         FADCGenericHit hit = makeGenericRawHit(EventConstants.ECAL_PULSE_MODE, crate, slot, channel, cdata, sampleCount);
                         processUnrecognizedChannel(hit);
                     } else {
-                        BaseRawTrackerHit hit = makeECalRawHit(pulseNum, id, cdata, sampleCount);
+                        BaseRawTrackerHit hit = makeECalRawHit(pulseNum, channelIndex, cdata, sampleCount);
                         hits.add(hit);
                     }
                 }
@@ -386,7 +416,7 @@ public class EcalEvioReader extends EvioReader {
                 if (debug) {
                     System.out.println("  channel=" + channel + "; npulses=" + npulses);
                 }
-                Long id = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelTable.index(crate, slot, channel);
 
                 for (int k = 0; k < npulses; k++) {
                     short pulseTime = cdata.getShort();
@@ -394,11 +424,11 @@ public class EcalEvioReader extends EvioReader {
                     if (debug) {
                         System.out.println("    pulseTime=" + pulseTime + "; pulseIntegral=" + pulseIntegral);
                     }
-                    if (id == null) {
+                    if (channelIndex < 0) {
                         int[] data = {pulseIntegral, pulseTime};
                         processUnrecognizedChannel(new FADCGenericHit(EventConstants.ECAL_PULSE_INTEGRAL_MODE, crate, slot, channel, data));
                     } else {
-                        hits.add(new BaseRawCalorimeterHit(id, pulseIntegral, pulseTime));
+                        hits.add(new BaseRawCalorimeterHit(channelTable.getHitId(channelIndex), pulseIntegral, pulseTime));
                     }
                 }
             }
@@ -432,7 +462,7 @@ public class EcalEvioReader extends EvioReader {
                 if (debug) {
                     System.out.println("  channel=" + channel + "; npulses=" + npulses);
                 }
-                Long id = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelTable.index(crate, slot, channel);
 
                 for (int k = 0; k < npulses; k++) {
                     short pulseTime = cdata.getShort();
@@ -442,11 +472,11 @@ public class EcalEvioReader extends EvioReader {
                     if (debug) {
                         System.out.println("    pulseTime=" + pulseTime + "; pulseIntegral=" + pulseIntegral + "; amplLow=" + amplLow + "; amplHigh=" + amplHigh);
                     }
-                    if (id == null) {
+                    if (channelIndex < 0) {
                         int[] data = {pulseIntegral, pulseTime, amplLow, amplHigh};
                         processUnrecognizedChannel(new FADCGenericHit(EventConstants.ECAL_PULSE_INTEGRAL_HIGHRESTDC_MODE, crate, slot, channel, data));
                     } else {
-                        RawCalorimeterHit hit = new BaseRawCalorimeterHit(id, pulseIntegral, pulseTime);
+                        RawCalorimeterHit hit = new BaseRawCalorimeterHit(channelTable.getHitId(channelIndex), pulseIntegral, pulseTime);
                         hits.add(hit);
                         Mode7Data extraData = new Mode7Data(amplLow, amplHigh);
                         extraDataList.add(extraData);
@@ -484,5 +514,7 @@ public class EcalEvioReader extends EvioReader {
         ecalConditions = DatabaseConditionsManager.getInstance().getEcalConditions();
 
         helper = subDetector.getDetectorElement().getIdentifierHelper();
+
+        buildChannelTable();
     }
 }
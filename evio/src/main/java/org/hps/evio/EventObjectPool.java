@@ -0,0 +1,335 @@
+package org.hps.evio;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.hps.record.triggerbank.AbstractIntData;
+
+/**
+ * Pool of the objects made by an event builder for each event: the collection lists, the TS and VTP bank wrappers and
+ * the trigger bank data that can be reloaded ({@link AbstractIntData#isReloadable()}).
+ * <p>
+ * The objects of an event are taken from the pool between {@link #beginEvent()}, which the builder calls when it
+ * starts making an event, and {@link #releaseEvent()}, which the owner of the builder must call once all the drivers
+ * are done with the event. Released objects are cleared and handed out again for a later event, so a driver must not
+ * keep a reference to a collection of the event, or to an object from one of these collections, after its
+ * <code>process</code> method returns; it should copy what it needs instead. Beginning an event before the previous
+ * one is released is an error.
+ * <p>
+ * In debug mode, released objects are never handed out again and the pooled lists and bank wrappers throw an
+ * <code>IllegalStateException</code> when they are used after their event was released, which shows where a
+ * pooled object escaped. The trigger bank data objects are not checked.
+ * <p>
+ * The pool is not thread safe; it belongs to one event builder.
+ */
+public final class EventObjectPool {
+
+    private final boolean debug;
+
+    private boolean inEvent = false;
+    private long eventCount = 0;
+
+    private final ArrayDeque<PooledList<?>> freeLists = new ArrayDeque<PooledList<?>>();
+    private final ArrayList<PooledList<?>> usedLists = new ArrayList<PooledList<?>>();
+
+    private final ArrayDeque<TSGenericObject> freeTSObjects = new ArrayDeque<TSGenericObject>();
+    private final ArrayList<TSGenericObject> usedTSObjects = new ArrayList<TSGenericObject>();
+
+    private final ArrayDeque<VTPGenericObject> freeVTPObjects = new ArrayDeque<VTPGenericObject>();
+    private final ArrayList<VTPGenericObject> usedVTPObjects = new ArrayList<VTPGenericObject>();
+
+    private final Map<Class<?>, ArrayDeque<AbstractIntData>> freeIntData =
+            new HashMap<Class<?>, ArrayDeque<AbstractIntData>>();
+    private final ArrayList<AbstractIntData> usedIntData = new ArrayList<AbstractIntData>();
+
+    /**
+     * Class constructor.
+     *
+     * @param debug <code>true</code> to check that pooled objects are not used after their event was released
+     */
+    public EventObjectPool(final boolean debug) {
+        this.debug = debug;
+    }
+
+    /**
+     * @return <code>true</code> if the pool checks for use of released objects
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * @return <code>true</code> if an event was begun and not yet released
+     */
+    public boolean isInEvent() {
+        return inEvent;
+    }
+
+    /**
+     * Begin a new event.
+     *
+     * @throws IllegalStateException if the previous event was not released
+     */
+    public void beginEvent() {
+        if (inEvent) {
+            throw new IllegalStateException("Event " + eventCount + " from the object pool was not released.");
+        }
+        inEvent = true;
+        eventCount++;
+    }
+
+    /**
+     * Release the objects of the current event to the pool. This must only be called when no driver will use the
+     * event any more. It does nothing if there is no current event.
+     */
+    public void releaseEvent() {
+        if (!inEvent) {
+            return;
+        }
+        for (final PooledList<?> list : usedLists) {
+            list.release(debug);
+            if (!debug) {
+                freeLists.push(list);
+            }
+        }
+        usedLists.clear();
+        for (final TSGenericObject object : usedTSObjects) {
+            object.release(debug);
+            if (!debug) {
+                freeTSObjects.push(object);
+            }
+        }
+        usedTSObjects.clear();
+        for (final VTPGenericObject object : usedVTPObjects) {
+            object.release(debug);
+            if (!debug) {
+                freeVTPObjects.push(object);
+            }
+        }
+        usedVTPObjects.clear();
+        if (!debug) {
+            for (final AbstractIntData data : usedIntData) {
+                freeIntData.get(data.getClass()).push(data);
+            }
+        }
+        usedIntData.clear();
+        inEvent = false;
+    }
+
+    /**
+     * Get an empty list for a collection of the current event.
+     *
+     * @return the list
+     */
+    @SuppressWarnings("unchecked")
+    <E> List<E> getList() {
+        checkInEvent();
+        PooledList<E> list = (PooledList<E>) freeLists.poll();
+        if (list == null) {
+            list = new PooledList<E>();
+        }
+        list.acquire(eventCount);
+        usedLists.add(list);
+        return list;
+    }
+
+    /**
+     * Get a TS bank wrapper for the current event.
+     *
+     * @return the wrapper, without values
+     */
+    TSGenericObject getTSObject() {
+        checkInEvent();
+        TSGenericObject object = freeTSObjects.poll();
+        if (object == null) {
+            object = new TSGenericObject();
+        }
+        object.acquire(eventCount);
+        usedTSObjects.add(object);
+        return object;
+    }
+
+    /**
+     * Get a VTP bank wrapper for the current event.
+     *
+     * @return the wrapper, without values
+     */
+    VTPGenericObject getVTPObject() {
+        checkInEvent();
+        VTPGenericObject object = freeVTPObjects.poll();
+        if (object == null) {
+            object = new VTPGenericObject();
+        }
+        object.acquire(eventCount);
+        usedVTPObjects.add(object);
+        return object;
+    }
+
+    /**
+     * Get a trigger bank data object for the current event. A released object of the class is reloaded with the bank
+     * if the class supports it; otherwise a new object is made.
+     *
+     * @param dataClass the data class, which must have a public constructor taking the bank
+     * @param bank the EVIO int bank
+     * @return the data object
+     * @throws ReflectiveOperationException if the data class cannot be instantiated
+     */
+    AbstractIntData getIntData(final Class<? extends AbstractIntData> dataClass, final int[] bank)
+            throws ReflectiveOperationException {
+        checkInEvent();
+        ArrayDeque<AbstractIntData> free = freeIntData.get(dataClass);
+        if (free == null) {
+            free = new ArrayDeque<AbstractIntData>();
+            freeIntData.put(dataClass, free);
+        }
+        AbstractIntData data = free.poll();
+        if (data != null) {
+            data.reload(bank);
+        } else {
+            data = dataClass.getConstructor(int[].class).newInstance(bank);
+        }
+        if (data.isReloadable()) {
+            usedIntData.add(data);
+        }
+        return data;
+    }
+
+    private void checkInEvent() {
+        if (!inEvent) {
+            throw new IllegalStateException("No event was begun in the object pool.");
+        }
+    }
+
+    /**
+     * Message of the exception thrown when a released object is used.
+     */
+    static String releasedMessage(final String what, final long event) {
+        return "Pooled " + what + " of event " + event + " used after the event was released.";
+    }
+
+    /**
+     * List of a collection that knows whether its event was released. The accessors used to read a collection fail
+     * when it was.
+     */
+    private static final class PooledList<E> extends ArrayList<E> {
+
+        private static final long serialVersionUID = 1L;
+
+        private long event;
+        private boolean released;
+
+        void acquire(final long event) {
+            this.event = event;
+            this.released = false;
+        }
+
+        void release(final boolean poison) {
+            super.clear();
+            released = poison;
+        }
+
+        private void check() {
+            if (released) {
+                throw new IllegalStateException(releasedMessage("list", event));
+            }
+        }
+
+        @Override
+        public int size() {
+            check();
+            return super.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            check();
+            return super.isEmpty();
+        }
+
+        @Override
+        public E get(final int index) {
+            check();
+            return super.get(index);
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            check();
+            return super.contains(o);
+        }
+
+        @Override
+        public int indexOf(final Object o) {
+            check();
+            return super.indexOf(o);
+        }
+
+        @Override
+        public Object[] toArray() {
+            check();
+            return super.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(final T[] a) {
+            check();
+            return super.toArray(a);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            check();
+            return super.iterator();
+        }
+
+        @Override
+        public ListIterator<E> listIterator() {
+            check();
+            return super.listIterator();
+        }
+
+        @Override
+        public ListIterator<E> listIterator(final int index) {
+            check();
+            return super.listIterator(index);
+        }
+
+        @Override
+        public List<E> subList(final int fromIndex, final int toIndex) {
+            check();
+            return super.subList(fromIndex, toIndex);
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            check();
+            return super.spliterator();
+        }
+
+        @Override
+        public void forEach(final Consumer<? super E> action) {
+            check();
+            super.forEach(action);
+        }
+
+        @Override
+        public boolean add(final E e) {
+            check();
+            return super.add(e);
+        }
+
+        @Override
+        public boolean addAll(final Collection<? extends E> c) {
+            check();
+            return super.addAll(c);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.hps.evio;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.jlab.coda.jevio.EvioEvent;
 
 import org.lcsim.event.EventHeader;
@@ -15,6 +18,9 @@ public abstract class EvioReader {
     // Name of the hit collection that will be created
     protected String hitCollectionName = null;
 
+    // Pool of the per-event objects, or null to allocate new ones
+    protected EventObjectPool objectPool = null;
+
     /**
      *  Make a LCIO hit collection (e.g. {@link org.lcsim.event.RawTrackerHit}, 
      *  {@link org.lcsim.event.CalorimeterHit} from raw EVIO data.
@@ -44,4 +50,26 @@ public abstract class EvioReader {
     public void setDebug(boolean debug) {
         this.debug = debug;
     }
+
+    /**
+     *  Set the pool that the per-event objects are taken from.
+     *
+     *  @param objectPool : The pool, or null to allocate new objects for each event
+     */
+    public void setObjectPool(EventObjectPool objectPool) {
+        this.objectPool = objectPool;
+    }
+
+    /**
+     *  Get an empty list for a collection of the current event, from the
+     *  object pool if there is one.
+     *
+     *  @return The list
+     */
+    protected <E> List<E> newCollectionList() {
+        if (objectPool != null) {
+            return objectPool.getList();
+        }
+        return new ArrayList<E>();
+    }
 }
@@ -122,6 +122,8 @@ public final class EvioToLcio {
         OPTIONS.addOption(new Option("M", false, "use memory mapping instead of sequential reading"));
         OPTIONS.addOption(new Option("s", true, "skip a number of events in each EVIO input file before starting"));
         OPTIONS.addOption(new Option("e", true, "event printing interval"));
+        OPTIONS.addOption(new Option("o", false, "reuse collection lists and bank objects between events"));
+        OPTIONS.addOption(new Option("O", false, "as -o, and fail if a driver uses objects of a past event"));
     }
 
     /**
@@ -136,6 +138,8 @@ public final class EvioToLcio {
     private List<String> evioFileList = null;
     private boolean printXml = false;
     private boolean useMemoryMapping = false;
+    private boolean useObjectPooling = false;
+    private boolean debugObjectPooling = false;
     private JobManager jobManager = null;
     private String lcioFileName = null;
     private LCIOWriter writer = null;
@@ -192,7 +196,7 @@ public final class EvioToLcio {
 
                     // Get the run number from the head bank.
                     runNumber = headBank.getIntData()[1];
-                    LOGGER.finer("got head bank with run number " + runNumber);
+                    LOGGER.finer(() -> "got head bank with run number " + runNumber);
 
                     // Is conditions system not frozen?
                     if (!DatabaseConditionsManager.getInstance().isFrozen()) {
@@ -200,11 +204,12 @@ public final class EvioToLcio {
                         this.checkConditions(runNumber, false);
                     }
                 } else {
-                    LOGGER.finer("event " + evioEvent.getEventNumber() + " does not have a head bank");
+                    final int eventNumber = evioEvent.getEventNumber();
+                    LOGGER.finer(() -> "event " + eventNumber + " does not have a head bank");
                 }
             }
         }
-        LOGGER.finer("buffered " + eventQueue.size() + " events");
+        LOGGER.finer(() -> "buffered " + eventQueue.size() + " events");
     }
 
     /**
@@ -450,6 +455,13 @@ public final class EvioToLcio {
             skipEvents = Integer.parseInt(cl.getOptionValue("s"));
             LOGGER.config("Skip events set to " + skipEvents);
         }        
+
+        // object pooling
+        if (cl.hasOption("o") || cl.hasOption("O")) {
+            useObjectPooling = true;
+            debugObjectPooling = cl.hasOption("O");
+            LOGGER.config("Event object pooling is enabled" + (debugObjectPooling ? " with checks." : "."));
+        }
     }
 
     /**
@@ -511,7 +523,7 @@ public final class EvioToLcio {
                 // Buffer the EVIO events into the queue.
                 this.bufferEvents(reader, eventQueue, maxBufferSize);
 
-                LOGGER.fine("buffered " + eventQueue.size() + " events");
+                LOGGER.fine(() -> "buffered " + eventQueue.size() + " events");
                 
                 // Is the event queue empty?
                 if (eventQueue.size() == 0) {
@@ -523,7 +535,7 @@ public final class EvioToLcio {
                 recordLoop: while (eventQueue.hasNext()) {
 
                     // Read and parse the next EVIO event.
-                    EvioEvent evioEvent = null;
+                    final EvioEvent evioEvent;
                     try {
                         eventQueue.next();
                         evioEvent = (EvioEvent) eventQueue.getCurrentRecord();
@@ -533,7 +545,7 @@ public final class EvioToLcio {
                             new RuntimeException("Failed to read EVIO event.").printStackTrace();
                             continue recordLoop;
                         }
-                        LOGGER.finer("processing EVIO event " + evioEvent.getEventNumber());
+                        LOGGER.finer(() -> "processing EVIO event " + evioEvent.getEventNumber());
                     } catch (final IOException e) {
                         // This means the EVIO event has bad data.
                         LOGGER.log(Level.SEVERE, e.getMessage(), e);
@@ -585,7 +597,7 @@ public final class EvioToLcio {
 
                     // Setup state in the LCSimEventBuilder based on the EVIO control event.
                     if (eventBuilder != null) {
-                        LOGGER.finer("event builder reading in EVIO event " + evioEvent.getEventNumber());
+                        LOGGER.finer(() -> "event builder reading in EVIO event " + evioEvent.getEventNumber());
                         eventBuilder.readEvioEvent(evioEvent);
                     }
 
@@ -594,7 +606,7 @@ public final class EvioToLcio {
 
                         // Print physics event number, which is actually a sequence number from
                         // the reader, not the actual event number from the data.
-                        LOGGER.finer("got physics event number " + evioEvent.getEventNumber());
+                        LOGGER.finer(() -> "got physics event number " + evioEvent.getEventNumber());
 
                         // Is the event builder initialized?
                         if (eventBuilder == null) {
@@ -605,26 +617,34 @@ public final class EvioToLcio {
                         // Build the LCIO event.
                         final EventHeader lcioEvent = eventBuilder.makeLCSimEvent(evioEvent);
                         eventTime = lcioEvent.getTimeStamp() / 1000000;
-                        LOGGER.finer("created LCIO event " + lcioEvent.getEventNumber() + " with timestamp " + eventTime);
+                        LOGGER.finer(() -> "created LCIO event " + lcioEvent.getEventNumber() + " with timestamp "
+                                + lcioEvent.getTimeStamp() / 1000000);
                         if (firstEvent) {
                             LOGGER.info("first physics event time: " + eventTime / 1000 + " - " + new Date(eventTime));
                             firstEvent = false;
                         }
 
-                        // Activate Driver process methods.
-                        LOGGER.finer("Job manager processing event " + lcioEvent.getEventNumber());
-                        jobManager.processEvent(lcioEvent);
-
-                        // Write out this LCIO event.
-                        if (writer != null) {
-                            try {
-                                writer.write(lcioEvent);
-                                writer.flush();
-                                LOGGER.finer("wrote LCSim event " + lcioEvent.getEventNumber());
-                            } catch (final IOException e) {
-                                throw new RuntimeException("Error writing LCIO file.", e);
+                        try {
+                            // Activate Driver process methods.
+                            LOGGER.finer(() -> "Job manager processing event " + lcioEvent.getEventNumber());
+                            jobManager.processEvent(lcioEvent);
+
+                            // Write out this LCIO event.
+                            if (writer != null) {
+                                try {
+                                    writer.write(lcioEvent);
+                                    writer.flush();
+                                    LOGGER.finer(() -> "wrote LCSim event " + lcioEvent.getEventNumber());
+                                } catch (final IOException e) {
+                                    throw new RuntimeException("Error writing LCIO file.", e);
+                                }
+                                LOGGER.finer(() -> "wrote event #" + lcioEvent.getEventNumber());
+                            }
+                        } finally {
+                            // The event is done with, so its pooled objects can be reused.
+                            if (useObjectPooling) {
+                                ((BaseEventBuilder) eventBuilder).releaseEvent();
                             }
-                            LOGGER.finer("wrote event #" + lcioEvent.getEventNumber());
                         }
 
                         // Increment number of events processed.
@@ -696,6 +716,9 @@ public final class EvioToLcio {
             LOGGER.info("using Eng Run event builder");
             eventBuilder = new LCSimEngRunEventBuilder();
         }
+        if (useObjectPooling) {
+            ((BaseEventBuilder) eventBuilder).setObjectPooling(true, debugObjectPooling);
+        }
         final ConditionsManager conditions = ConditionsManager.defaultInstance();
         conditions.addConditionsListener(eventBuilder);
     }
@@ -0,0 +1,88 @@
+package org.hps.evio;
+
+import org.lcsim.detector.IDetectorElement;
+
+/**
+ * Dense lookup table from an FADC (crate, slot, channel) address to the hit ID and detector element of the channel,
+ * built once per conditions change by the FADC EVIO readers. It replaces the per-hit DAQ ID encoding, conditions map
+ * lookup, geometry ID encoding and detector element search with array indexing.
+ */
+final class FadcChannelTable {
+
+    private final int nCrates;
+    private final int nSlots;
+    private final int nChannels;
+
+    private final boolean[] mapped;
+    private final long[] hitId;
+    private final long[] elementId;
+    private final IDetectorElement[] element;
+
+    /**
+     * Create an empty table.
+     *
+     * @param maxCrate largest crate number to be stored
+     * @param maxSlot largest slot number to be stored
+     * @param maxChannel largest channel number to be stored
+     */
+    FadcChannelTable(int maxCrate, int maxSlot, int maxChannel) {
+        nCrates = maxCrate + 1;
+        nSlots = maxSlot + 1;
+        nChannels = maxChannel + 1;
+        int size = nCrates * nSlots * nChannels;
+        mapped = new boolean[size];
+        hitId = new long[size];
+        elementId = new long[size];
+        element = new IDetectorElement[size];
+    }
+
+    /**
+     * Get the table index of an FADC address.
+     *
+     * @param crate the crate number
+     * @param slot the slot number
+     * @param ch the channel number
+     * @return the index, or -1 if the address is not mapped to a channel
+     */
+    int index(int crate, int slot, int ch) {
+        if (crate < 0 || crate >= nCrates || slot < 0 || slot >= nSlots || ch < 0 || ch >= nChannels) {
+            return -1;
+        }
+        int idx = (crate * nSlots + slot) * nChannels + ch;
+        return mapped[idx] ? idx : -1;
+    }
+
+    /**
+     * Add a channel to the table.
+     *
+     * @param crate the crate number
+     * @param slot the slot number
+     * @param ch the channel number
+     * @param hitId the cell ID given to hits on this channel
+     * @param elementId the ID used to find the detector element
+     * @param element the detector element, or <code>null</code> if none was found
+     */
+    void put(int crate, int slot, int ch, long hitId, long elementId, IDetectorElement element) {
+        if (crate < 0 || crate >= nCrates || slot < 0 || slot >= nSlots || ch < 0 || ch >= nChannels) {
+            throw new IllegalArgumentException("FADC address out of range: crate " + crate + ", slot " + slot
+                    + ", channel " + ch);
+        }
+        int idx = (crate * nSlots + slot) * nChannels + ch;
+        this.mapped[idx] = true;
+        this.hitId[idx] = hitId;
+        this.elementId[idx] = elementId;
+        this.element[idx] = element;
+    }
+
+    long getHitId(int idx) {
+        return hitId[idx];
+    }
+
+    long getElementId(int idx) {
+        return elementId[idx];
+    }
+
+    IDetectorElement getDetectorElement(int idx) {
+        return element[idx];
+    }
+}
@@ -36,6 +36,7 @@ public class HodoEvioReader extends EvioReader {
     private Class<?> hitClass = BaseRawCalorimeterHit.class;
 
     private HodoscopeChannelCollection hodoChannels = null;
+    private FadcChannelTable channelTable = null;
     private IIdentifierHelper helper = null;
 
     private static final String readoutName = "HodoHits";
@@ -68,7 +69,7 @@ public class HodoEvioReader extends EvioReader {
         LOGGER.entering(HodoEvioReader.class.getName(), "makeHits", lcsimEvent.getEventNumber());
         
         boolean foundHits = false;
-        List<Object> hits = new ArrayList<Object>();
+        List<Object> hits = newCollectionList();
 
         int flags = 0;
         for (BaseStructure bank : event.getChildrenList()) {
@@ -83,7 +84,7 @@ public class HodoEvioReader extends EvioReader {
             if (crateBankTag == topBankTag || crateBankTag == botBankTag) {
                 foundHits = true;
                 if (bank.getChildCount() > 0) {
-                    LOGGER.fine("Hodo bank tag: " + header.getTag() + "; childCount: " + bank.getChildCount());
+                    LOGGER.fine(() -> "Hodo bank tag: " + header.getTag() + "; childCount: " + bank.getChildCount());
                     /*
                     if (debug) {
                         System.out.println("Hodo bank tag: " + header.getTag() + "; childCount: " + bank.getChildCount());
@@ -137,14 +138,14 @@ public class HodoEvioReader extends EvioReader {
             }
         }
 
-        LOGGER.fine("Adding " + hits.size() + " Hodoscope hits to " + readoutName);
+        LOGGER.fine(() -> "Adding " + hits.size() + " Hodoscope hits to " + readoutName);
         
         lcsimEvent.put(this.hitCollectionName, hits, hitClass, flags, readoutName);
 
         return foundHits;
     }
 
-    private BaseRawTrackerHit makeHodoRawHit(int time, ArrayList<Long> id, CompositeData cdata, int nSamples) {
+    private BaseRawTrackerHit makeHodoRawHit(int time, int channelIndex, CompositeData cdata, int nSamples) {
 
         short[] adcValues = new short[nSamples];
         for (int i = 0; i < nSamples; i++) {
@@ -152,19 +153,16 @@ public class HodoEvioReader extends EvioReader {
             //System.out.println("ADC["+i+"] = " + adcValues[i]);
         }
 
-        Long id_hit = id.get(0);
-        Long id_det = id.get(1);
-
-        IDetectorElementContainer srch = subDetector.getDetectorElement().findDetectorElement(new Identifier(id_det));
-        if (srch.size() == 0) {
-            throw new RuntimeException("No detector element was found for hit ID: " + helper.unpack(new Identifier(id_det)));
+        if (channelTable.getDetectorElement(channelIndex) == null) {
+            throw new RuntimeException("No detector element was found for hit ID: "
+                    + helper.unpack(new Identifier(channelTable.getElementId(channelIndex))));
         }
         return new BaseRawTrackerHit(
                 time,
-                id_hit,
+                channelTable.getHitId(channelIndex),
                 adcValues,
                 new ArrayList<SimTrackerHit>(),
-                srch.get(0)
+                channelTable.getDetectorElement(channelIndex)
         );
     }
 
@@ -177,7 +175,7 @@ public class HodoEvioReader extends EvioReader {
             int trigger = cdata.getInt();
             long timestamp = cdata.getLong();
             int nchannels = cdata.getNValue();
-            LOGGER.finest("slot#=" + slot + "; trigger=" + trigger + "; timestamp=" + timestamp + "; nchannels=" + nchannels);
+            LOGGER.finest(() -> "slot#=" + slot + "; trigger=" + trigger + "; timestamp=" + timestamp + "; nchannels=" + nchannels);
             /*
             if (debug) {
                 System.out.println("slot#=" + slot + "; trigger=" + trigger + "; timestamp=" + timestamp + "; nchannels=" + nchannels);
@@ -187,21 +185,15 @@ public class HodoEvioReader extends EvioReader {
                 short channel = cdata.getByte();
                 int nSamples = cdata.getNValue();
 
-                LOGGER.finest("  channel=" + channel + "; nSamples=" + nSamples);
+                LOGGER.finest(() -> "  channel=" + channel + "; nSamples=" + nSamples);
                 /*if (debug) {
                     System.out.println("  channel=" + channel + "; nSamples=" + nSamples);
                 }*/
 
-                ArrayList<Long> ids = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelIndex(crate, slot, channel);
 
-                LOGGER.finest("The long ids are: " + ids);
-                /*
-                if (debug) {
-                    System.out.println("The long ids are: " + ids);
-                }*/
-
-                if (ids != null) {  // We found an actual Hodoscope channel.
-                    BaseRawTrackerHit hit = makeHodoRawHit(0, ids, cdata, nSamples);
+                if (channelIndex >= 0) {  // We found an actual Hodoscope channel.
+                    BaseRawTrackerHit hit = makeHodoRawHit(0, channelIndex, cdata, nSamples);
                     hits.add(hit);
                 } else {        // Not a hodoscope hit, so wind forward  -- MWH.
                     cdata.index(cdata.index() + nSamples);  // Wind the pointer forward by nSamples.
@@ -211,7 +203,7 @@ public class HodoEvioReader extends EvioReader {
         return hits;
     }
 
-    private ArrayList<Long> daqToGeometryId(int crate, short slot, short channel) {
+    ArrayList<Long> daqToGeometryId(int crate, short slot, short channel) {
 
         // ====================== Rafo =======================
         // Unlike to the ECal case, where each detector element is readout with a single channel
@@ -266,6 +258,52 @@ public class HodoEvioReader extends EvioReader {
         return iDs;
     }
 
+    /**
+     * Get the index of an FADC channel in the lookup table.
+     *
+     * @return the index, or -1 if the address is not a hodoscope channel
+     */
+    private int channelIndex(int crate, short slot, short channel) {
+        if (channelTable == null) {  // No hodoscope channels in the conditions
+            return -1;
+        }
+        return channelTable.index(crate, slot, channel);
+    }
+
+    /**
+     * Get the (crate, slot, channel) lookup table of the current conditions.
+     *
+     * @return the table, or <code>null</code> before the reader is initialized
+     */
+    FadcChannelTable getChannelTable() {
+        return channelTable;
+    }
+
+    /**
+     * Build the (crate, slot, channel) lookup table from the hodoscope channel map of the current conditions.
+     * The IDs are the same as those returned by {@link #daqToGeometryId(int, short, short)}.
+     */
+    private void buildChannelTable() {
+        int maxCrate = 0, maxSlot = 0, maxChannel = 0;
+        for (HodoscopeChannel hodoChannel : hodoChannels) {
+            maxCrate = Math.max(maxCrate, hodoChannel.getCrate());
+            maxSlot = Math.max(maxSlot, hodoChannel.getSlot());
+            maxChannel = Math.max(maxChannel, hodoChannel.getChannel());
+        }
+        channelTable = new FadcChannelTable(maxCrate, maxSlot, maxChannel);
+        for (HodoscopeChannel hodoChannel : hodoChannels) {
+            int crate = hodoChannel.getCrate();
+            int slot = hodoChannel.getSlot();
+            int channel = hodoChannel.getChannel();
+            if (channelTable.index(crate, slot, channel) >= 0) {
+                continue;  // findChannel returns the first match, so keep the first one here too
+            }
+            ArrayList<Long> ids = daqToGeometryId(crate, (short) slot, (short) channel);
+            IDetectorElementContainer srch = subDetector.getDetectorElement().findDetectorElement(new Identifier(ids.get(1)));
+            channelTable.put(crate, slot, channel, ids.get(0), ids.get(1), srch.size() > 0 ? srch.get(0) : null);
+        }
+    }
+
     private List<BaseRawTrackerHit> makePulseHits(CompositeData cdata, int crate) {
         List<BaseRawTrackerHit> hits = new ArrayList<BaseRawTrackerHit>();
         if (debug) {
@@ -292,15 +330,15 @@ public class HodoEvioReader extends EvioReader {
                 if (debug) {
                     System.out.println("  channel=" + channel + "; npulses=" + npulses);
                 }
-                ArrayList<Long> ids = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelIndex(crate, slot, channel);
                 for (int k = 0; k < npulses; k++) {
                     short pulseNum = cdata.getByte();
                     int sampleCount = cdata.getNValue();
 
-                    if (ids == null) {
+                    if (channelIndex < 0) {
                         cdata.index(cdata.index() + sampleCount);
                     } else {
-                        BaseRawTrackerHit hit = makeHodoRawHit(pulseNum, ids, cdata, sampleCount);
+                        BaseRawTrackerHit hit = makeHodoRawHit(pulseNum, channelIndex, cdata, sampleCount);
                         hits.add(hit);
                     }
                 }
@@ -335,15 +373,15 @@ public class HodoEvioReader extends EvioReader {
                 if (debug) {
                     System.out.println("  channel=" + channel + "; npulses=" + npulses);
                 }
-                ArrayList<Long> ids = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelIndex(crate, slot, channel);
                 for (int k = 0; k < npulses; k++) {
                     short pulseTime = cdata.getShort();
                     int pulseIntegral = cdata.getInt();
                     if (debug) {
                         System.out.println("    pulseTime=" + pulseTime + "; pulseIntegral=" + pulseIntegral);
                     }
-                    if (ids != null) {
-                        hits.add(new BaseRawCalorimeterHit(ids.get(0), pulseIntegral, pulseTime));
+                    if (channelIndex >= 0) {
+                        hits.add(new BaseRawCalorimeterHit(channelTable.getHitId(channelIndex), pulseIntegral, pulseTime));
                     }
                 }
             }
@@ -377,7 +415,7 @@ public class HodoEvioReader extends EvioReader {
                 if (debug) {
                     System.out.println("  channel=" + channel + "; npulses=" + npulses);
                 }
-                ArrayList<Long> ids = daqToGeometryId(crate, slot, channel);
+                int channelIndex = channelIndex(crate, slot, channel);
                 for (int k = 0; k < npulses; k++) {
                     short pulseTime = cdata.getShort();
                     int pulseIntegral = cdata.getInt();
@@ -386,8 +424,8 @@ public class HodoEvioReader extends EvioReader {
                     if (debug) {
                         System.out.println("    pulseTime=" + pulseTime + "; pulseIntegral=" + pulseIntegral + "; amplLow=" + amplLow + "; amplHigh=" + amplHigh);
                     }
-                    if (ids != null) {
-                        RawCalorimeterHit hit = new BaseRawCalorimeterHit(ids.get(0), pulseIntegral, pulseTime);
+                    if (channelIndex >= 0) {
+                        RawCalorimeterHit hit = new BaseRawCalorimeterHit(channelTable.getHitId(channelIndex), pulseIntegral, pulseTime);
                         hits.add(hit);
                     }
                 }
@@ -417,6 +455,7 @@ public class HodoEvioReader extends EvioReader {
 
         if (mgr.hasConditionsRecord("hodo_channels")) {
             hodoChannels = mgr.getCachedConditions(HodoscopeChannelCollection.class, "hodo_channels").getCachedData();
+            buildChannelTable();
         } else {
             // Fatal error if no Hodoscope channels are defined.
             LOGGER.severe("No HodoscopeChannelCollection found for run " + mgr.getRun() + " in the conditions database!");
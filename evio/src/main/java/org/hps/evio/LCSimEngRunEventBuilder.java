@@ -15,6 +15,7 @@ import org.hps.record.scalers.ScalersEvioProcessor;
 import org.hps.record.svt.SvtEvioExceptions.SvtEvioReaderException;
 import org.hps.record.triggerbank.AbstractIntData;
 import org.hps.record.triggerbank.AbstractIntData.IntBankDefinition;
+import org.hps.record.triggerbank.EventSummary;
 import org.hps.record.triggerbank.HeadBankData;
 import org.hps.record.triggerbank.SSPData;
 import org.hps.record.triggerbank.TDCData;
@@ -137,7 +138,7 @@ public class LCSimEngRunEventBuilder extends BaseEventBuilder {
     @Override
     public EventHeader makeLCSimEvent(final EvioEvent evioEvent) {
 
-        LOGGER.finest("creating LCSim event from EVIO event " + evioEvent.getEventNumber());
+        LOGGER.finest(() -> "creating LCSim event from EVIO event " + evioEvent.getEventNumber());
 
         if (!EvioEventUtilities.isPhysicsEvent(evioEvent)) {
             throw new RuntimeException("Not a physics event: event tag " + evioEvent.getHeader().getTag());
@@ -145,7 +146,7 @@ public class LCSimEngRunEventBuilder extends BaseEventBuilder {
 
         // Create a new LCSimEvent.
         final EventHeader lcsimEvent = this.getEventData(evioEvent);
-        LOGGER.finest("created new LCSim event " + lcsimEvent.getEventNumber());
+        LOGGER.finest(() -> "created new LCSim event " + lcsimEvent.getEventNumber());
 
         // Put DAQ Configuration info into lcsimEvent.
         try {
@@ -196,9 +197,26 @@ public class LCSimEngRunEventBuilder extends BaseEventBuilder {
         //
         if (svtEventFlagger != null) this.svtEventFlagger.writeFlags(lcsimEvent);
 
+        // Read the banks specific to the run period.
+        this.readRunPeriodBanks(evioEvent, lcsimEvent);
+
+        // Decode the trigger banks and flags once for all downstream drivers.
+        EventSummary.write(lcsimEvent);
+
         return lcsimEvent;
     }
 
+    /**
+     * Read banks that only exist in some run periods into the lcsim event. This
+     * is called after all the standard collections are made and before the
+     * {@link org.hps.record.triggerbank.EventSummary} is written.
+     *
+     * @param evioEvent the input EVIO event
+     * @param lcsimEvent the lcsim event
+     */
+    protected void readRunPeriodBanks(final EvioEvent evioEvent, final EventHeader lcsimEvent) {
+    }
+
     /**
      * Pre-read an EVIO event.
      *
@@ -3,7 +3,6 @@ package org.hps.evio;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.hps.record.evio.EvioEventUtilities;
 import org.jlab.coda.jevio.EvioEvent;
 import org.lcsim.event.EventHeader;
 
@@ -37,23 +36,20 @@ public class LCSimPhys2019EventBuilder extends LCSimEngRunEventBuilder {
     }
     
     
+    @Override
+    protected void setReaderObjectPool(EventObjectPool objectPool) {
+        super.setReaderObjectPool(objectPool);
+        tsReader.setObjectPool(objectPool);
+    }
+
     /**
-     * Make an lcsim event from EVIO data.
+     * Read the TS bank into the lcsim event.
      *
      * @param evioEvent the input EVIO event
+     * @param lcsimEvent the lcsim event
      */
     @Override
-    public EventHeader makeLCSimEvent(final EvioEvent evioEvent) {
-
-        LOGGER.finest("creating LCSim event from EVIO event " + evioEvent.getEventNumber());
-
-        if (!EvioEventUtilities.isPhysicsEvent(evioEvent)) {
-            throw new RuntimeException("Not a physics event: event tag " + evioEvent.getHeader().getTag());
-        }
-
-        // Create a new LCSimEvent.
-        final EventHeader lcsimEvent = super.makeLCSimEvent(evioEvent);
-        LOGGER.finest("created new LCSim event " + lcsimEvent.getEventNumber());
+    protected void readRunPeriodBanks(final EvioEvent evioEvent, final EventHeader lcsimEvent) {
 
         // Make TS collection
         // into one list.
@@ -62,10 +58,6 @@ public class LCSimPhys2019EventBuilder extends LCSimEngRunEventBuilder {
         } catch (final Exception e) {
             LOGGER.log(Level.SEVERE, "Error reading TS bank", e);
         }
-
-        //if (svtEventFlagger != null) this.svtEventFlagger.writeFlags(lcsimEvent);
-
-        return lcsimEvent;
     }
     
 }
@@ -7,7 +7,6 @@ import org.hps.record.svt.SvtEvioUtils;
 import org.hps.record.svt.SvtEvioExceptions.SvtEvioHeaderException;
 import org.hps.record.svt.SvtEvioExceptions.SvtEvioReaderException;
 import org.hps.record.svt.SvtHeaderDataInfo;
-import org.hps.util.Pair;
 import org.lcsim.detector.tracker.silicon.HpsSiSensor;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.RawTrackerHit;
@@ -91,17 +90,28 @@ public class Phys2019SvtEvioReader extends AbstractSvtEvioReader {
      */
     @Override
     protected RawTrackerHit makeHit(int[] data) {
+        return makeHit(data, getPhysicalChannel(data[MULTISAMPLE_TAIL_INDEX]));  
+    }
+
+    /**
+     * Get the physical channel number from a multisample tail word.  The APVs
+     * of FEBs 0 and 1 are read out in the opposite order to the other FEBs.
+     * 
+     * @param tail : multisample tail word
+     * @return The physical channel number
+     */
+    private int getPhysicalChannel(int tail) {
 
-        int febID = SvtEvioUtils.getFebIDFromMultisampleTail(data[3]); 
+        int febID = SvtEvioUtils.getFebIDFromMultisampleTail(tail); 
         int pChannel = 100; 
         //System.out.println("[ Phys2019SvtEvioReader ][ makeHit ] FEB ID: " + febID);  
         if ((febID == 0) || (febID == 1)) { 
            
             // 
-            int channel = SvtEvioUtils.getChannelNumber(data);
+            int channel = SvtEvioUtils.getChannelNumberFromMultisampleTail(tail);
 
             // Extract the APV ID from the data
-            int apv = SvtEvioUtils.getApvFromMultiSample(data);
+            int apv = SvtEvioUtils.getApvFromMultisampleTail(tail);
             if (apv == 0) apv = 1; 
             else if (apv == 1) apv = 0;   
 
@@ -115,11 +125,9 @@ public class Phys2019SvtEvioReader extends AbstractSvtEvioReader {
 
 
         } else { 
-            pChannel = SvtEvioUtils.getPhysicalChannelNumber(data); 
+            pChannel = SvtEvioUtils.getPhysicalChannelNumberFromMultisampleTail(tail); 
         }
-
-        //System.out.println("[ Phys2019SvtEvioReader ][ makeHit ]: Channel: " + pChannel);  
-        return makeHit(data, pChannel);  
+        return pChannel;
     }
 
 
@@ -135,8 +143,7 @@ public class Phys2019SvtEvioReader extends AbstractSvtEvioReader {
 
         List<HpsSiSensor> sensors = subdetector.getDetectorElement().findDescendants(HpsSiSensor.class);
         for (HpsSiSensor sensor : sensors) {
-            Pair<Integer, Integer> daqPair = new Pair<Integer, Integer>(sensor.getFebID(), sensor.getFebHybridID());
-            daqPairToSensor.put(daqPair, sensor);
+            this.addDaqSensor(sensor.getFebID(), sensor.getFebHybridID(), sensor);
         }
         this.isDaqMapSetup = true;
     }
@@ -155,28 +162,54 @@ public class Phys2019SvtEvioReader extends AbstractSvtEvioReader {
         //System.out.println("FEB ID: " + SvtEvioUtils.getFebIDFromMultisample(data)
         // + " Hybrid ID: " + SvtEvioUtils.getFebHybridIDFromMultisample(data));
 
-        Pair<Integer, Integer> daqPair = new Pair<Integer, Integer>(SvtEvioUtils.getFebIDFromMultisample(data),
+        return this.getSensor(SvtEvioUtils.getFebIDFromMultisample(data),
                 SvtEvioUtils.getFebHybridIDFromMultisample(data));
-
-        return daqPairToSensor.get(daqPair);
     }
 
     @Override
     protected List<RawTrackerHit> makeHits(int bankNumber, int[] data) throws SvtEvioReaderException {
-        
         List< RawTrackerHit > rawHits = new ArrayList< RawTrackerHit >(); 
+        this.makeHits(bankNumber, data, rawHits);
+        return rawHits;
+    }
 
-        List< int[] > multiSamples = extractMultiSamples(0, data);
-
-        for (int[] samples : multiSamples) { 
-//            rawHits.add(this.makeHit(samples)); 
-            RawTrackerHit hit = this.makeHit(samples);
-            if (hit != null) {
-                rawHits.add(hit); 
+    /**
+     * Decode the multisamples of a data bank in place, in the same order as
+     * {@link #extractMultiSamples(int, int[])} returns them, without copying 
+     * each multisample out of the bank.
+     */
+    @Override
+    protected void makeHits(int bankNumber, int[] data, List<RawTrackerHit> rawHits) throws SvtEvioReaderException {
+        
+        int currentSample = (data.length - 1); 
+        
+        // Transverse the data starting with the last word and find the tail
+        // of the first RSSI frame.
+        while ( currentSample > 0) {
+            
+            // The tail is four words long and the number of multisamples is
+            // stored in its first word.
+            if ( ((data[currentSample] >> 27) & 0x1F) == 0x15) { 
+                currentSample -= 3; 
+                int multiSampleCount = data[currentSample] & 0xFFF; 
+                if (multiSampleCount * MULTISAMPLE_LENGTH > currentSample) {
+                    throw new SvtEvioReaderException("[ " + this.getClass().getSimpleName() + " ]: RSSI frame with "
+                            + multiSampleCount + " multisamples does not fit in data bank " + bankNumber);
+                }
+                for (int imsample = 0; imsample < multiSampleCount; imsample++) { 
+                    currentSample -= MULTISAMPLE_LENGTH; 
+                    int tail = data[currentSample + MULTISAMPLE_TAIL_INDEX];
+                    if (SvtEvioUtils.isMultisampleHeader(tail)) continue; 
+                    RawTrackerHit hit = this.makeHit(data, currentSample, getPhysicalChannel(tail));
+                    if (hit != null) {
+                        rawHits.add(hit); 
+                    }
+                }
             }
-        }
 
-        return rawHits;
+            // If a tail event is found, skip to the next word.
+            currentSample -= 1;
+        } 
     }
 
     @Override
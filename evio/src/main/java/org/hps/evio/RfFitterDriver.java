@@ -13,6 +13,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.hps.recon.ecal.FADCGenericHit;
+import org.hps.record.triggerbank.EventSummary;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.GenericObject;
 import org.lcsim.util.Driver;
@@ -112,6 +113,11 @@ public class RfFitterDriver extends Driver {
             rfHits.add(new RfHit(times));
         }
         event.put("RFHits", rfHits, RfHit.class, 1);
+
+        // Add the RF times to the event summary written by the event builder.
+        if (event.hasItem(EventSummary.COLLECTION_NAME)) {
+            EventSummary.read(event).setRfTimes(event);
+        }
     }
 
     /**
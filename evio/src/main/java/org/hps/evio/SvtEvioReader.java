@@ -8,7 +8,6 @@ import org.hps.record.svt.SvtEvioExceptions.SvtEvioHeaderException;
 import org.hps.record.svt.SvtEvioExceptions.SvtEvioReaderException;
 import org.hps.record.svt.SvtEvioUtils;
 import org.hps.record.svt.SvtHeaderDataInfo;
-import org.hps.util.Pair;
 import org.jlab.coda.jevio.EvioEvent;
 import org.lcsim.detector.tracker.silicon.HpsSiSensor;
 import org.lcsim.event.EventHeader;
@@ -38,6 +37,10 @@ public class SvtEvioReader extends AbstractSvtEvioReader {
     // Container for sample headers
     List< SvtHeaderDataInfo > headers = new ArrayList< SvtHeaderDataInfo >(); 
 
+    // Scratch buffer for the multisample headers of a data bank, reused 
+    // between banks
+    private int[] multisampleHeaderData = new int[0];
+
     /**
      * Get the minimum SVT ROC bank tag in the event.
      *
@@ -111,9 +114,8 @@ public class SvtEvioReader extends AbstractSvtEvioReader {
 
         List<HpsSiSensor> sensors = subdetector.getDetectorElement().findDescendants(HpsSiSensor.class);
         for (HpsSiSensor sensor : sensors) {
-            Pair<Integer, Integer> daqPair = new Pair<Integer, Integer>(sensor.getFebID(), sensor.getFebHybridID());
             LOG.info("FEB ID: " + sensor.getFebID() + " Hybrid ID: " + sensor.getFebHybridID());
-            daqPairToSensor.put(daqPair, sensor);
+            this.addDaqSensor(sensor.getFebID(), sensor.getFebHybridID(), sensor);
         }
         this.isDaqMapSetup = true;
     }
@@ -132,10 +134,8 @@ public class SvtEvioReader extends AbstractSvtEvioReader {
         //System.out.println("FEB ID: " + SvtEvioUtils.getFebIDFromMultisample(data)
         // + " Hybrid ID: " + SvtEvioUtils.getFebHybridIDFromMultisample(data));
 
-        Pair<Integer, Integer> daqPair = new Pair<Integer, Integer>(SvtEvioUtils.getFebIDFromMultisample(data),
+        return this.getSensor(SvtEvioUtils.getFebIDFromMultisample(data),
                 SvtEvioUtils.getFebHybridIDFromMultisample(data));
-
-        return daqPairToSensor.get(daqPair);
     }
 
     /**
@@ -220,17 +220,26 @@ public class SvtEvioReader extends AbstractSvtEvioReader {
     @Override
     protected List<RawTrackerHit> makeHits(int bankNumber, int[] data) 
         throws SvtEvioReaderException { 
-   
         List<RawTrackerHit> rawHits = new ArrayList<RawTrackerHit>();
+        this.makeHits(bankNumber, data, rawHits);
+        return rawHits; 
+    }
 
+    /**
+     * Decode the multisamples of a data bank in place.  The tail word of each
+     * multisample is read once to classify it as an APV header, an APV tail or
+     * data, and the hits are created directly from the bank words.
+     */
+    @Override
+    protected void makeHits(int bankNumber, int[] data, List<RawTrackerHit> rawHits) 
+        throws SvtEvioReaderException { 
+   
         // Check that a complete set of samples exists 
         int sampleCount = data.length - this.getDataHeaderLength() - this.getDataTailLength();
-        //System.out.println("Total number of  samples: " + sampleCount);
-        if (sampleCount % 4 != 0) {
+        if (sampleCount % MULTISAMPLE_LENGTH != 0) {
             throw new SvtEvioReaderException("[ " + this.getClass().getSimpleName()
                     + " ]: Size of samples array is not divisible by 4");
         }
-        //System.out.println("Total number of multisamples: " + sampleCount);
     
         // Extract header and tail information
         SvtHeaderDataInfo headerData = this.extractSvtHeader(bankNumber, data);
@@ -244,44 +253,33 @@ public class SvtEvioReader extends AbstractSvtEvioReader {
         // Store the multisample headers. Note that the length is not known but
         // can't be longer than the multisample count in other words the data 
         // can be only header multisamples for example.
-        int multisampleHeaderData[] = new int[sampleCount];
+        if (multisampleHeaderData.length < sampleCount) multisampleHeaderData = new int[sampleCount];
         int multisampleHeaderIndex = 0;
     
-        List< int[] > multiSamples = extractMultiSamples(sampleCount, data);
-        
-        for (int[] samples : multiSamples) { 
+        int end = this.getDataHeaderLength() + sampleCount;
+        for (int offset = this.getDataHeaderLength(); offset < end; offset += MULTISAMPLE_LENGTH) { 
     
-            if (SvtEvioUtils.isMultisampleHeader(samples)) {
-                
-                //System.out.println("[ SvtEvioReader ][ processMultiSamples ]: This is a header multisample for APV "
-                //         + SvtEvioUtils.getApvFromMultiSample(samples) + " CH " 
-                //         + SvtEvioUtils.getChannelNumber(samples));
-                
-                // Extract data words from multisample header and update index
-                multisampleHeaderIndex += this.extractMultisampleHeaderData(samples, multisampleHeaderIndex, multisampleHeaderData);
-            
-            } else { 
-                
-                //System.out.println("[ SvtEvioReader ][ processMultiSamples ]: This is a data multisample for APV "
-                //        + SvtEvioUtils.getApvFromMultiSample(samples) + " CH " + SvtEvioUtils.getChannelNumber(samples));
+            int tail = data[offset + MULTISAMPLE_TAIL_INDEX];
+            boolean isApvHeader = SvtEvioUtils.isMultisampleHeader(tail);
+            boolean isApvTail = SvtEvioUtils.isMultisampleTail(tail);
+
+            // Extract data words from multisample header and update index
+            if (isApvHeader && !isApvTail) {
+                System.arraycopy(data, offset, multisampleHeaderData, multisampleHeaderIndex, MULTISAMPLE_LENGTH);
+                multisampleHeaderIndex += MULTISAMPLE_LENGTH;
             }
             
             // If a set of samples is associated with an APV header or tail, skip it
-            if (!this.isValidSampleSet(samples)) continue;
+            if (isApvHeader || isApvTail) continue;
         
             // Create raw hits and add them to the list of raw hits
-            RawTrackerHit hit = this.makeHit(samples);
+            RawTrackerHit hit = this.makeHit(data, offset, SvtEvioUtils.getPhysicalChannelNumberFromMultisampleTail(tail));
             if (hit != null) {
                 rawHits.add(hit);
             }
         }
 
-        //System.out.println("[ SvtEvioReader ][ processMultiSamples ]: Got " 
-        //        + multisampleHeaderIndex + " multisampleHeaderIndex for " + sampleCount + " sampleCount");
-        
         // add multisample header tails to header data object
         this.setMultiSampleHeaders(headerData, multisampleHeaderIndex, multisampleHeaderData);
-        
-        return rawHits; 
     }
 }
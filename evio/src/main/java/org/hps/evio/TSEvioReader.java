@@ -1,6 +1,5 @@
 package org.hps.evio;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -27,12 +26,12 @@ public class TSEvioReader extends EvioReader {
         int[] ts = new int[] {}; // This array contains tag and data for TS bank of the given event
 
         // ======== Defining GenericObjects for an integer array
-        TSGenericObject ts_generic = new TSGenericObject();
+        TSGenericObject ts_generic = objectPool != null ? objectPool.getTSObject() : new TSGenericObject();
 
         // ====== In order to write generic object in the file, 1st we should add
         // generic objects
         // ====== in the List, so we will add above genericObjects into the list below
-        List<TSGenericObject> ts_list = new ArrayList();
+        List<TSGenericObject> ts_list = newCollectionList();
 
         // ===== Looping over all banks in the EVIO
         for (BaseStructure bank : event.getChildrenList()) {
@@ -9,6 +9,10 @@ import org.lcsim.event.GenericObject;
 final class TSGenericObject implements GenericObject {
 
     private int[] values;
+
+    // Event of the object pool this object was taken for, and whether that event was released in debug mode.
+    private long event;
+    private boolean released = false;
     
     @Override
     public double getDoubleVal(final int index) {
@@ -17,6 +21,7 @@ final class TSGenericObject implements GenericObject {
 
     @Override
     public int getIntVal(final int index) {
+        this.check();
         return this.values[index];
     }
 
@@ -52,6 +57,7 @@ final class TSGenericObject implements GenericObject {
      */
     @Override
     public int getNInt() {
+        this.check();
         return this.values.length;
     }
 
@@ -68,5 +74,19 @@ final class TSGenericObject implements GenericObject {
         this.values = values;
     }
 
+    void acquire(final long event) {
+        this.event = event;
+        this.released = false;
+    }
 
+    void release(final boolean poison) {
+        this.values = null;
+        this.released = poison;
+    }
+
+    private void check() {
+        if (this.released) {
+            throw new IllegalStateException(EventObjectPool.releasedMessage("TS bank wrapper", this.event));
+        }
+    }
 }
@@ -1,7 +1,6 @@
 package org.hps.evio;
 
 import java.util.List;
-import java.util.ArrayList;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.jlab.coda.jevio.BaseStructure;
@@ -30,13 +29,20 @@ public class VTPEvioReader extends EvioReader {
         int[] rocID_vals = new int[]{};         // This array contains rocIDs for the same index VTP word
 
         // ======== Defining GenericObjects for words, and rocIDs
-        VTPGenericObject vtp_generic = new VTPGenericObject();
-        VTPGenericObject vtp_generic_rocid = new VTPGenericObject();
+        VTPGenericObject vtp_generic;
+        VTPGenericObject vtp_generic_rocid;
+        if (objectPool != null) {
+            vtp_generic = objectPool.getVTPObject();
+            vtp_generic_rocid = objectPool.getVTPObject();
+        } else {
+            vtp_generic = new VTPGenericObject();
+            vtp_generic_rocid = new VTPGenericObject();
+        }
         
         
         // ====== In order to write generic object in the file, 1st we should add generic objects
         // ====== in the List, so we will add above genericObjects into the list below
-        List<VTPGenericObject> vtp_list = new ArrayList();
+        List<VTPGenericObject> vtp_list = newCollectionList();
 
         
         // ===== Looping over all banks in the EVIO
@@ -11,6 +11,10 @@ final class VTPGenericObject implements GenericObject {
 
     private int[] values;
 
+    // Event of the object pool this object was taken for, and whether that event was released in debug mode.
+    private long event;
+    private boolean released = false;
+
     @Override
     public double getDoubleVal(final int index) {
         return 0;
@@ -18,6 +22,7 @@ final class VTPGenericObject implements GenericObject {
 
     @Override
     public int getIntVal(final int index) {
+        this.check();
         return this.values[index];
     }
 
@@ -53,6 +58,7 @@ final class VTPGenericObject implements GenericObject {
      */
     @Override
     public int getNInt() {
+        this.check();
         return this.values.length;
     }
 
@@ -69,4 +75,19 @@ final class VTPGenericObject implements GenericObject {
         this.values = values;
     }
 
+    void acquire(final long event) {
+        this.event = event;
+        this.released = false;
+    }
+
+    void release(final boolean poison) {
+        this.values = null;
+        this.released = poison;
+    }
+
+    private void check() {
+        if (this.released) {
+            throw new IllegalStateException(EventObjectPool.releasedMessage("VTP bank wrapper", this.event));
+        }
+    }
 }
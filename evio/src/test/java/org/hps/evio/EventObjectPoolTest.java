@@ -0,0 +1,72 @@
+package org.hps.evio;
+
+import java.util.List;
+
+import org.hps.record.triggerbank.AbstractIntData;
+import org.hps.record.triggerbank.TIData;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the reuse of per-event objects by {@link EventObjectPool} and the detection of objects used after their
+ * event was released.
+ */
+public class EventObjectPoolTest extends TestCase {
+
+    public void testReuse() throws Exception {
+        EventObjectPool pool = new EventObjectPool(false);
+
+        pool.beginEvent();
+        List<Object> list = pool.getList();
+        list.add("hit");
+        TSGenericObject ts = pool.getTSObject();
+        AbstractIntData ti = pool.getIntData(TIData.class, new int[] {1 << 24, 0, 10, 0, 0});
+        pool.releaseEvent();
+
+        pool.beginEvent();
+        List<Object> reused = pool.getList();
+        assertSame(list, reused);
+        assertTrue(reused.isEmpty());
+        assertSame(ts, pool.getTSObject());
+        AbstractIntData reloaded = pool.getIntData(TIData.class, new int[] {0, 0, 20, 0});
+        assertSame(ti, reloaded);
+        assertFalse(((TIData) reloaded).isSingle0Trigger());
+        assertFalse(((TIData) reloaded).hasUnprescaledTriggerBits());
+        assertEquals(80, ((TIData) reloaded).getTime());
+        pool.releaseEvent();
+    }
+
+    public void testUnreleasedEvent() {
+        EventObjectPool pool = new EventObjectPool(false);
+        pool.beginEvent();
+        try {
+            pool.beginEvent();
+            fail("An unreleased event was not detected.");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    public void testEscapeDetection() {
+        EventObjectPool pool = new EventObjectPool(true);
+
+        pool.beginEvent();
+        List<Object> list = pool.getList();
+        TSGenericObject ts = pool.getTSObject();
+        ts.setValues(new int[] {1, 2});
+        pool.releaseEvent();
+
+        pool.beginEvent();
+        assertNotSame(list, pool.getList());
+        try {
+            list.size();
+            fail("Use of a released list was not detected.");
+        } catch (IllegalStateException e) {
+        }
+        try {
+            ts.getIntVal(0);
+            fail("Use of a released TS bank wrapper was not detected.");
+        } catch (IllegalStateException e) {
+        }
+        pool.releaseEvent();
+    }
+}
@@ -0,0 +1,149 @@
+package org.hps.evio;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.hps.conditions.database.DatabaseConditionsManager;
+import org.hps.conditions.ecal.EcalChannel;
+import org.hps.conditions.ecal.EcalChannel.DaqId;
+import org.hps.conditions.ecal.EcalChannel.GeometryId;
+import org.hps.conditions.ecal.EcalConditions;
+import org.hps.conditions.hodoscope.HodoscopeChannel;
+import org.hps.conditions.hodoscope.HodoscopeChannel.HodoscopeChannelCollection;
+import org.lcsim.detector.IDetectorElementContainer;
+import org.lcsim.detector.identifier.IIdentifierHelper;
+import org.lcsim.detector.identifier.Identifier;
+import org.lcsim.geometry.Subdetector;
+
+/**
+ * Test the (crate, slot, channel) lookup tables of {@link EcalEvioReader} and {@link HodoEvioReader} against the
+ * per-hit lookups they replace, for every FADC address of the 2019 channel maps and the unmapped addresses around
+ * them: the DAQ ID lookup in the ECal channel map followed by the geometry ID encoding, and
+ * {@link HodoEvioReader#daqToGeometryId(int, short, short)}, each followed by the detector element search.
+ */
+public class FadcChannelTableTest extends TestCase {
+
+    private static final String DETECTOR = "HPS-PhysicsRun2019-v2-4pt5";
+    private static final int RUN = 10031;
+
+    public void testTable() {
+        FadcChannelTable table = new FadcChannelTable(2, 3, 4);
+        table.put(1, 3, 0, 1234L, 5678L, null);
+        table.put(2, 0, 4, -1L, 0L, null);
+
+        int idx = table.index(1, 3, 0);
+        assertTrue(idx >= 0);
+        assertEquals(1234L, table.getHitId(idx));
+        assertEquals(5678L, table.getElementId(idx));
+        assertNull(table.getDetectorElement(idx));
+        idx = table.index(2, 0, 4);
+        assertEquals(-1L, table.getHitId(idx));
+        assertEquals(0L, table.getElementId(idx));
+
+        // unmapped and out of range addresses
+        assertEquals(-1, table.index(1, 3, 1));
+        assertEquals(-1, table.index(0, 0, 0));
+        assertEquals(-1, table.index(3, 0, 0));
+        assertEquals(-1, table.index(1, 4, 0));
+        assertEquals(-1, table.index(1, 3, 5));
+        assertEquals(-1, table.index(-1, 3, 0));
+        try {
+            table.put(1, 4, 0, 0L, 0L, null);
+            fail("an address out of range must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testEcalLookup() throws Exception {
+        DatabaseConditionsManager conditionsManager = DatabaseConditionsManager.getInstance();
+        conditionsManager.setDetector(DETECTOR, RUN);
+        EcalEvioReader reader = new EcalEvioReader(0x1, 0x2);
+        reader.initialize();
+        FadcChannelTable table = reader.getChannelTable();
+
+        EcalConditions ecalConditions = conditionsManager.getEcalConditions();
+        Subdetector subDetector = conditionsManager.getDetectorObject().getSubdetector("Ecal");
+        IIdentifierHelper helper = subDetector.getDetectorElement().getIdentifierHelper();
+        int maxCrate = 0, maxSlot = 0, maxChannel = 0;
+        for (EcalChannel ecalChannel : ecalConditions.getChannelCollection()) {
+            maxCrate = Math.max(maxCrate, ecalChannel.getCrate());
+            maxSlot = Math.max(maxSlot, ecalChannel.getSlot());
+            maxChannel = Math.max(maxChannel, ecalChannel.getChannel());
+        }
+
+        int nMapped = 0;
+        for (int crate = 0; crate <= maxCrate + 1; crate++) {
+            for (short slot = 0; slot <= maxSlot + 1; slot++) {
+                for (short channel = 0; channel <= maxChannel + 1; channel++) {
+                    EcalChannel ecalChannel = ecalConditions.getChannelCollection().findChannel(
+                            new DaqId(new int[] {crate, slot, channel}));
+                    int idx = table.index(crate, slot, channel);
+                    String address = "crate " + crate + ", slot " + slot + ", channel " + channel;
+                    if (ecalChannel == null) {
+                        assertEquals(address, -1, idx);
+                        continue;
+                    }
+                    assertTrue(address, idx >= 0);
+                    long id = new GeometryId(helper, new int[] {subDetector.getSystemID(), ecalChannel.getX(),
+                            ecalChannel.getY()}).encode();
+                    assertEquals(address, id, table.getHitId(idx));
+                    assertEquals(address, id, table.getElementId(idx));
+                    checkElement(address, subDetector, id, table, idx);
+                    nMapped++;
+                }
+            }
+        }
+        assertTrue(nMapped > 0);
+    }
+
+    public void testHodoLookup() throws Exception {
+        DatabaseConditionsManager conditionsManager = DatabaseConditionsManager.getInstance();
+        conditionsManager.setDetector(DETECTOR, RUN);
+        HodoEvioReader reader = new HodoEvioReader(0x1, 0x2);
+        reader.initialize();
+        FadcChannelTable table = reader.getChannelTable();
+
+        HodoscopeChannelCollection channels = conditionsManager.getCachedConditions(HodoscopeChannelCollection.class,
+                "hodo_channels").getCachedData();
+        Subdetector subDetector = conditionsManager.getDetectorObject().getSubdetector("Hodoscope");
+        int maxCrate = 0, maxSlot = 0, maxChannel = 0;
+        for (HodoscopeChannel hodoChannel : channels) {
+            maxCrate = Math.max(maxCrate, hodoChannel.getCrate());
+            maxSlot = Math.max(maxSlot, hodoChannel.getSlot());
+            maxChannel = Math.max(maxChannel, hodoChannel.getChannel());
+        }
+
+        int nMapped = 0;
+        for (int crate = 0; crate <= maxCrate + 1; crate++) {
+            for (short slot = 0; slot <= maxSlot + 1; slot++) {
+                for (short channel = 0; channel <= maxChannel + 1; channel++) {
+                    ArrayList<Long> ids = reader.daqToGeometryId(crate, slot, channel);
+                    int idx = table.index(crate, slot, channel);
+                    String address = "crate " + crate + ", slot " + slot + ", channel " + channel;
+                    if (ids == null) {
+                        assertEquals(address, -1, idx);
+                        continue;
+                    }
+                    assertTrue(address, idx >= 0);
+                    assertEquals(address, ids.get(0).longValue(), table.getHitId(idx));
+                    assertEquals(address, ids.get(1).longValue(), table.getElementId(idx));
+                    checkElement(address, subDetector, ids.get(1), table, idx);
+                    nMapped++;
+                }
+            }
+        }
+        assertTrue(nMapped > 0);
+    }
+
+    private static void checkElement(String address, Subdetector subDetector, long id, FadcChannelTable table,
+            int idx) {
+        IDetectorElementContainer elements = subDetector.getDetectorElement().findDetectorElement(new Identifier(id));
+        if (elements.size() > 0) {
+            assertSame(address, elements.get(0), table.getDetectorElement(idx));
+        } else {
+            assertNull(address, table.getDetectorElement(idx));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.hps.evio;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+import org.hps.conditions.database.DatabaseConditionsManager;
+import org.hps.record.evio.EvioEventUtilities;
+import org.jlab.coda.jevio.BaseStructure;
+import org.jlab.coda.jevio.CompositeData;
+import org.jlab.coda.jevio.EvioEvent;
+import org.jlab.coda.jevio.EvioException;
+import org.jlab.coda.jevio.EvioReader;
+import org.lcsim.event.EventHeader;
+
+import junit.framework.TestCase;
+
+/**
+ * Decode-throughput benchmark of the ECal and hodoscope FADC readers over recorded 2019/2021 EVIO data.
+ * <p>
+ * The input is not part of the test file cache, so the benchmark only runs when it is given on the command line:
+ * <pre>
+ * mvn test -Dtest=FadcDecodeBenchmarkTest -Dhps.benchmark.evio=hps_010031.evio.00000 \
+ *     -Dhps.benchmark.detector=HPS-PhysicsRun2019-v2-4pt5 -Dhps.benchmark.run=10031
+ * </pre>
+ * Each physics event is built once, and the FADC banks are then decoded again several times to time the readers
+ * on their own.
+ */
+public class FadcDecodeBenchmarkTest extends TestCase {
+
+    private static final Logger LOGGER = Logger.getLogger(FadcDecodeBenchmarkTest.class.getPackage().getName());
+
+    private static final int REPEAT = 10;
+
+    // Collections written by the FADC readers, removed before each repeated decoding
+    private static final String[] FADC_COLLECTIONS = {"EcalReadoutHits", "FADCGenericHits", "EcalReadoutExtraData",
+            "EcalReadoutExtraDataRelations", "HodoReadoutHits"};
+
+    public void testFadcDecodeThroughput() throws Exception {
+
+        String fileName = System.getProperty("hps.benchmark.evio");
+        if (fileName == null) {
+            LOGGER.info("hps.benchmark.evio is not set; skipping the FADC decoding benchmark.");
+            return;
+        }
+        String detectorName = System.getProperty("hps.benchmark.detector", "HPS-PhysicsRun2019-v2-4pt5");
+        int run = Integer.parseInt(System.getProperty("hps.benchmark.run", "10031"));
+        int maxEvents = Integer.parseInt(System.getProperty("hps.benchmark.events", "10000"));
+
+        DatabaseConditionsManager conditionsManager = DatabaseConditionsManager.getInstance();
+        LCSimPhys2019EventBuilder builder = new LCSimPhys2019EventBuilder();
+        conditionsManager.addConditionsListener(builder);
+        conditionsManager.setDetector(detectorName, run);
+
+        EvioReader reader = new EvioReader(new File(fileName));
+        long ecalTime = 0;
+        long hodoTime = 0;
+        int nEvents = 0;
+        EvioEvent evioEvent = null;
+        while ((evioEvent = reader.nextEvent()) != null && nEvents < maxEvents) {
+            reader.parseEvent(evioEvent);
+            builder.readEvioEvent(evioEvent);
+            if (!EvioEventUtilities.isPhysicsEvent(evioEvent)) {
+                continue;
+            }
+            EventHeader lcsimEvent = builder.makeLCSimEvent(evioEvent);
+            nEvents++;
+            for (int i = 0; i < REPEAT; i++) {
+                rewind(evioEvent);
+                for (String name : FADC_COLLECTIONS) {
+                    if (lcsimEvent.hasItem(name)) {
+                        lcsimEvent.remove(name);
+                    }
+                }
+                long start = System.nanoTime();
+                builder.ecalReader.makeHits(evioEvent, lcsimEvent);
+                long end = System.nanoTime();
+                ecalTime += end - start;
+                if (builder.hodoReader != null) {
+                    builder.hodoReader.makeHits(evioEvent, lcsimEvent);
+                    hodoTime += System.nanoTime() - end;
+                }
+            }
+        }
+        reader.close();
+
+        assertTrue("No physics events were read from " + fileName, nEvents > 0);
+        int nDecoded = nEvents * REPEAT;
+        LOGGER.info(String.format("Decoded %d events: ECal %.2f us/event (%.0f events/s), hodoscope %.2f us/event",
+                nEvents, ecalTime / 1e3 / nDecoded, nDecoded / (ecalTime / 1e9), hodoTime / 1e3 / nDecoded));
+    }
+
+    // JEVIO keeps the read position of the composite data, so reset it before decoding the same event again.
+    private static void rewind(EvioEvent evioEvent) throws EvioException {
+        for (BaseStructure bank : evioEvent.getChildrenList()) {
+            if (bank.getChildCount() == 0) {
+                continue;
+            }
+            for (BaseStructure slotBank : bank.getChildrenList()) {
+                CompositeData[] cdata = slotBank.getCompositeData();
+                if (cdata != null) {
+                    for (CompositeData c : cdata) {
+                        c.index(0);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package org.hps.logging.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * Handler which queues log records in a bounded ring buffer and publishes them to a target handler from a background
+ * thread, so that a slow console or log file does not stall the thread doing the logging.
+ * <p>
+ * The buffer is a lock-free multi-producer, single-consumer array queue. When it is full, the {@link Policy} decides
+ * whether the logging thread waits for room (<code>BLOCK</code>, the default) or the record is dropped
+ * (<code>DROP</code>). Dropped records are counted and the count is reported through the target handler.
+ * <p>
+ * The handler is configured from the log manager properties, for example:
+ *
+ * <pre>
+ * handlers = org.hps.logging.handler.AsyncHandler
+ * org.hps.logging.handler.AsyncHandler.level = ALL
+ * org.hps.logging.handler.AsyncHandler.target = java.util.logging.ConsoleHandler
+ * org.hps.logging.handler.AsyncHandler.capacity = 8192
+ * org.hps.logging.handler.AsyncHandler.policy = DROP
+ * </pre>
+ *
+ * The target handler reads its own properties. A <code>formatter</code> property, if set, is applied to the target.
+ * <p>
+ * The source class and method of a record are resolved before it is queued, as they could not be inferred on the
+ * background thread. Message parameters are formatted on the background thread, so objects passed as parameters
+ * should not be modified after logging them.
+ */
+public class AsyncHandler extends Handler {
+
+    /**
+     * What to do with a record when the buffer is full.
+     */
+    public enum Policy {
+        /**
+         * Wait until the background thread makes room.
+         */
+        BLOCK,
+        /**
+         * Discard the record.
+         */
+        DROP
+    }
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * Time the background thread sleeps when the buffer is empty, unless woken up by a new record (units = ns).
+     */
+    private static final long IDLE_NANOS = 50000000L;
+
+    /**
+     * Time a blocked producer waits before retrying (units = ns).
+     */
+    private static final long BACKOFF_NANOS = 100000L;
+
+    private final Handler target;
+    private final Policy policy;
+    private final int mask;
+
+    // ring buffer: a slot is free for the producer claiming position p when its sequence is p, and holds the record
+    // of position p for the consumer when its sequence is p + 1
+    private final AtomicReferenceArray<LogRecord> records;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final AtomicLong dropped = new AtomicLong();
+    // threads inside publish, so that the background thread does not stop while one of them may still queue a record
+    private final AtomicInteger publishing = new AtomicInteger();
+    private long droppedReported;
+
+    private final Thread flusher;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    /**
+     * Create the handler from the log manager properties.
+     */
+    public AsyncHandler() {
+        this(createTarget(), getIntProperty("capacity", DEFAULT_CAPACITY), getPolicyProperty());
+        String prefix = AsyncHandler.class.getName();
+        LogManager manager = LogManager.getLogManager();
+        String level = manager.getProperty(prefix + ".level");
+        if (level != null) {
+            setLevel(Level.parse(level.trim()));
+        }
+        String formatter = manager.getProperty(prefix + ".formatter");
+        if (formatter != null) {
+            try {
+                target.setFormatter((Formatter) Class.forName(formatter.trim()).getDeclaredConstructor().newInstance());
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                reportError("Bad formatter " + formatter, e, ErrorManager.GENERIC_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param target the handler records are published to
+     * @param capacity the buffer size, rounded up to a power of 2
+     * @param policy what to do with a record when the buffer is full
+     */
+    public AsyncHandler(Handler target, int capacity, Policy policy) {
+        if (target == null) {
+            throw new IllegalArgumentException("The target handler is null.");
+        }
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad buffer capacity: " + capacity);
+        }
+        this.target = target;
+        this.policy = policy;
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.records = new AtomicReferenceArray<LogRecord>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.flusher = new Thread(this::run, AsyncHandler.class.getSimpleName());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // infer the caller while still on its thread
+        record.getSourceClassName();
+        publishing.incrementAndGet();
+        try {
+            // checked again now that the background thread waits for this one
+            if (closed) {
+                return;
+            }
+            while (!offer(record)) {
+                if (policy == Policy.DROP || closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                wakeUp();
+                LockSupport.parkNanos(BACKOFF_NANOS);
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+        if (idle || closed) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Wait until the records queued so far have been published and flush the target handler.
+     */
+    @Override
+    public void flush() {
+        final long position = tail.get();
+        while (head < position && flusher.isAlive()) {
+            wakeUp();
+            LockSupport.parkNanos(BACKOFF_NANOS);
+        }
+        target.flush();
+    }
+
+    /**
+     * Publish the remaining records, stop the background thread and close the target handler.
+     */
+    @Override
+    public void close() throws SecurityException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        wakeUp();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+    }
+
+    /**
+     * @return the number of records dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public Handler getTarget() {
+        return target;
+    }
+
+    private boolean offer(LogRecord record) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    records.lazySet(index, record);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                // the consumer has not yet freed this slot: full
+                return false;
+            } else {
+                // another producer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    private LogRecord poll() {
+        final long position = head;
+        final int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        LogRecord record = records.get(index);
+        records.lazySet(index, null);
+        sequences.lazySet(index, position + mask + 1);
+        head = position + 1;
+        return record;
+    }
+
+    private void wakeUp() {
+        LockSupport.unpark(flusher);
+    }
+
+    private void run() {
+        while (true) {
+            LogRecord record = poll();
+            if (record != null) {
+                publishToTarget(record);
+                continue;
+            }
+            reportDropped();
+            if (closed) {
+                // a producer may have checked the flag just before the close and still be queueing its record
+                if (publishing.get() == 0 && head == tail.get()) {
+                    break;
+                }
+                Thread.yield();
+                continue;
+            }
+            idle = true;
+            if (head == tail.get()) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            idle = false;
+        }
+        target.flush();
+    }
+
+    private void publishToTarget(LogRecord record) {
+        try {
+            target.publish(record);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private void reportDropped() {
+        final long count = dropped.get();
+        if (count != droppedReported) {
+            LogRecord record = new LogRecord(Level.WARNING, "Dropped " + (count - droppedReported)
+                    + " log records because the buffer was full (" + count + " in total)");
+            record.setLoggerName(AsyncHandler.class.getName());
+            record.setSourceClassName(AsyncHandler.class.getName());
+            record.setSourceMethodName("publish");
+            publishToTarget(record);
+            droppedReported = count;
+        }
+    }
+
+    private static Handler createTarget() {
+        String className = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".target");
+        if (className == null) {
+            return new ConsoleHandler();
+        }
+        try {
+            return (Handler) Class.forName(className.trim()).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Bad target handler " + className, e);
+        }
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + "." + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad value of " + name + ": " + value, e);
+        }
+    }
+
+    private static Policy getPolicyProperty() {
+        String value = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".policy");
+        if (value == null) {
+            return Policy.BLOCK;
+        }
+        return Policy.valueOf(value.trim().toUpperCase());
+    }
+}
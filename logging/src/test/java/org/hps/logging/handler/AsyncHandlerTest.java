@@ -0,0 +1,204 @@
+package org.hps.logging.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import junit.framework.TestCase;
+
+/**
+ * Test {@link AsyncHandler} with several threads publishing at once into a small buffer in front of a slow target:
+ * no record is lost or dropped with the <code>BLOCK</code> policy, the records of each thread reach the target in
+ * the order they were published, a flush returns only once the records of the flushing thread have been published,
+ * and a close while the threads are publishing loses none of the records published before it.
+ */
+public class AsyncHandlerTest extends TestCase {
+
+    private static final int THREADS = 8;
+    private static final int RECORDS = 20000;
+
+    /**
+     * Target that keeps the thread and sequence number of each record and is slow every now and then, so that the
+     * buffer fills up.
+     */
+    private static class CollectingHandler extends Handler {
+
+        final List<List<Integer>> received = new ArrayList<List<Integer>>();
+        volatile boolean closed;
+        volatile boolean publishedAfterClose;
+        private int count;
+
+        CollectingHandler() {
+            for (int t = 0; t < THREADS; t++) {
+                received.add(Collections.synchronizedList(new ArrayList<Integer>()));
+            }
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if (closed) {
+                publishedAfterClose = true;
+            }
+            if (record.getParameters() == null) {
+                // report of dropped records
+                return;
+            }
+            received.get((Integer) record.getParameters()[0]).add((Integer) record.getParameters()[1]);
+            if (++count % 1000 == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Thread publishing numbered records.
+     */
+    private static class Producer extends Thread {
+
+        final AsyncHandler handler;
+        final CollectingHandler target;
+        final CountDownLatch start;
+        final int index;
+        final boolean flush;
+        final boolean[] closing;
+        volatile int publishedBeforeClose;
+        volatile Throwable error;
+
+        Producer(AsyncHandler handler, CollectingHandler target, CountDownLatch start, int index, boolean flush,
+                boolean[] closing) {
+            this.handler = handler;
+            this.target = target;
+            this.start = start;
+            this.index = index;
+            this.flush = flush;
+            this.closing = closing;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+                for (int i = 0; i < RECORDS; i++) {
+                    handler.publish(record(index, i));
+                    synchronized (closing) {
+                        if (!closing[0]) {
+                            publishedBeforeClose = i + 1;
+                        }
+                    }
+                    if (flush && i % 1000 == 999) {
+                        handler.flush();
+                        assertEquals("records of thread " + index + " still queued after a flush", i + 1,
+                                target.received.get(index).size());
+                    }
+                }
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+    }
+
+    public void testPublishAndFlush() throws Exception {
+        CollectingHandler target = new CollectingHandler();
+        AsyncHandler handler = new AsyncHandler(target, 64, AsyncHandler.Policy.BLOCK);
+        List<Producer> producers = run(handler, target, true, false);
+        handler.flush();
+        handler.close();
+
+        assertEquals(0, handler.getDroppedCount());
+        assertTrue(target.closed);
+        assertFalse(target.publishedAfterClose);
+        for (Producer producer : producers) {
+            checkOrder(target.received.get(producer.index), RECORDS);
+        }
+
+        // records published after the close are ignored
+        handler.publish(record(0, RECORDS));
+        assertEquals(RECORDS, target.received.get(0).size());
+        assertFalse(target.publishedAfterClose);
+    }
+
+    public void testCloseWhilePublishing() throws Exception {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            CollectingHandler target = new CollectingHandler();
+            AsyncHandler handler = new AsyncHandler(target, 16, AsyncHandler.Policy.BLOCK);
+            List<Producer> producers = run(handler, target, false, true);
+            assertTrue(target.closed);
+            assertFalse(target.publishedAfterClose);
+            long total = 0;
+            for (Producer producer : producers) {
+                List<Integer> received = target.received.get(producer.index);
+                checkOrder(received, received.size());
+                assertTrue("records of thread " + producer.index + " published before the close were lost",
+                        received.size() >= producer.publishedBeforeClose);
+                total += received.size();
+            }
+            assertTrue(total + handler.getDroppedCount() <= THREADS * RECORDS);
+        }
+    }
+
+    /**
+     * Publish from all the threads at once, closing the handler while they are running if requested.
+     */
+    private static List<Producer> run(AsyncHandler handler, CollectingHandler target, boolean flush, boolean close)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        boolean[] closing = new boolean[1];
+        List<Producer> producers = new ArrayList<Producer>();
+        for (int t = 0; t < THREADS; t++) {
+            Producer producer = new Producer(handler, target, start, t, flush, closing);
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        if (close) {
+            Thread.sleep(5);
+            synchronized (closing) {
+                closing[0] = true;
+            }
+            handler.close();
+        }
+        for (Producer producer : producers) {
+            producer.join();
+            if (producer.error != null) {
+                throw new AssertionError("thread " + producer.index + " failed", producer.error);
+            }
+        }
+        return producers;
+    }
+
+    /**
+     * The records of a thread are the first ones it published, in order.
+     */
+    private static void checkOrder(List<Integer> received, int expectedSize) {
+        assertEquals(expectedSize, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i, received.get(i).intValue());
+        }
+    }
+
+    private static LogRecord record(int thread, int i) {
+        LogRecord record = new LogRecord(Level.INFO, "record {1} of thread {0}");
+        record.setParameters(new Object[] {thread, i});
+        // set the source so that it is not inferred
+        record.setSourceClassName(AsyncHandlerTest.class.getName());
+        record.setSourceMethodName("run");
+        return record;
+    }
+}
@@ -23,6 +23,7 @@ import org.hps.monitoring.subsys.SystemStatus;
 import org.hps.monitoring.subsys.SystemStatusImpl;
 import org.hps.recon.tracking.SvtPlotUtils;
 import org.hps.record.triggerbank.AbstractIntData;
+import org.hps.record.triggerbank.EventSummary;
 import org.hps.record.triggerbank.TIData;
 import org.hps.record.triggerbank.TSData2019;
 import org.lcsim.detector.ITransform3D;
@@ -506,18 +507,7 @@ public class SensorOccupancyPlotsDriver extends Driver {
         for (GenericObject triggerBank : triggerBanks) // If the bank contains TI data, process it
         {
             if (AbstractIntData.getTag(triggerBank) == TIData.BANK_TAG) {
-
-                TIData tiData = new TIData(triggerBank);
-
-                if (filterPulserTriggers && tiData.isPulserTrigger()) {
-                    return false;
-                } else if (filterSingle0Triggers && tiData.isSingle0Trigger()) {
-                    return false;
-                } else if (filterSingle1Triggers && tiData.isSingle1Trigger()) {
-                    return false;
-                } else if (filterPair0Triggers && tiData.isPair0Trigger()) {
-                    return false;
-                } else if (filterPair1Triggers && tiData.isPair1Trigger()) {
+                if (!passTriggerFilter(new TIData(triggerBank))) {
                     return false;
                 }
             }
@@ -525,16 +515,27 @@ public class SensorOccupancyPlotsDriver extends Driver {
         return true;
     }
 
+    private boolean passTriggerFilter(TIData tiData) {
+        if (filterPulserTriggers && tiData.isPulserTrigger()) {
+            return false;
+        } else if (filterSingle0Triggers && tiData.isSingle0Trigger()) {
+            return false;
+        } else if (filterSingle1Triggers && tiData.isSingle1Trigger()) {
+            return false;
+        } else if (filterPair0Triggers && tiData.isPair0Trigger()) {
+            return false;
+        } else if (filterPair1Triggers && tiData.isPair1Trigger()) {
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public void process(EventHeader event) {
-        if (removeRandomEvents && event.hasCollection(GenericObject.class, "TSBank")) {
-            List<GenericObject> triggerList = event.get(GenericObject.class, "TSBank");
-            for (GenericObject data : triggerList) {
-                if (AbstractIntData.getTag(data) == TSData2019.BANK_TAG) {
-                    TSData2019 triggerData = new TSData2019(data);
-                    if (triggerData.isPulserTrigger() || triggerData.isFaradayCupTrigger()) {
-                        return;
-                    }
+        if (removeRandomEvents) {
+            for (TSData2019 triggerData : EventSummary.read(event).getTSBanks()) {
+                if (triggerData.isPulserTrigger() || triggerData.isFaradayCupTrigger()) {
+                    return;
                 }
             }
         }
@@ -545,12 +546,21 @@ public class SensorOccupancyPlotsDriver extends Driver {
         }
         if (enableTriggerFilter && event.hasCollection(GenericObject.class, triggerBankCollectionName)) {
             LOGGER.info("Filtering Event");
-            // Get the list of trigger banks from the event
-            List<GenericObject> triggerBanks = event.get(GenericObject.class, triggerBankCollectionName);
+            if (triggerBankCollectionName.equals("TriggerBank")) {
+                // Use the TI banks already decoded for the event summary
+                for (TIData tiData : EventSummary.read(event).getTIBanks()) {
+                    if (!passTriggerFilter(tiData)) {
+                        return;
+                    }
+                }
+            } else {
+                // Get the list of trigger banks from the event
+                List<GenericObject> triggerBanks = event.get(GenericObject.class, triggerBankCollectionName);
 
-            // Apply the trigger filter
-            if (!passTriggerFilter(triggerBanks)) {
-                return;
+                // Apply the trigger filter
+                if (!passTriggerFilter(triggerBanks)) {
+                    return;
+                }
             }
         }
 
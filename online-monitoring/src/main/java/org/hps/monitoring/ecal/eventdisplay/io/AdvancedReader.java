@@ -230,6 +230,22 @@ public class AdvancedReader extends Reader {
         else { throw new IOException("mark() must be called before reset()."); }
     }
     
+    /**
+     * Gets the current position of the reader in the file.
+     * @return Returns the offset in bytes from the start of the file.
+     * @throws IOException - Occurs if there is an issue accessing
+     * the file.
+     */
+    public long getFilePointer() throws IOException { return file.getFilePointer(); }
+    
+    /**
+     * Moves the reader to the indicated position in the file.
+     * @param pos - The offset in bytes from the start of the file.
+     * @throws IOException - Occurs if there is an issue accessing
+     * the file.
+     */
+    public void seek(long pos) throws IOException { file.seek(pos); }
+    
     @Override
     public long skip(long n) throws IOException {
         // Read n characters.
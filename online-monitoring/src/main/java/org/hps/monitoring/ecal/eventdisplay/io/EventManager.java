@@ -65,4 +65,17 @@ public interface EventManager {
      * @throws IOException Occurs if there was a file read error.
      **/
     public boolean previousEvent() throws IOException;
+    
+    /**
+     * <b>gotoEvent</b><br/><br/>
+     * <code>public boolean <b>gotoEvent</b>(int run, int event)</code><br/><br/>
+     * Populates the event manager with hits and clusters from the event
+     * with the given run and event numbers.
+     * @param run - The run number of the event.
+     * @param event - The event number of the event.
+     * @return Returns <code>true</code> if the event was read and <code>
+     * false</code> if it is not in the file.
+     * @throws IOException Occurs if there was a file read error.
+     **/
+    public boolean gotoEvent(int run, int event) throws IOException;
 }
@@ -4,9 +4,12 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.hps.monitoring.ecal.eventdisplay.event.Cluster;
 import org.hps.monitoring.ecal.eventdisplay.event.EcalHit;
+import org.hps.util.LcioEventIndex;
 //import org.hps.recon.ecal.HPSEcalCluster;
 import org.lcsim.event.CalorimeterHit;
 import org.lcsim.event.EventHeader;
@@ -14,17 +17,23 @@ import org.lcsim.lcio.LCIOReader;
 
 /**
  * Class <code>LCIOManager</code> is an implementation of <code>
- * EventManager</code> for (S)LCIO files.<br/>
+ * EventManager</code> for (S)LCIO files. The events of the file are
+ * indexed in memory when it is opened, so moving back or jumping to
+ * an event seeks directly to it. If the file can not be indexed, the
+ * file is reopened and read forward to the event instead.<br/>
  * <br/>
  * <b><span style="color:red">Warning: This class is under construction
  * and should not be used at this time!</span></b>
  */
 public class LCIOManager implements EventManager {
+    private static final Logger LOGGER = Logger.getLogger(LCIOManager.class.getPackage().getName());
+    
     // Internal variables.
     private LCIOReader reader;
     private EventHeader current;
     private int eventsRead = 0;
     private final File sourceFile;
+    private final LcioEventIndex index;
     
     // LCIO collection names.
     private String clusterCollectionName = "EcalClusters";
@@ -35,12 +44,23 @@ public class LCIOManager implements EventManager {
     }
     
     public LCIOManager(File input) throws IOException {
-        // Create an LCIO reader from the file.
-        reader = new LCIOReader(input);
-        
         // Store the source file.
         sourceFile = input;
         
+        // Index the events of the file. This is done in memory so
+        // that nothing is written next to the data file.
+        LcioEventIndex fileIndex = null;
+        try { fileIndex = LcioEventIndex.build(input); }
+        
+        // If the file can not be indexed, read it sequentially.
+        catch(IOException e) {
+            LOGGER.log(Level.WARNING, "Could not index " + input.getPath() + "; events will be read sequentially", e);
+        }
+        index = fileIndex;
+        
+        // Create an LCIO reader from the file.
+        reader = new LCIOReader(input);
+        
         // Read the first event.
         nextEvent();
     }
@@ -164,29 +184,88 @@ public class LCIOManager implements EventManager {
         // If we are on the first event, there is no previous event.
         if(eventsRead == 0 || eventsRead == 1) { return false; }
         
-        // Otherwise, reset the reader and skip to the previous event.
+        // Otherwise, seek to the previous event.
+        else { return seek(eventsRead - 2); }
+    }
+    
+    @Override
+    public boolean gotoEvent(int run, int event) throws IOException {
+        // Without an index, search the file from the start.
+        if(index == null) { return scanTo(run, event); }
+        
+        // Find the event in the index.
+        int ordinal = index.indexOf(run, event);
+        
+        // If it is not in the file, no event is read.
+        if(ordinal == -1) { return false; }
+        
+        // Otherwise, seek to the event.
+        else { return seek(ordinal); }
+    }
+    
+    /**
+     * Replaces the reader with one starting at the indicated event
+     * and reads that event.
+     * @param ordinal - The position of the event in the file.
+     * @return Returns <code>true</code> if an event was read and
+     * <code>false</code> if it was not.
+     * @throws IOException Occurs if the file can not be reopened.
+     */
+    private boolean seek(int ordinal) throws IOException {
+        // Create a new reader starting at the event.
+        reader.close();
+        if(index != null) { reader = index.openReader(ordinal); }
+        
+        // Without an index, reopen the file and skip to the event.
         else {
-            // Create a new reader.
             reader = new LCIOReader(sourceFile);
-            
-            // Skip to immediately before the previous event.
-            reader.skipEvents(eventsRead - 2);
-            
-            // Read the next event.
-            try { current = reader.read(); }
-            
-            // If the read fails, return false.
-            catch(IOException e) {
-                current = null;
-                return false;
-            }
-            
-            // Decrement the number of events read.
-            eventsRead--;
-            
-            // Otherwise, indicate that an event was read.
-            return true;
+            reader.skipEvents(ordinal);
+        }
+        
+        // Read the event.
+        try { current = reader.read(); }
+        
+        // If the read fails, return false.
+        catch(IOException e) {
+            current = null;
+            return false;
+        }
+        
+        // Note the position of the event in the file.
+        eventsRead = ordinal + 1;
+        
+        // Otherwise, indicate that an event was read.
+        return true;
+    }
+    
+    /**
+     * Reads the file from the start until the indicated event is
+     * found. If it is not in the file, the reader is returned to the
+     * event that was current before.
+     * @param run - The run number of the event.
+     * @param event - The event number of the event.
+     * @return Returns <code>true</code> if the event was read and
+     * <code>false</code> if it was not.
+     * @throws IOException Occurs if the file can not be reopened.
+     */
+    private boolean scanTo(int run, int event) throws IOException {
+        // Store the position of the current event.
+        int previous = eventsRead;
+        
+        // Create a new reader at the start of the file.
+        reader.close();
+        reader = new LCIOReader(sourceFile);
+        eventsRead = 0;
+        
+        // Read events until the requested one is found.
+        while(nextEvent()) {
+            if(current.getRunNumber() == run && current.getEventNumber() == event) { return true; }
         }
+        
+        // If the event is not in the file, return to the previous
+        // event.
+        if(previous > 0) { seek(previous - 1); }
+        return false;
     }
     
     // TODO: LCIO files can't actually store an HPSEcalCluster; this
@@ -3,6 +3,8 @@ package org.hps.monitoring.ecal.eventdisplay.io;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.hps.monitoring.ecal.eventdisplay.event.Cluster;
@@ -48,6 +50,9 @@ public final class TextManager implements EventManager {
     private boolean open = true;
     // Track the current event number.
     private int curEvent = 0;
+    // Map of the event numbers read so far to the file positions
+    // of their event headers.
+    private Map<Integer, Long> eventPositions = new HashMap<Integer, Long>();
     
     /**
      * Initializes an event manager that will read from the indicated file.
@@ -93,11 +98,13 @@ public final class TextManager implements EventManager {
         // We can only read of the reader is open.
         if (!open) { return false; }
         
-        // Store the current line.
+        // Store the current line and where it starts.
+        long linePosition = reader.getFilePointer();
         String curLine = reader.readNextLine();
         
         // Keep sorting until we hit a null or an event header.
         while (curLine != null && !curLine.contains("Event")) {
+            linePosition = reader.getFilePointer();
             curLine = reader.readNextLine();
         }
         
@@ -112,6 +119,7 @@ public final class TextManager implements EventManager {
         StringTokenizer et = new StringTokenizer(curLine);
         et.nextToken();
         curEvent = Integer.parseInt(et.nextToken());
+        eventPositions.put(curEvent, linePosition);
         
         // Otherwise, we have read an event header and must populate
         // the data lists.
@@ -208,4 +216,34 @@ public final class TextManager implements EventManager {
             }
         }
     }
+    
+    @Override
+    public boolean gotoEvent(int run, int event) throws IOException {
+        // We can only read of the reader is open. Text files do not
+        // store run numbers, so only the event number is used.
+        if (!open) { return false; }
+        
+        // If the event was read before, go straight to its header.
+        Long position = eventPositions.get(event);
+        if (position != null) {
+            reader.seek(position);
+            return nextEvent();
+        }
+        
+        // Otherwise, read forward until the event is found.
+        int startEvent = curEvent;
+        long startPosition = reader.getFilePointer();
+        while (nextEvent()) {
+            if (curEvent == event) { return true; }
+        }
+        
+        // If the end of the file was reached, go back to the event
+        // that was displayed before.
+        position = eventPositions.get(startEvent);
+        if (position != null) {
+            reader.seek(position);
+            nextEvent();
+        } else { reader.seek(startPosition); }
+        return false;
+    }
 }
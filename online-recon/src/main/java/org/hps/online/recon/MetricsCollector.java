@@ -0,0 +1,312 @@
+package org.hps.online.recon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.hps.online.recon.metrics.JvmMetrics;
+import org.hps.online.recon.metrics.PrometheusFormat;
+import org.hps.online.recon.properties.Property;
+import org.jlab.coda.et.EtStation;
+import org.jlab.coda.et.EtSystem;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Collects the metrics of the active stations from their local HTTP endpoints,
+ * together with the number of events waiting in the ET system, for the
+ * server's metrics endpoint, the status command and the station autoscaling
+ *
+ * This is run periodically on the server's executor.
+ */
+class MetricsCollector implements Runnable {
+
+    /**
+     * The package logger.
+     */
+    private static final Logger LOG = Logger.getLogger(MetricsCollector.class.getPackage().getName());
+
+    /**
+     * Name of the ET station which the producers put their events into and
+     * which passes them on to the stations
+     */
+    private static final String GRAND_CENTRAL = "GRAND_CENTRAL";
+
+    /**
+     * Connect and read timeout in milliseconds when getting the metrics of a station
+     */
+    private static final int TIMEOUT = 1000;
+
+    /**
+     * Reference to the server.
+     */
+    private final Server server;
+
+    /**
+     * Latest metrics of the active stations by station name
+     */
+    private volatile Map<String, JSONObject> stations = Collections.emptyMap();
+
+    /**
+     * Latest number of events waiting in the input list of each ET station by station name
+     */
+    private volatile Map<String, Integer> etQueueDepths = Collections.emptyMap();
+
+    /**
+     * Latest number of events waiting in the ET system for the stations
+     */
+    private volatile int etBacklog = 0;
+
+    /**
+     * Latest number of attachments to GRAND_CENTRAL, which are the event producers
+     */
+    private volatile int etProducers = 0;
+
+    /**
+     * Number of failures to get the metrics of a station
+     */
+    private final AtomicLong scrapeErrors = new AtomicLong();
+
+    /**
+     * Number of client commands which returned an error
+     */
+    private final AtomicLong commandErrors = new AtomicLong();
+
+    /**
+     * Create the collector
+     * @param server Reference to the server
+     */
+    MetricsCollector(Server server) {
+        this.server = server;
+    }
+
+    /**
+     * Get the latest metrics of the active stations
+     */
+    @Override
+    public void run() {
+        Map<String, JSONObject> newStations = new TreeMap<String, JSONObject>();
+        Map<String, Integer> newDepths = new TreeMap<String, Integer>();
+        final EtSystem etSystem = server.getEtSystem();
+        int backlog = 0;
+        int producers = 0;
+        try {
+            if (etSystem != null && etSystem.stationExists(GRAND_CENTRAL)) {
+                // Events put by the producers which have not been passed on to the stations yet
+                final EtStation gc = etSystem.stationNameToObject(GRAND_CENTRAL);
+                backlog = gc.getOutputCount();
+                producers = gc.getNumAttachments();
+            }
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Failed to get ET output count of " + GRAND_CENTRAL, e);
+        }
+        // The ET stations of inactive stations may still hold events
+        for (StationProcess station : server.getStationManager().getStations()) {
+            final String name = station.getStationName();
+            Property<Integer> port = station.getProperties().get("station.metricsPort");
+            if (station.isActive() && port.valid() && port.value() > 0) {
+                try {
+                    newStations.put(name, fetch(port.value()));
+                } catch (Exception e) {
+                    // The station may still be starting up
+                    scrapeErrors.incrementAndGet();
+                    LOG.log(Level.FINE, "Failed to get metrics of station: " + name, e);
+                }
+            }
+            try {
+                if (etSystem != null && etSystem.stationExists(name)) {
+                    final int depth = etSystem.stationNameToObject(name).getInputCount();
+                    newDepths.put(name, depth);
+                    backlog += depth;
+                }
+            } catch (Exception e) {
+                LOG.log(Level.FINE, "Failed to get ET input count of station: " + name, e);
+            }
+        }
+        stations = newStations;
+        etQueueDepths = newDepths;
+        etBacklog = backlog;
+        etProducers = producers;
+    }
+
+    /**
+     * Get the metrics JSON of a station from its endpoint
+     * @param port The port of the station's endpoint
+     * @return The metrics JSON
+     * @throws IOException If the request fails
+     */
+    private static JSONObject fetch(int port) throws IOException {
+        URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), port, "/metrics.json");
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setConnectTimeout(TIMEOUT);
+        conn.setReadTimeout(TIMEOUT);
+        try (InputStream in = conn.getInputStream()) {
+            return new JSONObject(IOUtils.toString(in, StandardCharsets.UTF_8));
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Count a client command which returned an error
+     */
+    void commandError() {
+        commandErrors.incrementAndGet();
+    }
+
+    /**
+     * Get the latest metrics of the active stations
+     * @return The metrics JSON by station name
+     */
+    Map<String, JSONObject> getStationMetrics() {
+        return stations;
+    }
+
+    /**
+     * Get the latest number of events waiting in the input list of each ET station
+     * @return The number of waiting events by station name
+     */
+    Map<String, Integer> getEtQueueDepths() {
+        return etQueueDepths;
+    }
+
+    /**
+     * Get the latest number of events waiting in the ET system for the stations:
+     * those which GRAND_CENTRAL has not passed on yet and those in the input lists
+     * of the ET stations, whether the stations are active or not
+     * @return The number of waiting events
+     */
+    int getEtBacklog() {
+        return etBacklog;
+    }
+
+    /**
+     * Get the latest number of event producers attached to the ET system
+     * @return The number of attachments to GRAND_CENTRAL
+     */
+    int getEtProducers() {
+        return etProducers;
+    }
+
+    /**
+     * Get the latest total event rate of the active stations
+     * @return The total rate in events per second
+     */
+    double getEventRate() {
+        double rate = 0;
+        for (JSONObject jo : stations.values()) {
+            rate += jo.getJSONObject("events").optDouble("rate", 0);
+        }
+        return rate;
+    }
+
+    /**
+     * Get the metrics as JSON
+     * @param jo The JSON object to update with the metrics
+     * @param verbose True to include all the station metrics instead of a summary
+     */
+    void toJSON(JSONObject jo, boolean verbose) {
+        final StationManager mgr = server.getStationManager();
+        JSONObject joServer = new JSONObject();
+        joServer.put("activeStations", mgr.getActiveStations().size());
+        joServer.put("inactiveStations", mgr.getInactiveStations().size());
+        joServer.put("eventRate", getEventRate());
+        joServer.put("etBacklog", getEtBacklog());
+        joServer.put("etProducers", getEtProducers());
+        joServer.put("scrapeErrors", scrapeErrors.get());
+        joServer.put("commandErrors", commandErrors.get());
+        joServer.put("jvm", JvmMetrics.toJSON());
+        jo.put("server", joServer);
+
+        final Map<String, Integer> depths = etQueueDepths;
+        JSONObject joStations = new JSONObject();
+        for (Entry<String, JSONObject> entry : stations.entrySet()) {
+            // The cached metrics are shared so a shallow copy is updated in verbose mode
+            JSONObject joStat = verbose
+                    ? new JSONObject(entry.getValue(), JSONObject.getNames(entry.getValue()))
+                    : summarize(entry.getValue());
+            if (depths.containsKey(entry.getKey())) {
+                joStat.put("etQueueDepth", depths.get(entry.getKey()));
+            }
+            joStations.put(entry.getKey(), joStat);
+        }
+        jo.put("stations", joStations);
+    }
+
+    /**
+     * Summarize the metrics of a station, including its slowest driver
+     * @param jo The metrics JSON of the station
+     * @return The summary
+     */
+    private static JSONObject summarize(JSONObject jo) {
+        JSONObject summary = new JSONObject();
+        JSONObject events = jo.getJSONObject("events");
+        summary.put("rate", events.optDouble("rate", 0));
+        summary.put("processed", events.optLong("processed", 0));
+        summary.put("dropped", events.optLong("dropped", 0));
+        JSONObject errors = jo.getJSONObject("errors");
+        summary.put("errors", errors.optLong("error", 0) + errors.optLong("fatal", 0));
+        JSONObject latency = jo.getJSONObject("latency");
+        if (latency.has("p50")) {
+            summary.put("latencyP50", latency.getDouble("p50"));
+            summary.put("latencyP99", latency.getDouble("p99"));
+        }
+        JSONArray drivers = jo.getJSONArray("drivers");
+        JSONObject slowest = null;
+        for (int i = 0; i < drivers.length(); i++) {
+            JSONObject driver = drivers.getJSONObject(i);
+            if (driver.has("p50") && (slowest == null || driver.getDouble("p50") > slowest.getDouble("p50"))) {
+                slowest = driver;
+            }
+        }
+        if (slowest != null) {
+            summary.put("slowestDriver", slowest.getString("name"));
+            summary.put("slowestDriverP50", slowest.getDouble("p50"));
+        }
+        JSONObject jvm = jo.getJSONObject("jvm");
+        summary.put("heapUsed", jvm.optLong("heapUsed", 0));
+        summary.put("gcTime", jvm.optDouble("gcTime", 0));
+        return summary;
+    }
+
+    /**
+     * Get the metrics of the server and the active stations in the Prometheus text format
+     * @return The metrics text
+     */
+    String toPrometheus() {
+        final StationManager mgr = server.getStationManager();
+        PrometheusFormat format = new PrometheusFormat();
+        format.add("hps_server_stations", "gauge", "Online reconstruction stations",
+                mgr.getActiveStations().size(), "state", "active");
+        format.add("hps_server_stations", "gauge", "Online reconstruction stations",
+                mgr.getInactiveStations().size(), "state", "inactive");
+        format.add("hps_server_event_rate", "gauge", "Events reconstructed per second by all stations",
+                getEventRate());
+        format.add("hps_server_et_backlog", "gauge", "Events waiting in the ET system for the stations",
+                getEtBacklog());
+        for (Entry<String, Integer> entry : etQueueDepths.entrySet()) {
+            format.add("hps_server_et_queue_depth", "gauge", "Events waiting in the input list of an ET station",
+                    entry.getValue(), "station", entry.getKey());
+        }
+        format.add("hps_server_scrape_errors_total", "counter", "Failures to get the metrics of a station",
+                scrapeErrors.get());
+        format.add("hps_server_command_errors_total", "counter", "Client commands which returned an error",
+                commandErrors.get());
+        format.addJvm("server", JvmMetrics.toJSON());
+        for (JSONObject jo : stations.values()) {
+            format.addStation(jo);
+        }
+        return format.toString();
+    }
+}
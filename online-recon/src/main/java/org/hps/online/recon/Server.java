@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
@@ -29,6 +30,7 @@ import org.apache.commons.io.input.Tailer;
 import org.hps.online.recon.CommandResult.Error;
 import org.hps.online.recon.CommandResult.LogStreamResult;
 import org.hps.online.recon.handlers.CommandHandlerFactory;
+import org.hps.online.recon.metrics.MetricsHttpServer;
 import org.hps.online.recon.properties.Property;
 import org.jlab.coda.et.EtConstants;
 import org.jlab.coda.et.EtStation;
@@ -61,6 +63,11 @@ public final class Server {
      */
     static final int DEFAULT_PORT = 22222;
 
+    /**
+     * The default port of the metrics endpoint.
+     */
+    static final int DEFAULT_METRICS_PORT = 22223;
+
     /**
      * The package logger.
      */
@@ -91,6 +98,11 @@ public final class Server {
      */
     private int port = DEFAULT_PORT;
 
+    /**
+     * The port of the metrics endpoint, which is disabled if this is 0.
+     */
+    private int metricsPort = DEFAULT_METRICS_PORT;
+
     /**
      * The station base name to which the ID will be appended.
      */
@@ -104,7 +116,7 @@ public final class Server {
     /**
      * Executor for executing various tasks such as the ET and station monitors
      */
-    final ScheduledExecutorService exec = Executors.newScheduledThreadPool(5);
+    final ScheduledExecutorService exec = Executors.newScheduledThreadPool(6);
 
     /**
      * The station manager.
@@ -116,6 +128,21 @@ public final class Server {
      */
     private final PlotAggregator agg = new PlotAggregator();
 
+    /**
+     * Collector of the server and station metrics
+     */
+    private final MetricsCollector metrics = new MetricsCollector(this);
+
+    /**
+     * HTTP endpoint for the metrics
+     */
+    private MetricsHttpServer metricsServer;
+
+    /**
+     * Station autoscaling policy, or null if stations are only started by commands
+     */
+    private StationAutoscaler autoscaler = null;
+
     /**
      * Factory for creating a command handler for a client command
      */
@@ -202,6 +229,9 @@ public final class Server {
                         res = new Error(e.getMessage());
                     }
                 }
+                if (res instanceof Error) {
+                    metrics.commandError();
+                }
 
                 // Setup writer to send data back to client.
                 OutputStream os = socket.getOutputStream();
@@ -350,6 +380,23 @@ public final class Server {
         }
     }
 
+    /**
+     * Get the live metrics of the server and its stations.
+     * @param jo The JSON object to update with the metrics
+     * @param verbose True to include all the station metrics instead of a summary
+     */
+    public void getMetrics(JSONObject jo, boolean verbose) {
+        metrics.toJSON(jo, verbose);
+    }
+
+    /**
+     * Get the collector of the server and station metrics.
+     * @return The metrics collector
+     */
+    MetricsCollector getMetricsCollector() {
+        return this.metrics;
+    }
+
     /**
      * Get ET station status from code.
      * @param status The status string from the code.
@@ -494,10 +541,15 @@ public final class Server {
         options.addOption(new Option("h", "help", false, "print help"));
         options.addOption(new Option("H", "host", true, "server host name"));
         options.addOption(new Option("p", "port", true, "server port"));
+        options.addOption(new Option("m", "metrics", true, "metrics HTTP port (default 22223, 0 to disable)"));
         options.addOption(new Option("s", "start", true, "starting station ID (default 1)"));
         options.addOption(new Option("w", "workdir", true, "work dir (default is current dir where server is started)"));
         options.addOption(new Option("b", "basename", true, "station base name"));
         options.addOption(new Option("c", "config", true, "config properties file"));
+        options.addOption(new Option("a", "autoscale", true,
+                "start and stop stations automatically between min:max active stations"));
+        options.addOption(new Option("t", "thresholds", true,
+                "autoscaling ET backlog per station to stop:add stations (default 10:200)"));
 
         final CommandLineParser parser = new DefaultParser();
         CommandLine cl = parser.parse(options, args);
@@ -521,6 +573,16 @@ public final class Server {
         }
         LOG.config("Server port: " + this.port);
 
+        // Port number of metrics endpoint.
+        if (cl.hasOption("m")) {
+            this.metricsPort = Integer.parseInt(cl.getOptionValue("m"));
+        }
+        if (this.metricsPort != 0 && (this.metricsPort < MIN_PORT || this.metricsPort >= MAX_PORT)) {
+            LOG.severe("Bad metrics port number: " + this.metricsPort);
+            throw new RuntimeException("Bad metrics port number: " + this.metricsPort);
+        }
+        LOG.config("Metrics port: " + this.metricsPort);
+
         // Starting station ID.
         if (cl.hasOption("s")) {
             int processID = Integer.parseInt(cl.getOptionValue("s"));
@@ -554,6 +616,30 @@ public final class Server {
         if (cl.hasOption("H")) {
             this.hostName = cl.getOptionValue("H");
         }
+
+        // Station autoscaling
+        if (cl.hasOption("a")) {
+            int[] limits = parseRange(cl.getOptionValue("a"));
+            this.autoscaler = new StationAutoscaler(this, limits[0], limits[1]);
+            if (cl.hasOption("t")) {
+                int[] thresholds = parseRange(cl.getOptionValue("t"));
+                this.autoscaler.setBacklogThresholds(thresholds[0], thresholds[1]);
+            }
+            LOG.config("Station autoscaling: " + limits[0] + " to " + limits[1] + " stations");
+        }
+    }
+
+    /**
+     * Parse a range given as <code>low:high</code>.
+     * @param value The range string
+     * @return The low and high values
+     */
+    private static int[] parseRange(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Bad range (expected low:high): " + value);
+        }
+        return new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
     }
 
     /**
@@ -616,6 +702,14 @@ public final class Server {
         // Startup the plot aggregation engine
         startPlotAggregator();
 
+        // Startup the metrics collection and endpoint
+        startMetrics();
+
+        // Startup the station autoscaling, which uses the metrics
+        if (autoscaler != null) {
+            stationManager.startAutoscaler(autoscaler);
+        }
+
         // Startup the notifier to broadcast when plots are refreshed
         PlotNotifier.instance().start();
 
@@ -638,6 +732,28 @@ public final class Server {
         exec.scheduleWithFixedDelay(agg, 0, agg.getUpdateInterval(), TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Collect the station metrics periodically and serve them over HTTP
+     */
+    private void startMetrics() {
+        exec.scheduleWithFixedDelay(metrics, 0, 2, TimeUnit.SECONDS);
+        if (metricsPort > 0) {
+            try {
+                metricsServer = new MetricsHttpServer(new InetSocketAddress(host, metricsPort),
+                        () -> {
+                            JSONObject jo = new JSONObject();
+                            metrics.toJSON(jo, true);
+                            return jo;
+                        },
+                        metrics::toPrometheus);
+                metricsServer.start();
+            } catch (IOException e) {
+                // The server can run without its metrics endpoint
+                LOG.log(Level.WARNING, "Failed to start metrics endpoint on port " + metricsPort, e);
+            }
+        }
+    }
+
     /**
      * Main server execution loop
      *
@@ -747,6 +863,14 @@ public final class Server {
             e.printStackTrace();
         }
 
+        if (metricsServer != null) {
+            try {
+                metricsServer.stop();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
         try {
             agg.disconnect();
         } catch (Exception e) {
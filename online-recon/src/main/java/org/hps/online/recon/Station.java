@@ -1,6 +1,9 @@
 package org.hps.online.recon;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -10,12 +13,18 @@ import java.util.logging.Logger;
 import org.hps.job.DatabaseConditionsManagerSetup;
 import org.hps.job.JobManager;
 import org.hps.online.recon.eventbus.OnlineEventBus;
+import org.hps.online.recon.metrics.DriverTimer;
+import org.hps.online.recon.metrics.MetricsHttpServer;
+import org.hps.online.recon.metrics.PrometheusFormat;
+import org.hps.online.recon.metrics.StationMetrics;
 import org.hps.online.recon.properties.Property;
 import org.hps.online.recon.properties.PropertyValidationException;
 import org.hps.record.LCSimEventBuilder;
 import org.hps.record.et.EtConnection;
 import org.lcsim.conditions.ConditionsManager.ConditionsNotFoundException;
 import org.lcsim.job.ConditionsSetup;
+import org.lcsim.util.Driver;
+import org.lcsim.util.DriverAdapter;
 
 /**
  * Online reconstruction station which processes EVIO events from the ET system
@@ -61,6 +70,21 @@ public class Station {
 
     private OnlineEventBus eventbus;
 
+    /**
+     * Adapter running the drivers from the job manager, each wrapped in a timer
+     */
+    private DriverAdapter drivers;
+
+    /**
+     * The live metrics of the station
+     */
+    private StationMetrics metrics;
+
+    /**
+     * The HTTP endpoint for the metrics, if enabled
+     */
+    private MetricsHttpServer metricsServer;
+
     /**
      * Attribute for setting station name in the environment
      */
@@ -111,6 +135,22 @@ public class Station {
         return this.conditionsSetup;
     }
 
+    /**
+     * Get the adapter for running the reconstruction drivers
+     * @return The adapter for running the reconstruction drivers
+     */
+    public DriverAdapter getDriverAdapter() {
+        return drivers;
+    }
+
+    /**
+     * Get the live metrics of the station
+     * @return The live metrics of the station
+     */
+    public StationMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Get the name of the station in the ET system
      * @return The name of the station in the ET system
@@ -226,6 +266,14 @@ public class Station {
             mgr.setup(steering.value());
         }
 
+        // Run the drivers from the steering through timers for their latencies
+        metrics = new StationMetrics(stationName);
+        Driver top = new Driver();
+        for (Driver driver : mgr.getDriverExecList()) {
+            top.add(new DriverTimer(driver, metrics.addDriver(driver.getName())));
+        }
+        drivers = new DriverAdapter(top);
+
         // Activate the conditions system.
         LOG.config("Initializing conditions system...");
         conditionsSetup.configure();
@@ -244,6 +292,25 @@ public class Station {
             throw new RuntimeException("Failed to create ET station", e);
         }
 
+        // Start the metrics endpoint, which only accepts local connections
+        Property<Integer> metricsPort = props.get("station.metricsPort");
+        if (metricsPort.valid() && metricsPort.value() > 0) {
+            try {
+                metricsServer = new MetricsHttpServer(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), metricsPort.value()),
+                        metrics::toJSON,
+                        () -> {
+                            PrometheusFormat format = new PrometheusFormat();
+                            format.addStation(metrics.toJSON());
+                            return format.toString();
+                        });
+                metricsServer.start();
+            } catch (IOException e) {
+                // The station can run without its metrics
+                LOG.log(Level.WARNING, "Failed to start metrics endpoint on port " + metricsPort.value(), e);
+            }
+        }
+
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
@@ -265,6 +332,9 @@ public class Station {
         LOG.info("Started processing: " + new Date().toString());
         eventbus = new OnlineEventBus(this);
         eventbus.loop();
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
         LOG.info("Ended processing: " + new Date().toString());
     }
 }
@@ -0,0 +1,347 @@
+package org.hps.online.recon;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Policy for starting and stopping stations from the ET event backlog and the
+ * processing rates of the stations, keeping the number of active stations
+ * between a minimum and a maximum
+ *
+ * Stations are added when the backlog per active station stays above a high
+ * threshold and stopped when it stays below a low threshold and the remaining
+ * stations could take the current rate. The two thresholds, the number of
+ * consecutive checks required and a cool down time after each change keep the
+ * station count from flapping. Stopped stations are kept and started again
+ * before any new ones are created.
+ *
+ * The backlog is read from the ET system, so that it is also seen when no
+ * station is active: with producers attached and no active station, the events
+ * are dropped by the ET system and a station is added.
+ *
+ * This is run periodically on the server's executor.
+ */
+class StationAutoscaler implements Runnable {
+
+    /**
+     * The package logger.
+     */
+    private static final Logger LOG = Logger.getLogger(StationAutoscaler.class.getPackage().getName());
+
+    /**
+     * Number of consecutive checks with a high backlog before stations are added
+     */
+    static final int UP_CHECKS = 3;
+
+    /**
+     * Number of consecutive checks with a low backlog before a station is stopped
+     */
+    static final int DOWN_CHECKS = 12;
+
+    /**
+     * Minimum time after a change before the next one in milliseconds, which allows
+     * new stations to start up and the backlog to settle
+     */
+    static final long COOL_DOWN = 60000L;
+
+    /**
+     * Time in seconds in which the added stations should clear the backlog
+     */
+    private static final double DRAIN_TIME = 60.;
+
+    /**
+     * Maximum utilization of the remaining stations when stopping one
+     */
+    private static final double MAX_UTILIZATION = 0.75;
+
+    /**
+     * Number of recent scaling decisions kept for the status
+     */
+    private static final int MAX_DECISIONS = 20;
+
+    /**
+     * The stations started and stopped by the policy
+     */
+    interface Stations {
+
+        /**
+         * @return The number of active stations
+         */
+        int getActiveCount();
+
+        /**
+         * Start stations, reusing inactive ones before creating new ones
+         * @param n The number of stations to start
+         * @return The number of stations started
+         */
+        int start(int n);
+
+        /**
+         * Stop the most recently created active stations
+         * @param n The number of stations to stop
+         * @return The number of stations stopped
+         */
+        int stop(int n);
+    }
+
+    /**
+     * The stations of the server's station manager
+     */
+    private static final class ManagedStations implements Stations {
+
+        private final StationManager mgr;
+
+        ManagedStations(StationManager mgr) {
+            this.mgr = mgr;
+        }
+
+        @Override
+        public int getActiveCount() {
+            return mgr.getActiveStations().size();
+        }
+
+        @Override
+        public int start(int n) {
+            List<StationProcess> stations = new ArrayList<StationProcess>();
+            for (StationProcess station : mgr.getInactiveStations()) {
+                if (stations.size() == n) {
+                    break;
+                }
+                stations.add(station);
+            }
+            while (stations.size() < n) {
+                try {
+                    stations.add(mgr.create(new JSONObject()));
+                } catch (Exception e) {
+                    LOG.log(Level.WARNING, "Autoscaling: error creating station", e);
+                    break;
+                }
+            }
+            return stations.isEmpty() ? 0 : mgr.startStations(stations);
+        }
+
+        @Override
+        public int stop(int n) {
+            List<StationProcess> active = mgr.getActiveStations();
+            active.sort((s1, s2) -> s2.getStationID().compareTo(s1.getStationID()));
+            return mgr.stopStations(active.subList(0, Math.min(n, active.size())));
+        }
+    }
+
+    private final MetricsCollector metrics;
+    private final Stations stations;
+    private final int minStations;
+    private final int maxStations;
+    private int lowBacklog = 10;
+    private int highBacklog = 200;
+
+    // The state is only updated by the scheduled task but read by the status command
+    private volatile int highChecks = 0;
+    private volatile int lowChecks = 0;
+    private volatile long lastChange = 0;
+    private volatile double backlogGrowth = 0;
+    private long lastCheck = 0;
+    private int lastBacklog = -1;
+
+    private final Deque<JSONObject> decisions = new ArrayDeque<JSONObject>();
+
+    /**
+     * Create the policy
+     * @param server Reference to the server
+     * @param minStations The minimum number of active stations
+     * @param maxStations The maximum number of active stations
+     */
+    StationAutoscaler(Server server, int minStations, int maxStations) {
+        this(server.getMetricsCollector(), new ManagedStations(server.getStationManager()),
+                minStations, maxStations);
+    }
+
+    /**
+     * Create the policy
+     * @param metrics The metrics with the ET backlog and the station rates
+     * @param stations The stations to start and stop
+     * @param minStations The minimum number of active stations
+     * @param maxStations The maximum number of active stations
+     */
+    StationAutoscaler(MetricsCollector metrics, Stations stations, int minStations, int maxStations) {
+        if (minStations < 0 || maxStations < minStations) {
+            throw new IllegalArgumentException("Bad station limits for autoscaling: "
+                    + minStations + ":" + maxStations);
+        }
+        this.metrics = metrics;
+        this.stations = stations;
+        this.minStations = minStations;
+        this.maxStations = maxStations;
+    }
+
+    /**
+     * Set the thresholds on the backlog per active station
+     * @param lowBacklog The backlog below which stations are stopped
+     * @param highBacklog The backlog above which stations are added
+     */
+    void setBacklogThresholds(int lowBacklog, int highBacklog) {
+        if (lowBacklog < 0 || highBacklog <= lowBacklog) {
+            throw new IllegalArgumentException("Bad backlog thresholds for autoscaling: "
+                    + lowBacklog + ":" + highBacklog);
+        }
+        this.lowBacklog = lowBacklog;
+        this.highBacklog = highBacklog;
+    }
+
+    /**
+     * Check the backlog and rates and start or stop stations if needed
+     */
+    @Override
+    public void run() {
+        try {
+            check(System.currentTimeMillis());
+        } catch (Exception e) {
+            // Keep the scheduled task alive
+            LOG.log(Level.WARNING, "Error in station autoscaling", e);
+        }
+    }
+
+    /**
+     * Check the backlog and rates and start or stop stations if needed
+     * @param now The current time in milliseconds
+     */
+    void check(long now) {
+        final int active = stations.getActiveCount();
+        final int backlog = metrics.getEtBacklog();
+        final double rate = metrics.getEventRate();
+        // Without any active station the events of the producers are dropped
+        final boolean dropping = active == 0 && metrics.getEtProducers() > 0;
+
+        // Rate at which the backlog is growing
+        if (lastBacklog >= 0 && now > lastCheck) {
+            backlogGrowth = (backlog - lastBacklog) * 1000. / (now - lastCheck);
+        }
+        lastBacklog = backlog;
+        lastCheck = now;
+
+        final double perStation = (double) backlog / Math.max(active, 1);
+        if (perStation > highBacklog || dropping) {
+            highChecks++;
+            lowChecks = 0;
+        } else if (perStation < lowBacklog) {
+            lowChecks++;
+            highChecks = 0;
+        } else {
+            highChecks = 0;
+            lowChecks = 0;
+        }
+        if (now - lastChange < COOL_DOWN) {
+            return;
+        }
+
+        // Enforce the limits first
+        if (active < minStations) {
+            scaleUp(minStations - active, "below minimum of " + minStations + " stations", backlog, rate, now);
+            return;
+        }
+        if (active > maxStations) {
+            scaleDown(active - maxStations, "above maximum of " + maxStations + " stations", backlog, rate, now);
+            return;
+        }
+
+        if (highChecks >= UP_CHECKS && active < maxStations) {
+            final int n = Math.min(stationsNeeded(active, backlog, rate) - active, maxStations - active);
+            final String reason = dropping ? "no active station for the attached producers"
+                    : String.format("backlog of %.0f events per station above %d", perStation, highBacklog);
+            scaleUp(Math.max(n, 1), reason, backlog, rate, now);
+        } else if (lowChecks >= DOWN_CHECKS && active > minStations) {
+            final double capacity = capacity();
+            if (capacity <= 0 || rate < MAX_UTILIZATION * capacity * (active - 1) / active) {
+                scaleDown(1, String.format("backlog of %.0f events per station below %d", perStation,
+                        lowBacklog), backlog, rate, now);
+            }
+        }
+    }
+
+    /**
+     * Estimate the number of stations needed to take the incoming rate and clear
+     * the backlog within the drain time, from the current rate per station
+     */
+    int stationsNeeded(int active, int backlog, double rate) {
+        if (active == 0 || rate <= 0) {
+            return active + 1;
+        }
+        final double perStation = rate / active;
+        final double incoming = rate + Math.max(backlogGrowth, 0);
+        return (int) Math.ceil((incoming + backlog / DRAIN_TIME) / perStation);
+    }
+
+    /**
+     * Estimate the total rate the active stations could take when fully busy,
+     * from their median event latencies
+     * @return The capacity in events per second or 0 if it is unknown
+     */
+    private double capacity() {
+        double capacity = 0;
+        for (JSONObject jo : metrics.getStationMetrics().values()) {
+            final double latency = jo.getJSONObject("latency").optDouble("p50", 0);
+            if (latency <= 0) {
+                return 0;
+            }
+            capacity += 1. / latency;
+        }
+        return capacity;
+    }
+
+    private void scaleUp(int n, String reason, int backlog, double rate, long now) {
+        LOG.info("Autoscaling: starting " + n + " station(s): " + reason);
+        record("up", stations.start(n), reason, backlog, rate, now);
+    }
+
+    private void scaleDown(int n, String reason, int backlog, double rate, long now) {
+        LOG.info("Autoscaling: stopping " + n + " station(s): " + reason);
+        record("down", stations.stop(n), reason, backlog, rate, now);
+    }
+
+    private synchronized void record(String action, int stations, String reason, int backlog, double rate,
+            long now) {
+        lastChange = now;
+        highChecks = 0;
+        lowChecks = 0;
+        LOG.info("Autoscaling: " + action + " by " + stations + " station(s) with backlog " + backlog
+                + " and rate " + String.format("%.1f", rate) + " Hz");
+        JSONObject jo = new JSONObject();
+        jo.put("time", new Date(lastChange).toString());
+        jo.put("action", action);
+        jo.put("stations", stations);
+        jo.put("reason", reason);
+        jo.put("backlog", backlog);
+        jo.put("rate", rate);
+        decisions.addFirst(jo);
+        while (decisions.size() > MAX_DECISIONS) {
+            decisions.removeLast();
+        }
+    }
+
+    /**
+     * Get the settings, state and recent decisions of the policy
+     * @param jo The JSON object to update
+     */
+    synchronized void toJSON(JSONObject jo) {
+        jo.put("enabled", true);
+        jo.put("minStations", minStations);
+        jo.put("maxStations", maxStations);
+        jo.put("lowBacklog", lowBacklog);
+        jo.put("highBacklog", highBacklog);
+        jo.put("highChecks", highChecks);
+        jo.put("lowChecks", lowChecks);
+        jo.put("backlogGrowth", backlogGrowth);
+        if (lastChange > 0) {
+            jo.put("lastChange", new Date(lastChange).toString());
+        }
+        jo.put("decisions", new JSONArray(decisions));
+    }
+}
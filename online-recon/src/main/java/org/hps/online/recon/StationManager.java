@@ -56,6 +56,11 @@ public class StationManager {
      */
     private int remoteAidaPortStart = 5000;
 
+    /**
+     * Starting port number for the station metrics endpoints.
+     */
+    private int metricsPortStart = 6000;
+
     /**
      * Host name for creating new stations.
      */
@@ -74,6 +79,11 @@ public class StationManager {
 
     Object updatingStations = new Object();
 
+    /**
+     * Policy for starting and stopping stations from the ET backlog, if enabled.
+     */
+    private StationAutoscaler autoscaler = null;
+
     /**
      * Create a new instance of this class
      *
@@ -172,6 +182,9 @@ public class StationManager {
                 + stationName;
         props.get("lcsim.remoteTreeBind").from(remoteTreeBind);
 
+        // Set the port of the local metrics endpoint
+        props.get("station.metricsPort").set(this.metricsPortStart + stationID);
+
         try {
             props.validate();
         } catch (PropertyValidationException pve) {
@@ -510,6 +523,30 @@ public class StationManager {
         return stats;
     }
 
+    /**
+     * Enable automatic starting and stopping of stations, which is checked every 5 seconds
+     *
+     * @param autoscaler The autoscaling policy
+     */
+    void startAutoscaler(StationAutoscaler autoscaler) {
+        this.autoscaler = autoscaler;
+        this.server.exec.scheduleWithFixedDelay(autoscaler, 10, 5, TimeUnit.SECONDS);
+        LOG.config("Started station autoscaling");
+    }
+
+    /**
+     * Get the settings and recent decisions of the station autoscaling
+     *
+     * @param jo The JSON object to update with the autoscaling status
+     */
+    public void getAutoscaleStatus(JSONObject jo) {
+        if (autoscaler != null) {
+            autoscaler.toJSON(jo);
+        } else {
+            jo.put("enabled", false);
+        }
+    }
+
     /**
      * Check the status of all station's periodically (run on a scheduled executor)
      */
@@ -14,7 +14,7 @@ public class StatusCommand extends Command {
     }
 
     protected Options getOptions() {
-        options.addOption(new Option("v", "verbose", false, "show verbose station info"));
+        options.addOption(new Option("v", "verbose", false, "show verbose station info and metrics"));
         return options;
     }
 
@@ -31,6 +31,7 @@ public class EtListener {
             eventbus.getLogger().info("Created EVIO event: " + EvioEventUtilities.getEventIdData(evioEvent)[0]);
             eventbus.post(evioEvent);
         } catch (Exception e) {
+            eventbus.getStation().getMetrics().eventDropped();
             eventbus.post(new EventProcessingError(e, false));
         }
     }
@@ -2,11 +2,13 @@ package org.hps.online.recon.eventbus;
 
 import java.util.logging.Level;
 
-import org.hps.job.JobManager;
+import org.freehep.record.loop.RecordEvent;
+import org.hps.online.recon.metrics.StationMetrics;
 import org.hps.record.LCSimEventBuilder;
 import org.hps.record.evio.EvioEventUtilities;
 import org.jlab.coda.jevio.EvioEvent;
 import org.lcsim.event.EventHeader;
+import org.lcsim.util.DriverAdapter;
 
 import com.google.common.eventbus.Subscribe;
 
@@ -17,19 +19,21 @@ public class EvioListener {
 
     private OnlineEventBus eventbus;
     private LCSimEventBuilder builder;
-    private JobManager mgr;
+    private DriverAdapter drivers;
+    private StationMetrics metrics;
 
     EvioListener(OnlineEventBus eventbus) {
         this.eventbus = eventbus;
-        this.mgr = eventbus.getStation().getJobManager();
+        this.drivers = eventbus.getStation().getDriverAdapter();
+        this.metrics = eventbus.getStation().getMetrics();
         this.builder = eventbus.getStation().getEventBuilder();
     }
 
     /**
      * Receive an EVIO event, convert it to raw LCIO using the
-     * event builder, and then process it using the job manager
-     * to perform reconstruction. The LCIO event is then posted
-     * to the event bus.
+     * event builder, and then process it using the drivers from
+     * the job manager to perform reconstruction. The LCIO event
+     * is then posted to the event bus.
      *
      * @param evioEvent The input EVIO event
      */
@@ -41,17 +45,20 @@ public class EvioListener {
                     + " processing EVIO event to LCIO: "
                     + EvioEventUtilities.getEventIdData(evioEvent)[0]);*/
             if (EvioEventUtilities.isPhysicsEvent(evioEvent)) {
+                final long start = System.nanoTime();
                 builder.readEvioEvent(evioEvent);
                 eventbus.getLogger().fine("Received EVIO event: "
                         + EvioEventUtilities.getEventIdData(evioEvent)[0]);
                 EventHeader lcioEvent = builder.makeLCSimEvent(evioEvent);
                 eventbus.getLogger().fine("Built LCIO event: " + lcioEvent.getEventNumber());
-                mgr.processEvent(lcioEvent);
+                drivers.recordSupplied(new RecordEvent(null, lcioEvent));
+                metrics.eventProcessed(System.nanoTime() - start);
                 eventbus.getLogger().fine("Processed LCIO event: " + lcioEvent.getEventNumber());
                 eventbus.post(lcioEvent);
             }
         } catch (Exception e) {
             eventbus.getLogger().log(Level.SEVERE, "Error converting EVIO to LCIO", e);
+            metrics.eventDropped();
             eventbus.post(new EventProcessingError(e, false));
         }
     }
@@ -4,6 +4,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.hps.online.recon.Station;
+import org.hps.online.recon.metrics.StationMetrics;
 import org.hps.record.et.EtConnection;
 import org.jlab.coda.et.EtEvent;
 import org.jlab.coda.et.exception.EtWakeUpException;
@@ -22,6 +23,7 @@ public class OnlineEventBus extends EventBus {
 
     private EtConnection conn;
     private Station station;
+    private StationMetrics metrics;
 
     private boolean halt;
 
@@ -31,6 +33,7 @@ public class OnlineEventBus extends EventBus {
         logger.config("Initializing online event bus for station: " + station.getStationName());
         this.station = station;
         this.conn = this.station.getEtConnection();
+        this.metrics = this.station.getMetrics();
         register(this);
         register(new ConditionsListener(this));
         register(new EtListener(this));
@@ -53,7 +56,12 @@ public class OnlineEventBus extends EventBus {
             EtEvent[] events = null;
             try {
                 logger.finest("Reading ET events");
+                final long start = System.nanoTime();
                 events = conn.readEtEvents();
+                metrics.etEventsRead(events.length, System.nanoTime() - start);
+                if (metrics.etQueueSampleDue()) {
+                    sampleEtQueueDepth();
+                }
                 for (EtEvent event : events) {
                     logger.fine("Read ET event: " + event.getId());
                     this.post(event);
@@ -74,7 +82,7 @@ public class OnlineEventBus extends EventBus {
 
         // Activate end of data hook
         try {
-            station.getJobManager().getDriverAdapter().finish(null);
+            station.getDriverAdapter().finish(null);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -92,9 +100,21 @@ public class OnlineEventBus extends EventBus {
         }
     }
 
+    /**
+     * Update the metrics with the number of events waiting for this station
+     */
+    private void sampleEtQueueDepth() {
+        try {
+            metrics.setEtQueueDepth(conn.getEtStation().getInputCount());
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Failed to get ET station input count", e);
+        }
+    }
+
     @Subscribe
     public void receiveError(EventProcessingError e) {
         try {
+            metrics.error(e.fatal());
             if (e.fatal()) {
                 logger.log(Level.SEVERE, "Fatal error occurred -- event processing will stop", e.getException());
                 post(new Stop("Fatal error"));
@@ -113,7 +133,7 @@ public class OnlineEventBus extends EventBus {
             logger.info("Received start: " + start.getDate().toString());
 
             logger.info("Activating start on drivers");
-            this.station.getJobManager().getDriverAdapter().start(null);
+            this.station.getDriverAdapter().start(null);
 
         } catch (Exception e) {
             logger.log(Level.WARNING, "Problem receiving the Start event", e);
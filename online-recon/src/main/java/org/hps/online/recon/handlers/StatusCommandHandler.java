@@ -31,11 +31,21 @@ class StatusCommandHandler extends CommandHandler {
         stationRes.put("inactive", mgr.getInactiveStations().size());
         res.put("stations", stationRes);
 
+        // Put station autoscaling settings and decisions.
+        JSONObject autoscaleRes = new JSONObject();
+        mgr.getAutoscaleStatus(autoscaleRes);
+        res.put("autoscale", autoscaleRes);
+
         // Put ET system status.
         JSONObject etRes = new JSONObject();
         server.getEtStatus(etRes, verbose);
         res.put("ET", etRes);
 
+        // Put live metrics of the server and stations.
+        JSONObject metricsRes = new JSONObject();
+        server.getMetrics(metricsRes, verbose);
+        res.put("metrics", metricsRes);
+
         return new JSONResult(res);
     }
 
@@ -0,0 +1,32 @@
+package org.hps.online.recon.metrics;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.util.Driver;
+
+/**
+ * Driver which runs another driver as its child and records its latency
+ */
+public class DriverTimer extends Driver {
+
+    private final LatencyHistogram latency;
+
+    /**
+     * Create a timer for a driver
+     * @param driver The driver to run
+     * @param latency The histogram of its latency
+     */
+    public DriverTimer(Driver driver, LatencyHistogram latency) {
+        add(driver);
+        this.latency = latency;
+    }
+
+    @Override
+    protected void process(EventHeader event) {
+        final long start = System.nanoTime();
+        try {
+            super.process(event);
+        } finally {
+            latency.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.hps.online.recon.metrics;
+
+/**
+ * Event rate over the last few seconds, counted in one second bins
+ */
+public final class EventRate {
+
+    /**
+     * Default number of complete seconds over which the rate is averaged
+     */
+    private static final int DEFAULT_SECONDS = 10;
+
+    private final long[] counts;
+    private final long[] seconds;
+    private final long start;
+
+    /**
+     * Create a rate averaged over the last ten seconds
+     */
+    public EventRate() {
+        this(DEFAULT_SECONDS);
+    }
+
+    /**
+     * Create a rate
+     * @param nSeconds The number of complete seconds over which the rate is averaged
+     */
+    public EventRate(int nSeconds) {
+        this(nSeconds, System.nanoTime());
+    }
+
+    /**
+     * Create a rate with a given start time
+     * @param nSeconds The number of complete seconds over which the rate is averaged
+     * @param start The start time from {@link System#nanoTime()}
+     */
+    EventRate(int nSeconds, long start) {
+        counts = new long[nSeconds + 1];
+        seconds = new long[nSeconds + 1];
+        this.start = start;
+    }
+
+    /**
+     * Count events
+     * @param n The number of events
+     */
+    public void mark(int n) {
+        mark(n, System.nanoTime());
+    }
+
+    /**
+     * Count events at a given time
+     * @param n The number of events
+     * @param now The time from {@link System#nanoTime()}
+     */
+    synchronized void mark(int n, long now) {
+        final long second = second(now);
+        final int bin = (int) (second % counts.length);
+        if (seconds[bin] != second) {
+            seconds[bin] = second;
+            counts[bin] = 0;
+        }
+        counts[bin] += n;
+    }
+
+    /**
+     * Get the rate over the last complete seconds, or since the start if that is shorter
+     * @return The rate in events per second
+     */
+    public double rate() {
+        return rate(System.nanoTime());
+    }
+
+    /**
+     * Get the rate at a given time
+     * @param time The time from {@link System#nanoTime()}
+     * @return The rate in events per second
+     */
+    synchronized double rate(long time) {
+        final long now = second(time);
+        final long nSeconds = Math.min(counts.length - 1, now);
+        if (nSeconds == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (seconds[i] < now && seconds[i] >= now - nSeconds) {
+                total += counts[i];
+            }
+        }
+        return (double) total / nSeconds;
+    }
+
+    private long second(long now) {
+        return (now - start) / 1000000000L;
+    }
+}
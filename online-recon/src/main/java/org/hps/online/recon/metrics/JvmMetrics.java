@@ -0,0 +1,48 @@
+package org.hps.online.recon.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+import org.json.JSONObject;
+
+/**
+ * Heap usage and garbage collection times of the running JVM
+ */
+public final class JvmMetrics {
+
+    private JvmMetrics() {
+    }
+
+    /**
+     * Get the heap usage in bytes and the cumulative GC counts and pause times
+     * in seconds, in total and for each collector
+     * @return The JSON data
+     */
+    public static JSONObject toJSON() {
+        JSONObject jo = new JSONObject();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        jo.put("heapUsed", heap.getUsed());
+        jo.put("heapCommitted", heap.getCommitted());
+        jo.put("heapMax", heap.getMax());
+
+        long gcCount = 0;
+        long gcTime = 0;
+        JSONObject collectors = new JSONObject();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // Negative values mean the collector does not provide them
+            final long count = Math.max(gc.getCollectionCount(), 0);
+            final long time = Math.max(gc.getCollectionTime(), 0);
+            JSONObject joGc = new JSONObject();
+            joGc.put("count", count);
+            joGc.put("time", time / 1000.);
+            collectors.put(gc.getName(), joGc);
+            gcCount += count;
+            gcTime += time;
+        }
+        jo.put("gcCount", gcCount);
+        jo.put("gcTime", gcTime / 1000.);
+        jo.put("collectors", collectors);
+        return jo;
+    }
+}
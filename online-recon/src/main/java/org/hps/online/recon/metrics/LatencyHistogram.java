@@ -0,0 +1,192 @@
+package org.hps.online.recon.metrics;
+
+import java.util.Arrays;
+
+import org.json.JSONObject;
+
+/**
+ * Histogram of latencies with logarithmic bins, four per factor of two, for
+ * estimating percentiles to within about 10%
+ *
+ * The percentiles are computed from the recent entries only, which are kept
+ * in two alternating windows, while the count and sum are cumulative.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Number of bins covering the range of a long in nanoseconds
+     */
+    private static final int BINS = 256;
+
+    /**
+     * Default length of a window in nanoseconds
+     */
+    private static final long DEFAULT_WINDOW = 60000000000L;
+
+    private final long window;
+    private long[] current = new long[BINS];
+    private long[] previous = new long[BINS];
+    private long windowStart;
+
+    private long count = 0;
+    private long sum = 0;
+
+    /**
+     * Create a histogram with one minute windows
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW);
+    }
+
+    /**
+     * Create a histogram
+     * @param window The length of a window in nanoseconds
+     */
+    public LatencyHistogram(long window) {
+        this(window, System.nanoTime());
+    }
+
+    /**
+     * Create a histogram with a given start time
+     * @param window The length of a window in nanoseconds
+     * @param start The start of the first window from {@link System#nanoTime()}
+     */
+    LatencyHistogram(long window, long start) {
+        this.window = window;
+        this.windowStart = start;
+    }
+
+    /**
+     * Add a latency
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        record(nanos, System.nanoTime());
+    }
+
+    /**
+     * Add a latency at a given time
+     * @param nanos The latency in nanoseconds
+     * @param now The time from {@link System#nanoTime()}
+     */
+    synchronized void record(long nanos, long now) {
+        rotate(now);
+        current[bin(nanos)]++;
+        count++;
+        sum += nanos;
+    }
+
+    /**
+     * Get the total number of entries
+     * @return The total number of entries
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * Get the sum of all the entries in seconds
+     * @return The sum of all the entries in seconds
+     */
+    public synchronized double sum() {
+        return sum * 1e-9;
+    }
+
+    /**
+     * Get a percentile of the recent entries
+     * @param q The quantile between 0 and 1
+     * @return The percentile in seconds or <code>NaN</code> if there are no recent entries
+     */
+    public double quantile(double q) {
+        return quantile(q, System.nanoTime());
+    }
+
+    /**
+     * Get a percentile of the recent entries at a given time
+     * @param q The quantile between 0 and 1
+     * @param now The time from {@link System#nanoTime()}
+     * @return The percentile in seconds or <code>NaN</code> if there are no recent entries
+     */
+    synchronized double quantile(double q, long now) {
+        rotate(now);
+        long total = 0;
+        for (int i = 0; i < BINS; i++) {
+            total += current[i] + previous[i];
+        }
+        if (total == 0) {
+            return Double.NaN;
+        }
+        final double rank = q * total;
+        long below = 0;
+        for (int i = 0; i < BINS; i++) {
+            below += current[i] + previous[i];
+            if (below >= rank && below > 0) {
+                return value(i) * 1e-9;
+            }
+        }
+        return value(BINS - 1) * 1e-9;
+    }
+
+    /**
+     * Convert to JSON with the count, the sum and the 50th, 90th and 99th
+     * percentiles in seconds, which are left out if there are no recent entries
+     * @return The JSON data
+     */
+    public JSONObject toJSON() {
+        JSONObject jo = new JSONObject();
+        jo.put("count", count());
+        jo.put("sum", sum());
+        putQuantile(jo, "p50", 0.5);
+        putQuantile(jo, "p90", 0.9);
+        putQuantile(jo, "p99", 0.99);
+        return jo;
+    }
+
+    private void putQuantile(JSONObject jo, String key, double q) {
+        double value = quantile(q);
+        if (!Double.isNaN(value)) {
+            jo.put(key, value);
+        }
+    }
+
+    /**
+     * Start a new window when the current one is over
+     */
+    private void rotate(long now) {
+        final long elapsed = now - windowStart;
+        if (elapsed < window) {
+            return;
+        }
+        long[] tmp = previous;
+        previous = current;
+        current = tmp;
+        Arrays.fill(current, 0);
+        if (elapsed >= 2 * window) {
+            Arrays.fill(previous, 0);
+        }
+        windowStart = now;
+    }
+
+    /**
+     * Get the bin of a latency from its exponent and the two bits below the leading one
+     */
+    static int bin(long nanos) {
+        if (nanos < 4) {
+            return (int) Math.max(nanos, 0);
+        }
+        final int exp = 63 - Long.numberOfLeadingZeros(nanos);
+        return (exp << 2) | (int) ((nanos >>> (exp - 2)) & 3);
+    }
+
+    /**
+     * Get the center of a bin in nanoseconds
+     */
+    static double value(int bin) {
+        if (bin < 4) {
+            return bin;
+        }
+        final int exp = bin >>> 2;
+        final long lower = (long) (4 | (bin & 3)) << (exp - 2);
+        return lower + 0.5 * (1L << (exp - 2));
+    }
+}
@@ -0,0 +1,92 @@
+package org.hps.online.recon.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP endpoint serving metrics as Prometheus text on <code>/metrics</code>
+ * and as JSON on <code>/metrics.json</code>
+ */
+public final class MetricsHttpServer {
+
+    private static Logger LOG = Logger.getLogger(MetricsHttpServer.class.getPackage().getName());
+
+    private final HttpServer http;
+
+    /**
+     * Create the endpoint
+     * @param address The address to bind
+     * @param json Supplier of the metrics as JSON
+     * @param text Supplier of the metrics as Prometheus text
+     * @throws IOException If the address can not be bound
+     */
+    public MetricsHttpServer(InetSocketAddress address, Supplier<JSONObject> json, Supplier<String> text)
+            throws IOException {
+        http = HttpServer.create(address, 0);
+        http.createContext("/metrics", exchange -> {
+            respond(exchange, PrometheusFormat.CONTENT_TYPE, text);
+        });
+        http.createContext("/metrics.json", exchange -> {
+            respond(exchange, "application/json", () -> json.get().toString());
+        });
+    }
+
+    /**
+     * Start serving requests in a background thread
+     */
+    public void start() {
+        http.start();
+        LOG.config("Started metrics endpoint: http:/" + http.getAddress() + "/metrics");
+    }
+
+    /**
+     * Stop serving requests
+     */
+    public void stop() {
+        http.stop(0);
+        LOG.config("Stopped metrics endpoint");
+    }
+
+    /**
+     * Get the bound address, which has the actual port if port 0 was requested
+     * @return The bound address
+     */
+    public InetSocketAddress getAddress() {
+        return http.getAddress();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> body)
+            throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] bytes;
+            try {
+                bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Error getting metrics", e);
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
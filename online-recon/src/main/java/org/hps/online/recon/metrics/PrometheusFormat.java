@@ -0,0 +1,200 @@
+package org.hps.online.recon.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Writer of metrics in the Prometheus text exposition format
+ *
+ * Samples are grouped by metric name, so that the metrics of several stations
+ * can be added one station at a time.
+ */
+public final class PrometheusFormat {
+
+    /**
+     * Content type of the text format
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final class Family {
+        final String type;
+        final String help;
+        final StringBuilder samples = new StringBuilder();
+
+        Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    private final Map<String, Family> families = new LinkedHashMap<String, Family>();
+
+    /**
+     * Add a sample
+     * @param name The metric name
+     * @param type The metric type (counter, gauge or summary)
+     * @param help The description of the metric
+     * @param value The value
+     * @param labels The label names and values, alternating
+     */
+    public void add(String name, String type, String help, double value, String... labels) {
+        addSample(family(name, type, help), name, value, labels);
+    }
+
+    /**
+     * Add a summary from the JSON of a {@link LatencyHistogram}
+     * @param name The metric name
+     * @param help The description of the metric
+     * @param summary The JSON of the histogram
+     * @param labels The label names and values, alternating
+     */
+    public void addSummary(String name, String help, JSONObject summary, String... labels) {
+        Family family = family(name, "summary", help);
+        final String[] keys = {"p50", "p90", "p99"};
+        final String[] quantiles = {"0.5", "0.9", "0.99"};
+        for (int i = 0; i < keys.length; i++) {
+            if (summary.has(keys[i])) {
+                String[] qLabels = new String[labels.length + 2];
+                System.arraycopy(labels, 0, qLabels, 0, labels.length);
+                qLabels[labels.length] = "quantile";
+                qLabels[labels.length + 1] = quantiles[i];
+                addSample(family, name, summary.getDouble(keys[i]), qLabels);
+            }
+        }
+        addSample(family, name + "_sum", summary.optDouble("sum", 0), labels);
+        addSample(family, name + "_count", summary.optLong("count", 0), labels);
+    }
+
+    /**
+     * Add the metrics of a station from the JSON of its {@link StationMetrics}
+     * @param jo The JSON of the station metrics
+     */
+    public void addStation(JSONObject jo) {
+        final String station = jo.getString("station");
+        add("hps_station_uptime_seconds", "gauge", "Time since the station started",
+                jo.optDouble("uptime", 0), "station", station);
+
+        JSONObject events = jo.getJSONObject("events");
+        add("hps_station_et_events_total", "counter", "Events read from the ET system",
+                events.optLong("et", 0), "station", station);
+        add("hps_station_events_processed_total", "counter", "Events reconstructed",
+                events.optLong("processed", 0), "station", station);
+        add("hps_station_events_dropped_total", "counter", "Events dropped due to errors",
+                events.optLong("dropped", 0), "station", station);
+        add("hps_station_event_rate", "gauge", "Events reconstructed per second",
+                events.optDouble("rate", 0), "station", station);
+
+        JSONObject errors = jo.getJSONObject("errors");
+        for (String severity : new String[] {"error", "fatal"}) {
+            add("hps_station_errors_total", "counter", "Event processing errors",
+                    errors.optLong(severity, 0), "station", station, "severity", severity);
+        }
+
+        JSONObject et = jo.getJSONObject("et");
+        if (et.has("queueDepth")) {
+            add("hps_station_et_queue_depth", "gauge", "Events waiting in the input list of the ET station",
+                    et.getInt("queueDepth"), "station", station);
+        }
+        addSummary("hps_station_et_wait_seconds", "Time spent waiting for ET events",
+                et.getJSONObject("wait"), "station", station);
+
+        addSummary("hps_station_event_latency_seconds", "Time to build and reconstruct an event",
+                jo.getJSONObject("latency"), "station", station);
+        JSONArray drivers = jo.getJSONArray("drivers");
+        for (int i = 0; i < drivers.length(); i++) {
+            JSONObject driver = drivers.getJSONObject(i);
+            addSummary("hps_station_driver_latency_seconds", "Time spent in a top level driver",
+                    driver, "station", station, "driver", driver.getString("name"));
+        }
+
+        addJvm(station, jo.getJSONObject("jvm"));
+    }
+
+    /**
+     * Add the metrics of a JVM from the JSON of {@link JvmMetrics}
+     * @param process The name of the process
+     * @param jo The JSON of the JVM metrics
+     */
+    public void addJvm(String process, JSONObject jo) {
+        for (String area : new String[] {"used", "committed", "max"}) {
+            String key = "heap" + Character.toUpperCase(area.charAt(0)) + area.substring(1);
+            add("hps_jvm_heap_bytes", "gauge", "JVM heap usage",
+                    jo.optLong(key, 0), "process", process, "area", area);
+        }
+        JSONObject collectors = jo.optJSONObject("collectors");
+        if (collectors != null) {
+            for (String gc : collectors.keySet()) {
+                JSONObject joGc = collectors.getJSONObject(gc);
+                add("hps_jvm_gc_collections_total", "counter", "JVM garbage collections",
+                        joGc.optLong("count", 0), "process", process, "gc", gc);
+                add("hps_jvm_gc_pause_seconds_total", "counter", "JVM garbage collection time",
+                        joGc.optDouble("time", 0), "process", process, "gc", gc);
+            }
+        }
+    }
+
+    /**
+     * Write the metrics in the text format
+     * @return The metrics text
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            Family family = entry.getValue();
+            sb.append("# HELP ").append(entry.getKey()).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(entry.getKey()).append(' ').append(family.type).append('\n');
+            sb.append(family.samples);
+        }
+        return sb.toString();
+    }
+
+    private Family family(String name, String type, String help) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = new Family(type, help);
+            families.put(name, family);
+        }
+        return family;
+    }
+
+    private static void addSample(Family family, String name, double value, String... labels) {
+        StringBuilder sb = family.samples;
+        sb.append(name);
+        if (labels.length > 0) {
+            sb.append('{');
+            for (int i = 0; i + 1 < labels.length; i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labels[i]).append("=\"");
+                escape(sb, labels[i + 1]);
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+}
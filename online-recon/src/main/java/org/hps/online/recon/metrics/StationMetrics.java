@@ -0,0 +1,171 @@
+package org.hps.online.recon.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Metrics of an online reconstruction station, which are updated by its
+ * event loop and read by the HTTP endpoint
+ */
+public final class StationMetrics {
+
+    /**
+     * Minimum time between samples of the ET queue depth in nanoseconds
+     */
+    private static final long QUEUE_SAMPLE_INTERVAL = 1000000000L;
+
+    private final String stationName;
+    private final long startTime = System.currentTimeMillis();
+
+    private final AtomicLong etEvents = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong fatalErrors = new AtomicLong();
+
+    private final EventRate rate = new EventRate();
+    private final LatencyHistogram etWait = new LatencyHistogram();
+    private final LatencyHistogram eventLatency = new LatencyHistogram();
+
+    /**
+     * Latencies of the top level drivers in execution order
+     */
+    private final Map<String, LatencyHistogram> drivers = new LinkedHashMap<String, LatencyHistogram>();
+
+    private volatile int etQueueDepth = -1;
+    private long lastQueueSample = 0;
+
+    /**
+     * Create the metrics of a station
+     * @param stationName The name of the station
+     */
+    public StationMetrics(String stationName) {
+        this.stationName = stationName;
+    }
+
+    /**
+     * Count events read from the ET system
+     * @param n The number of events
+     * @param waitNanos The time spent waiting for them in nanoseconds
+     */
+    public void etEventsRead(int n, long waitNanos) {
+        etEvents.addAndGet(n);
+        etWait.record(waitNanos);
+    }
+
+    /**
+     * Check whether the ET queue depth should be sampled again, which is done
+     * at most once per second as it requires a call to the ET system
+     * @return True if the queue depth should be sampled
+     */
+    public synchronized boolean etQueueSampleDue() {
+        final long now = System.nanoTime();
+        if (lastQueueSample == 0 || now - lastQueueSample >= QUEUE_SAMPLE_INTERVAL) {
+            lastQueueSample = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set the number of events waiting in the input list of the ET station
+     * @param depth The number of events
+     */
+    public void setEtQueueDepth(int depth) {
+        this.etQueueDepth = depth;
+    }
+
+    /**
+     * Count a reconstructed event
+     * @param nanos The time it took to build and reconstruct it in nanoseconds
+     */
+    public void eventProcessed(long nanos) {
+        processed.incrementAndGet();
+        rate.mark(1);
+        eventLatency.record(nanos);
+    }
+
+    /**
+     * Count an event which could not be processed due to an error
+     */
+    public void eventDropped() {
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * Count an error
+     * @param fatal True if the error stops the event processing
+     */
+    public void error(boolean fatal) {
+        if (fatal) {
+            fatalErrors.incrementAndGet();
+        } else {
+            errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the latency histogram of a driver, with a suffix added to the name if
+     * it is used already by another driver
+     * @param name The name of the driver
+     * @return The latency histogram
+     */
+    public synchronized LatencyHistogram addDriver(String name) {
+        String key = name;
+        for (int i = 2; drivers.containsKey(key); i++) {
+            key = name + "_" + i;
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        drivers.put(key, latency);
+        return latency;
+    }
+
+    /**
+     * Convert to JSON
+     * @return The JSON data
+     */
+    public JSONObject toJSON() {
+        JSONObject jo = new JSONObject();
+        jo.put("station", stationName);
+        jo.put("uptime", (System.currentTimeMillis() - startTime) / 1000.);
+
+        JSONObject events = new JSONObject();
+        events.put("et", etEvents.get());
+        events.put("processed", processed.get());
+        events.put("dropped", dropped.get());
+        events.put("rate", rate.rate());
+        jo.put("events", events);
+
+        JSONObject joErrors = new JSONObject();
+        joErrors.put("error", errors.get());
+        joErrors.put("fatal", fatalErrors.get());
+        jo.put("errors", joErrors);
+
+        JSONObject et = new JSONObject();
+        if (etQueueDepth >= 0) {
+            et.put("queueDepth", etQueueDepth);
+        }
+        et.put("wait", etWait.toJSON());
+        jo.put("et", et);
+
+        jo.put("latency", eventLatency.toJSON());
+
+        JSONArray joDrivers = new JSONArray();
+        synchronized (this) {
+            for (Entry<String, LatencyHistogram> entry : drivers.entrySet()) {
+                JSONObject joDriver = entry.getValue().toJSON();
+                joDriver.put("name", entry.getKey());
+                joDrivers.put(joDriver);
+            }
+        }
+        jo.put("drivers", joDrivers);
+
+        jo.put("jvm", JvmMetrics.toJSON());
+        return jo;
+    }
+}
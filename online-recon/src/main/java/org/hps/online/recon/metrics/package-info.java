@@ -0,0 +1,6 @@
+/**
+ * Live metrics of the online reconstruction stations and server, such as event rates,
+ * latencies, ET queue depths, JVM heap and GC usage, and error counts, which are served
+ * over a local HTTP endpoint in JSON and Prometheus text formats
+ */
+package org.hps.online.recon.metrics;
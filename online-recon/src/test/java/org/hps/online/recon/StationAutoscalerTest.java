@@ -0,0 +1,255 @@
+package org.hps.online.recon;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.json.JSONObject;
+
+/**
+ * Test the policy of {@link StationAutoscaler} with given metrics and stations:
+ * the consecutive checks required before a change, the cool down after it, the
+ * station limits and the estimate of the number of stations needed
+ */
+public class StationAutoscalerTest extends TestCase {
+
+    /**
+     * Time between two checks in milliseconds
+     */
+    private static final long CHECK = 5000L;
+
+    /**
+     * Metrics with given values instead of those of a server
+     */
+    private static class FakeMetrics extends MetricsCollector {
+
+        int backlog = 0;
+        double rate = 0;
+        int producers = 0;
+        final Map<String, JSONObject> stationMetrics = new TreeMap<String, JSONObject>();
+
+        FakeMetrics() {
+            super(null);
+        }
+
+        void setLatencies(double... latencies) {
+            stationMetrics.clear();
+            for (int i = 0; i < latencies.length; i++) {
+                JSONObject jo = new JSONObject();
+                jo.put("latency", new JSONObject().put("p50", latencies[i]));
+                stationMetrics.put("station" + i, jo);
+            }
+        }
+
+        @Override
+        int getEtBacklog() {
+            return backlog;
+        }
+
+        @Override
+        double getEventRate() {
+            return rate;
+        }
+
+        @Override
+        int getEtProducers() {
+            return producers;
+        }
+
+        @Override
+        Map<String, JSONObject> getStationMetrics() {
+            return stationMetrics;
+        }
+    }
+
+    /**
+     * Stations counting the ones started and stopped
+     */
+    private static class FakeStations implements StationAutoscaler.Stations {
+
+        int active = 0;
+        int started = 0;
+        int stopped = 0;
+
+        @Override
+        public int getActiveCount() {
+            return active;
+        }
+
+        @Override
+        public int start(int n) {
+            active += n;
+            started += n;
+            return n;
+        }
+
+        @Override
+        public int stop(int n) {
+            n = Math.min(n, active);
+            active -= n;
+            stopped += n;
+            return n;
+        }
+    }
+
+    private FakeMetrics metrics;
+    private FakeStations stations;
+    private long now;
+
+    @Override
+    protected void setUp() {
+        metrics = new FakeMetrics();
+        stations = new FakeStations();
+        now = 10 * StationAutoscaler.COOL_DOWN;
+    }
+
+    private void check(StationAutoscaler autoscaler, int n) {
+        for (int i = 0; i < n; i++) {
+            now += CHECK;
+            autoscaler.check(now);
+        }
+    }
+
+    private static int getInt(StationAutoscaler autoscaler, String key) {
+        JSONObject jo = new JSONObject();
+        autoscaler.toJSON(jo);
+        return jo.getInt(key);
+    }
+
+    public void testHysteresis() {
+        StationAutoscaler autoscaler = new StationAutoscaler(metrics, stations, 1, 10);
+        stations.active = 2;
+
+        // a high backlog which does not last
+        metrics.backlog = 1000;
+        check(autoscaler, StationAutoscaler.UP_CHECKS - 1);
+        assertEquals(StationAutoscaler.UP_CHECKS - 1, getInt(autoscaler, "highChecks"));
+        metrics.backlog = 100;
+        check(autoscaler, 1);
+        assertEquals(0, getInt(autoscaler, "highChecks"));
+        metrics.backlog = 1000;
+        check(autoscaler, StationAutoscaler.UP_CHECKS - 1);
+        assertEquals(0, stations.started);
+
+        // until it lasts, without a rate one station is added
+        check(autoscaler, 1);
+        assertEquals(1, stations.started);
+        assertEquals(3, stations.active);
+        assertEquals(0, getInt(autoscaler, "highChecks"));
+
+        // a low backlog needs more checks before a station is stopped
+        now += StationAutoscaler.COOL_DOWN;
+        metrics.backlog = 0;
+        check(autoscaler, StationAutoscaler.DOWN_CHECKS - 1);
+        assertEquals(StationAutoscaler.DOWN_CHECKS - 1, getInt(autoscaler, "lowChecks"));
+        assertEquals(0, stations.stopped);
+        check(autoscaler, 1);
+        assertEquals(1, stations.stopped);
+        assertEquals(2, stations.active);
+    }
+
+    public void testCapacity() {
+        StationAutoscaler autoscaler = new StationAutoscaler(metrics, stations, 1, 10);
+        stations.active = 2;
+        metrics.backlog = 0;
+        // the two stations could take 200 Hz, one of them 100 Hz
+        metrics.setLatencies(0.01, 0.01);
+        metrics.rate = 100;
+        check(autoscaler, 2 * StationAutoscaler.DOWN_CHECKS);
+        assertEquals(0, stations.stopped);
+
+        // the remaining station would be busy below the maximum utilization
+        metrics.rate = 50;
+        check(autoscaler, 1);
+        assertEquals(1, stations.stopped);
+    }
+
+    public void testCoolDown() {
+        StationAutoscaler autoscaler = new StationAutoscaler(metrics, stations, 1, 10);
+        stations.active = 1;
+        metrics.backlog = 1000;
+        check(autoscaler, StationAutoscaler.UP_CHECKS);
+        assertEquals(1, stations.started);
+        final long change = now;
+
+        // the backlog stays high but nothing changes during the cool down
+        while (now + CHECK < change + StationAutoscaler.COOL_DOWN) {
+            check(autoscaler, 1);
+        }
+        assertEquals(1, stations.started);
+        assertTrue(getInt(autoscaler, "highChecks") >= StationAutoscaler.UP_CHECKS);
+        check(autoscaler, 1);
+        assertEquals(2, stations.started);
+    }
+
+    public void testLimits() {
+        StationAutoscaler autoscaler = new StationAutoscaler(metrics, stations, 2, 4);
+
+        // the minimum is started at once, without any backlog
+        check(autoscaler, 1);
+        assertEquals(2, stations.active);
+
+        // stations started by hand above the maximum are stopped
+        now += StationAutoscaler.COOL_DOWN;
+        stations.active = 6;
+        check(autoscaler, 1);
+        assertEquals(4, stations.active);
+        assertEquals(2, stations.stopped);
+
+        // no more than the maximum for any backlog
+        now += StationAutoscaler.COOL_DOWN;
+        metrics.backlog = 100000;
+        check(autoscaler, 10 * StationAutoscaler.DOWN_CHECKS);
+        assertEquals(4, stations.active);
+
+        // no fewer than the minimum without a backlog
+        stations.active = 2;
+        metrics.backlog = 0;
+        check(autoscaler, 10 * StationAutoscaler.DOWN_CHECKS);
+        assertEquals(2, stations.active);
+        assertEquals(2, stations.stopped);
+    }
+
+    public void testNoActiveStation() {
+        StationAutoscaler autoscaler = new StationAutoscaler(metrics, stations, 0, 4);
+
+        // without producers there is nothing to do
+        check(autoscaler, 10 * StationAutoscaler.UP_CHECKS);
+        assertEquals(0, stations.started);
+
+        // with producers the events are dropped, even though nothing is waiting
+        metrics.producers = 1;
+        check(autoscaler, StationAutoscaler.UP_CHECKS);
+        assertEquals(1, stations.started);
+        assertEquals(1, stations.active);
+    }
+
+    public void testStationsNeeded() {
+        StationAutoscaler autoscaler = new StationAutoscaler(metrics, stations, 1, 10);
+        stations.active = 2;
+
+        // one more station when there is no rate per station
+        assertEquals(1, autoscaler.stationsNeeded(0, 1000, 100));
+        assertEquals(3, autoscaler.stationsNeeded(2, 1000, 0));
+
+        // 50 Hz per station for the rate of 100 Hz and the backlog drained in a minute
+        assertEquals(3, autoscaler.stationsNeeded(2, 3000, 100));
+
+        // plus the growth of the backlog, here 600 Hz
+        metrics.rate = 100;
+        metrics.backlog = 1000;
+        check(autoscaler, 1);
+        metrics.backlog += 600 * (int) (CHECK / 1000);
+        check(autoscaler, 1);
+        assertEquals(16, autoscaler.stationsNeeded(2, metrics.backlog, 100));
+        assertEquals(0, stations.started);
+
+        // the stations needed are started at once, within the maximum
+        metrics.backlog += 600 * (int) (CHECK / 1000);
+        assertEquals(17, autoscaler.stationsNeeded(2, metrics.backlog, 100));
+        check(autoscaler, 1);
+        assertEquals(8, stations.started);
+        assertEquals(10, stations.active);
+    }
+}
@@ -0,0 +1,47 @@
+package org.hps.online.recon.metrics;
+
+import junit.framework.TestCase;
+
+/**
+ * Test {@link EventRate} with given times: the rate over the last complete
+ * seconds, a shorter average just after the start and the reuse of the
+ * one second bins
+ */
+public class EventRateTest extends TestCase {
+
+    private static final long SECOND = 1000000000L;
+
+    public void testStart() {
+        EventRate rate = new EventRate(10, 0);
+        assertEquals(0., rate.rate(0), 0.);
+        rate.mark(5, SECOND / 2);
+        // the current second is not complete
+        assertEquals(0., rate.rate(SECOND - 1), 0.);
+        assertEquals(5., rate.rate(SECOND + SECOND / 5), 0.);
+        rate.mark(3, SECOND + SECOND / 2);
+        assertEquals(4., rate.rate(2 * SECOND), 0.);
+    }
+
+    public void testSlidingAverage() {
+        EventRate rate = new EventRate(10, 0);
+        // more seconds than bins, with 7 events per second, one at a time
+        for (int s = 0; s < 25; s++) {
+            for (int i = 0; i < 7; i++) {
+                rate.mark(1, s * SECOND + i * (SECOND / 10));
+            }
+        }
+        assertEquals(7., rate.rate(25 * SECOND), 0.);
+
+        // a second with a burst instead counts once it is complete
+        rate.mark(100, 25 * SECOND + SECOND / 2);
+        assertEquals(7., rate.rate(25 * SECOND + SECOND / 2), 0.);
+        assertEquals((9 * 7 + 100) / 10., rate.rate(26 * SECOND), 1e-12);
+
+        // followed by a quiet second
+        assertEquals((8 * 7 + 100) / 10., rate.rate(27 * SECOND), 1e-12);
+
+        // until the burst is older than the average
+        assertEquals(100 / 10., rate.rate(35 * SECOND), 1e-12);
+        assertEquals(0., rate.rate(36 * SECOND), 0.);
+    }
+}
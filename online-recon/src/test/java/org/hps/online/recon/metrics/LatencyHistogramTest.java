@@ -0,0 +1,104 @@
+package org.hps.online.recon.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.json.JSONObject;
+
+/**
+ * Test the bins of {@link LatencyHistogram}, the accuracy of its percentiles
+ * against exact ones and the expiry of old entries
+ */
+public class LatencyHistogramTest extends TestCase {
+
+    private static final long WINDOW = 60000000000L;
+
+    public void testBinEdges() {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, LatencyHistogram.bin(i));
+            assertEquals((double) i, LatencyHistogram.value(i));
+        }
+        assertEquals(0, LatencyHistogram.bin(-10));
+
+        // four bins per factor of two from 4 ns, numbered by the exponent and the two bits below the leading one
+        int previous = 3;
+        for (int exp = 2; exp < 63; exp++) {
+            for (int k = 0; k < 4; k++) {
+                final long lower = (long) (4 | k) << (exp - 2);
+                final long width = 1L << (exp - 2);
+                final int bin = LatencyHistogram.bin(lower);
+                assertEquals(4 * exp + k, bin);
+                assertEquals(previous, LatencyHistogram.bin(lower - 1));
+                assertEquals(bin, LatencyHistogram.bin(lower + (width - 1)));
+                assertEquals(lower + 0.5 * width, LatencyHistogram.value(bin), 0.);
+                previous = bin;
+            }
+        }
+        assertEquals(previous, LatencyHistogram.bin(Long.MAX_VALUE));
+    }
+
+    public void testQuantiles() {
+        Random rnd = new Random(49);
+        LatencyHistogram h = new LatencyHistogram(WINDOW, 0);
+        final int n = 100000;
+        long[] latencies = new long[n];
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            // log-normal around a millisecond
+            latencies[i] = (long) (1e6 * Math.exp(1.5 * rnd.nextGaussian()));
+            sum += latencies[i];
+            h.record(latencies[i], i);
+        }
+        assertEquals(n, h.count());
+        assertEquals(sum * 1e-9, h.sum(), 1e-12 * sum);
+
+        Arrays.sort(latencies);
+        for (double q : new double[] {0.01, 0.1, 0.5, 0.9, 0.99, 0.999}) {
+            final double exact = latencies[(int) Math.ceil(q * n) - 1] * 1e-9;
+            // a bin is an eighth of its lower edge on either side of its center
+            assertEquals("quantile " + q, exact, h.quantile(q, n), 0.125 * exact);
+        }
+        assertEquals(latencies[0] * 1e-9, h.quantile(0, n), 0.125 * latencies[0] * 1e-9);
+
+        // the same through the clock and the JSON
+        LatencyHistogram recent = new LatencyHistogram();
+        for (long latency : latencies) {
+            recent.record(latency);
+        }
+        JSONObject jo = recent.toJSON();
+        assertEquals(n, jo.getLong("count"));
+        assertEquals(h.sum(), jo.getDouble("sum"), 0.);
+        assertEquals(h.quantile(0.5, n), jo.getDouble("p50"), 0.);
+        assertEquals(h.quantile(0.9, n), jo.getDouble("p90"), 0.);
+        assertEquals(h.quantile(0.99, n), jo.getDouble("p99"), 0.);
+    }
+
+    public void testWindows() {
+        LatencyHistogram h = new LatencyHistogram(WINDOW, 0);
+        assertTrue(Double.isNaN(h.quantile(0.5, 0)));
+        assertFalse(new LatencyHistogram().toJSON().has("p50"));
+
+        for (int i = 0; i < 100; i++) {
+            h.record(1000, i);
+        }
+        final double early = h.quantile(0.5, WINDOW / 2);
+        assertEquals(1000e-9, early, 0.125 * 1000e-9);
+
+        // the first window is kept while the second one fills
+        for (int i = 0; i < 100; i++) {
+            h.record(1000000, WINDOW + i);
+        }
+        assertEquals(early, h.quantile(0.25, WINDOW + 100), 0.);
+        assertEquals(1e-3, h.quantile(0.75, WINDOW + 100), 0.125e-3);
+
+        // and dropped when the third one starts
+        assertEquals(1e-3, h.quantile(0.01, 2 * WINDOW + 100), 0.125e-3);
+
+        // no recent entries after two idle windows, but the totals are kept
+        assertTrue(Double.isNaN(h.quantile(0.5, 4 * WINDOW + 100)));
+        assertEquals(200, h.count());
+        assertEquals(100 * (1000 + 1000000) * 1e-9, h.sum(), 1e-12);
+    }
+}
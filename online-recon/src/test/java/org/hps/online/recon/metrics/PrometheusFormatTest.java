@@ -0,0 +1,108 @@
+package org.hps.online.recon.metrics;
+
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import org.json.JSONObject;
+
+/**
+ * Test the Prometheus text written by {@link PrometheusFormat}: sample and
+ * label formatting, summaries and the grouping of the samples of several
+ * stations under one header per metric
+ */
+public class PrometheusFormatTest extends TestCase {
+
+    /**
+     * A sample line: name, optional labels with quoted values and a value
+     */
+    private static final Pattern SAMPLE = Pattern.compile(
+            "[a-zA-Z_:][a-zA-Z0-9_:]*(\\{[a-zA-Z_][a-zA-Z0-9_]*=\"([^\"\\\\\\n]|\\\\.)*\"(,[a-zA-Z_][a-zA-Z0-9_]*=\"([^\"\\\\\\n]|\\\\.)*\")*\\})? \\S+");
+
+    public void testSamples() {
+        PrometheusFormat pf = new PrometheusFormat();
+        pf.add("hps_test_total", "counter", "A counter", 42);
+        pf.add("hps_test_ratio", "gauge", "A gauge", 0.25, "name", "a \"quoted\\ name\"\nline");
+        pf.add("hps_test_total", "counter", "A counter", 1e16, "station", "s1");
+        assertEquals("# HELP hps_test_total A counter\n"
+                + "# TYPE hps_test_total counter\n"
+                + "hps_test_total 42\n"
+                + "hps_test_total{station=\"s1\"} 1.0E16\n"
+                + "# HELP hps_test_ratio A gauge\n"
+                + "# TYPE hps_test_ratio gauge\n"
+                + "hps_test_ratio{name=\"a \\\"quoted\\\\ name\\\"\\nline\"} 0.25\n", pf.toString());
+        checkLines(pf.toString());
+    }
+
+    public void testSummary() {
+        JSONObject summary = new JSONObject();
+        summary.put("count", 3);
+        summary.put("sum", 0.5);
+        summary.put("p50", 0.125);
+        summary.put("p90", 0.25);
+        PrometheusFormat pf = new PrometheusFormat();
+        pf.addSummary("hps_test_seconds", "A summary", summary, "station", "s1");
+        // no recent entries
+        pf.addSummary("hps_test_seconds", "A summary", new LatencyHistogram().toJSON(), "station", "s2");
+        assertEquals("# HELP hps_test_seconds A summary\n"
+                + "# TYPE hps_test_seconds summary\n"
+                + "hps_test_seconds{station=\"s1\",quantile=\"0.5\"} 0.125\n"
+                + "hps_test_seconds{station=\"s1\",quantile=\"0.9\"} 0.25\n"
+                + "hps_test_seconds_sum{station=\"s1\"} 0.5\n"
+                + "hps_test_seconds_count{station=\"s1\"} 3\n"
+                + "hps_test_seconds_sum{station=\"s2\"} 0\n"
+                + "hps_test_seconds_count{station=\"s2\"} 0\n", pf.toString());
+    }
+
+    public void testStations() {
+        StationMetrics[] stations = {new StationMetrics("station_1"), new StationMetrics("station_2")};
+        LatencyHistogram driver = stations[0].addDriver("TrackingDriver");
+        assertNotSame(driver, stations[0].addDriver("TrackingDriver"));
+        for (int i = 0; i < 10; i++) {
+            driver.record(2000000 + 1000 * i);
+            stations[0].eventProcessed(5000000);
+        }
+        stations[0].etEventsRead(10, 1000);
+        stations[0].setEtQueueDepth(3);
+        stations[1].eventDropped();
+        stations[1].error(true);
+
+        PrometheusFormat pf = new PrometheusFormat();
+        for (StationMetrics station : stations) {
+            pf.addStation(station.toJSON());
+        }
+        pf.addJvm("server", JvmMetrics.toJSON());
+        final String text = pf.toString();
+        checkLines(text);
+
+        // one header per metric, before all of its samples
+        for (String name : new String[] {"hps_station_events_processed_total", "hps_station_driver_latency_seconds",
+                "hps_jvm_heap_bytes"}) {
+            final int type = text.indexOf("# TYPE " + name + " ");
+            assertTrue(name, type >= 0);
+            assertEquals(name, type, text.lastIndexOf("# TYPE " + name + " "));
+            assertTrue(name, text.indexOf("\n" + name) > type);
+        }
+
+        assertTrue(text.contains("hps_station_events_processed_total{station=\"station_1\"} 10\n"));
+        assertTrue(text.contains("hps_station_events_processed_total{station=\"station_2\"} 0\n"));
+        assertTrue(text.contains("hps_station_events_dropped_total{station=\"station_2\"} 1\n"));
+        assertTrue(text.contains("hps_station_errors_total{station=\"station_2\",severity=\"fatal\"} 1\n"));
+        assertTrue(text.contains("hps_station_et_queue_depth{station=\"station_1\"} 3\n"));
+        assertFalse(text.contains("hps_station_et_queue_depth{station=\"station_2\"}"));
+        assertTrue(text.contains("hps_station_driver_latency_seconds_count{station=\"station_1\",driver=\"TrackingDriver\"} 10\n"));
+        assertTrue(text.contains("hps_station_driver_latency_seconds_count{station=\"station_1\",driver=\"TrackingDriver_2\"} 0\n"));
+        assertTrue(text.contains("hps_station_event_latency_seconds{station=\"station_1\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("hps_jvm_heap_bytes{process=\"server\",area=\"used\"} "));
+    }
+
+    private static void checkLines(String text) {
+        assertTrue(text.endsWith("\n"));
+        for (String line : text.split("\n")) {
+            if (line.startsWith("# HELP ") || line.startsWith("# TYPE ")) {
+                continue;
+            }
+            assertTrue(line, SAMPLE.matcher(line).matches());
+        }
+    }
+}
@@ -2,11 +2,9 @@ package org.hps.recon.filtering;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
 import java.util.Scanner;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.lcsim.event.EventHeader;
@@ -14,11 +12,18 @@ import org.lcsim.util.Driver;
 
 /**
  * Driver to skim selected events from LCIO files
+ * <p>
+ * The selection only uses the run and event numbers of the event header, so this driver should be the first one in
+ * the steering file: rejected events are then dropped before any collection is read by the other drivers.
+ * <p>
+ * To only copy the selected events, without running any driver, {@link org.hps.util.LcioEventIndex} takes the same
+ * list and seeks directly to each event instead of reading the whole file.
  */
 public class LcioEventSkimmer extends Driver
 {
 
-    private Map<Integer, Set<Integer>> _eventsToSkimMap = new HashMap<Integer, Set<Integer>>();
+    // run number in the upper 32 bits, event number in the lower 32 bits
+    private Set<Long> _eventsToSkim = new HashSet<Long>();
     private boolean skipEvent = true;
     private int _numberOfEventsWritten;
     private String _inputFileName;
@@ -38,33 +43,21 @@ public class LcioEventSkimmer extends Driver
                 if (_debug) {
                     System.out.println("run: " + runNum + " event " + eventNum);
                 }
-                if (_eventsToSkimMap.containsKey(runNum)) {
-                    _eventsToSkimMap.get(runNum).add(eventNum);
-                } else {
-                    _eventsToSkimMap.put(runNum, new TreeSet<Integer>());
-                    _eventsToSkimMap.get(runNum).add(eventNum);
-                }
+                _eventsToSkim.add(key(runNum, eventNum));
             }
             scan.close();
         } catch (FileNotFoundException ex) {
             Logger.getLogger(LcioEventSkimmer.class.getName()).log(Level.SEVERE, null, ex);
         }
         if (_debug) {
-            System.out.println(_eventsToSkimMap);
+            System.out.println(_eventsToSkim.size() + " events to skim");
         }
     }
 
     @Override
     protected void process(EventHeader event)
     {
-        skipEvent = true;
-        int runNum = event.getRunNumber();
-        int eventNum = event.getEventNumber();
-        if (_eventsToSkimMap.containsKey(runNum)) {
-            if (_eventsToSkimMap.get(runNum).contains(eventNum)) {
-                skipEvent = false;
-            }
-        }
+        skipEvent = !_eventsToSkim.contains(key(event.getRunNumber(), event.getEventNumber()));
         if (skipEvent) {
             throw new Driver.NextEventException();
         } else {
@@ -78,6 +71,11 @@ public class LcioEventSkimmer extends Driver
         System.out.println("Selected " + _numberOfEventsWritten + " events");
     }
 
+    private static long key(int runNum, int eventNum)
+    {
+        return ((long) runNum << 32) | (eventNum & 0xffffffffL);
+    }
+
     public void setRunAndEventsToStripFileName(String s)
     {
         _inputFileName = s;
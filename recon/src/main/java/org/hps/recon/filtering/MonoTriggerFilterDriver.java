@@ -1,11 +1,10 @@
 package org.hps.recon.filtering;
 
 import org.lcsim.event.EventHeader;
-import org.lcsim.event.GenericObject;
 import org.lcsim.util.Driver;
 import org.hps.record.epics.EpicsData;
 import org.hps.record.scalers.ScalerData;
-import org.hps.record.triggerbank.AbstractIntData;
+import org.hps.record.triggerbank.EventSummary;
 import org.hps.record.triggerbank.TIData;
 
 /**
@@ -23,16 +22,14 @@ public class MonoTriggerFilterDriver extends Driver {
         if (ScalerData.read(event) != null)
             return;
 
-        // 3. drop event if it doesn't have a TriggerBank
-        if (!event.hasCollection(GenericObject.class, "TriggerBank"))
+        // 3. drop event if it doesn't have a TI bank
+        EventSummary summary = EventSummary.read(event);
+        if (!summary.hasTIData())
             throw new Driver.NextEventException();
 
         int triggers = 0;
         // 4. keep event if it only has one trigger bit set:
-        for (GenericObject gob : event.get(GenericObject.class, "TriggerBank")) {
-            if (!(AbstractIntData.getTag(gob) == TIData.BANK_TAG))
-                continue;
-            TIData tid = new TIData(gob);
+        for (TIData tid : summary.getTIBanks()) {
             if (tid.isSingle0Trigger())
                 triggers++;
             if (tid.isSingle1Trigger())
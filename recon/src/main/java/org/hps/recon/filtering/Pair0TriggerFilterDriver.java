@@ -1,12 +1,10 @@
 package org.hps.recon.filtering;
 
 import org.lcsim.event.EventHeader;
-import org.lcsim.event.GenericObject;
 import org.lcsim.util.Driver;
 import org.hps.record.epics.EpicsData;
 import org.hps.record.scalers.ScalerData;
-import org.hps.record.triggerbank.AbstractIntData;
-import org.hps.record.triggerbank.TIData;
+import org.hps.record.triggerbank.EventSummary;
 
 /**
  * Keep pair-0 triggered events. Also keep EPICS events, and Scaler events. Drop all other events.
@@ -23,18 +21,14 @@ public class Pair0TriggerFilterDriver extends Driver {
         if (ScalerData.read(event) != null)
             return;
 
-        // 3. drop event if it doesn't have a TriggerBank
-        if (!event.hasCollection(GenericObject.class, "TriggerBank"))
+        // 3. drop event if it doesn't have a TI bank
+        EventSummary summary = EventSummary.read(event);
+        if (!summary.hasTIData())
             throw new Driver.NextEventException();
 
-        // 4. keep event if it was from a Pair-0 trigger:
-        for (GenericObject gob : event.get(GenericObject.class, "TriggerBank")) {
-            if (!(AbstractIntData.getTag(gob) == TIData.BANK_TAG))
-                continue;
-            TIData tid = new TIData(gob);
-            if (tid.isPair0Trigger())
-                return;
-        }
+        // 4. keep event if any TI bank was from a Pair-0 trigger:
+        if (summary.isPair0Trigger())
+            return;
 
         // 5. Else, drop event:
         throw new Driver.NextEventException();
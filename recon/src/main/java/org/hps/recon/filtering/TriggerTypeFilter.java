@@ -1,6 +1,6 @@
 package org.hps.recon.filtering;
 
-import org.hps.record.triggerbank.AbstractIntData;
+import org.hps.record.triggerbank.EventSummary;
 import org.hps.record.triggerbank.TIData;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.GenericObject;
@@ -25,13 +25,10 @@ public class TriggerTypeFilter extends EventReconFilter {
     public void process(EventHeader event) {
         incrementEventProcessed();
         if (event.hasCollection(GenericObject.class, "TriggerBank")) {
-            for (GenericObject data : event.get(GenericObject.class, "TriggerBank")) {
-                if (AbstractIntData.getTag(data) == TIData.BANK_TAG) {
-                    TIData triggerData = new TIData(data);
-                    if (!matchTriggerType(triggerData))//only process singles0 triggers...
-                    {
-                        skipEvent();
-                    }
+            for (TIData triggerData : EventSummary.read(event).getTIBanks()) {
+                if (!matchTriggerType(triggerData))//only process singles0 triggers...
+                {
+                    skipEvent();
                 }
             }
         } else {
@@ -6,7 +6,7 @@ import org.lcsim.event.GenericObject;
 import org.lcsim.util.Driver;
 import org.hps.record.epics.EpicsData;
 import org.hps.record.scalers.ScalerData;
-import org.hps.record.triggerbank.AbstractIntData;
+import org.hps.record.triggerbank.EventSummary;
 import org.hps.record.triggerbank.TSData2019;
 
 /**
@@ -68,10 +68,7 @@ public class UnbiasedTriggerFilterDriver extends Driver {
         }
 
         // 4. keep event if it was from a Pulser or FaradayCup trigger:
-        for (GenericObject gob : event.get(GenericObject.class, "TSBank")) {
-            if (!(AbstractIntData.getTag(gob) == TSData2019.BANK_TAG))
-                continue;
-            TSData2019 tsd = new TSData2019(gob);
+        for (TSData2019 tsd : EventSummary.read(event).getTSBanks()) {
             if (tsd.isPulserTrigger()) {
                 nPulser++;
                 if (debug) System.out.println("[UnbiasedTriggerFilterDriver] Event " + evNum + ": ACCEPTED (Pulser trigger)");
@@ -0,0 +1,306 @@
+package org.hps.recon.particle;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hps.recon.ecal.cluster.ClusterUtilities;
+import org.hps.recon.tracking.TrackData;
+import org.hps.recon.tracking.TrackUtils;
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.ReconstructedParticle;
+import org.lcsim.event.RelationalTable;
+import org.lcsim.event.Track;
+
+import hep.physics.vec.Hep3Vector;
+
+/**
+ * Pre-fit selection of the particle pairs to be vertexed, so that pairs which
+ * cannot make a candidate are rejected before the vertex fits.
+ * <p>
+ * A pair is kept if the difference of the track times, the difference of the
+ * cluster seed hit times, the magnitude of the sum of the momenta and the
+ * opening angle of the momenta are within their windows. All windows are open
+ * by default. The track time is read from the track data of the event, as
+ * written for Kalman tracks and by <code>TrackDataDriver</code>. Tracks
+ * without track data, such as GBL tracks when <code>TrackDataDriver</code>
+ * has not run, get the mean time of their strip hits, as in the track to
+ * cluster matching. A particle without a track or track hits, or without a
+ * cluster, passes the corresponding time cut. The momenta are those of the
+ * final state particles, before the
+ * vertex fit, so the momentum window should be somewhat wider than the cut
+ * applied to the fitted candidate.
+ * <p>
+ * The second particles of the pairs are sorted by track time, so that for each
+ * first particle only those within the track time window are looked at. The
+ * numbers of pairs rejected by each cut are counted.
+ */
+final class CandidatePairSelector {
+
+    private final String name;
+
+    private double maxTrackDt = Double.POSITIVE_INFINITY;
+    private double maxClusterDt = Double.POSITIVE_INFINITY;
+    private double minMomentumSum = 0;
+    private double maxMomentumSum = Double.POSITIVE_INFINITY;
+    private double maxOpeningAngle = Math.PI;
+
+    private long nPairs;
+    private long nTrackDtPruned;
+    private long nClusterDtPruned;
+    private long nMomentumSumPruned;
+    private long nOpeningAnglePruned;
+
+    /**
+     * @param name the name of the pairs, for the statistics
+     */
+    CandidatePairSelector(String name) {
+        this.name = name;
+    }
+
+    void setMaxTrackDt(double maxTrackDt) {
+        this.maxTrackDt = maxTrackDt;
+    }
+
+    void setMaxClusterDt(double maxClusterDt) {
+        this.maxClusterDt = maxClusterDt;
+    }
+
+    void setMinMomentumSum(double minMomentumSum) {
+        this.minMomentumSum = minMomentumSum;
+    }
+
+    void setMaxMomentumSum(double maxMomentumSum) {
+        this.maxMomentumSum = maxMomentumSum;
+    }
+
+    void setMaxOpeningAngle(double maxOpeningAngle) {
+        this.maxOpeningAngle = maxOpeningAngle;
+    }
+
+    /**
+     * Select the pairs of a particle of the first list and a particle of the
+     * second list.
+     *
+     * @param event the event, for the track data, or <code>null</code> to
+     *            skip the track time cut
+     * @param first the first particles
+     * @param second the second particles
+     * @return the pairs as consecutive (first, second) indices into the lists,
+     *         ordered by first and then by second index, as the nested loop
+     *         over the lists would form them
+     */
+    int[] select(EventHeader event, List<ReconstructedParticle> first, List<ReconstructedParticle> second) {
+        final int n1 = first.size();
+        final int n2 = second.size();
+        nPairs += (long) n1 * n2;
+        if (n1 == 0 || n2 == 0) {
+            return new int[0];
+        }
+
+        TrackTimes trackTimes = null;
+        if (maxTrackDt < Double.POSITIVE_INFINITY && event != null) {
+            trackTimes = new TrackTimes(event);
+        }
+        final Kinematics k1 = new Kinematics(first, trackTimes);
+        final Kinematics k2 = new Kinematics(second, trackTimes);
+
+        // Sort the second particles with a track time by time; the others
+        // are looked at for every first particle.
+        final int[] byTime = new int[n2];
+        final double[] timeSorted = new double[n2];
+        int nTimed = 0;
+        for (int j = 0; j < n2; j++) {
+            final double t = k2.trackTime[j];
+            if (Double.isNaN(t)) {
+                continue;
+            }
+            int m = nTimed++;
+            while (m > 0 && timeSorted[m - 1] > t) {
+                timeSorted[m] = timeSorted[m - 1];
+                byTime[m] = byTime[m - 1];
+                m--;
+            }
+            timeSorted[m] = t;
+            byTime[m] = j;
+        }
+        final int[] untimed = new int[n2 - nTimed];
+        for (int j = 0, u = 0; j < n2; j++) {
+            if (Double.isNaN(k2.trackTime[j])) {
+                untimed[u++] = j;
+            }
+        }
+
+        int[] pairs = new int[16];
+        int nSelected = 0;
+        final int[] window = new int[n2];
+        for (int i = 0; i < n1; i++) {
+            final double t = k1.trackTime[i];
+            int nWindow = 0;
+            if (Double.isNaN(t) || maxTrackDt == Double.POSITIVE_INFINITY) {
+                for (int j = 0; j < n2; j++) {
+                    window[nWindow++] = j;
+                }
+            } else {
+                // Find the first timed particle in the window.
+                final double low = t - maxTrackDt;
+                int lo = 0;
+                int hi = nTimed;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (timeSorted[mid] < low) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                for (int m = lo; m < nTimed && timeSorted[m] - t <= maxTrackDt; m++) {
+                    window[nWindow++] = byTime[m];
+                }
+                nTrackDtPruned += nTimed - nWindow;
+                for (int j : untimed) {
+                    window[nWindow++] = j;
+                }
+                // Restore the list order.
+                Arrays.sort(window, 0, nWindow);
+            }
+
+            for (int w = 0; w < nWindow; w++) {
+                final int j = window[w];
+                if (Math.abs(k1.clusterTime[i] - k2.clusterTime[j]) > maxClusterDt) {
+                    nClusterDtPruned++;
+                    continue;
+                }
+                final double px = k1.px[i] + k2.px[j];
+                final double py = k1.py[i] + k2.py[j];
+                final double pz = k1.pz[i] + k2.pz[j];
+                final double pSum = Math.sqrt(px * px + py * py + pz * pz);
+                if (pSum < minMomentumSum || pSum > maxMomentumSum) {
+                    nMomentumSumPruned++;
+                    continue;
+                }
+                if (maxOpeningAngle < Math.PI) {
+                    final double dot = k1.px[i] * k2.px[j] + k1.py[i] * k2.py[j] + k1.pz[i] * k2.pz[j];
+                    final double cos = dot / (k1.p[i] * k2.p[j]);
+                    if (Math.acos(Math.max(-1, Math.min(1, cos))) > maxOpeningAngle) {
+                        nOpeningAnglePruned++;
+                        continue;
+                    }
+                }
+                if (pairs.length < 2 * (nSelected + 1)) {
+                    pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+                }
+                pairs[2 * nSelected] = i;
+                pairs[2 * nSelected + 1] = j;
+                nSelected++;
+            }
+        }
+        return Arrays.copyOf(pairs, 2 * nSelected);
+    }
+
+    long getNPairs() {
+        return nPairs;
+    }
+
+    long getNTrackDtPruned() {
+        return nTrackDtPruned;
+    }
+
+    long getNClusterDtPruned() {
+        return nClusterDtPruned;
+    }
+
+    long getNMomentumSumPruned() {
+        return nMomentumSumPruned;
+    }
+
+    long getNOpeningAnglePruned() {
+        return nOpeningAnglePruned;
+    }
+
+    /**
+     * @return the number of pairs looked at and rejected by each cut
+     */
+    String getStatistics() {
+        final long pruned = nTrackDtPruned + nClusterDtPruned + nMomentumSumPruned + nOpeningAnglePruned;
+        return String.format("%s pair pre-selection: %d pairs, %d pruned (%.1f%%): track dt %d, cluster dt %d,"
+                + " momentum sum %d, opening angle %d", name, nPairs, pruned,
+                nPairs == 0 ? 0. : 100. * pruned / nPairs, nTrackDtPruned, nClusterDtPruned, nMomentumSumPruned,
+                nOpeningAnglePruned);
+    }
+
+    /**
+     * The quantities of a list of particles used by the cuts; a time is NaN
+     * if it is not available, which passes the time cuts.
+     */
+    private static final class Kinematics {
+        final double[] trackTime;
+        final double[] clusterTime;
+        final double[] px;
+        final double[] py;
+        final double[] pz;
+        final double[] p;
+
+        Kinematics(List<ReconstructedParticle> particles, TrackTimes trackTimes) {
+            final int n = particles.size();
+            trackTime = new double[n];
+            clusterTime = new double[n];
+            px = new double[n];
+            py = new double[n];
+            pz = new double[n];
+            p = new double[n];
+            for (int i = 0; i < n; i++) {
+                ReconstructedParticle particle = particles.get(i);
+                trackTime[i] = Double.NaN;
+                if (trackTimes != null && !particle.getTracks().isEmpty()) {
+                    trackTime[i] = trackTimes.get(particle.getTracks().get(0));
+                }
+                clusterTime[i] = Double.NaN;
+                if (particle.getClusters() != null && !particle.getClusters().isEmpty()) {
+                    clusterTime[i] = ClusterUtilities.getSeedHitTime(particle.getClusters().get(0));
+                }
+                Hep3Vector momentum = particle.getMomentum();
+                px[i] = momentum.x();
+                py[i] = momentum.y();
+                pz[i] = momentum.z();
+                p[i] = momentum.magnitude();
+            }
+        }
+    }
+
+    /**
+     * The track times of an event: from the track data if the track has
+     * some, otherwise the mean time of the strip hits of the track.
+     */
+    private static final class TrackTimes {
+        private final RelationalTable trackDataTable;
+        private final RelationalTable hitToStrips;
+        private final RelationalTable hitToRotated;
+
+        TrackTimes(EventHeader event) {
+            trackDataTable = event.hasCollection(LCRelation.class, TrackData.TRACK_DATA_RELATION_COLLECTION)
+                    ? TrackData.getTrackDataToTrackTable(event) : null;
+            hitToStrips = TrackUtils.getHitToStripsTable(event);
+            hitToRotated = TrackUtils.getHitToRotatedTable(event);
+        }
+
+        /**
+         * @return the time of the track, NaN if it has neither track data
+         *         nor strip hits
+         */
+        double get(Track track) {
+            if (trackDataTable != null) {
+                GenericObject trackData = (GenericObject) trackDataTable.from(track);
+                if (trackData != null) {
+                    return TrackData.getTrackTime(trackData);
+                }
+            }
+            if (track.getTrackerHits().isEmpty()) {
+                return Double.NaN;
+            }
+            // NaN as well if the hits have no strips
+            return TrackUtils.getTrackTime(track, hitToStrips, hitToRotated);
+        }
+    }
+}
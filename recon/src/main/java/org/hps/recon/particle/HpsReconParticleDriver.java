@@ -124,6 +124,19 @@ public class HpsReconParticleDriver extends ReconParticleDriver {
 
     private boolean includeUnmatchedTracksInFSP = true;
 
+    /**
+     * Pre-fit selection of the electron/positron and top/bottom electron
+     * pairs. All windows are open by default.
+     */
+    private final CandidatePairSelector v0PairSelector = new CandidatePairSelector("V0");
+    private final CandidatePairSelector mollerPairSelector = new CandidatePairSelector("Moller");
+
+    /**
+     * The event being processed, for the track data used by the pair
+     * pre-selection.
+     */
+    private EventHeader currentEvent;
+
     /**
      * Whether to read beam positions from the conditions database. By default
      * this is turned off.
@@ -245,6 +258,86 @@ public class HpsReconParticleDriver extends ReconParticleDriver {
         cuts.setMinVertexChisqProb(input);
     }
 
+    /**
+     * Set the maximum track time difference of the electron/positron pairs
+     * that are vertexed (units = ns).
+     */
+    public void setV0PairMaxTrackDt(double input) {
+        v0PairSelector.setMaxTrackDt(input);
+    }
+
+    /**
+     * Set the maximum cluster time difference of the electron/positron pairs
+     * that are vertexed (units = ns).
+     */
+    public void setV0PairMaxClusterDt(double input) {
+        v0PairSelector.setMaxClusterDt(input);
+    }
+
+    /**
+     * Set the minimum magnitude of the sum of the momenta of the
+     * electron/positron pairs that are vertexed (units = GeV).
+     */
+    public void setV0PairMinMomentumSum(double input) {
+        v0PairSelector.setMinMomentumSum(input);
+    }
+
+    /**
+     * Set the maximum magnitude of the sum of the momenta of the
+     * electron/positron pairs that are vertexed (units = GeV).
+     */
+    public void setV0PairMaxMomentumSum(double input) {
+        v0PairSelector.setMaxMomentumSum(input);
+    }
+
+    /**
+     * Set the maximum opening angle of the electron/positron pairs that are
+     * vertexed (units = rad).
+     */
+    public void setV0PairMaxOpeningAngle(double input) {
+        v0PairSelector.setMaxOpeningAngle(input);
+    }
+
+    /**
+     * Set the maximum track time difference of the top/bottom electron pairs
+     * that are vertexed (units = ns).
+     */
+    public void setMollerPairMaxTrackDt(double input) {
+        mollerPairSelector.setMaxTrackDt(input);
+    }
+
+    /**
+     * Set the maximum cluster time difference of the top/bottom electron pairs
+     * that are vertexed (units = ns).
+     */
+    public void setMollerPairMaxClusterDt(double input) {
+        mollerPairSelector.setMaxClusterDt(input);
+    }
+
+    /**
+     * Set the minimum magnitude of the sum of the momenta of the top/bottom
+     * electron pairs that are vertexed (units = GeV).
+     */
+    public void setMollerPairMinMomentumSum(double input) {
+        mollerPairSelector.setMinMomentumSum(input);
+    }
+
+    /**
+     * Set the maximum magnitude of the sum of the momenta of the top/bottom
+     * electron pairs that are vertexed (units = GeV).
+     */
+    public void setMollerPairMaxMomentumSum(double input) {
+        mollerPairSelector.setMaxMomentumSum(input);
+    }
+
+    /**
+     * Set the maximum opening angle of the top/bottom electron pairs that are
+     * vertexed (units = rad).
+     */
+    public void setMollerPairMaxOpeningAngle(double input) {
+        mollerPairSelector.setMaxOpeningAngle(input);
+    }
+
     public void setIncludeUnmatchedTracksInFSP(boolean setUMTrks) {
         includeUnmatchedTracksInFSP = setUMTrks;
     }
@@ -346,7 +439,9 @@ public class HpsReconParticleDriver extends ReconParticleDriver {
             unconstrainedVcVertices = new ArrayList<Vertex>();
         }
 
+        currentEvent = event;
         super.process(event);
+        currentEvent = null;
 
         if (makeMollerCols) {
             event.put(unconstrainedMollerCandidatesColName, unconstrainedMollerCandidates, ReconstructedParticle.class, 0);
@@ -402,21 +497,22 @@ public class HpsReconParticleDriver extends ReconParticleDriver {
     public void findV0s(List<ReconstructedParticle> electrons, List<ReconstructedParticle> positrons) {
         List<ReconstructedParticle> goodElectrons = particleCuts(electrons);
         List<ReconstructedParticle> goodPositrons = particleCuts(positrons);
-        for (ReconstructedParticle positron : goodPositrons) {
-            for (ReconstructedParticle electron : goodElectrons) {
-                // Don't vertex a GBL track with a SeedTrack.
-                if (TrackType.isGBL(positron.getType()) != TrackType.isGBL(electron.getType())) {
-                    continue;
-                }
+        int[] pairs = v0PairSelector.select(currentEvent, goodPositrons, goodElectrons);
+        for (int k = 0; k < pairs.length; k += 2) {
+            ReconstructedParticle positron = goodPositrons.get(pairs[k]);
+            ReconstructedParticle electron = goodElectrons.get(pairs[k + 1]);
+            // Don't vertex a GBL track with a SeedTrack.
+            if (TrackType.isGBL(positron.getType()) != TrackType.isGBL(electron.getType())) {
+                continue;
+            }
 
-                // Make V0 candidates
-                try {
-                    this.makeV0Candidates(electron, positron);
-                } catch (RuntimeException e) {
-                    e.printStackTrace();
-                    System.out.println("HpsReconParticleDriver::makeV0Candidates fails:: skipping ele/pos pair.");
-                    continue;
-                }
+            // Make V0 candidates
+            try {
+                this.makeV0Candidates(electron, positron);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                System.out.println("HpsReconParticleDriver::makeV0Candidates fails:: skipping ele/pos pair.");
+                continue;
             }
         }
     }
@@ -439,20 +535,21 @@ public class HpsReconParticleDriver extends ReconParticleDriver {
 //            return;
 //        }
 
-        // Iterate over the collection of electrons and create e-e- pairs 
-        for (ReconstructedParticle topElectron : topElectrons) {
-            for (ReconstructedParticle botElectron : botElectrons) {
-                // Don't vertex a GBL track with a SeedTrack or KF track.
-                if (TrackType.isGBL(topElectron.getType()) != TrackType.isGBL(botElectron.getType())) {
-                    continue;
-                }
-
-                // Only vertex two particles if at least one strategy found both tracks. Take out this check once we reduce the number of tracks.
-                //if ((topElectron.getType() & botElectron.getType() & 0x1f) == 0)
-                //    continue;
-                // Make Moller candidates
-                this.makeMollerCandidates(topElectron, botElectron);
+        // Iterate over the pre-selected e-e- pairs
+        int[] pairs = mollerPairSelector.select(currentEvent, topElectrons, botElectrons);
+        for (int k = 0; k < pairs.length; k += 2) {
+            ReconstructedParticle topElectron = topElectrons.get(pairs[k]);
+            ReconstructedParticle botElectron = botElectrons.get(pairs[k + 1]);
+            // Don't vertex a GBL track with a SeedTrack or KF track.
+            if (TrackType.isGBL(topElectron.getType()) != TrackType.isGBL(botElectron.getType())) {
+                continue;
             }
+
+            // Only vertex two particles if at least one strategy found both tracks. Take out this check once we reduce the number of tracks.
+            //if ((topElectron.getType() & botElectron.getType() & 0x1f) == 0)
+            //    continue;
+            // Make Moller candidates
+            this.makeMollerCandidates(topElectron, botElectron);
         }
     }
 
@@ -493,6 +590,15 @@ public class HpsReconParticleDriver extends ReconParticleDriver {
         }
     }
 
+    @Override
+    protected void endOfData() {
+        super.endOfData();
+        LOGGER.info(v0PairSelector.getStatistics());
+        if (makeMollerCols) {
+            LOGGER.info(mollerPairSelector.getStatistics());
+        }
+    }
+
     /**
      * Fits a vertex from an electron/positron track pair using the indicated
      * constraint.
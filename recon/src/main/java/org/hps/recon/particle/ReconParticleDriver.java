@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.hps.conditions.beam.BeamEnergy.BeamEnergyCollection;
+import org.hps.recon.ecal.cluster.ClusterCorrectionUtilities;
 import org.hps.recon.tracking.CoordinateTransformations;
 import org.hps.record.StandardCuts;
 
@@ -80,6 +81,23 @@ public abstract class ReconParticleDriver extends Driver {
         applyClusterCorrections = val;
     }
 
+    /**
+     * Evaluate the 2019 and 2021 cluster energy corrections from the tabulated
+     * parametrization (the default) or from the splines. The setting applies to
+     * all drivers of the job that correct clusters.
+     */
+    public void setUseClusterCorrectionTables(boolean val) {
+        ClusterCorrectionUtilities.setUseCorrectionTables(val);
+    }
+
+    /**
+     * Also compute every tabulated cluster energy correction from the splines and
+     * log the differences.
+     */
+    public void setValidateClusterCorrectionTables(boolean val) {
+        ClusterCorrectionUtilities.setValidateCorrectionTables(val);
+    }
+
     boolean useCorrectedClusterPositionsForMatching = false;
     
     // These are new for 2019 running and should be set to false in the steering file.
@@ -33,6 +33,17 @@ public class MollerSkimmer extends Skimmer {
     private int totalMollers=0; 
     private int totalMollersPassing=0; 
 
+    @Override
+    String[] getPreSelectionCollections(){
+	return new String[]{_MollerCandidateCollectionName, _MollerVertexCollectionName};
+    }
+
+    //  passSelection needs both collections and at least one candidate
+    @Override
+    boolean preSelect(int[] sizes){
+	return sizes[0]>0 && sizes[1]>=0;
+    }
+
     @Override
     public boolean passSelection(EventHeader event){
 
@@ -94,6 +105,10 @@ public class MollerSkimmer extends Skimmer {
 	
     }    
       
+    //  no output file, for the pre-selection only
+    MollerSkimmer() {
+	super();
+    }
     public MollerSkimmer(String file) {
 	super(file, null); 
     }
@@ -14,6 +14,13 @@ import org.lcsim.util.Driver;
 import org.lcsim.event.EventHeader;
 import org.lcsim.geometry.Detector;
 
+/**
+ * Write the events passing each enabled skim to the LCIO file of the skim.
+ * <p>
+ * Every event of the input is read before the skims look at it.  For the V0 and Moller skims,
+ * {@link SkimPreSelector} can first copy the events that may pass to a smaller file, reading only
+ * the sizes of the candidate and vertex collections, and the job is then run on that file.
+ */
 public class MultiSkimDriver extends Driver {
 
     private static final Logger LOGGER = Logger.getLogger(MultiSkimDriver.class.getPackage().getName());
@@ -49,6 +56,9 @@ public class MultiSkimDriver extends Driver {
     private int nprocessed = 0;
     private int npassed = 0;
     List<Skimmer> writeSkimList=new ArrayList<Skimmer>(); 
+    private List<Skimmer> activeSkimList=new ArrayList<Skimmer>();
+    //if this is true, events not written to any stream are not passed on to the drivers after this one
+    private boolean skipRejectedEvents=false;
     
     public void endOfData() {
 
@@ -76,24 +86,14 @@ public class MultiSkimDriver extends Driver {
     protected void process(EventHeader event) {
 	writeSkimList.clear();
 	//  check each skim and see if event passes
-	if(skimV0 &&
-	   v0Skimmer.passSelection(event))
-	    writeSkimList.add(v0Skimmer);
-	
-	if(skimThreeBody &&
-	   threeBodySkimmer.passSelection(event))
-	    writeSkimList.add(threeBodySkimmer); 
-
-	if(skimFEE &&
-	   FEESkimmer.passSelection(event))
-	    writeSkimList.add(FEESkimmer);
-	if(skimMoller &&
-	   mollerSkimmer.passSelection(event))
-	    writeSkimList.add(mollerSkimmer);
+	for(Skimmer skim: activeSkimList)
+	    if(skim.passSelection(event))
+		writeSkimList.add(skim);
 
-	
 	if(writeSkimList.size()>0)
 	    writeEventToStreams(event,writeSkimList);	
+	else if(skipRejectedEvents)
+	    skipEvent();
     }
 
 
@@ -149,6 +149,7 @@ public class MultiSkimDriver extends Driver {
         }	
 	
 	//set up skims
+	activeSkimList.clear();
 	if(skimV0)
 	    v0Skimmer=setupSkimmer("v0",v0OutputFile, v0ParamFile);	
 	if(skimThreeBody)
@@ -157,6 +158,9 @@ public class MultiSkimDriver extends Driver {
 	    FEESkimmer=setupSkimmer("FEE",FEEOutputFile, FEEParamFile);	
 	if(skimMoller)
 	    mollerSkimmer=setupSkimmer("Moller",mollerOutputFile, mollerParamFile);	
+	for(Skimmer skim: new Skimmer[]{v0Skimmer, threeBodySkimmer, FEESkimmer, mollerSkimmer})
+	    if(skim!=null)
+		activeSkimList.add(skim);
     }
 
 
@@ -209,6 +213,9 @@ public class MultiSkimDriver extends Driver {
      public void setSkimMoller(boolean doSkim){
 	this.skimMoller=doSkim; 
      }
+     public void setSkipRejectedEvents(boolean skip){
+	this.skipRejectedEvents=skip;
+     }
      public void setIgnoreCollections(String[] ignore) {
 	 ignoreCollections.addAll(Arrays.asList(ignore));
      }
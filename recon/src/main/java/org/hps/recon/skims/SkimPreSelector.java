@@ -0,0 +1,167 @@
+package org.hps.recon.skims;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.hps.util.LcioEventIndex;
+
+/**
+ * Pre-selection of the events of LCIO files for the skims of {@link MultiSkimDriver}, without reading the events.
+ * <p>
+ * The skims that support it declare the collections they need, see {@link Skimmer#getPreSelectionCollections()}. For
+ * each event, only the sizes of these collections are read from the LCIO records with
+ * {@link LcioEventIndex#readCollectionSizes(int, String[])}, and the records of the events that at least one skim may
+ * keep are copied unchanged to the output file. The other events are neither read nor decoded. The skim job is then
+ * run on the output file, so that the full selection only reads the pre-selected events; for skims keeping a few
+ * percent of the events, this avoids reading nearly all of the input.
+ * <p>
+ * Only the V0 and Moller skims have a pre-selection. The FEE and three-body skims keep every event, so they cannot be
+ * pre-selected and are rejected here.
+ */
+public final class SkimPreSelector {
+
+    private static final Logger LOGGER = Logger.getLogger(SkimPreSelector.class.getPackage().getName());
+
+    private final List<Skimmer> skims = new ArrayList<Skimmer>();
+    private final String[] collections;
+    private final int[][] columns;
+
+    private int nRead = 0;
+    private int nSelected = 0;
+
+    /**
+     * @param skimNames the skims, <code>v0</code> or <code>moller</code>, each optionally followed by a colon and the
+     *            name of its parameter file as given to {@link MultiSkimDriver}
+     */
+    public SkimPreSelector(String[] skimNames) {
+        for (String skimName : skimNames) {
+            String[] tokens = skimName.split(":", 2);
+            Skimmer skim;
+            if (tokens[0].equalsIgnoreCase("v0")) {
+                skim = new V0Skimmer();
+            } else if (tokens[0].equalsIgnoreCase("moller")) {
+                skim = new MollerSkimmer();
+            } else {
+                throw new IllegalArgumentException("The " + tokens[0] + " skim has no pre-selection");
+            }
+            if (tokens.length > 1 && !tokens[1].equals("default")) {
+                skim.setParameters(tokens[1]);
+            }
+            skims.add(skim);
+        }
+        if (skims.isEmpty()) {
+            throw new IllegalArgumentException("No skim to pre-select");
+        }
+
+        // read the collections of all the skims at once
+        Set<String> names = new LinkedHashSet<String>();
+        for (Skimmer skim : skims) {
+            for (String name : skim.getPreSelectionCollections()) {
+                names.add(name);
+            }
+        }
+        collections = names.toArray(new String[names.size()]);
+        List<String> nameList = new ArrayList<String>(names);
+        columns = new int[skims.size()][];
+        for (int i = 0; i < skims.size(); i++) {
+            String[] skimCollections = skims.get(i).getPreSelectionCollections();
+            columns[i] = new int[skimCollections.length];
+            for (int j = 0; j < skimCollections.length; j++) {
+                columns[i][j] = nameList.indexOf(skimCollections[j]);
+            }
+        }
+    }
+
+    /**
+     * @return the collections whose sizes are read
+     */
+    String[] getCollections() {
+        return collections;
+    }
+
+    /**
+     * @param sizes the sizes of the {@link #getCollections()} in an event, -1 for missing collections
+     * @return <code>true</code> if at least one skim may keep the event
+     */
+    boolean accept(int[] sizes) {
+        for (int i = 0; i < skims.size(); i++) {
+            int[] skimSizes = new int[columns[i].length];
+            for (int j = 0; j < skimSizes.length; j++) {
+                skimSizes[j] = sizes[columns[i][j]];
+            }
+            if (skims.get(i).preSelect(skimSizes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copy the records of the pre-selected events of an LCIO file to a stream.
+     *
+     * @param file the LCIO file
+     * @param out the stream to write to
+     * @return the number of events copied
+     * @throws IOException if the file cannot be read or the stream written
+     */
+    public int copySelected(File file, OutputStream out) throws IOException {
+        LcioEventIndex index = LcioEventIndex.open(file);
+        int n = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if (accept(index.readCollectionSizes(i, collections))) {
+                index.copyEvent(i, out);
+                n++;
+            }
+        }
+        nRead += index.size();
+        nSelected += n;
+        LOGGER.info("Pre-selected " + n + " of " + index.size() + " events in " + file.getPath());
+        return n;
+    }
+
+    /**
+     * @return the number of events read so far
+     */
+    public int getNRead() {
+        return nRead;
+    }
+
+    /**
+     * @return the number of events pre-selected so far
+     */
+    public int getNSelected() {
+        return nSelected;
+    }
+
+    /**
+     * Pre-select the events of LCIO files into a new LCIO file, on which the skim job is then run.
+     *
+     * @param args output file, comma separated list of skims as in {@link #SkimPreSelector(String[])}, and input files
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("java SkimPreSelector <output.slcio> <skim>[:<paramFile>][,...] <input.slcio> ...");
+            System.exit(0);
+        }
+        SkimPreSelector selector = new SkimPreSelector(args[1].split(","));
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(args[0]));
+        try {
+            for (int i = 2; i < args.length; i++) {
+                selector.copySelected(new File(args[i]), out);
+            }
+        } finally {
+            out.close();
+        }
+        System.out.format("Pre-selected %d of %d events into %s\n", selector.getNSelected(), selector.getNRead(),
+                args[0]);
+    }
+}
@@ -25,6 +25,24 @@ abstract class Skimmer{
     abstract boolean passSelection(EventHeader event);
     abstract void setParameters(String parsFileName);    
 
+    /**
+     * Collections whose sizes {@link #preSelect(int[])} looks at.  {@link SkimPreSelector} reads
+     * their sizes from the LCIO records, without reading the events, to drop the events that
+     * cannot pass before the skim job reads them.
+     */
+    String[] getPreSelectionCollections(){
+	return new String[0];
+    }
+
+    /**
+     * Pre-selection on the sizes of the {@link #getPreSelectionCollections()}, -1 for a
+     * collection that is not in the event.  It must accept every event that
+     * {@link #passSelection(EventHeader)} would accept.
+     */
+    boolean preSelect(int[] sizes){
+	return true;
+    }
+
     //methods below are taken from lcsim LCIODriver and shouldn't need to be touched
     public Skimmer(String file) {
         this(addFileExtension(file), null);
@@ -39,6 +39,17 @@ public class V0Skimmer extends Skimmer {
     private boolean _debug=false;    
     private int totalV0s=0; 
     private int totalV0sPassing=0; 
+    @Override
+    String[] getPreSelectionCollections(){
+	return new String[]{_V0CandidateCollectionName, _V0VertexCollectionName};
+    }
+
+    //  passSelection needs both collections and at least one candidate
+    @Override
+    boolean preSelect(int[] sizes){
+	return sizes[0]>0 && sizes[1]>=0;
+    }
+
     @Override
     public boolean passSelection(EventHeader event){
 	if(_debug)
@@ -137,6 +148,10 @@ public class V0Skimmer extends Skimmer {
 	
     }    
       
+    //  no output file, for the pre-selection only
+    V0Skimmer() {
+	super();
+    }
     public V0Skimmer(String file) {
 	super(file, null); 
     }
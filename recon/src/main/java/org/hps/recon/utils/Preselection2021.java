@@ -14,6 +14,7 @@ import hep.physics.vec.Hep3Vector;
 import org.hps.recon.ecal.cluster.ClusterUtilities;
 import org.hps.recon.tracking.CoordinateTransformations;
 import org.hps.recon.tracking.TrackData;
+import org.hps.recon.tracking.TrackerTruthAssociation;
 
 import org.lcsim.event.Cluster;
 import org.lcsim.event.EventHeader;
@@ -22,11 +23,9 @@ import org.lcsim.event.LCIOParameters.ParameterName;
 import org.lcsim.event.LCRelation;
 import org.lcsim.event.MCParticle;
 import org.lcsim.event.ReconstructedParticle;
-import org.lcsim.event.RelationalTable;
 import org.lcsim.event.SimTrackerHit;
 import org.lcsim.event.Track;
 import org.lcsim.event.Vertex;
-import org.lcsim.event.base.BaseRelationalTable;
 import org.lcsim.geometry.Detector;
 import org.lcsim.util.Driver;
 import org.lcsim.util.aida.AIDA;
@@ -334,13 +333,9 @@ public class Preselection2021 extends Driver {
         if (v0Candidates.isEmpty())
             return;
 
-        if (!event.hasCollection(LCRelation.class, "SVTTrueHitRelations"))
+        TrackerTruthAssociation truth = TrackerTruthAssociation.read(event);
+        if (truth == null)
             return;
-        RelationalTable rawtomc = new BaseRelationalTable(RelationalTable.Mode.MANY_TO_MANY, RelationalTable.Weighting.UNWEIGHTED);
-        List<LCRelation> trueHitRelations = event.get(LCRelation.class, "SVTTrueHitRelations");
-        for (LCRelation relation : trueHitRelations)
-            if (relation != null && relation.getFrom() != null && relation.getTo() != null)
-                rawtomc.add(relation.getFrom(), relation.getTo());
 
         List<SimTrackerHit> allsimhits = event.get(SimTrackerHit.class, "TrackerHits");
 
@@ -373,7 +368,7 @@ public class Preselection2021 extends Driver {
         if (enablePlots) {
             MCParticle aprimeEleForRefit = findAprimeElectron(event.getMCParticles());
             if (aprimeEleForRefit != null) {
-                int nMatchedLayers = countSimHitLayers(aprimeEleForRefit, allsimhits);
+                int nMatchedLayers = truth.getLayerCount(aprimeEleForRefit);
                 plots1D.get("apeleonly_nmatched_layers").fill(nMatchedLayers);
                 if (apEleOnlyTrack != null) {
                     plots1D.get("apeleonly_refit_found").fill(1);
@@ -493,8 +488,8 @@ public class Preselection2021 extends Driver {
             double v0Mass = v0Mass2 > 0 ? Math.sqrt(v0Mass2) : -1;
 
             // Preselection passed - run truth matching on both daughter tracks
-            TrackTruthMatcher eleTT = new TrackTruthMatcher(eleTrack, rawtomc, 0.0, 0);
-            TrackTruthMatcher posTT = new TrackTruthMatcher(posTrack, rawtomc, 0.0, 0);
+            TrackTruthMatcher eleTT = new TrackTruthMatcher(eleTrack, truth, 0.0, 0);
+            TrackTruthMatcher posTT = new TrackTruthMatcher(posTrack, truth, 0.0, 0);
             String v0Cat = catLabel(eleTT);
             String posCat = catLabel(posTT);
             List<String> eleCats = new ArrayList<String>();
@@ -502,8 +497,8 @@ public class Preselection2021 extends Driver {
             if ((v0Cat.equals("unmatched") || v0Cat.equals("nohits"))
                     && isKinMatch(eleTrack, eleTT, allsimhits, event.getMCParticles()))
                 eleCats.add(v0Cat + "_kinmatch");
-            matchAndFill("ele", eleTrack, eleTT, allsimhits, eleCats, thisEventNum, event.getEventNumber(), kalmanTrackToMCPRelations, v0Mass, event.getMCParticles(), allTracks, rawtomc, event);
-            matchAndFill("pos", posTrack, posTT, allsimhits, eleCats, thisEventNum, event.getEventNumber(), kalmanTrackToMCPRelations, v0Mass, event.getMCParticles(), allTracks, rawtomc, event);
+            matchAndFill("ele", eleTrack, eleTT, allsimhits, eleCats, thisEventNum, event.getEventNumber(), kalmanTrackToMCPRelations, v0Mass, event.getMCParticles(), allTracks, truth, event);
+            matchAndFill("pos", posTrack, posTT, allsimhits, eleCats, thisEventNum, event.getEventNumber(), kalmanTrackToMCPRelations, v0Mass, event.getMCParticles(), allTracks, truth, event);
 
             if (enablePlots) {
                 plots2D.get("ele_pos_category").fill(categoryIndex(v0Cat), categoryIndex(posCat));
@@ -587,7 +582,7 @@ public class Preselection2021 extends Driver {
         }
     }
 
-    private void matchAndFill(String chTag, Track track, TrackTruthMatcher tt, List<SimTrackerHit> allsimhits, List<String> cats, int eventNum, int lcioEventNumber, List<LCRelation> kalmanTrackToMCPRelations, double v0Mass, List<MCParticle> mcParticles, List<Track> allTracks, RelationalTable rawtomc, EventHeader event) {
+    private void matchAndFill(String chTag, Track track, TrackTruthMatcher tt, List<SimTrackerHit> allsimhits, List<String> cats, int eventNum, int lcioEventNumber, List<LCRelation> kalmanTrackToMCPRelations, double v0Mass, List<MCParticle> mcParticles, List<Track> allTracks, TrackerTruthAssociation truth, EventHeader event) {
         if (!enablePlots)
             return;
 
@@ -649,7 +644,7 @@ public class Preselection2021 extends Driver {
                 // (z=beam), matching recoPDet computed above - no rotation needed here.
                 Hep3Vector truthP = aprimeEle.getMomentum();
                 int nAprimeEleSimHits = tt.getLayersHitByMCP(aprimeEle, allsimhits).size();
-                int nStolenClusters = countStolenAprimeEleClusters(track, aprimeEle, allTracks, rawtomc);
+                int nStolenClusters = countStolenAprimeEleClusters(track, aprimeEle, allTracks, truth);
                 for (String cat : cats) {
                     plots2D.get("aprime_ele_truth_vs_reco_p_" + cat).fill(truthP.magnitude(), pMag);
                     plots2D.get("aprime_ele_truth_vs_reco_px_" + cat).fill(truthP.x(), recoPDet.x());
@@ -816,28 +811,17 @@ public class Preselection2021 extends Driver {
         return new BasicHep3Vector(track.getTrackStates().get(0).getMomentum()).magnitude();
     }
 
-    // Number of distinct layers with a SimTrackerHit belonging to the given MCParticle.
-    // Equivalent to TrackTruthMatcher.getLayersHitByMCP(mcp, simhits).size(), duplicated
-    // here since this needs to be evaluated independent of any particular reco track.
-    private int countSimHitLayers(MCParticle mcp, List<SimTrackerHit> simhits) {
-        java.util.Set<Integer> layers = new java.util.HashSet<Integer>();
-        for (SimTrackerHit simhit : simhits)
-            if (simhit.getMCParticle() == mcp)
-                layers.add(simhit.getLayer());
-        return layers.size();
-    }
-
     // Counts layer-clusters on OTHER tracks in the event (anything but eleTrack itself)
     // that have a contribution from the true A' electron - i.e. hits that "belong" to the
     // A' electron but ended up clustered onto a different track's TrackerHit instead.
     // Summed over every other track, so a single stolen layer shared by two other tracks
     // counts twice (each occurrence is a separate lost hit for the A' electron's track).
-    private int countStolenAprimeEleClusters(Track eleTrack, MCParticle aprimeEle, List<Track> allTracks, RelationalTable rawtomc) {
+    private int countStolenAprimeEleClusters(Track eleTrack, MCParticle aprimeEle, List<Track> allTracks, TrackerTruthAssociation truth) {
         int nStolen = 0;
         for (Track other : allTracks) {
             if (other == eleTrack)
                 continue;
-            TrackTruthMatcher otherTT = new TrackTruthMatcher(other, rawtomc);
+            TrackTruthMatcher otherTT = new TrackTruthMatcher(other, truth);
             java.util.Set<Integer> aprimeLayers = otherTT.getLayerHitsForAllMCPs().get(aprimeEle);
             if (aprimeLayers != null)
                 nStolen += aprimeLayers.size();
@@ -1,6 +1,7 @@
 package org.hps.recon.utils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -13,6 +14,7 @@ import org.lcsim.event.RelationalTable;
 import org.lcsim.event.SimTrackerHit;
 import org.lcsim.event.Track;
 import org.lcsim.event.TrackerHit;
+import org.hps.recon.tracking.TrackerTruthAssociation;
 import hep.physics.vec.BasicHep3Vector;
 
 public class TrackTruthMatcher {
@@ -29,11 +31,25 @@ public class TrackTruthMatcher {
     private Set<Integer> _layersOnTrack = new HashSet<Integer>();
     private Map<RawTrackerHit, List<MCParticle>> _stripHitsToMCPsMap = new HashMap<RawTrackerHit, List<MCParticle>>();
     private int _totalLayers=14;
+    private TrackerTruthAssociation _truth = null;
     
     public TrackTruthMatcher(Track track, RelationalTable rawtomc){
         doAnalysis(track, rawtomc);
     }
 
+    //Same as with the RelationalTable, but the truth lookups go through the
+    //per-event association. The MCP layer queries use its layer lists when
+    //they are given the sim hit list the association was built from
+    public TrackTruthMatcher(Track track, TrackerTruthAssociation truth){
+        this._truth = truth;
+        doAnalysis(track, null);
+    }
+
+    public TrackTruthMatcher(Track track, TrackerTruthAssociation truth, double purityCut, int nHitsRequired){
+        this._truth = truth;
+        doAnalysis(track, null, purityCut, nHitsRequired);
+    }
+
     //Purity cut is a number less than 1
     //enforces minimum ratio of bestMCPLayerHits / totalNLayerHits
     //For example: 10 layer hits / 12 total layer hits is purity of 0.83
@@ -303,7 +319,11 @@ public class TrackTruthMatcher {
 
         Set<MCParticle> mcps = new HashSet<MCParticle>();
         List<MCParticle> mcpList = new ArrayList<MCParticle>();
-        Set<SimTrackerHit> simhits = rawtomc.allFrom(rawhit);
+        Collection<SimTrackerHit> simhits;
+        if (_truth != null)
+            simhits = _truth.getSimHits(rawhit);
+        else
+            simhits = rawtomc.allFrom(rawhit);
         //loop over simhits on rawhit
         for(SimTrackerHit simhit : simhits){
             //get mcp that left simhit
@@ -327,6 +347,8 @@ public class TrackTruthMatcher {
     }
 
     public Set<Integer> getLayersHitByMCP(MCParticle mcp, List<SimTrackerHit> simhits){
+	if (_truth != null && _truth.isActiveSimHits(simhits))
+	    return _truth.getLayers(mcp);
 	Set<Integer> layerhitsMap = new HashSet<Integer>();
 	for(SimTrackerHit simhit : simhits){
 	    MCParticle simhitmcp = simhit.getMCParticle();
@@ -20,12 +20,11 @@ import java.io.IOException;
 import java.util.Set;
 
 import org.hps.recon.tracking.TrackTruthInfo;
+import org.hps.recon.tracking.TrackerTruthAssociation;
 import org.hps.recon.tracking.TrackData;
 
 import org.lcsim.event.LCRelation;
-import org.lcsim.event.RelationalTable;
 import org.lcsim.event.base.BaseLCRelation;
-import org.lcsim.event.base.BaseRelationalTable;
 
 import org.lcsim.event.MCParticle;
 import org.lcsim.event.Track;
@@ -482,15 +481,8 @@ public class TrackTruthRelationsDriver extends Driver {
         }
         
         //Retrieve rawhits to mc
-        
-        RelationalTable rawtomc = new BaseRelationalTable(RelationalTable.Mode.MANY_TO_MANY, RelationalTable.Weighting.UNWEIGHTED);
-        if (event.hasCollection(LCRelation.class, "SVTTrueHitRelations")) {
-            List<LCRelation> trueHitRelations = event.get(LCRelation.class, "SVTTrueHitRelations");
-            for (LCRelation relation : trueHitRelations)
-                if (relation != null && relation.getFrom() != null && relation.getTo() != null)
-                    rawtomc.add(relation.getFrom(), relation.getTo());
-        }
-        else
+        TrackerTruthAssociation truth = TrackerTruthAssociation.read(event);
+        if (truth == null)
             return;
 
         //Retrieve all simulated hits
@@ -512,7 +504,7 @@ public class TrackTruthRelationsDriver extends Driver {
         //Retrieve all MCPs
         List<MCParticle> allmcps = event.get(MCParticle.class, "MCParticle");
         //Check for Trackable MCPs
-        Map<MCParticle, Map<Integer, List<SimTrackerHit>>> trackableMCPMap = getTrackableMCPs(allmcps, allsimhits, rawtomc,this.nGoodHitsRequired);
+        Map<MCParticle, Map<Integer, List<SimTrackerHit>>> trackableMCPMap = getTrackableMCPs(allmcps, truth, this.nGoodHitsRequired);
 
         List<MCParticle> mcps = new ArrayList<MCParticle>();
         for (Track track : trackCollection) {
@@ -546,7 +538,7 @@ public class TrackTruthRelationsDriver extends Driver {
 		chTag="pos";
 	    
             //Use New TrackTruthMatching tool to match Track -> MCP
-            TrackTruthMatcher tt = new TrackTruthMatcher(track, rawtomc, 0.0, 0);
+            TrackTruthMatcher tt = new TrackTruthMatcher(track, truth, 0.0, 0);
 
             //Check nHits on Track
             //If nHits < required, dont analyze this Track
@@ -917,7 +909,7 @@ public class TrackTruthRelationsDriver extends Driver {
         return params;
     }
 
-    public Map<MCParticle, Map<Integer, List<SimTrackerHit>>> getTrackableMCPs(List<MCParticle> mcparticles, List<SimTrackerHit> simhits, RelationalTable rawtomc, int NhitsRequired){
+    public Map<MCParticle, Map<Integer, List<SimTrackerHit>>> getTrackableMCPs(List<MCParticle> mcparticles, TrackerTruthAssociation truth, int NhitsRequired){
         Map<MCParticle, Map<Integer, List<SimTrackerHit>>> trackableMCPs = new HashMap<MCParticle, Map<Integer, List<SimTrackerHit>>>();
 
         for(MCParticle particle : mcparticles){
@@ -962,21 +954,17 @@ public class TrackTruthRelationsDriver extends Driver {
 	    plots2D.get(chTag+"_mcp_momentum_v_phi0").fill(momentum, phi0);           
 
             Map<Integer, List<SimTrackerHit>> layerhitsMap = new HashMap<Integer, List<SimTrackerHit>>();
-            for(SimTrackerHit simhit : simhits){
-                MCParticle simhitmcp = simhit.getMCParticle();
-                if(simhitmcp == particle){
-                    int layer = simhit.getLayer();
-                    Set<RawTrackerHit> rawhits = rawtomc.allTo(simhit);
-                    if(!layerhitsMap.containsKey(layer)){
-                        List<SimTrackerHit> tmp = new ArrayList<SimTrackerHit>();
-                        tmp.add(simhit);
-                        layerhitsMap.put(layer, tmp); 
-                    }
-                    else{
-                        List<SimTrackerHit> tmp = layerhitsMap.get(layer);
-                        tmp.add(simhit);
-                        layerhitsMap.put(layer, tmp);
-                    }
+            for(SimTrackerHit simhit : truth.getSimHits(particle)){
+                int layer = simhit.getLayer();
+                if(!layerhitsMap.containsKey(layer)){
+                    List<SimTrackerHit> tmp = new ArrayList<SimTrackerHit>();
+                    tmp.add(simhit);
+                    layerhitsMap.put(layer, tmp); 
+                }
+                else{
+                    List<SimTrackerHit> tmp = layerhitsMap.get(layer);
+                    tmp.add(simhit);
+                    layerhitsMap.put(layer, tmp);
                 }
             }
 
@@ -0,0 +1,194 @@
+package org.hps.recon.particle;
+
+import hep.physics.vec.BasicHep3Vector;
+import hep.physics.vec.BasicHepLorentzVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.hps.recon.tracking.TrackData;
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.ReconstructedParticle;
+import org.lcsim.event.Track;
+import org.lcsim.event.base.BaseLCRelation;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.event.base.BaseReconstructedParticle;
+import org.lcsim.event.base.BaseTrack;
+import org.lcsim.event.base.BaseTrackerHit;
+
+/**
+ * Test {@link CandidatePairSelector} against the nested loop over the particle lists that it replaces: the same pairs
+ * in the same order, and the numbers of pairs rejected by each cut.
+ */
+public class CandidatePairSelectorTest extends TestCase {
+
+    private static final double MAX_TRACK_DT = 2.5;
+    private static final double MIN_MOMENTUM_SUM = 1.0;
+    private static final double MAX_MOMENTUM_SUM = 3.0;
+    private static final double MAX_OPENING_ANGLE = 0.1;
+
+    public void testTrackTimeWindow() {
+        EventHeader event = new BaseLCSimEvent(10031, 1, "test");
+        List<ReconstructedParticle> first = new ArrayList<ReconstructedParticle>();
+        first.add(makeParticle(new double[] {0.0}, 1, 0, 0));
+        first.add(makeParticle(new double[] {9.0, 11.0}, 1, 0, 0));
+        first.add(makeParticle(new double[0], 1, 0, 0));
+        List<ReconstructedParticle> second = new ArrayList<ReconstructedParticle>();
+        for (double t : new double[] {20, -3, 2, 8, 1}) {
+            second.add(makeParticle(new double[] {t}, 1, 0, 0));
+        }
+        // a particle without track hits is in every window
+        second.add(makeParticle(new double[0], 1, 0, 0));
+
+        CandidatePairSelector selector = new CandidatePairSelector("test");
+        selector.setMaxTrackDt(MAX_TRACK_DT);
+        int[] pairs = selector.select(event, first, second);
+        // the first particle at 0 pairs with those at 2 and 1, the one at 10 with the one at 8, and the one without
+        // time with all
+        assertTrue(Arrays.equals(new int[] {0, 2, 0, 4, 0, 5, 1, 3, 1, 5, 2, 0, 2, 1, 2, 2, 2, 3, 2, 4, 2, 5}, pairs));
+        assertEquals(18, selector.getNPairs());
+        assertEquals(7, selector.getNTrackDtPruned());
+
+        // without the event, there are no track times
+        assertEquals(36, selector.select(null, first, second).length);
+        assertEquals(36, selector.getNPairs());
+        assertEquals(7, selector.getNTrackDtPruned());
+    }
+
+    public void testTrackData() {
+        // the time of the track data takes precedence over the hit times
+        EventHeader event = new BaseLCSimEvent(10031, 1, "test");
+        List<ReconstructedParticle> first = new ArrayList<ReconstructedParticle>();
+        first.add(makeParticle(new double[] {0.0}, 1, 0, 0));
+        List<ReconstructedParticle> second = new ArrayList<ReconstructedParticle>();
+        second.add(makeParticle(new double[] {0.0}, 1, 0, 0));
+        second.add(makeParticle(new double[] {10.0}, 1, 0, 0));
+        List<TrackData> trackData = new ArrayList<TrackData>();
+        List<LCRelation> relations = new ArrayList<LCRelation>();
+        float[] times = {10, 1};
+        for (int j = 0; j < 2; j++) {
+            TrackData data = new TrackData(0, times[j], new double[0]);
+            trackData.add(data);
+            relations.add(new BaseLCRelation(data, second.get(j).getTracks().get(0)));
+        }
+        event.put(TrackData.TRACK_DATA_COLLECTION, trackData, TrackData.class, 0);
+        event.put(TrackData.TRACK_DATA_RELATION_COLLECTION, relations, LCRelation.class, 0);
+
+        CandidatePairSelector selector = new CandidatePairSelector("test");
+        selector.setMaxTrackDt(MAX_TRACK_DT);
+        assertTrue(Arrays.equals(new int[] {0, 1}, selector.select(event, first, second)));
+        assertEquals(1, selector.getNTrackDtPruned());
+    }
+
+    public void testNestedLoop() {
+        Random rnd = new Random(4242);
+        CandidatePairSelector selector = new CandidatePairSelector("test");
+        selector.setMaxTrackDt(MAX_TRACK_DT);
+        // the particles have no clusters, so they all pass the cluster time cut
+        selector.setMaxClusterDt(1.0);
+        selector.setMinMomentumSum(MIN_MOMENTUM_SUM);
+        selector.setMaxMomentumSum(MAX_MOMENTUM_SUM);
+        selector.setMaxOpeningAngle(MAX_OPENING_ANGLE);
+
+        long nPairs = 0;
+        long[] nPruned = new long[3];
+        for (int e = 0; e < 20; e++) {
+            EventHeader event = new BaseLCSimEvent(10031, e, "test");
+            List<ReconstructedParticle> first = makeParticles(rnd, rnd.nextInt(6));
+            List<ReconstructedParticle> second = makeParticles(rnd, rnd.nextInt(8));
+
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < first.size(); i++) {
+                for (int j = 0; j < second.size(); j++) {
+                    int cut = cut(first.get(i), second.get(j));
+                    if (cut < 0) {
+                        expected.add(i);
+                        expected.add(j);
+                    } else {
+                        nPruned[cut]++;
+                    }
+                    nPairs++;
+                }
+            }
+
+            int[] pairs = selector.select(event, first, second);
+            assertEquals(expected.size(), pairs.length);
+            for (int k = 0; k < pairs.length; k++) {
+                assertEquals(expected.get(k).intValue(), pairs[k]);
+            }
+        }
+        assertEquals(nPairs, selector.getNPairs());
+        assertEquals(nPruned[0], selector.getNTrackDtPruned());
+        assertEquals(0, selector.getNClusterDtPruned());
+        assertEquals(nPruned[1], selector.getNMomentumSumPruned());
+        assertEquals(nPruned[2], selector.getNOpeningAnglePruned());
+    }
+
+    /**
+     * @return the first cut rejecting the pair in the order of the selector, -1 if the pair passes
+     */
+    private static int cut(ReconstructedParticle p1, ReconstructedParticle p2) {
+        double t1 = meanHitTime(p1.getTracks().get(0));
+        double t2 = meanHitTime(p2.getTracks().get(0));
+        if (Math.abs(t1 - t2) > MAX_TRACK_DT) {
+            return 0;
+        }
+        double pSum = p1.getMomentum().add(p2.getMomentum()).magnitude();
+        if (pSum < MIN_MOMENTUM_SUM || pSum > MAX_MOMENTUM_SUM) {
+            return 1;
+        }
+        double cos = p1.getMomentum().dot(p2.getMomentum())
+                / (p1.getMomentum().magnitude() * p2.getMomentum().magnitude());
+        if (Math.acos(Math.max(-1, Math.min(1, cos))) > MAX_OPENING_ANGLE) {
+            return 2;
+        }
+        return -1;
+    }
+
+    private static double meanHitTime(Track track) {
+        if (track.getTrackerHits().isEmpty()) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int k = 0; k < track.getTrackerHits().size(); k++) {
+            sum += track.getTrackerHits().get(k).getTime();
+        }
+        return sum / track.getTrackerHits().size();
+    }
+
+    private static List<ReconstructedParticle> makeParticles(Random rnd, int n) {
+        List<ReconstructedParticle> particles = new ArrayList<ReconstructedParticle>();
+        for (int i = 0; i < n; i++) {
+            // some particles without track hits, which have no time
+            double[] times = new double[rnd.nextInt(8) == 0 ? 0 : 1 + rnd.nextInt(3)];
+            for (int k = 0; k < times.length; k++) {
+                times[k] = 8 * rnd.nextGaussian();
+            }
+            double p = 0.2 + 1.8 * rnd.nextDouble();
+            double px = 0.05 * rnd.nextGaussian();
+            double py = 0.05 * rnd.nextGaussian();
+            particles.add(makeParticle(times, px * p, py * p, p));
+        }
+        return particles;
+    }
+
+    /**
+     * Make a particle whose track has hits at the given times, as a GBL track without track data.
+     */
+    private static ReconstructedParticle makeParticle(double[] hitTimes, double px, double py, double pz) {
+        BaseTrack track = new BaseTrack();
+        for (double time : hitTimes) {
+            track.getTrackerHits().add(new BaseTrackerHit(new double[3], new double[6], time, 0, 0));
+        }
+        BaseReconstructedParticle particle = new BaseReconstructedParticle();
+        particle.addTrack(track);
+        double p = Math.sqrt(px * px + py * py + pz * pz);
+        particle.set4Vector(new BasicHepLorentzVector(p, new BasicHep3Vector(px, py, pz)));
+        return particle;
+    }
+}
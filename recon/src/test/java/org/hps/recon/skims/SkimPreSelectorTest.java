@@ -0,0 +1,101 @@
+package org.hps.recon.skims;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.hps.recon.ecal.SimpleGenericObject;
+import org.hps.util.LcioEventIndex;
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.lcio.LCIOWriter;
+import org.lcsim.util.test.TestUtil.TestOutputFile;
+
+/**
+ * Test {@link SkimPreSelector} on an LCIO file whose events have V0 and Moller candidate and vertex collections of
+ * different sizes: only the events with candidates and vertices for one of the requested skims are copied.
+ */
+public class SkimPreSelectorTest extends TestCase {
+
+    private static final String V0_CANDIDATES = "UnconstrainedV0Candidates_KF";
+    private static final String V0_VERTICES = "UnconstrainedV0Vertices_KF";
+    private static final String MOLLER_CANDIDATES = "UnconstrainedMollerCandidates_KF";
+    private static final String MOLLER_VERTICES = "UnconstrainedMollerVertices_KF";
+
+    // sizes of the V0 candidates, V0 vertices, Moller candidates and Moller vertices of each event, -1 if missing
+    private static final int[][] SIZES = {{0, 0, -1, -1}, {2, 2, 0, 0}, {1, -1, -1, -1}, {-1, -1, 1, 1},
+            {-1, -1, -1, -1}, {3, 3, 2, 2}};
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = new TestOutputFile("SkimPreSelectorTest.slcio");
+        File indexFile = LcioEventIndex.getIndexFile(file);
+        if (indexFile.exists()) {
+            indexFile.delete();
+        }
+        String[] names = {V0_CANDIDATES, V0_VERTICES, MOLLER_CANDIDATES, MOLLER_VERTICES};
+        LCIOWriter writer = new LCIOWriter(file);
+        for (int i = 0; i < SIZES.length; i++) {
+            EventHeader event = new BaseLCSimEvent(5000, i, "test");
+            for (int j = 0; j < names.length; j++) {
+                if (SIZES[i][j] >= 0) {
+                    List<GenericObject> objects = new ArrayList<GenericObject>();
+                    for (int k = 0; k < SIZES[i][j]; k++) {
+                        objects.add(new SimpleGenericObject());
+                    }
+                    event.put(names[j], objects, GenericObject.class, 0);
+                }
+            }
+            writer.write(event);
+        }
+        writer.close();
+    }
+
+    public void testV0() throws IOException {
+        checkSelection(new String[] {"v0"}, new int[] {1, 5});
+    }
+
+    public void testV0AndMoller() throws IOException {
+        checkSelection(new String[] {"v0", "moller"}, new int[] {1, 3, 5});
+    }
+
+    public void testNoPreSelection() {
+        try {
+            new SkimPreSelector(new String[] {"v0", "fee"});
+            fail("a skim without pre-selection must be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private void checkSelection(String[] skims, int[] selected) throws IOException {
+        SkimPreSelector selector = new SkimPreSelector(skims);
+        File skim = new TestOutputFile("SkimPreSelectorTest_" + skims.length + ".slcio");
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(skim));
+        try {
+            assertEquals(selected.length, selector.copySelected(file, out));
+        } finally {
+            out.close();
+        }
+        assertEquals(SIZES.length, selector.getNRead());
+        assertEquals(selected.length, selector.getNSelected());
+
+        // the copied events are the pre-selected ones, in order and readable
+        LcioEventIndex index = LcioEventIndex.build(skim);
+        assertEquals(selected.length, index.size());
+        for (int i = 0; i < selected.length; i++) {
+            assertEquals(selected[i], index.getEventNumber(i));
+            EventHeader event = index.read(i);
+            assertEquals(selected[i], event.getEventNumber());
+        }
+    }
+}
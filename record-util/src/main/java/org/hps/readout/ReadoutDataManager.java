@@ -330,8 +330,8 @@ public class ReadoutDataManager extends Driver {
                 double startTime = trigger.getTriggerTime() - triggerTimeDisplacement;
                 double endTime = startTime + readoutWindow;
                 
-                logger.finer("Trigger Time: " + trigger.getTriggerTime());
-                logger.finer("Default Time Range: " + startTime + " - " + endTime);
+                logger.finer(() -> "Trigger Time: " + trigger.getTriggerTime());
+                logger.finer(() -> "Default Time Range: " + startTime + " - " + endTime);
                 
                 // All readout output is initially stored in a single
                 // object. This allows the readout from multiple
@@ -816,7 +816,7 @@ public class ReadoutDataManager extends Driver {
         
         // Add the trigger to the trigger queue.
         triggerQueue.add(new TriggerTime(triggerTime, driver));
-        logger.finer("Added trigger to queue with trigger time " + triggerTime + " and readout time " + (triggerTime + bufferTotal) + " from driver "
+        logger.finer(() -> "Added trigger to queue with trigger time " + triggerTime + " and readout time " + (triggerTime + bufferTotal) + " from driver "
                 + driver.getClass().getSimpleName() + ".");
     }
     
@@ -841,7 +841,7 @@ public class ReadoutDataManager extends Driver {
         
         // Add the trigger to the trigger queue.
         triggerQueue.add(new TriggerTime(triggerTime, triggerType, driver));
-        logger.finer("Added trigger to queue with trigger time " + triggerTime + " and readout time " + (triggerTime + bufferTotal) + " from driver "
+        logger.finer(() -> "Added trigger to queue with trigger time " + triggerTime + " and readout time " + (triggerTime + bufferTotal) + " from driver "
                 + driver.getClass().getSimpleName() + ".");
     }
     
@@ -866,7 +866,7 @@ public class ReadoutDataManager extends Driver {
         
         // Add the trigger to the trigger queue.
         triggerQueue.add(new TriggerTime(triggerTime, triggerType, topBot, driver));
-        logger.finer("Added trigger to queue with trigger time " + triggerTime + " and readout time " + (triggerTime + bufferTotal) + " from driver "
+        logger.finer(() -> "Added trigger to queue with trigger time " + triggerTime + " and readout time " + (triggerTime + bufferTotal) + " from driver "
                 + driver.getClass().getSimpleName() + ".");
     }
     
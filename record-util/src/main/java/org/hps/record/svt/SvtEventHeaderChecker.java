@@ -35,40 +35,36 @@ public class SvtEventHeaderChecker {
     //public static List<SvtEvioHeaderException>  checkSvtHeaders(List<SvtHeaderDataInfo> headers) throws SvtEvioHeaderApvBufferAddressException, SvtEvioHeaderApvFrameCountException, SvtEvioHeaderMultisampleErrorBitException, SvtEvioHeaderApvReadErrorException, SvtEvioHeaderSyncErrorException, SvtEvioHeaderOFErrorException, SvtEvioHeaderSkipCountException  {
     public static List<SvtEvioHeaderException>  checkSvtHeaders(List<SvtHeaderDataInfo> headers) {
           
-        LOGGER.fine("check " + headers.size() + " headers  ");
+        LOGGER.fine(() -> "check " + headers.size() + " headers  ");
         int[] bufferAddresses = new int[6];
         int[] firstFrameCounts = new int[6];
         boolean firstHeader = true;
-        int[] multisampleHeader;
-        int[] bufAddresses;
-        int[] frameCounts;
-        int[] readError;
         int count;
-        int multisampleHeaderTailerrorBit;
         // create a list to hold all active exceptions
         List<SvtEvioHeaderException> exceptions = new ArrayList<SvtEvioHeaderException>();
         for( SvtHeaderDataInfo headerDataInfo : headers ) {
-            LOGGER.fine("checking header: " + headerDataInfo.toString());
+            LOGGER.fine(() -> "checking header: " + headerDataInfo.toString());
 
 
             // Check the multisample header information            
             int nMultisampleHeaders = headerDataInfo.getNumberOfMultisampleHeaders();
             for(int iMultisampleHeader = 0; iMultisampleHeader < nMultisampleHeaders; iMultisampleHeader++) {
-                LOGGER.fine("iMultisampleHeader " + iMultisampleHeader);
+                final int multisampleHeaderIndex = iMultisampleHeader;
+                LOGGER.fine(() -> "iMultisampleHeader " + multisampleHeaderIndex);
 
-                multisampleHeader = SvtHeaderDataInfo.getMultisampleHeader(iMultisampleHeader, headerDataInfo);
+                final int[] multisampleHeader = SvtHeaderDataInfo.getMultisampleHeader(iMultisampleHeader, headerDataInfo);
 
                 // get multisample tail error bit
-                multisampleHeaderTailerrorBit = SvtEvioUtils.getErrorBitFromMultisampleHeader(SvtEvioUtils.getMultisampleTailWord(multisampleHeader));
+                final int multisampleHeaderTailerrorBit = SvtEvioUtils.getErrorBitFromMultisampleHeader(SvtEvioUtils.getMultisampleTailWord(multisampleHeader));
                 
                 // get buffer addresses
-                bufAddresses = SvtEvioUtils.getApvBufferAddresses(multisampleHeader);
+                final int[] bufAddresses = SvtEvioUtils.getApvBufferAddresses(multisampleHeader);
 
                 // get frame counts
-                frameCounts = SvtEvioUtils.getApvFrameCount(multisampleHeader);
+                final int[] frameCounts = SvtEvioUtils.getApvFrameCount(multisampleHeader);
 
                 // check if there was any read errors
-                readError = SvtEvioUtils.getApvReadErrors(multisampleHeader);
+                final int[] readError = SvtEvioUtils.getApvReadErrors(multisampleHeader);
                 
                 if( bufAddresses.length != 6)
                     exceptions.add(new SvtEvioHeaderApvBufferAddressException("Invalid number of APV buffer addresses."));
@@ -87,7 +83,7 @@ public class SvtEventHeaderChecker {
                 }
 
                 // print debug
-                LOGGER.fine(getMultisampleDebugString(headerDataInfo, SvtEvioUtils.getMultisampleTailWord(multisampleHeader)) + 
+                LOGGER.fine(() -> getMultisampleDebugString(headerDataInfo, SvtEvioUtils.getMultisampleTailWord(multisampleHeader)) + 
                         getDebugString(bufAddresses, frameCounts, readError));
 
                 // Get a reference for comparison 
@@ -125,7 +121,8 @@ public class SvtEventHeaderChecker {
 
                 count = -1;
                 for (int iFrame=0; iFrame<frameCounts.length; ++iFrame) {
-                    LOGGER.fine("frame count " + iFrame + "  " + frameCounts[iFrame]  + " ( " + Integer.toHexString( frameCounts[iFrame]) + " )");
+                    final int frame = iFrame;
+                    LOGGER.fine(() -> "frame count " + frame + "  " + frameCounts[frame]  + " ( " + Integer.toHexString( frameCounts[frame]) + " )");
 
                     if( frameCounts[iFrame] > 15  ||  (count < 15 && frameCounts[iFrame] < count) || ( count == 15 && frameCounts[iFrame] != 0 ) ) {
                         exceptions.add( new SvtEvioHeaderApvFrameCountException("The APV frame counts in this events are invalid " + 
@@ -136,7 +133,8 @@ public class SvtEventHeaderChecker {
                 }
 
                 for (int iReadError=0; iReadError<readError.length; ++iReadError) {
-                    LOGGER.fine("read error " + iReadError + "  " + readError[iReadError]  + " ( " + Integer.toHexString( readError[iReadError]) + " )");
+                    final int apv = iReadError;
+                    LOGGER.fine(() -> "read error " + apv + "  " + readError[apv]  + " ( " + Integer.toHexString( readError[apv]) + " )");
                     if( readError[iReadError] != 1)  {// active low
                         exceptions.add( new SvtEvioHeaderApvReadErrorException("Read error occurred " + 
                                 getMultisampleDebugString(headerDataInfo, SvtEvioUtils.getMultisampleTailWord(multisampleHeader)) +
@@ -167,7 +165,7 @@ public class SvtEventHeaderChecker {
     public static List<SvtEvioHeaderException> checkSvtHeaderData(SvtHeaderDataInfo header)  {
         
         int tail = header.getTail();
-        LOGGER.fine("checkSvtHeaderData tail " + tail + "( " + Integer.toHexString(tail) + " ) " +
+        LOGGER.fine(() -> "checkSvtHeaderData tail " + tail + "( " + Integer.toHexString(tail) + " ) " +
                                                  " errorbit   " +  Integer.toHexString(SvtEvioUtils.getSvtTailSyncErrorBit(tail)) +
                                                  " OFerrorbit " +  Integer.toHexString(SvtEvioUtils.getSvtTailOFErrorBit(tail)) + 
                                                  " checkSvtHeaderData skipcount  " +  Integer.toHexString(SvtEvioUtils.getSvtTailMultisampleSkipCount(tail)));
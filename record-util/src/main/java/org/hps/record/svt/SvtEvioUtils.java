@@ -149,6 +149,16 @@ public class SvtEvioUtils {
     public static int getChannelNumber(int[] data) {
         return (data[ENG_RUN_SAMPLE_HEADER_INDEX] >>> 16) & ENG_RUN_CHANNEL_MASK;
     }
+
+    /**
+     *  Extract and return the channel number from the multisample tail.
+     * 
+     *  @param multisampleTail : tail word of a multisample
+     *  @return A channel number in the range 0-127
+     */
+    public static int getChannelNumberFromMultisampleTail(int multisampleTail) {
+        return (multisampleTail >>> 16) & ENG_RUN_CHANNEL_MASK;
+    }
    
     /**
      *  Extract the physical channel number associated with the samples
@@ -174,6 +184,22 @@ public class SvtEvioUtils {
         }
         return physicalChannel;
     }
+
+    /**
+     *  Extract the physical channel number from the multisample tail.
+     *  
+     *  @param multisampleTail : tail word of a multisample
+     *  @return A channel number in the range 0-639
+     *  @throws RuntimeException if the physical channel number is out of range
+     */
+    public static int getPhysicalChannelNumberFromMultisampleTail(int multisampleTail) {
+        int physicalChannel = (APV25_PER_HYBRID - getApvFromMultisampleTail(multisampleTail) - 1) * CHANNELS_PER_APV25
+                + getChannelNumberFromMultisampleTail(multisampleTail);
+        if (physicalChannel < 0 || physicalChannel >= APV25_PER_HYBRID * CHANNELS_PER_APV25) {
+            throw new RuntimeException("Physical channel " + physicalChannel + " is outside of valid range!");
+        }
+        return physicalChannel;
+    }
     
     /**
      *  Check if the samples are APV headers
@@ -187,6 +213,16 @@ public class SvtEvioUtils {
         return false;
     }
     
+    /**
+     *  Check if the multisample tail word belongs to an APV header
+     * 
+     *  @param multisampleTail : tail word of a multisample
+     *  @return true if the multisample is an APV header, false otherwise
+     */
+    public static boolean isMultisampleHeader(int multisampleTail) {
+        return ((multisampleTail >>> 30) & ENG_RUN_APV_HEADER_MASK) == 1;
+    }
+
     /**
      * Get the multisample tail word from a multisample.
      * @param multisample - multisample of  data
@@ -209,6 +245,16 @@ public class SvtEvioUtils {
         return false;
     }
     
+    /**
+     *  Check if the multisample tail word belongs to an APV tail
+     * 
+     *  @param multisampleTail : tail word of a multisample
+     *  @return true if the multisample is an APV tail, false otherwise
+     */
+    public static boolean isMultisampleTail(int multisampleTail) {
+        return ((multisampleTail >>> 29) & ENG_RUN_APV_TAIL_MASK) == 1;
+    }
+
     public static int getSvtHeader(int[] data) {
         return data[0];
     }
@@ -395,6 +441,25 @@ public class SvtEvioUtils {
         return samples;
     }
     
+    /**
+     *  Extract and return all SVT samples of the multisample starting at the
+     *  given offset of a data bank, without copying the multisample out of
+     *  the bank first.
+     * 
+     *  @param data : data bank words
+     *  @param offset : index of the first word of the multisample
+     *  @return An array containing all SVT samples
+     */
+    public static short[] getSamples(int[] data, int offset) {
+        short[] samples = new short[TOTAL_SAMPLES];
+        for (int i = 0; i < TOTAL_SAMPLES / 2; i++) {
+            int word = data[offset + i];
+            samples[2 * i] = (short) (word & SAMPLE_MASK);
+            samples[2 * i + 1] = (short) ((word >>> 16) & SAMPLE_MASK);
+        }
+        return samples;
+    }
+
     /**
      *  Extract and return all SVT APV buffer addresses as an array 
      * 
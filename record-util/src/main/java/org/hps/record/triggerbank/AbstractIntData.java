@@ -119,6 +119,39 @@ public abstract class AbstractIntData implements GenericObject {
      */
     protected abstract void decodeData();
 
+    /**
+     * Indicates whether the object can be reused for another bank with
+     * {@link #reload(int[])}. This is the case for implementations whose
+     * decoding overwrites all of their state.
+     *
+     * @return Returns <code>true</code> if the object can be reloaded.
+     */
+    public boolean isReloadable() {
+        return false;
+    }
+
+    /**
+     * Replaces the data bank with a copy of a new EvIO bank and decodes it,
+     * so that the object can be reused instead of constructing a new one.
+     *
+     * @param bank - An EvIO bank of <code>int</code> data.
+     * @throws UnsupportedOperationException Occurs if the object is not
+     * reloadable.
+     */
+    public void reload(int[] bank) {
+        if (!isReloadable()) {
+            throw new UnsupportedOperationException(this.getClass().getSimpleName() + " can not be reloaded.");
+        }
+        if (bank == null) {
+            this.bank = new int[0];
+        } else if (this.bank.length == bank.length) {
+            System.arraycopy(bank, 0, this.bank, 0, bank.length);
+        } else {
+            this.bank = Arrays.copyOf(bank, bank.length);
+        }
+        decodeData();
+    }
+
     @Override
     public int getNInt() {
         return bank.length + 1;
@@ -0,0 +1,254 @@
+package org.hps.record.triggerbank;
+
+/**
+ * Class <code>CompiledTriggerModule2019</code> is a snapshot of the cut values
+ * of a {@link TriggerModule2019}, taken into primitive fields so that the cuts
+ * are evaluated without the string-keyed lookups of the trigger module. The
+ * cuts are applied to the clusters of a {@link TriggerClusterArrays2019} and
+ * give the same results as the corresponding methods of the trigger module.
+ * <p>
+ * The position-dependent energy thresholds and the crystal radial distances
+ * and angles used by the energy slope and coplanarity cuts are tabulated
+ * once. A compiled module is immutable, so it may be shared between threads;
+ * it does not follow later changes of the trigger module it was made from.
+ */
+public final class CompiledTriggerModule2019 {
+    // General cuts.
+    private final double hitCountLow;
+    private final double energyLow;
+    private final double energyHigh;
+
+    // Singles cuts.
+    private final double xMin;
+    private final double xMax;
+    private final double yMin;
+    private final double yMax;
+
+    // Position-dependent energy threshold for each x-index from -22 to 23,
+    // after the shift of negative x-indices.
+    private final double[] pdeThreshold = new double[46];
+
+    // Pair cuts.
+    private final double energySumLow;
+    private final double energySumHigh;
+    private final double energyDifferenceHigh;
+    private final double energySlopeF;
+    private final double energySlopeLow;
+    private final double coplanarityHigh;
+    private final double timeCoincidence;
+
+    // Radial distance and angle of each crystal, as [5 - iy][23 + ix].
+    private static final double[][] CRYSTAL_RADIUS = new double[11][47];
+    private static final int[][] CRYSTAL_ANGLE = new int[11][47];
+
+    static {
+        for (int iy = -5; iy <= 5; iy++) {
+            for (int ix = -23; ix <= 23; ix++) {
+                if (ix != 0 && iy != 0) {
+                    double[] position = TriggerModule2019.getCrystalPosition(ix, iy);
+                    double x = position[0];
+                    double y = position[1];
+                    CRYSTAL_RADIUS[5 - iy][23 + ix] = Math.sqrt((x * x) + (y * y));
+                    CRYSTAL_ANGLE[5 - iy][23 + ix] = TriggerModule2019.getClusterAngle(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes the cut values of a trigger module.
+     *
+     * @param module - The trigger module.
+     */
+    public CompiledTriggerModule2019(TriggerModule2019 module) {
+        hitCountLow = module.getCutValue(TriggerModule2019.CLUSTER_HIT_COUNT_LOW);
+        energyLow = module.getCutValue(TriggerModule2019.CLUSTER_TOTAL_ENERGY_LOW);
+        energyHigh = module.getCutValue(TriggerModule2019.CLUSTER_TOTAL_ENERGY_HIGH);
+
+        xMin = module.getCutValue(TriggerModule2019.CLUSTER_XMIN);
+        xMax = module.getCutValue(TriggerModule2019.CLUSTER_XMAX);
+        yMin = module.getCutValue(TriggerModule2019.CLUSTER_YMIN);
+        yMax = module.getCutValue(TriggerModule2019.CLUSTER_YMAX);
+        double c0 = module.getCutValue(TriggerModule2019.CLUSTER_PDE_C0);
+        double c1 = module.getCutValue(TriggerModule2019.CLUSTER_PDE_C1);
+        double c2 = module.getCutValue(TriggerModule2019.CLUSTER_PDE_C2);
+        double c3 = module.getCutValue(TriggerModule2019.CLUSTER_PDE_C3);
+        for (int x = -22; x <= 23; x++) {
+            pdeThreshold[x + 22] = c0 + c1 * x + c2 * Math.pow(x, 2) + c3 * Math.pow(x, 3);
+        }
+
+        energySumLow = module.getCutValue(TriggerModule2019.PAIR_ENERGY_SUM_LOW);
+        energySumHigh = module.getCutValue(TriggerModule2019.PAIR_ENERGY_SUM_HIGH);
+        energyDifferenceHigh = module.getCutValue(TriggerModule2019.PAIR_ENERGY_DIFFERENCE_HIGH);
+        energySlopeF = module.getCutValue(TriggerModule2019.PAIR_ENERGY_SLOPE_F);
+        energySlopeLow = module.getCutValue(TriggerModule2019.PAIR_ENERGY_SLOPE_LOW);
+        coplanarityHigh = module.getCutValue(TriggerModule2019.PAIR_COPLANARITY_HIGH);
+        timeCoincidence = module.getCutValue(TriggerModule2019.PAIR_TIME_COINCIDENCE);
+    }
+
+    /**
+     * Gets the time coincidence window of the pair trigger, to be passed to
+     * {@link TriggerClusterArrays2019#getTopBottomPairs(double)}.
+     *
+     * @return Returns the cut value.
+     */
+    public double getTimeCoincidence() {
+        return timeCoincidence;
+    }
+
+    public boolean clusterHitCountCut(TriggerClusterArrays2019 clusters, int cluster) {
+        return clusters.getHitCount(cluster) >= hitCountLow;
+    }
+
+    public boolean clusterTotalEnergyCutLow(TriggerClusterArrays2019 clusters, int cluster) {
+        return clusters.getEnergy(cluster) >= energyLow;
+    }
+
+    public boolean clusterTotalEnergyCutHigh(TriggerClusterArrays2019 clusters, int cluster) {
+        return clusters.getEnergy(cluster) <= energyHigh;
+    }
+
+    public boolean clusterXMinCut(TriggerClusterArrays2019 clusters, int cluster) {
+        return shiftedXIndex(clusters, cluster) >= xMin;
+    }
+
+    public boolean clusterXMaxCut(TriggerClusterArrays2019 clusters, int cluster) {
+        return shiftedXIndex(clusters, cluster) <= xMax;
+    }
+
+    public boolean clusterYMinCut(TriggerClusterArrays2019 clusters, int cluster) {
+        return clusters.getYIndex(cluster) >= yMin;
+    }
+
+    public boolean clusterYMaxCut(TriggerClusterArrays2019 clusters, int cluster) {
+        return clusters.getYIndex(cluster) <= yMax;
+    }
+
+    /**
+     * Checks whether a cluster passes the position-dependent energy cut, as
+     * {@link TriggerModule2019#clusterPDECut(org.lcsim.event.Cluster)}.
+     *
+     * @param clusters - The cluster arrays.
+     * @param cluster - The cluster index.
+     * @return Returns <code>true</code> if the cluster passes the cut.
+     * @throws IllegalArgumentException Occurs if the x-index is out of range.
+     */
+    public boolean clusterPDECut(TriggerClusterArrays2019 clusters, int cluster) {
+        int x = shiftedXIndex(clusters, cluster);
+        if (x >= -22 && x < 23) {
+            return clusters.getEnergy(cluster) >= pdeThreshold[x + 22];
+        } else if (x == 23) {
+            return true;
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("Parameter \"%d\" is out of X-coordinage range [-22, 23].", x));
+        }
+    }
+
+    /**
+     * Checks whether a cluster passes the Moller mode position-dependent
+     * energy cut, as {@link TriggerModule2019#clusterMollerPDECut(org.lcsim.event.Cluster)}.
+     *
+     * @param clusters - The cluster arrays.
+     * @param cluster - The cluster index.
+     * @return Returns <code>true</code> if the cluster passes the cut.
+     * @throws IllegalArgumentException Occurs if the x-index is out of range.
+     */
+    public boolean clusterMollerPDECut(TriggerClusterArrays2019 clusters, int cluster) {
+        int x = shiftedXIndex(clusters, cluster);
+        if (x >= -22 && x <= 23) {
+            return clusters.getEnergy(cluster) <= pdeThreshold[x + 22];
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("Parameter \"%d\" is out of X-coordinage range [-22, 23].", x));
+        }
+    }
+
+    public boolean pairTimeCoincidenceCut(TriggerClusterArrays2019 clusters, int cluster0, int cluster1) {
+        return Math.abs(clusters.getTime(cluster0) - clusters.getTime(cluster1)) <= timeCoincidence;
+    }
+
+    public boolean pairEnergySumCutLow(TriggerClusterArrays2019 clusters, int cluster0, int cluster1) {
+        return clusters.getEnergy(cluster0) + clusters.getEnergy(cluster1) >= energySumLow;
+    }
+
+    public boolean pairEnergySumCutHigh(TriggerClusterArrays2019 clusters, int cluster0, int cluster1) {
+        return clusters.getEnergy(cluster0) + clusters.getEnergy(cluster1) <= energySumHigh;
+    }
+
+    public boolean pairEnergyDifferenceCut(TriggerClusterArrays2019 clusters, int cluster0, int cluster1) {
+        return Math.abs(clusters.getEnergy(cluster0) - clusters.getEnergy(cluster1)) <= energyDifferenceHigh;
+    }
+
+    /**
+     * Checks whether a cluster pair passes the energy slope cut, as
+     * {@link TriggerModule2019#pairEnergySlopeCut(org.lcsim.event.Cluster[])}. The order of
+     * the clusters matters if they have the same energy.
+     *
+     * @param clusters - The cluster arrays.
+     * @param cluster0 - The index of the first cluster of the pair.
+     * @param cluster1 - The index of the second cluster of the pair.
+     * @return Returns <code>true</code> if the pair passes the cut.
+     * @throws IndexOutOfBoundsException Occurs if either cluster is not on a
+     *             valid crystal.
+     */
+    public boolean pairEnergySlopeCut(TriggerClusterArrays2019 clusters, int cluster0, int cluster1) {
+        double radius0 = getCrystalRadius(clusters, cluster0);
+        double radius1 = getCrystalRadius(clusters, cluster1);
+        double slope;
+        if (clusters.getEnergy(cluster0) < clusters.getEnergy(cluster1)) {
+            slope = clusters.getEnergy(cluster0) + radius0 * energySlopeF;
+        } else {
+            slope = clusters.getEnergy(cluster1) + radius1 * energySlopeF;
+        }
+        return slope >= energySlopeLow;
+    }
+
+    /**
+     * Checks whether a cluster pair passes the coplanarity cut, as
+     * {@link TriggerModule2019#pairCoplanarityCut(org.lcsim.event.Cluster[])}.
+     *
+     * @param clusters - The cluster arrays.
+     * @param cluster0 - The index of the first cluster of the pair.
+     * @param cluster1 - The index of the second cluster of the pair.
+     * @return Returns <code>true</code> if the pair passes the cut.
+     * @throws IndexOutOfBoundsException Occurs if either cluster is not on a
+     *             valid crystal.
+     */
+    public boolean pairCoplanarityCut(TriggerClusterArrays2019 clusters, int cluster0, int cluster1) {
+        int angle0 = getCrystalAngle(clusters, cluster0);
+        int angle1 = getCrystalAngle(clusters, cluster1);
+        return Math.abs(angle1 - angle0) <= coplanarityHigh;
+    }
+
+    private static int shiftedXIndex(TriggerClusterArrays2019 clusters, int cluster) {
+        int x = clusters.getXIndex(cluster);
+        if (x < 0) {
+            x++;
+        }
+        return x;
+    }
+
+    private static double getCrystalRadius(TriggerClusterArrays2019 clusters, int cluster) {
+        int ix = clusters.getXIndex(cluster);
+        int iy = clusters.getYIndex(cluster);
+        checkCrystal(ix, iy);
+        return CRYSTAL_RADIUS[5 - iy][23 + ix];
+    }
+
+    private static int getCrystalAngle(TriggerClusterArrays2019 clusters, int cluster) {
+        int ix = clusters.getXIndex(cluster);
+        int iy = clusters.getYIndex(cluster);
+        checkCrystal(ix, iy);
+        return CRYSTAL_ANGLE[5 - iy][23 + ix];
+    }
+
+    private static void checkCrystal(int ix, int iy) throws IndexOutOfBoundsException {
+        if (ix == 0 || ix < -23 || ix > 23) {
+            throw new IndexOutOfBoundsException(String.format("Value \"%d\" is invalid for field x-index.", ix));
+        }
+        if (iy == 0 || iy < -5 || iy > 5) {
+            throw new IndexOutOfBoundsException(String.format("Value \"%d\" is invalid for field y-index.", iy));
+        }
+    }
+}
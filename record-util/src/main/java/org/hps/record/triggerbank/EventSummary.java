@@ -0,0 +1,309 @@
+package org.hps.record.triggerbank;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+
+/**
+ * Compact summary of the trigger and quality information of an event, decoded once and shared by all drivers.
+ * <p>
+ * The summary holds the decoded TI and TS banks, their trigger bits and timestamps, and the RF times. It also gives the
+ * SVT event quality flags, which are looked up in the event parameters on each call, so that flags set by drivers
+ * running after the summary was built are seen. The 2015/2016 and 2019 event builders write it right after building the event; for events read back
+ * from LCIO, the first call to {@link #read(EventHeader)} builds it from the <code>TriggerBank</code>,
+ * <code>TSBank</code> and <code>RFHits</code> collections and stores it in the event. Filters and monitoring drivers
+ * should use {@link #read(EventHeader)} instead of decoding the trigger banks themselves.
+ * <p>
+ * The summary is stored as an event item, not as a collection, so it is not written to LCIO.
+ */
+public final class EventSummary {
+
+    /**
+     * Name of the event item holding the summary.
+     */
+    public static final String COLLECTION_NAME = "EventSummary";
+
+    /**
+     * The SVT event quality flags, in the order of their bits in {@link #getSvtFlags()}.
+     */
+    public static final String[] SVT_FLAG_NAMES = {"svt_bias_good", "svt_position_good", "svt_burstmode_noise_good",
+            "svt_event_header_good", "svt_latency_good", "svt_readout_overlap_good"};
+
+    private static final String TRIGGER_BANK_COLLECTION_NAME = "TriggerBank";
+    private static final String TS_BANK_COLLECTION_NAME = "TSBank";
+    private static final String RF_HIT_COLLECTION_NAME = "RFHits";
+
+    private final List<TIData> tiBanks = new ArrayList<TIData>(1);
+    private final List<TSData2019> tsBanks = new ArrayList<TSData2019>(1);
+    private Map<String, int[]> integerParameters = Collections.emptyMap();
+    private double[] rfTimes = null;
+
+    private EventSummary() {
+    }
+
+    /**
+     * Get the summary of an event, building it from the event collections if it is not there yet.
+     *
+     * @param event the event
+     * @return the event summary
+     */
+    public static EventSummary read(final EventHeader event) {
+        if (event.hasItem(COLLECTION_NAME)) {
+            return (EventSummary) event.get(COLLECTION_NAME);
+        }
+        return write(event);
+    }
+
+    /**
+     * Build the summary of an event from its collections and store it in the event, replacing any previous summary.
+     *
+     * @param event the event
+     * @return the event summary
+     */
+    public static EventSummary write(final EventHeader event) {
+        final EventSummary summary = new EventSummary();
+        summary.decode(event);
+        if (event.hasItem(COLLECTION_NAME)) {
+            event.remove(COLLECTION_NAME);
+        }
+        event.put(COLLECTION_NAME, summary);
+        return summary;
+    }
+
+    private void decode(final EventHeader event) {
+        if (event.hasCollection(GenericObject.class, TRIGGER_BANK_COLLECTION_NAME)) {
+            for (final GenericObject data : event.get(GenericObject.class, TRIGGER_BANK_COLLECTION_NAME)) {
+                if (data.getNInt() > 0 && AbstractIntData.getTag(data) == TIData.BANK_TAG) {
+                    tiBanks.add(new TIData(data));
+                }
+            }
+        }
+        if (event.hasCollection(GenericObject.class, TS_BANK_COLLECTION_NAME)) {
+            for (final GenericObject data : event.get(GenericObject.class, TS_BANK_COLLECTION_NAME)) {
+                if (data.getNInt() > 0 && AbstractIntData.getTag(data) == TSData2019.BANK_TAG) {
+                    tsBanks.add(new TSData2019(data));
+                }
+            }
+        }
+        integerParameters = event.getIntegerParameters();
+        setRfTimes(event);
+    }
+
+    /**
+     * Update the RF times from the <code>RFHits</code> collection. This is called by the RF fitter, which runs after
+     * the event is built.
+     *
+     * @param event the event
+     */
+    public void setRfTimes(final EventHeader event) {
+        if (!event.hasCollection(GenericObject.class, RF_HIT_COLLECTION_NAME)) {
+            return;
+        }
+        final List<GenericObject> rfHits = event.get(GenericObject.class, RF_HIT_COLLECTION_NAME);
+        if (rfHits.isEmpty()) {
+            return;
+        }
+        final GenericObject rfHit = rfHits.get(0);
+        rfTimes = new double[rfHit.getNDouble()];
+        for (int i = 0; i < rfTimes.length; i++) {
+            rfTimes[i] = rfHit.getDoubleVal(i);
+        }
+    }
+
+    /**
+     * @return true if the event has a TI bank
+     */
+    public boolean hasTIData() {
+        return !tiBanks.isEmpty();
+    }
+
+    /**
+     * @return the decoded TI bank, or <code>null</code> if the event has none; if the <code>TriggerBank</code>
+     *         collection holds several TI banks, this is the last one, as in the old <code>TupleMaker</code> decoding
+     */
+    public TIData getTIData() {
+        return tiBanks.isEmpty() ? null : tiBanks.get(tiBanks.size() - 1);
+    }
+
+    /**
+     * @return all the decoded TI banks, in the order of the <code>TriggerBank</code> collection; filters accepting an
+     *         event on a trigger bit should look at all of them
+     */
+    public List<TIData> getTIBanks() {
+        return Collections.unmodifiableList(tiBanks);
+    }
+
+    /**
+     * @return true if the event has a TS bank (2019 and later)
+     */
+    public boolean hasTSData() {
+        return !tsBanks.isEmpty();
+    }
+
+    /**
+     * @return the decoded TS bank, or <code>null</code> if the event has none; if the <code>TSBank</code>
+     *         collection holds several TS banks, this is the last one
+     */
+    public TSData2019 getTSData() {
+        return tsBanks.isEmpty() ? null : tsBanks.get(tsBanks.size() - 1);
+    }
+
+    /**
+     * @return all the decoded TS banks, in the order of the <code>TSBank</code> collection
+     */
+    public List<TSData2019> getTSBanks() {
+        return Collections.unmodifiableList(tsBanks);
+    }
+
+    /**
+     * @return the TI timestamp in ns of the last TI bank, or 0 if the event has no TI bank
+     */
+    public long getTITime() {
+        final TIData tiData = getTIData();
+        return tiData == null ? 0 : tiData.getTime();
+    }
+
+    /**
+     * @return the TS timestamp in ns of the last TS bank, or 0 if the event has no TS bank
+     */
+    public long getTSTime() {
+        final TSData2019 tsData = getTSData();
+        return tsData == null ? 0 : tsData.getTime();
+    }
+
+    /**
+     * @return the 32 TS trigger bits of the last TS bank, or 0 if the event has no TS bank
+     */
+    public int getTSTriggerBits() {
+        final TSData2019 tsData = getTSData();
+        return tsData == null ? 0 : tsData.getBank()[4];
+    }
+
+    /**
+     * @return true if any TI bank has the Single-0 bit set
+     */
+    public boolean isSingle0Trigger() {
+        for (final TIData tiData : tiBanks) {
+            if (tiData.isSingle0Trigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any TI bank has the Single-1 bit set
+     */
+    public boolean isSingle1Trigger() {
+        for (final TIData tiData : tiBanks) {
+            if (tiData.isSingle1Trigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any TI bank has the Pair-0 bit set
+     */
+    public boolean isPair0Trigger() {
+        for (final TIData tiData : tiBanks) {
+            if (tiData.isPair0Trigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any TI bank has the Pair-1 bit set
+     */
+    public boolean isPair1Trigger() {
+        for (final TIData tiData : tiBanks) {
+            if (tiData.isPair1Trigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any TI bank has the calibration bit set
+     */
+    public boolean isCalibTrigger() {
+        for (final TIData tiData : tiBanks) {
+            if (tiData.isCalibTrigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any TI bank has the pulser bit set
+     */
+    public boolean isPulserTrigger() {
+        for (final TIData tiData : tiBanks) {
+            if (tiData.isPulserTrigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if any TS bank has the Faraday cup bit set
+     */
+    public boolean isFaradayCupTrigger() {
+        for (final TSData2019 tsData : tsBanks) {
+            if (tsData.isFaradayCupTrigger()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return bit i is set if the SVT flag {@link #SVT_FLAG_NAMES}[i] is present and good, as currently set in the
+     *         event parameters
+     */
+    public int getSvtFlags() {
+        int svtFlags = 0;
+        for (int i = 0; i < SVT_FLAG_NAMES.length; i++) {
+            final int[] flag = integerParameters.get(SVT_FLAG_NAMES[i]);
+            if (flag != null && flag.length > 0 && flag[0] != 0) {
+                svtFlags |= 1 << i;
+            }
+        }
+        return svtFlags;
+    }
+
+    /**
+     * @return true if all the SVT quality flags are present and good
+     */
+    public boolean isSvtGood() {
+        return getSvtFlags() == (1 << SVT_FLAG_NAMES.length) - 1;
+    }
+
+    /**
+     * @return true if the event has RF times
+     */
+    public boolean hasRfTimes() {
+        return rfTimes != null;
+    }
+
+    /**
+     * @param channel the RF channel
+     * @return the RF time of the channel in ns, or NaN if there is none
+     */
+    public double getRfTime(final int channel) {
+        if (rfTimes == null || channel < 0 || channel >= rfTimes.length) {
+            return Double.NaN;
+        }
+        return rfTimes[channel];
+    }
+}
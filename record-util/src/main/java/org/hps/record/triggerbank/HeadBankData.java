@@ -66,6 +66,11 @@ public class HeadBankData extends AbstractIntData {
         return BANK_TAG;
     }
 
+    @Override
+    public boolean isReloadable() {
+        return true;
+    }
+
     @Override
     protected final void decodeData() { //doesn't actually do anything since there is no decoding done on the ints
         /* 
@@ -69,6 +69,13 @@ public class TIData extends AbstractIntData {
         switch (this.bank.length) {
             case BANK_SIZE_2015:
 //                System.out.println("2015-style TI bank");
+                hasUnprescaledTriggerBits = false;
+                singles0Unprescaled = false;
+                singles1Unprescaled = false;
+                pairs0Unprescaled = false;
+                pairs1Unprescaled = false;
+                calibUnprescaled = false;
+                pulserUnprescaled = false;
                 break;            
             default:
                 /* 
@@ -111,6 +118,11 @@ public class TIData extends AbstractIntData {
         return BANK_TAG;
     }
 
+    @Override
+    public boolean isReloadable() {
+        return true;
+    }
+
     public long getTime() {
         return time;
     }
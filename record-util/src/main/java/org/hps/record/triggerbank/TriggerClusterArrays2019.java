@@ -0,0 +1,210 @@
+package org.hps.record.triggerbank;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.lcsim.event.Cluster;
+
+/**
+ * Class <code>TriggerClusterArrays2019</code> holds the quantities of an event's
+ * clusters that are used by the 2019 trigger cuts in primitive arrays, so that
+ * the cuts of {@link CompiledTriggerModule2019} do not go back to the cluster
+ * objects. Clusters are referred to by their index in the list the arrays were
+ * made from.
+ * <p>
+ * The bottom clusters are also sorted by time, so that the top/bottom pairs
+ * within a time coincidence window are found without forming all pairs.
+ */
+public final class TriggerClusterArrays2019 {
+    private final int size;
+    private final double[] energy;
+    private final double[] time;
+    private final int[] hitCount;
+    private final int[] xIndex;
+    private final int[] yIndex;
+
+    // Top and bottom cluster indices, in list order.
+    private final int[] top;
+    private final int[] bot;
+    private int nTop;
+    private int nBot;
+
+    // Positions in bot[] of the bottom clusters sorted by time, and
+    // their times.
+    private final int[] botByTime;
+    private final double[] botTimeSorted;
+
+    private TriggerClusterArrays2019(int size) {
+        this.size = size;
+        energy = new double[size];
+        time = new double[size];
+        hitCount = new int[size];
+        xIndex = new int[size];
+        yIndex = new int[size];
+        top = new int[size];
+        bot = new int[size];
+        botByTime = new int[size];
+        botTimeSorted = new double[size];
+    }
+
+    /**
+     * Makes the arrays for a list of clusters.
+     *
+     * @param clusters - The clusters.
+     * @param clusterType - The cluster class; either {@link Cluster} or
+     *            {@link VTPCluster}.
+     * @return Returns the cluster arrays.
+     * @throws IllegalArgumentException Occurs if the cluster type is not
+     *             supported.
+     */
+    public static <E> TriggerClusterArrays2019 of(List<E> clusters, Class<E> clusterType)
+            throws IllegalArgumentException {
+        // Ensure that only valid cluster types are processed.
+        if (!clusterType.equals(Cluster.class) && !clusterType.equals(VTPCluster.class)) {
+            throw new IllegalArgumentException(
+                    "Class \"" + clusterType.getSimpleName() + "\" is not a supported cluster type.");
+        }
+
+        TriggerClusterArrays2019 arrays = new TriggerClusterArrays2019(clusters.size());
+        int nTop = 0;
+        int nBot = 0;
+        for (int i = 0; i < arrays.size; i++) {
+            if (clusterType.equals(Cluster.class)) {
+                Cluster cluster = (Cluster) clusters.get(i);
+                arrays.energy[i] = TriggerModule2019.getValueClusterTotalEnergy(cluster);
+                arrays.time[i] = cluster.getCalorimeterHits().get(0).getTime();
+                arrays.hitCount[i] = TriggerModule2019.getValueClusterHitCount(cluster);
+                arrays.xIndex[i] = TriggerModule2019.getClusterXIndex(cluster);
+                arrays.yIndex[i] = TriggerModule2019.getClusterYIndex(cluster);
+            } else {
+                VTPCluster cluster = (VTPCluster) clusters.get(i);
+                arrays.energy[i] = TriggerModule2019.getValueClusterTotalEnergy(cluster);
+                arrays.time[i] = TriggerModule2019.getClusterTime(cluster);
+                arrays.hitCount[i] = TriggerModule2019.getValueClusterHitCount(cluster);
+                arrays.xIndex[i] = TriggerModule2019.getClusterXIndex(cluster);
+                arrays.yIndex[i] = TriggerModule2019.getClusterYIndex(cluster);
+            }
+            if (arrays.yIndex[i] > 0) {
+                arrays.top[nTop++] = i;
+            } else {
+                arrays.bot[nBot++] = i;
+            }
+        }
+        arrays.nTop = nTop;
+        arrays.nBot = nBot;
+
+        // Sort the bottom clusters by time. There are only a few
+        // clusters per event, so an insertion sort is enough.
+        for (int k = 0; k < nBot; k++) {
+            double t = arrays.time[arrays.bot[k]];
+            int j = k;
+            while (j > 0 && arrays.botTimeSorted[j - 1] > t) {
+                arrays.botTimeSorted[j] = arrays.botTimeSorted[j - 1];
+                arrays.botByTime[j] = arrays.botByTime[j - 1];
+                j--;
+            }
+            arrays.botTimeSorted[j] = t;
+            arrays.botByTime[j] = k;
+        }
+        return arrays;
+    }
+
+    /**
+     * Gets the top/bottom cluster pairs whose time difference is at most
+     * the argument, in the same order as
+     * {@link TriggerModule2019#getTopBottomPairs(List, Class)}: by top
+     * cluster, then by bottom cluster, each in list order. Only the bottom
+     * clusters within the time window of each top cluster are considered.
+     *
+     * @param maxTimeDifference - The time coincidence window.
+     * @return Returns the pairs as consecutive (top, bottom) cluster
+     *         indices.
+     */
+    public int[] getTopBottomPairs(double maxTimeDifference) {
+        int[] pairs = new int[16];
+        int nPairs = 0;
+        int[] window = new int[nBot];
+        for (int i = 0; i < nTop; i++) {
+            final double t = time[top[i]];
+            // Open the window slightly; the exact cut is applied below.
+            final double slack = 1e-9 * (Math.abs(t) + maxTimeDifference);
+            final double low = t - maxTimeDifference - slack;
+            final double high = t + maxTimeDifference + slack;
+
+            // Find the first bottom cluster in the window.
+            int lo = 0;
+            int hi = nBot;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (botTimeSorted[mid] < low) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+
+            // Collect the bottom clusters passing the time coincidence.
+            int nWindow = 0;
+            for (int k = lo; k < nBot && botTimeSorted[k] <= high; k++) {
+                if (Math.abs(t - botTimeSorted[k]) <= maxTimeDifference) {
+                    window[nWindow++] = botByTime[k];
+                }
+            }
+
+            // Restore the list order of the bottom clusters.
+            Arrays.sort(window, 0, nWindow);
+            if (pairs.length < 2 * (nPairs + nWindow)) {
+                pairs = Arrays.copyOf(pairs, Math.max(2 * pairs.length, 2 * (nPairs + nWindow)));
+            }
+            for (int k = 0; k < nWindow; k++) {
+                pairs[2 * nPairs] = top[i];
+                pairs[2 * nPairs + 1] = bot[window[k]];
+                nPairs++;
+            }
+        }
+        return Arrays.copyOf(pairs, 2 * nPairs);
+    }
+
+    /**
+     * Gets the number of clusters.
+     *
+     * @return Returns the number of clusters.
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getEnergy(int cluster) {
+        return energy[cluster];
+    }
+
+    /**
+     * Gets the cluster time, which is the seed hit time for
+     * <code>Cluster</code> objects.
+     *
+     * @param cluster - The cluster index.
+     * @return Returns the time.
+     */
+    public double getTime(int cluster) {
+        return time[cluster];
+    }
+
+    public int getHitCount(int cluster) {
+        return hitCount[cluster];
+    }
+
+    /**
+     * Gets the x-index of the cluster seed, as
+     * {@link TriggerModule2019#getClusterXIndex(Cluster)}.
+     *
+     * @param cluster - The cluster index.
+     * @return Returns the x-index.
+     */
+    public int getXIndex(int cluster) {
+        return xIndex[cluster];
+    }
+
+    public int getYIndex(int cluster) {
+        return yIndex[cluster];
+    }
+}
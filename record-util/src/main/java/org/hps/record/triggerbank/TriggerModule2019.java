@@ -1883,7 +1883,7 @@ public class TriggerModule2019 {
      *                                   <code>iy == 0</code> or
      *                                   <code>|iy| > 5</code> for the y-index.
      */
-    private static double[] getCrystalPosition(int ix, int iy) throws IndexOutOfBoundsException {
+    static double[] getCrystalPosition(int ix, int iy) throws IndexOutOfBoundsException {
         // Make sure that the requested crystal is a valid crystal.
         if (ix == 0 || ix < -23 || ix > 23) {
             throw new IndexOutOfBoundsException(String.format("Value \"%d\" is invalid for field x-index.", ix));
@@ -2043,7 +2043,7 @@ public class TriggerModule2019 {
      * @param y - The cluster seed y-position.
      * @return Returns the cluster angle as an <code>int</code> in units of degrees.
      */
-    private static int getClusterAngle(double x, double y) {
+    static int getClusterAngle(double x, double y) {
         return (int) Math.round(Math.atan(x / y) * 180.0 / Math.PI);
     }
 
@@ -0,0 +1,292 @@
+package org.hps.record.triggerbank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.Cluster;
+import org.lcsim.event.base.BaseCalorimeterHit;
+import org.lcsim.event.base.BaseCluster;
+
+/**
+ * Test that the cuts of {@link CompiledTriggerModule2019} on {@link TriggerClusterArrays2019} pass and fail the same
+ * clusters and pairs as the cuts of the {@link TriggerModule2019} they were compiled from, and that the top/bottom
+ * pairs within the time coincidence window are those of {@link TriggerModule2019#getTopBottomPairs(List, Class)} that
+ * pass the time coincidence cut, in the same order. Sample events of random <code>Cluster</code> and
+ * <code>VTPCluster</code> objects are checked against modules with random cut values.
+ */
+public class CompiledTriggerModule2019Test extends TestCase {
+
+    private static final int EVENTS = 200;
+
+    public void testClusters() {
+        Random rnd = new Random(2019);
+        for (int event = 0; event < EVENTS; event++) {
+            TriggerModule2019 module = makeModule(rnd);
+            List<Cluster> clusters = new ArrayList<Cluster>();
+            int n = rnd.nextInt(9);
+            for (int i = 0; i < n; i++) {
+                clusters.add(makeCluster(rnd));
+            }
+            check(module, clusters, Cluster.class);
+        }
+    }
+
+    public void testVTPClusters() {
+        Random rnd = new Random(2021);
+        for (int event = 0; event < EVENTS; event++) {
+            TriggerModule2019 module = makeModule(rnd);
+            List<VTPCluster> clusters = new ArrayList<VTPCluster>();
+            int n = rnd.nextInt(9);
+            for (int i = 0; i < n; i++) {
+                clusters.add(makeVTPCluster(rnd));
+            }
+            check(module, clusters, VTPCluster.class);
+        }
+    }
+
+    public void testInvalidCrystals() {
+        TriggerModule2019 module = new TriggerModule2019();
+        CompiledTriggerModule2019 compiled = new CompiledTriggerModule2019(module);
+        // a cluster on a crystal that does not exist and a valid one
+        List<Cluster> clusters = new ArrayList<Cluster>();
+        clusters.add(makeCluster(1.2, 10., 3, -24, 2));
+        clusters.add(makeCluster(0.8, 12., 2, 5, -1));
+        TriggerClusterArrays2019 arrays = TriggerClusterArrays2019.of(clusters, Cluster.class);
+        Cluster[] pair = {clusters.get(0), clusters.get(1)};
+
+        assertEquals(exceptionOf(new Cut() {
+            public boolean pass() {
+                return module.clusterPDECut(clusters.get(0));
+            }
+        }), exceptionOf(new Cut() {
+            public boolean pass() {
+                return compiled.clusterPDECut(arrays, 0);
+            }
+        }));
+        assertEquals(exceptionOf(new Cut() {
+            public boolean pass() {
+                return module.pairEnergySlopeCut(pair);
+            }
+        }), exceptionOf(new Cut() {
+            public boolean pass() {
+                return compiled.pairEnergySlopeCut(arrays, 0, 1);
+            }
+        }));
+        assertEquals(exceptionOf(new Cut() {
+            public boolean pass() {
+                return module.pairCoplanarityCut(pair);
+            }
+        }), exceptionOf(new Cut() {
+            public boolean pass() {
+                return compiled.pairCoplanarityCut(arrays, 0, 1);
+            }
+        }));
+    }
+
+    private static <E> void check(final TriggerModule2019 module, final List<E> clusters, Class<E> clusterType) {
+        final CompiledTriggerModule2019 compiled = new CompiledTriggerModule2019(module);
+        final TriggerClusterArrays2019 arrays = TriggerClusterArrays2019.of(clusters, clusterType);
+        assertEquals(clusters.size(), arrays.size());
+
+        for (int i = 0; i < clusters.size(); i++) {
+            final int c = i;
+            if (clusterType.equals(Cluster.class)) {
+                final Cluster cluster = (Cluster) clusters.get(i);
+                assertEquals(module.clusterHitCountCut(cluster), compiled.clusterHitCountCut(arrays, c));
+                assertEquals(module.clusterTotalEnergyCutLow(cluster), compiled.clusterTotalEnergyCutLow(arrays, c));
+                assertEquals(module.clusterTotalEnergyCutHigh(cluster), compiled.clusterTotalEnergyCutHigh(arrays, c));
+                assertEquals(module.clusterXMinCut(cluster), compiled.clusterXMinCut(arrays, c));
+                assertEquals(module.clusterXMaxCut(cluster), compiled.clusterXMaxCut(arrays, c));
+                assertEquals(module.clusterYMinCut(cluster), compiled.clusterYMinCut(arrays, c));
+                assertEquals(module.clusterYMaxCut(cluster), compiled.clusterYMaxCut(arrays, c));
+                assertEquals(exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return module.clusterPDECut(cluster);
+                    }
+                }), exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return compiled.clusterPDECut(arrays, c);
+                    }
+                }));
+                assertEquals(exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return module.clusterMollerPDECut(cluster);
+                    }
+                }), exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return compiled.clusterMollerPDECut(arrays, c);
+                    }
+                }));
+            } else {
+                final VTPCluster cluster = (VTPCluster) clusters.get(i);
+                assertEquals(module.clusterHitCountCut(cluster), compiled.clusterHitCountCut(arrays, c));
+                assertEquals(module.clusterTotalEnergyCutLow(cluster), compiled.clusterTotalEnergyCutLow(arrays, c));
+                assertEquals(module.clusterTotalEnergyCutHigh(cluster), compiled.clusterTotalEnergyCutHigh(arrays, c));
+                assertEquals(module.clusterXMinCut(cluster), compiled.clusterXMinCut(arrays, c));
+                assertEquals(module.clusterXMaxCut(cluster), compiled.clusterXMaxCut(arrays, c));
+                assertEquals(module.clusterYMinCut(cluster), compiled.clusterYMinCut(arrays, c));
+                assertEquals(module.clusterYMaxCut(cluster), compiled.clusterYMaxCut(arrays, c));
+                assertEquals(exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return module.clusterPDECut(cluster);
+                    }
+                }), exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return compiled.clusterPDECut(arrays, c);
+                    }
+                }));
+                assertEquals(exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return module.clusterMollerPDECut(cluster);
+                    }
+                }), exceptionOf(new Cut() {
+                    public boolean pass() {
+                        return compiled.clusterMollerPDECut(arrays, c);
+                    }
+                }));
+            }
+        }
+
+        // the pairs in the time window are the pairs of the module passing the time coincidence cut
+        List<E[]> allPairs = TriggerModule2019.getTopBottomPairs(clusters, clusterType);
+        List<int[]> expected = new ArrayList<int[]>();
+        for (E[] pair : allPairs) {
+            int[] indices = {indexOf(clusters, pair[0]), indexOf(clusters, pair[1])};
+            assertEquals(timeCoincidenceCut(module, pair),
+                    compiled.pairTimeCoincidenceCut(arrays, indices[0], indices[1]));
+            if (compiled.pairTimeCoincidenceCut(arrays, indices[0], indices[1])) {
+                expected.add(indices);
+            }
+        }
+        int[] pairs = arrays.getTopBottomPairs(compiled.getTimeCoincidence());
+        assertEquals(2 * expected.size(), pairs.length);
+        for (int p = 0; p < expected.size(); p++) {
+            assertEquals(expected.get(p)[0], pairs[2 * p]);
+            assertEquals(expected.get(p)[1], pairs[2 * p + 1]);
+        }
+
+        for (E[] pair : allPairs) {
+            final int c0 = indexOf(clusters, pair[0]);
+            final int c1 = indexOf(clusters, pair[1]);
+            if (clusterType.equals(Cluster.class)) {
+                final Cluster[] clusterPair = {(Cluster) pair[0], (Cluster) pair[1]};
+                assertEquals(module.pairEnergySumCutLow(clusterPair), compiled.pairEnergySumCutLow(arrays, c0, c1));
+                assertEquals(module.pairEnergySumCutHigh(clusterPair), compiled.pairEnergySumCutHigh(arrays, c0, c1));
+                assertEquals(module.pairEnergyDifferenceCut(clusterPair),
+                        compiled.pairEnergyDifferenceCut(arrays, c0, c1));
+                assertEquals(module.pairEnergySlopeCut(clusterPair), compiled.pairEnergySlopeCut(arrays, c0, c1));
+                assertEquals(module.pairCoplanarityCut(clusterPair), compiled.pairCoplanarityCut(arrays, c0, c1));
+            } else {
+                final VTPCluster[] clusterPair = {(VTPCluster) pair[0], (VTPCluster) pair[1]};
+                assertEquals(module.pairEnergySumCutLow(clusterPair), compiled.pairEnergySumCutLow(arrays, c0, c1));
+                assertEquals(module.pairEnergySumCutHigh(clusterPair), compiled.pairEnergySumCutHigh(arrays, c0, c1));
+                assertEquals(module.pairEnergyDifferenceCut(clusterPair),
+                        compiled.pairEnergyDifferenceCut(arrays, c0, c1));
+                assertEquals(module.pairEnergySlopeCut(clusterPair), compiled.pairEnergySlopeCut(arrays, c0, c1));
+                assertEquals(module.pairCoplanarityCut(clusterPair), compiled.pairCoplanarityCut(arrays, c0, c1));
+            }
+        }
+    }
+
+    private static boolean timeCoincidenceCut(TriggerModule2019 module, Object[] pair) {
+        if (pair instanceof Cluster[]) {
+            return module.pairTimeCoincidenceCut((Cluster[]) pair);
+        } else {
+            return module.pairTimeCoincidenceCut((VTPCluster[]) pair);
+        }
+    }
+
+    /**
+     * A cut, to compare the results and the exceptions of two evaluations.
+     */
+    private interface Cut {
+        boolean pass();
+    }
+
+    /**
+     * @return the result of the cut, or the class of the exception it throws
+     */
+    private static Object exceptionOf(Cut cut) {
+        try {
+            return cut.pass();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static <E> int indexOf(List<E> clusters, E cluster) {
+        for (int i = 0; i < clusters.size(); i++) {
+            if (clusters.get(i) == cluster) {
+                return i;
+            }
+        }
+        throw new AssertionError("pair cluster not in the list");
+    }
+
+    /**
+     * A module with cut values around those of the 2019 run.
+     */
+    private static TriggerModule2019 makeModule(Random rnd) {
+        TriggerModule2019 module = new TriggerModule2019();
+        module.setCutValue(TriggerModule2019.CLUSTER_HIT_COUNT_LOW, 1 + rnd.nextInt(3));
+        module.setCutValue(TriggerModule2019.CLUSTER_TOTAL_ENERGY_LOW, 0.1 + 0.3 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.CLUSTER_TOTAL_ENERGY_HIGH, 2. + 3. * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.CLUSTER_XMIN, -15 + rnd.nextInt(30));
+        module.setCutValue(TriggerModule2019.CLUSTER_XMAX, rnd.nextInt(24));
+        module.setCutValue(TriggerModule2019.CLUSTER_YMIN, -5 + rnd.nextInt(6));
+        module.setCutValue(TriggerModule2019.CLUSTER_YMAX, rnd.nextInt(6));
+        module.setCutValue(TriggerModule2019.CLUSTER_PDE_C0, 1.2 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.CLUSTER_PDE_C1, -0.05 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.CLUSTER_PDE_C2, 0.002 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.CLUSTER_PDE_C3, -2e-5 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.PAIR_ENERGY_SUM_LOW, 0.5 + rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.PAIR_ENERGY_SUM_HIGH, 2. + 3. * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.PAIR_ENERGY_DIFFERENCE_HIGH, 0.5 + 2. * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.PAIR_ENERGY_SLOPE_F, 0.0055 + 0.005 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.PAIR_ENERGY_SLOPE_LOW, 0.4 + 0.8 * rnd.nextDouble());
+        module.setCutValue(TriggerModule2019.PAIR_COPLANARITY_HIGH, 10 + rnd.nextInt(60));
+        module.setCutValue(TriggerModule2019.PAIR_TIME_COINCIDENCE, 4 * (1 + rnd.nextInt(5)));
+        return module;
+    }
+
+    private static Cluster makeCluster(Random rnd) {
+        int ix = rnd.nextBoolean() ? -1 - rnd.nextInt(23) : 1 + rnd.nextInt(23);
+        int iy = rnd.nextBoolean() ? -1 - rnd.nextInt(5) : 1 + rnd.nextInt(5);
+        // times on the 4 ns grid and in between, so some pairs are exactly at the window edge
+        double time = rnd.nextBoolean() ? 4 * rnd.nextInt(25) : 100. * rnd.nextDouble();
+        return makeCluster(4.5 * rnd.nextDouble(), time, 1 + rnd.nextInt(9), ix, iy);
+    }
+
+    private static Cluster makeCluster(double energy, double time, int hitCount, final int ix, final int iy) {
+        BaseCluster cluster = new BaseCluster();
+        for (int h = 0; h < hitCount; h++) {
+            // the crystal indices are given instead of decoded from the cell ID
+            cluster.addHit(new BaseCalorimeterHit(energy / hitCount, energy / hitCount, 0, time, 0, null, 0, null) {
+                @Override
+                public int getIdentifierFieldValue(String name) {
+                    return name.equals("ix") ? ix : iy;
+                }
+            });
+        }
+        cluster.setEnergy(energy);
+        return cluster;
+    }
+
+    /**
+     * A VTP cluster from its bank words: 6 bit x-index, 4 bit y-index and 13 bit energy in MeV, then 10 bit time in
+     * 4 ns and 4 bit hit count.
+     */
+    private static VTPCluster makeVTPCluster(Random rnd) {
+        int ix = -22 + rnd.nextInt(46);
+        int iy = rnd.nextBoolean() ? -1 - rnd.nextInt(5) : 1 + rnd.nextInt(5);
+        int energy = rnd.nextInt(4500);
+        int time = rnd.nextInt(25);
+        int hitCount = 1 + rnd.nextInt(9);
+        int word0 = (ix & 0x3F) | (iy & 0xF) << 6 | energy << 10;
+        int word1 = time | hitCount << 10;
+        return new VTPCluster(word0, word1);
+    }
+}
@@ -0,0 +1,140 @@
+package org.hps.record.triggerbank;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.base.BaseLCSimEvent;
+
+/**
+ * Test {@link EventSummary} on events with several TI and TS banks: the trigger bits of any bank are seen, the last
+ * bank is the one returned for the timestamps, and the SVT flags follow the event parameters after the summary is
+ * built.
+ */
+public class EventSummaryTest extends TestCase {
+
+    // trigger bits of the 2016 TI bank in its first word
+    private static final int SINGLE0 = 1 << 24;
+    private static final int PAIR0 = 1 << 26;
+    private static final int PULSER = 1 << 29;
+
+    // pulser bit of the TS trigger bits and Faraday cup bit of the following word
+    private static final int TS_PULSER = 1 << 15;
+    private static final int TS_FARADAY_CUP = 1 << 15;
+
+    public void testTIBanks() {
+        TIData pair0 = makeTIData(PAIR0, 100);
+        TIData single0 = makeTIData(SINGLE0, 200);
+        List<GenericObject> banks = new ArrayList<GenericObject>();
+        banks.add(pair0);
+        // only the TI banks of the collection are decoded
+        banks.add(makeTSData(TS_PULSER, 0, 300));
+        banks.add(single0);
+        EventHeader event = new BaseLCSimEvent(10031, 1, "test");
+        event.put("TriggerBank", banks, GenericObject.class, 0);
+
+        EventSummary summary = EventSummary.read(event);
+        assertTrue(summary.hasTIData());
+        assertEquals(2, summary.getTIBanks().size());
+        assertTrue(summary.getTIBanks().get(0).isPair0Trigger());
+        assertEquals(pair0.getTime(), summary.getTIBanks().get(0).getTime());
+        assertEquals(single0.getTime(), summary.getTIData().getTime());
+        assertEquals(single0.getTime(), summary.getTITime());
+
+        // the filters accept the event on a bit of any of the banks
+        assertTrue(summary.isPair0Trigger());
+        assertTrue(summary.isSingle0Trigger());
+        assertFalse(summary.isPulserTrigger());
+        assertFalse(summary.isSingle1Trigger());
+        assertFalse(summary.hasTSData());
+    }
+
+    public void testTSBanks() {
+        List<GenericObject> banks = new ArrayList<GenericObject>();
+        banks.add(makeTSData(0, TS_FARADAY_CUP, 400));
+        banks.add(makeTSData(TS_PULSER, 0, 500));
+        EventHeader event = new BaseLCSimEvent(10031, 2, "test");
+        event.put("TSBank", banks, GenericObject.class, 0);
+
+        EventSummary summary = EventSummary.read(event);
+        assertTrue(summary.hasTSData());
+        assertEquals(2, summary.getTSBanks().size());
+        assertTrue(summary.isFaradayCupTrigger());
+        assertTrue(summary.getTSData().isPulserTrigger());
+        assertEquals(TS_PULSER, summary.getTSTriggerBits());
+        assertEquals(4 * 500, summary.getTSTime());
+        assertFalse(summary.hasTIData());
+    }
+
+    public void testEmptyEvent() {
+        EventSummary summary = EventSummary.read(new BaseLCSimEvent(10031, 3, "test"));
+        assertFalse(summary.hasTIData());
+        assertNull(summary.getTIData());
+        assertTrue(summary.getTIBanks().isEmpty());
+        assertNull(summary.getTSData());
+        assertEquals(0, summary.getTITime());
+        assertEquals(0, summary.getTSTriggerBits());
+        assertFalse(summary.isPulserTrigger());
+        assertFalse(summary.isFaradayCupTrigger());
+        assertFalse(summary.hasRfTimes());
+        assertTrue(Double.isNaN(summary.getRfTime(0)));
+        assertEquals(0, summary.getSvtFlags());
+        assertFalse(summary.isSvtGood());
+    }
+
+    public void testSvtFlags() {
+        EventHeader event = new BaseLCSimEvent(10031, 4, "test");
+        // the event builder sets the header flag before the summary is built
+        event.getIntegerParameters().put("svt_event_header_good", new int[] {1});
+        EventSummary summary = EventSummary.read(event);
+        assertEquals(1 << 3, summary.getSvtFlags());
+        assertFalse(summary.isSvtGood());
+
+        // and the flagger sets the others afterwards
+        for (String name : EventSummary.SVT_FLAG_NAMES) {
+            if (!event.getIntegerParameters().containsKey(name)) {
+                event.getIntegerParameters().put(name, new int[] {1});
+            }
+        }
+        assertSame(summary, EventSummary.read(event));
+        assertEquals((1 << EventSummary.SVT_FLAG_NAMES.length) - 1, summary.getSvtFlags());
+        assertTrue(summary.isSvtGood());
+
+        event.getIntegerParameters().put("svt_latency_good", new int[] {0});
+        assertEquals((1 << EventSummary.SVT_FLAG_NAMES.length) - 1 - (1 << 4), summary.getSvtFlags());
+        assertFalse(summary.isSvtGood());
+    }
+
+    public void testWrite() {
+        EventHeader event = new BaseLCSimEvent(10031, 5, "test");
+        EventSummary summary = EventSummary.read(event);
+        assertSame(summary, EventSummary.read(event));
+        assertFalse(summary.hasTIData());
+
+        // writing again decodes the banks added since
+        List<GenericObject> banks = new ArrayList<GenericObject>();
+        banks.add(makeTIData(PULSER, 600));
+        event.put("TriggerBank", banks, GenericObject.class, 0);
+        EventSummary written = EventSummary.write(event);
+        assertNotSame(summary, written);
+        assertSame(written, EventSummary.read(event));
+        assertTrue(written.isPulserTrigger());
+    }
+
+    /**
+     * A 2016 TI bank with the given trigger bits and a timestamp of the given number of 4 ns ticks
+     */
+    private static TIData makeTIData(int bits, int ticks) {
+        return new TIData(new int[] {bits, 0, ticks, 0, 0});
+    }
+
+    /**
+     * A TS bank with the given trigger bits and Faraday cup word and a timestamp of the given number of 4 ns ticks
+     */
+    private static TSData2019 makeTSData(int bits, int faradayCup, int ticks) {
+        return new TSData2019(new int[] {0, 0, ticks, 0, bits, faradayCup});
+    }
+}
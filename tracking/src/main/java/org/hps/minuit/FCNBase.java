@@ -10,4 +10,30 @@ public interface FCNBase {
      * Returns the value of the function with the given parameters.
      */
     double valueOf(double[] par);
+
+    /**
+     * Returns the values of the function at several points. The numerical
+     * gradient and Hessian calculators evaluate their independent parameter
+     * displacements through this method, so that a function can share its setup
+     * between the points. The default calls {@link #valueOf(double[])} for each
+     * point.
+     */
+    default double[] valueOf(double[][] points) {
+        double[] values = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            values[i] = valueOf(points[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Returns true if {@link #valueOf(double[])} may be called concurrently from
+     * several threads. The points of the numerical derivatives are then evaluated
+     * in parallel if the strategy allows it.
+     *
+     * @see MnStrategy#setParallelEvaluation
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
 }
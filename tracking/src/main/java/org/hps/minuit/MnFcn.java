@@ -1,5 +1,7 @@
 package org.hps.minuit;
 
+import java.util.stream.IntStream;
+
 /**
  *
  */
@@ -16,6 +18,24 @@ class MnFcn {
         return theFCN.valueOf(v.asArray());
     }
 
+    /**
+     * Values at several points, in parallel if requested and the function is
+     * thread safe.
+     */
+    double[] valueOf(MnAlgebraicVector[] points, boolean parallel) {
+        theNumCall += points.length;
+        final double[][] args = new double[points.length][];
+        for (int i = 0; i < points.length; i++) {
+            args[i] = points[i].asArray();
+        }
+        if (parallel && points.length > 1 && theFCN.isThreadSafe()) {
+            final double[] values = new double[points.length];
+            IntStream.range(0, points.length).parallel().forEach(i -> values[i] = theFCN.valueOf(args[i]));
+            return values;
+        }
+        return theFCN.valueOf(args);
+    }
+
     int numOfCalls() {
         return theNumCall;
     }
@@ -133,76 +133,102 @@ public class MnHesse {
         try {
             MnAlgebraicVector x = st.parameters().vec().clone();
 
+            // The parameters are independent: each round evaluates the
+            // displacements of all the parameters that did not converge yet in
+            // one batch.
+            double[] dmin = new double[n];
+            double[] d = new double[n];
+            int[] icyc = new int[n];
+            int[] multpy = new int[n];
+            boolean[] done = new boolean[n];
             for (int i = 0; i < n; i++) {
-
                 double xtf = x.get(i);
-                double dmin = 8. * prec.eps2() * (Math.abs(xtf) + prec.eps2());
-                double d = Math.abs(gst.get(i));
-                if (d < dmin) {
-                    d = dmin;
+                dmin[i] = 8. * prec.eps2() * (Math.abs(xtf) + prec.eps2());
+                d[i] = Math.abs(gst.get(i));
+                if (d[i] < dmin[i]) {
+                    d[i] = dmin[i];
+                }
+                done[i] = ncycles() <= 0;
+            }
+            int[] active = new int[n];
+            while (true) {
+                int nActive = 0;
+                for (int i = 0; i < n; i++) {
+                    if (!done[i]) {
+                        active[nActive++] = i;
+                    }
+                }
+                if (nActive == 0) {
+                    break;
                 }
 
-                for (int icyc = 0; icyc < ncycles(); icyc++) {
-                    double sag = 0.;
-                    double fs1 = 0.;
-                    double fs2 = 0.;
-                    int multpy = 0;
-                    for (; multpy < 5; multpy++) {
-                        x.set(i, xtf + d);
-                        fs1 = mfcn.valueOf(x);
-                        x.set(i, xtf - d);
-                        fs2 = mfcn.valueOf(x);
-                        x.set(i, xtf);
-                        sag = 0.5 * (fs1 + fs2 - 2. * amin);
-                        if (sag > prec.eps2()) {
-                            break;
-                        }
+                MnAlgebraicVector[] points = new MnAlgebraicVector[2 * nActive];
+                for (int k = 0; k < nActive; k++) {
+                    int i = active[k];
+                    points[2 * k] = x.clone();
+                    points[2 * k].set(i, x.get(i) + d[i]);
+                    points[2 * k + 1] = x.clone();
+                    points[2 * k + 1].set(i, x.get(i) - d[i]);
+                }
+                double[] fs = mfcn.valueOf(points, theStrategy.parallelEvaluation());
+
+                for (int k = 0; k < nActive; k++) {
+                    int i = active[k];
+                    double fs1 = fs[2 * k];
+                    double fs2 = fs[2 * k + 1];
+                    double sag = 0.5 * (fs1 + fs2 - 2. * amin);
+                    if (sag <= prec.eps2()) {
+                        // retry with a larger step
                         if (trafo.parameter(i).hasLimits()) {
-                            if (d > 0.5) {
+                            if (d[i] > 0.5) {
                                 throw new MnHesseFailed("MnHesse: 2nd derivative zero for parameter");
                             }
-                            d *= 10.;
-                            if (d > 0.5) {
-                                d = 0.51;
+                            d[i] *= 10.;
+                            if (d[i] > 0.5) {
+                                d[i] = 0.51;
                             }
-                            continue;
+                        } else {
+                            d[i] *= 10.;
                         }
-                        d *= 10.;
-                    }
-                    if (multpy >= 5) {
-                        throw new MnHesseFailed("MnHesse: 2nd derivative zero for parameter");
+                        if (++multpy[i] >= 5) {
+                            throw new MnHesseFailed("MnHesse: 2nd derivative zero for parameter");
+                        }
+                        continue;
                     }
+                    multpy[i] = 0;
 
                     double g2bfor = g2.get(i);
-                    g2.set(i, 2. * sag / (d * d));
-                    grd.set(i, (fs1 - fs2) / (2. * d));
-                    gst.set(i, d);
-                    dirin.set(i, d);
+                    g2.set(i, 2. * sag / (d[i] * d[i]));
+                    grd.set(i, (fs1 - fs2) / (2. * d[i]));
+                    gst.set(i, d[i]);
+                    dirin.set(i, d[i]);
                     yy.set(i, fs1);
-                    double dlast = d;
-                    d = Math.sqrt(2. * aimsag / Math.abs(g2.get(i)));
+                    double dlast = d[i];
+                    d[i] = Math.sqrt(2. * aimsag / Math.abs(g2.get(i)));
                     if (trafo.parameter(i).hasLimits()) {
-                        d = Math.min(0.5, d);
+                        d[i] = Math.min(0.5, d[i]);
                     }
-                    if (d < dmin) {
-                        d = dmin;
+                    if (d[i] < dmin[i]) {
+                        d[i] = dmin[i];
                     }
 
                     // see if converged
-                    if (Math.abs((d - dlast) / d) < tolerstp()) {
-                        break;
+                    if (++icyc[i] >= ncycles()
+                            || Math.abs((d[i] - dlast) / d[i]) < tolerstp()
+                            || Math.abs((g2.get(i) - g2bfor) / g2.get(i)) < tolerg2()) {
+                        done[i] = true;
+                        continue;
                     }
-                    if (Math.abs((g2.get(i) - g2bfor) / g2.get(i)) < tolerg2()) {
-                        break;
-                    }
-                    d = Math.min(d, 10. * dlast);
-                    d = Math.max(d, 0.1 * dlast);
+                    d[i] = Math.min(d[i], 10. * dlast);
+                    d[i] = Math.max(d[i], 0.1 * dlast);
                 }
-                vhmat.set(i, i, g2.get(i));
                 if (mfcn.numOfCalls() - st.nfcn() > maxcalls) {
                     throw new MnHesseFailed("MnHesse: maximum number of allowed function calls exhausted.");
                 }
             }
+            for (int i = 0; i < n; i++) {
+                vhmat.set(i, i, g2.get(i));
+            }
 
             if (theStrategy.strategy() > 0) {
                 // refine first derivative
@@ -211,17 +237,24 @@ public class MnHesse {
                 grd = gr.grad();
             }
 
-            //off-diagonal elements
+            //off-diagonal elements, all evaluated in one batch
+            MnAlgebraicVector[] points = new MnAlgebraicVector[n * (n - 1) / 2];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    points[k] = x.clone();
+                    points[k].set(i, x.get(i) + dirin.get(i));
+                    points[k].set(j, x.get(j) + dirin.get(j));
+                    k++;
+                }
+            }
+            double[] fs = mfcn.valueOf(points, theStrategy.parallelEvaluation());
+            k = 0;
             for (int i = 0; i < n; i++) {
-                x.set(i, x.get(i) + dirin.get(i));
                 for (int j = i + 1; j < n; j++) {
-                    x.set(j, x.get(j) + dirin.get(j));
-                    double fs1 = mfcn.valueOf(x);
-                    double elem = (fs1 + amin - yy.get(i) - yy.get(j)) / (dirin.get(i) * dirin.get(j));
+                    double elem = (fs[k++] + amin - yy.get(i) - yy.get(j)) / (dirin.get(i) * dirin.get(j));
                     vhmat.set(i, j, elem);
-                    x.set(j, x.get(j) - dirin.get(j));
                 }
-                x.set(i, x.get(i) - dirin.get(i));
             }
 
             //verify if matrix pos-def (still 2nd derivative)
@@ -163,6 +163,19 @@ public class MnStrategy {
         theHessGradNCyc = n;
     }
 
+    /**
+     * Evaluate the independent points of the numerical gradient and of the
+     * Hessian in parallel, on the common fork-join pool, for functions that are
+     * thread safe ({@link FCNBase#isThreadSafe}). Off by default.
+     */
+    public void setParallelEvaluation(boolean parallel) {
+        theParallel = parallel;
+    }
+
+    public boolean parallelEvaluation() {
+        return theParallel;
+    }
+
     private int theStrategy;
     private int theGradNCyc;
     private double theGradTlrStp;
@@ -171,4 +184,5 @@ public class MnStrategy {
     private double theHessTlrStp;
     private double theHessTlrG2;
     private int theHessGradNCyc;
+    private boolean theParallel = false;
 }
@@ -13,5 +13,13 @@ class MnUserFcn extends MnFcn {
     double valueOf(MnAlgebraicVector v) {
         return super.valueOf(theTransform.transform(v));
     }
+
+    double[] valueOf(MnAlgebraicVector[] points, boolean parallel) {
+        MnAlgebraicVector[] external = new MnAlgebraicVector[points.length];
+        for (int i = 0; i < points.length; i++) {
+            external[i] = theTransform.transform(points[i]);
+        }
+        return super.valueOf(external, parallel);
+    }
     private MnUserTransformation theTransform;
 }
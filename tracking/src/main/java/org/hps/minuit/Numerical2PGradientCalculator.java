@@ -33,12 +33,23 @@ class Numerical2PGradientCalculator implements GradientCalculator {
         MnAlgebraicVector grd = gradient.grad().clone();
         MnAlgebraicVector g2 = gradient.g2().clone();
         MnAlgebraicVector gstep = gradient.gstep().clone();
+
+        // The parameters are independent: each cycle evaluates the displacements
+        // of all the parameters that did not converge yet in one batch.
+        double[] epspri = new double[n];
+        double[] stepb4 = new double[n];
+        boolean[] done = new boolean[n];
         for (int i = 0; i < n; i++) {
-            double xtf = x.get(i);
-            double epspri = precision().eps2() + Math.abs(grd.get(i) * precision().eps2());
-            double stepb4 = 0.;
-            for (int j = 0; j < ncycle(); j++) {
-                double optstp = Math.sqrt(dfmin / (Math.abs(g2.get(i)) + epspri));
+            epspri[i] = precision().eps2() + Math.abs(grd.get(i) * precision().eps2());
+        }
+        int[] active = new int[n];
+        for (int j = 0; j < ncycle(); j++) {
+            int nActive = 0;
+            for (int i = 0; i < n; i++) {
+                if (done[i]) {
+                    continue;
+                }
+                double optstp = Math.sqrt(dfmin / (Math.abs(g2.get(i)) + epspri[i]));
                 double step = Math.max(optstp, Math.abs(0.1 * gstep.get(i)));
 
                 if (trafo().parameter(trafo().extOfInt(i)).hasLimits()) {
@@ -55,17 +66,33 @@ class Numerical2PGradientCalculator implements GradientCalculator {
                 if (step < stpmin) {
                     step = stpmin;
                 }
-                if (Math.abs((step - stepb4) / step) < stepTolerance()) {
-                    break;
+                if (Math.abs((step - stepb4[i]) / step) < stepTolerance()) {
+                    done[i] = true;
+                    continue;
                 }
                 gstep.set(i, step);
-                stepb4 = step;
+                stepb4[i] = step;
+                active[nActive++] = i;
+            }
+            if (nActive == 0) {
+                break;
+            }
+
+            MnAlgebraicVector[] points = new MnAlgebraicVector[2 * nActive];
+            for (int k = 0; k < nActive; k++) {
+                int i = active[k];
+                points[2 * k] = x.clone();
+                points[2 * k].set(i, x.get(i) + gstep.get(i));
+                points[2 * k + 1] = x.clone();
+                points[2 * k + 1].set(i, x.get(i) - gstep.get(i));
+            }
+            double[] fs = theFcn.valueOf(points, strategy().parallelEvaluation());
 
-                x.set(i, xtf + step);
-                double fs1 = theFcn.valueOf(x);
-                x.set(i, xtf - step);
-                double fs2 = theFcn.valueOf(x);
-                x.set(i, xtf);
+            for (int k = 0; k < nActive; k++) {
+                int i = active[k];
+                double step = gstep.get(i);
+                double fs1 = fs[2 * k];
+                double fs2 = fs[2 * k + 1];
 
                 double grdb4 = grd.get(i);
 
@@ -73,10 +100,9 @@ class Numerical2PGradientCalculator implements GradientCalculator {
                 g2.set(i, (fs1 + fs2 - 2. * fcnmin) / step / step);
 
                 if (Math.abs(grdb4 - grd.get(i)) / (Math.abs(grd.get(i)) + dfmin / step) < gradTolerance()) {
-                    break;
+                    done[i] = true;
                 }
             }
-
         }
         return new FunctionGradient(grd, g2, gstep);
 
@@ -4,9 +4,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.lcsim.event.Track;
 import org.lcsim.event.TrackerHit;
@@ -33,6 +35,11 @@ public abstract class AmbiguityResolver {
     protected Map<Track, List<Track>> sharedTracksMap;
     protected Map<Track, double[]> trackScoreMap;
 
+    /**
+     * Hits of all tracks given to the resolver since the last reset.
+     */
+    protected TrackHitIndex hitIndex = new TrackHitIndex();
+
     protected AmbiguityResolverUtils utils = new AmbiguityResolverUtils();
 
     /**
@@ -105,6 +112,7 @@ public abstract class AmbiguityResolver {
         hitsToTracksMap.clear();
         sharedTracksMap.clear();
         trackScoreMap.clear();
+        hitIndex.clear();
     }
 
     /**
@@ -219,6 +227,7 @@ public abstract class AmbiguityResolver {
          */
         protected void makeTrackHitMaps(List<Track> tracklist) {
             for (Track trk : tracklist) {
+                hitIndex.addTrack(trk);
                 List<TrackerHit> trackHits = trk.getTrackerHits();
                 List<Track> matchingTracks = hitsToTracksMap.get(trackHits);
                 if (matchingTracks == null) {
@@ -251,6 +260,12 @@ public abstract class AmbiguityResolver {
             }
         }
 
+        private Set<Track> identitySet(List<Track> tracks) {
+            Set<Track> set = Collections.newSetFromMap(new IdentityHashMap<Track, Boolean>());
+            set.addAll(tracks);
+            return set;
+        }
+
         /**
          * Finds all partial tracks corresponding to a given track
          * 
@@ -258,12 +273,25 @@ public abstract class AmbiguityResolver {
          * @return ListOfPartialTracks
          */
         protected List<Track> PartialsForTrack(Track trk) {
+            return PartialsForTrack(trk, identitySet(AmbiguityResolver.this.tracks));
+        }
+
+        /**
+         * Finds all partial tracks corresponding to a given track. Only tracks
+         * sharing hits with it can be partials, so only those are checked.
+         * 
+         * @param track
+         * @param operable
+         *            the operable tracks
+         * @return ListOfPartialTracks
+         */
+        protected List<Track> PartialsForTrack(Track trk, Set<Track> operable) {
             List<Track> partialTracks = new ArrayList<Track>();
 
-            List<TrackerHit> trackHits = trk.getTrackerHits();
-            for (Track otherTrack : AmbiguityResolver.this.tracks) {
-                List<TrackerHit> otherTrackHits = otherTrack.getTrackerHits();
-                if (otherTrackHits.size() < trackHits.size() && trackHits.containsAll(otherTrackHits)) {
+            int nHits = trk.getTrackerHits().size();
+            for (Track otherTrack : hitIndex.getSharingTracks(trk)) {
+                if (operable.contains(otherTrack) && otherTrack.getTrackerHits().size() < nHits
+                        && hitIndex.containsAll(trk, otherTrack)) {
                     partialTracks.add(otherTrack);
                 }
             }
@@ -281,24 +309,27 @@ public abstract class AmbiguityResolver {
 
             Collections.sort(sorted, new compareScore());
 
+            Set<Track> operable = identitySet(AmbiguityResolver.this.tracks);
+            Set<Track> sharedSet = identitySet(AmbiguityResolver.this.shared);
             // System.out.println("REMOVING SHARED");
             for (Track trk : sorted) {
                 // System.out.printf("track score %f \n", getScore(trk));
-                if (AmbiguityResolver.this.tracks.contains(trk)) {
+                if (operable.contains(trk)) {
                     // System.out.println("    examining this track...");
                     List<Track> shared = sharedTracksMap.get(trk);
                     // System.out.printf("     removing %d shared \n",
                     // shared.size());
-                    AmbiguityResolver.this.tracks.removeAll(shared);
+                    operable.removeAll(shared);
                     for (Track s : shared) {
                         // System.out.printf(
                         // "           removed track with score %f \n",
                         // getScore(s));
-                        if (!AmbiguityResolver.this.shared.contains(s))
+                        if (sharedSet.add(s))
                             AmbiguityResolver.this.shared.add(s);
                     }
                 }
             }
+            AmbiguityResolver.this.tracks.retainAll(operable);
 
         }
 
@@ -348,16 +379,18 @@ public abstract class AmbiguityResolver {
          * collection, and puts them in partial tracks collection
          */
         protected void RemovePartials() {
+            Set<Track> operable = identitySet(AmbiguityResolver.this.tracks);
+            Set<Track> partialSet = identitySet(AmbiguityResolver.this.partials);
             for (Track track : AmbiguityResolver.this.tracks) {
-                if (!AmbiguityResolver.this.partials.contains(track)) {
-                    List<Track> temp = PartialsForTrack(track);
+                if (!partialSet.contains(track)) {
+                    List<Track> temp = PartialsForTrack(track, operable);
                     for (Track track2 : temp) {
-                        if (!AmbiguityResolver.this.partials.contains(track2))
+                        if (partialSet.add(track2))
                             AmbiguityResolver.this.partials.add(track2);
                     }
                 }
             }
-            AmbiguityResolver.this.tracks.removeAll(AmbiguityResolver.this.partials);
+            AmbiguityResolver.this.tracks.removeAll(partialSet);
         }
 
         /**
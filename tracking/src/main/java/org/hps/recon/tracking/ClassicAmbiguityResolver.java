@@ -145,7 +145,7 @@ public class ClassicAmbiguityResolver extends AmbiguityResolver {
      *
      */
     protected boolean areShared(Track trk1, Track trk2) {
-        if (TrackUtils.numberOfSharedHits(trk1, trk2) > this.shareThreshold) {
+        if (hitIndex.numberOfSharedHits(trk1, trk2) > this.shareThreshold) {
             if ((!doChargeCheck) || (areSameCharge(trk1, trk2))) {
                 return true;
             }
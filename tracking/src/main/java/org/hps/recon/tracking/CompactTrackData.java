@@ -0,0 +1,218 @@
+package org.hps.recon.tracking;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import hep.physics.matrix.SymmetricMatrix;
+
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackState;
+import org.lcsim.event.TrackerHit;
+import org.lcsim.event.base.BaseTrack;
+import org.lcsim.event.base.BaseTrackState;
+
+/**
+ * Compact persistent form of a track: one generic object holding the track and all of its track states, instead of a
+ * track object, a track state object per state and a covariance matrix per state.
+ * <p>
+ * The int values are, in order: the format version, the track type, the number of degrees of freedom, the fit success
+ * flag, the number of subdetector hit numbers and the hit numbers, the number of hits and the index of each hit in
+ * the hit collection (-1 if the hit is not in it), the number of track states and their locations, and the number of
+ * related collections followed, for each of these, by the number of related objects and their indices.
+ * <p>
+ * The float values are the chi^2 and then, for each track state, the 5 helix parameters, the 3 coordinates of the
+ * reference point, the 15 elements of the packed covariance triangle and the field at the reference point.
+ */
+public class CompactTrackData implements GenericObject {
+
+    public static final int VERSION = 1;
+    public static final int FLOATS_PER_STATE = 24;
+
+    private final int[] ints;
+    private final float[] floats;
+
+    /**
+     * Make the compact form of a track.
+     *
+     * @param track : The track
+     * @param hitIndices : The index of each hit in the persisted hit collection, or null to not store hit indices
+     * @param relatedIndices : For each related collection, the indices of the objects related to the track
+     */
+    public CompactTrackData(Track track, Map<TrackerHit, Integer> hitIndices, int[][] relatedIndices) {
+        int[] subdetectorHits = track.getSubdetectorHitNumbers();
+        if (subdetectorHits == null) {
+            subdetectorHits = new int[0];
+        }
+        List<TrackerHit> hits = track.getTrackerHits();
+        int nHits = hitIndices == null ? 0 : hits.size();
+        List<TrackState> states = track.getTrackStates();
+        int nRelated = 0;
+        for (int[] related : relatedIndices) {
+            nRelated += 1 + related.length;
+        }
+
+        ints = new int[7 + subdetectorHits.length + nHits + states.size() + 1 + nRelated];
+        int i = 0;
+        ints[i++] = VERSION;
+        ints[i++] = track.getType();
+        ints[i++] = track.getNDF();
+        ints[i++] = track.fitSuccess() ? 1 : 0;
+        ints[i++] = subdetectorHits.length;
+        for (int n : subdetectorHits) {
+            ints[i++] = n;
+        }
+        ints[i++] = nHits;
+        for (int h = 0; h < nHits; h++) {
+            Integer index = hitIndices.get(hits.get(h));
+            ints[i++] = index == null ? -1 : index;
+        }
+        ints[i++] = states.size();
+        for (TrackState state : states) {
+            ints[i++] = state.getLocation();
+        }
+        ints[i++] = relatedIndices.length;
+        for (int[] related : relatedIndices) {
+            ints[i++] = related.length;
+            for (int index : related) {
+                ints[i++] = index;
+            }
+        }
+
+        floats = new float[1 + FLOATS_PER_STATE * states.size()];
+        floats[0] = (float) track.getChi2();
+        int f = 1;
+        for (TrackState state : states) {
+            f = pack(state.getParameters(), floats, f);
+            f = pack(state.getReferencePoint(), floats, f);
+            f = pack(state.getCovMatrix(), floats, f);
+            floats[f++] = (float) state.getBLocal();
+        }
+    }
+
+    /**
+     * Make a track from its compact form.
+     *
+     * @param object : The compact track
+     * @param hits : The persisted hit collection, or null to make a track without hits
+     * @return The track
+     */
+    public static BaseTrack toTrack(GenericObject object, List<? extends TrackerHit> hits) {
+        checkVersion(object);
+        BaseTrack track = new BaseTrack();
+        int i = 1;
+        track.setTrackType(object.getIntVal(i++));
+        final int ndf = object.getIntVal(i++);
+        track.setFitSuccess(object.getIntVal(i++) != 0);
+        int[] subdetectorHits = new int[object.getIntVal(i++)];
+        for (int n = 0; n < subdetectorHits.length; n++) {
+            subdetectorHits[n] = object.getIntVal(i++);
+        }
+        track.setSubdetectorHitNumbers(subdetectorHits);
+        final int nHits = object.getIntVal(i++);
+        for (int h = 0; h < nHits; h++) {
+            final int index = object.getIntVal(i++);
+            if (hits != null && index >= 0 && index < hits.size()) {
+                track.addHit(hits.get(index));
+            }
+        }
+        final int nStates = object.getIntVal(i++);
+        for (int s = 0; s < nStates; s++) {
+            final int f = 1 + FLOATS_PER_STATE * s;
+            TrackState state = new BaseTrackState(unpack(object, f, 5), unpack(object, f + 5, 3),
+                    unpack(object, f + 8, 15), object.getIntVal(i++), object.getFloatVal(f + 23));
+            track.getTrackStates().add(state);
+            if (s == 0) {
+                track.setTrackParameters(state.getParameters(), state.getBLocal());
+                track.setCovarianceMatrix(new SymmetricMatrix(5, state.getCovMatrix(), true));
+            }
+        }
+        track.setChisq(object.getFloatVal(0));
+        track.setNDF(ndf);
+        return track;
+    }
+
+    /**
+     * Get the indices of the objects related to a track in each related collection.
+     *
+     * @param object : The compact track
+     * @return The indices, for each related collection
+     */
+    public static int[][] getRelatedIndices(GenericObject object) {
+        checkVersion(object);
+        int i = 4;
+        i += 1 + object.getIntVal(i);
+        i += 1 + object.getIntVal(i);
+        i += 1 + object.getIntVal(i);
+        int[][] related = new int[object.getIntVal(i++)][];
+        for (int r = 0; r < related.length; r++) {
+            related[r] = new int[object.getIntVal(i++)];
+            for (int n = 0; n < related[r].length; n++) {
+                related[r][n] = object.getIntVal(i++);
+            }
+        }
+        return related;
+    }
+
+    private static void checkVersion(GenericObject object) {
+        if (object.getIntVal(0) != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact track version " + object.getIntVal(0));
+        }
+    }
+
+    private static int pack(double[] values, float[] floats, int offset) {
+        for (double value : values) {
+            floats[offset++] = (float) value;
+        }
+        return offset;
+    }
+
+    private static double[] unpack(GenericObject object, int offset, int length) {
+        double[] values = new double[length];
+        for (int k = 0; k < length; k++) {
+            values[k] = object.getFloatVal(offset + k);
+        }
+        return values;
+    }
+
+    @Override
+    public int getNInt() {
+        return ints.length;
+    }
+
+    @Override
+    public int getNFloat() {
+        return floats.length;
+    }
+
+    @Override
+    public int getNDouble() {
+        return 0;
+    }
+
+    @Override
+    public int getIntVal(int index) {
+        return ints[index];
+    }
+
+    @Override
+    public float getFloatVal(int index) {
+        return floats[index];
+    }
+
+    @Override
+    public double getDoubleVal(int index) {
+        throw new UnsupportedOperationException("No double values in " + this.getClass().getSimpleName());
+    }
+
+    @Override
+    public boolean isFixedSize() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactTrackData: ints " + Arrays.toString(ints) + ", floats " + Arrays.toString(floats);
+    }
+}
@@ -0,0 +1,114 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackerHit;
+import org.lcsim.event.base.BaseLCRelation;
+import org.lcsim.lcio.LCIOConstants;
+import org.lcsim.util.Driver;
+
+/**
+ * Read tracks written by {@link CompactTrackWriterDriver} back into a track collection, with the same collection
+ * names and relation collections as the writer was given. The tracks are lcsim <code>BaseTrack</code> objects with
+ * <code>BaseTrackState</code> track states, so downstream drivers see the usual {@link Track} and
+ * {@link org.lcsim.event.TrackState} interfaces. Parameters and covariances have float precision.
+ * <p>
+ * Nothing is done if the track collection is already in the event.
+ */
+public class CompactTrackReaderDriver extends Driver {
+
+    private String trackCollectionName = "KalmanFullTracks";
+    private String hitCollectionName = "StripClusterer_SiTrackerHitStrip1D";
+    private String inputCollectionName = null;
+    private String[] relationCollections = {"KFTrackDataRelations:KFTrackData"};
+
+    public void setTrackCollectionName(String trackCollectionName) {
+        this.trackCollectionName = trackCollectionName;
+    }
+
+    public void setHitCollectionName(String hitCollectionName) {
+        this.hitCollectionName = hitCollectionName;
+    }
+
+    /**
+     * @param inputCollectionName : Name of the compact track collection; by default the track collection name
+     * followed by "Compact"
+     */
+    public void setInputCollectionName(String inputCollectionName) {
+        this.inputCollectionName = inputCollectionName;
+    }
+
+    /**
+     * @param relationCollections : Relations to restore, each as <code>relationCollection:objectCollection</code>,
+     * in the order given to the writer
+     */
+    public void setRelationCollections(String[] relationCollections) {
+        this.relationCollections = relationCollections;
+    }
+
+    @Override
+    protected void startOfData() {
+        if (inputCollectionName == null) {
+            inputCollectionName = trackCollectionName + "Compact";
+        }
+        for (String relation : relationCollections) {
+            if (relation.split(":").length != 2) {
+                throw new IllegalArgumentException("Bad relation collection " + relation
+                        + "; expected relationCollection:objectCollection");
+            }
+        }
+    }
+
+    @Override
+    protected void process(EventHeader event) {
+        if (!event.hasCollection(GenericObject.class, inputCollectionName)
+                || event.hasCollection(Track.class, trackCollectionName)) {
+            return;
+        }
+        List<GenericObject> compactTracks = event.get(GenericObject.class, inputCollectionName);
+
+        List<TrackerHit> hits = null;
+        if (!hitCollectionName.isEmpty() && event.hasCollection(TrackerHit.class, hitCollectionName)) {
+            hits = event.get(TrackerHit.class, hitCollectionName);
+        }
+
+        List<Track> tracks = new ArrayList<Track>(compactTracks.size());
+        List<List<LCRelation>> relations = new ArrayList<List<LCRelation>>();
+        for (int r = 0; r < relationCollections.length; r++) {
+            relations.add(new ArrayList<LCRelation>());
+        }
+        for (GenericObject compactTrack : compactTracks) {
+            Track track = CompactTrackData.toTrack(compactTrack, hits);
+            tracks.add(track);
+            int[][] relatedIndices = CompactTrackData.getRelatedIndices(compactTrack);
+            for (int r = 0; r < Math.min(relatedIndices.length, relationCollections.length); r++) {
+                List<?> objects = (List<?>) event.get(relationCollections[r].split(":")[1]);
+                if (objects == null) {
+                    continue;
+                }
+                for (int index : relatedIndices[r]) {
+                    // A negative index -(i + 1) is an object related from the track.
+                    if (index >= 0 && index < objects.size()) {
+                        relations.get(r).add(new BaseLCRelation(objects.get(index), track));
+                    } else if (index < 0 && -index - 1 < objects.size()) {
+                        relations.get(r).add(new BaseLCRelation(track, objects.get(-index - 1)));
+                    }
+                }
+            }
+        }
+
+        int flag = hits != null ? 1 << LCIOConstants.TRBIT_HITS : 0;
+        event.put(trackCollectionName, tracks, Track.class, flag);
+        for (int r = 0; r < relationCollections.length; r++) {
+            String name = relationCollections[r].split(":")[0];
+            if (!event.hasCollection(LCRelation.class, name)) {
+                event.put(name, relations.get(r), LCRelation.class, 0);
+            }
+        }
+    }
+}
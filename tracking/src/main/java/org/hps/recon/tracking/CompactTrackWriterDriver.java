@@ -0,0 +1,158 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackerHit;
+import org.lcsim.util.Driver;
+
+/**
+ * Write a track collection in the compact form of {@link CompactTrackData}, to be read back with
+ * {@link CompactTrackReaderDriver}.
+ * <p>
+ * The hits of the tracks are stored as indices into a hit collection, which must be persisted too. Relations between
+ * the tracks and the objects of other persisted collections, such as the track data of the Kalman tracks, are stored
+ * as indices into those collections; each is given as <code>relationCollection:objectCollection</code>. With
+ * <code>dropFullTracks</code> the track collection and these relation collections are made transient, so that only
+ * the compact form is written.
+ */
+public class CompactTrackWriterDriver extends Driver {
+
+    private static final Logger LOGGER = Logger.getLogger(CompactTrackWriterDriver.class.getPackage().getName());
+
+    private String trackCollectionName = "KalmanFullTracks";
+    private String hitCollectionName = "StripClusterer_SiTrackerHitStrip1D";
+    private String outputCollectionName = null;
+    private String[] relationCollections = {"KFTrackDataRelations:KFTrackData"};
+    private boolean dropFullTracks = false;
+
+    public void setTrackCollectionName(String trackCollectionName) {
+        this.trackCollectionName = trackCollectionName;
+    }
+
+    /**
+     * @param hitCollectionName : Name of the persisted collection of the track hits, or an empty string to not store
+     * the hits
+     */
+    public void setHitCollectionName(String hitCollectionName) {
+        this.hitCollectionName = hitCollectionName;
+    }
+
+    /**
+     * @param outputCollectionName : Name of the compact track collection; by default the track collection name
+     * followed by "Compact"
+     */
+    public void setOutputCollectionName(String outputCollectionName) {
+        this.outputCollectionName = outputCollectionName;
+    }
+
+    /**
+     * @param relationCollections : Relations to store, each as <code>relationCollection:objectCollection</code>
+     */
+    public void setRelationCollections(String[] relationCollections) {
+        this.relationCollections = relationCollections;
+    }
+
+    /**
+     * @param dropFullTracks : True to make the track collection and the stored relation collections transient
+     */
+    public void setDropFullTracks(boolean dropFullTracks) {
+        this.dropFullTracks = dropFullTracks;
+    }
+
+    @Override
+    protected void startOfData() {
+        if (outputCollectionName == null) {
+            outputCollectionName = trackCollectionName + "Compact";
+        }
+        for (String relation : relationCollections) {
+            if (relation.split(":").length != 2) {
+                throw new IllegalArgumentException("Bad relation collection " + relation
+                        + "; expected relationCollection:objectCollection");
+            }
+        }
+    }
+
+    @Override
+    protected void process(EventHeader event) {
+        if (!event.hasCollection(Track.class, trackCollectionName)) {
+            return;
+        }
+        List<Track> tracks = event.get(Track.class, trackCollectionName);
+
+        Map<TrackerHit, Integer> hitIndices = null;
+        if (!hitCollectionName.isEmpty()) {
+            if (event.hasCollection(TrackerHit.class, hitCollectionName)) {
+                List<TrackerHit> hits = event.get(TrackerHit.class, hitCollectionName);
+                hitIndices = new IdentityHashMap<TrackerHit, Integer>(2 * hits.size());
+                for (int i = 0; i < hits.size(); i++) {
+                    hitIndices.put(hits.get(i), i);
+                }
+            } else {
+                LOGGER.warning("No hit collection " + hitCollectionName + "; tracks are written without hits");
+            }
+        }
+
+        // Related object indices of each track, for each relation collection.
+        List<Map<Track, List<Integer>>> related = new ArrayList<Map<Track, List<Integer>>>();
+        for (String relation : relationCollections) {
+            String[] names = relation.split(":");
+            Map<Track, List<Integer>> relatedToTrack = new IdentityHashMap<Track, List<Integer>>();
+            related.add(relatedToTrack);
+            if (!event.hasCollection(LCRelation.class, names[0]) || event.get(names[1]) == null) {
+                continue;
+            }
+            Map<Object, Integer> objectIndices = new IdentityHashMap<Object, Integer>();
+            List<?> objects = (List<?>) event.get(names[1]);
+            for (int i = 0; i < objects.size(); i++) {
+                objectIndices.put(objects.get(i), i);
+            }
+            for (LCRelation rel : event.get(LCRelation.class, names[0])) {
+                // The index of an object related from a track is stored as -(index + 1).
+                Object track = rel.getTo();
+                Integer index = objectIndices.get(rel.getFrom());
+                boolean trackIsFrom = false;
+                if (!(track instanceof Track)) {
+                    track = rel.getFrom();
+                    index = objectIndices.get(rel.getTo());
+                    trackIsFrom = true;
+                }
+                if (!(track instanceof Track) || index == null) {
+                    continue;
+                }
+                List<Integer> indices = relatedToTrack.get(track);
+                if (indices == null) {
+                    indices = new ArrayList<Integer>(1);
+                    relatedToTrack.put((Track) track, indices);
+                }
+                indices.add(trackIsFrom ? -(index + 1) : index);
+            }
+            if (dropFullTracks) {
+                event.getMetaData(event.get(LCRelation.class, names[0])).setTransient(true);
+            }
+        }
+
+        List<CompactTrackData> compactTracks = new ArrayList<CompactTrackData>(tracks.size());
+        for (Track track : tracks) {
+            int[][] relatedIndices = new int[related.size()][];
+            for (int r = 0; r < relatedIndices.length; r++) {
+                List<Integer> indices = related.get(r).get(track);
+                relatedIndices[r] = new int[indices == null ? 0 : indices.size()];
+                for (int n = 0; n < relatedIndices[r].length; n++) {
+                    relatedIndices[r][n] = indices.get(n);
+                }
+            }
+            compactTracks.add(new CompactTrackData(track, hitIndices, relatedIndices));
+        }
+        event.put(outputCollectionName, compactTracks, CompactTrackData.class, 0);
+        if (dropFullTracks) {
+            event.getMetaData(tracks).setTransient(true);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.hps.recon.tracking;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.lcsim.event.EventHeader;
+
+/**
+ * Singleton holding the wall-clock budget of the event being reconstructed.
+ * <p>
+ * The clock is started by {@link EventTimeBudgetDriver}, which must be placed ahead of the tracking drivers in the
+ * steering file. Expensive drivers ({@link SeedTracker}, the Kalman pattern recognition, the GBL refit) call
+ * {@link #isExceeded()} between units of work and, once the budget is spent, switch to a reduced mode and record it
+ * with {@link #degrade(String)}. The event then carries the integer parameter {@value #FLAG_NAME} = 0, so that it
+ * can be selected with the recon EventFlagFilter like the SVT quality flags.
+ * <p>
+ * With no budget driver in the job the budget is disabled and {@link #isExceeded()} is always false.
+ */
+public class EventTimeBudget {
+
+    /** Name of the event integer parameter set to 1 for events reconstructed in full, 0 for degraded ones. */
+    public static final String FLAG_NAME = "time_budget_good";
+
+    // Created eagerly so that the drivers of a chain, constructed and run on any thread, all get the same instance
+    private static final EventTimeBudget _instance = new EventTimeBudget();
+
+    private double budget = -1.;           // ms, <= 0 disables the budget
+    private long startTime;
+    private EventHeader event = null;
+    private boolean degraded = false;
+    private Set<String> degradedThisEvent = new HashSet<String>();
+    private Map<String, Integer> degradedBy = new LinkedHashMap<String, Integer>();
+
+    // Statistics for the current run
+    private int nEvents = 0;
+    private int nDegraded = 0;
+    private double maxTime = 0.;
+    private double sumTime = 0.;
+
+    public static EventTimeBudget instance() {
+        return _instance;
+    }
+
+    /**
+     * Set the per-event budget.
+     *
+     * @param budget budget in milliseconds; zero or negative disables it
+     */
+    public void setBudget(double budget) {
+        this.budget = budget;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public boolean isEnabled() {
+        return budget > 0.;
+    }
+
+    /**
+     * Start the clock for a new event and mark the event as fully reconstructed.
+     *
+     * @param event the event
+     */
+    public void startEvent(EventHeader event) {
+        this.event = event;
+        startTime = System.nanoTime();
+        degraded = false;
+        degradedThisEvent.clear();
+        if (isEnabled()) {
+            event.getIntegerParameters().put(FLAG_NAME, new int[] {1});
+        }
+    }
+
+    /**
+     * Stop the clock for the current event and accumulate the run statistics.
+     */
+    public void endEvent() {
+        if (event == null) {
+            return;
+        }
+        double t = getElapsed();
+        nEvents++;
+        sumTime += t;
+        if (t > maxTime) {
+            maxTime = t;
+        }
+        if (degraded) {
+            nDegraded++;
+        }
+        event = null;
+    }
+
+    /**
+     * @return time spent on the current event in milliseconds
+     */
+    public double getElapsed() {
+        return (System.nanoTime() - startTime) / 1.e6;
+    }
+
+    /**
+     * @return true if a budget is set and the current event has used it up
+     */
+    public boolean isExceeded() {
+        return isEnabled() && event != null && getElapsed() > budget;
+    }
+
+    /**
+     * @return true if some driver has already switched to reduced mode in the current event
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * Record that a driver switched to reduced mode in the current event. Only the first call per driver and event
+     * is counted.
+     *
+     * @param driverName name under which the degradation is counted
+     */
+    public void degrade(String driverName) {
+        if (event == null) {
+            return;
+        }
+        if (!degraded) {
+            degraded = true;
+            event.getIntegerParameters().put(FLAG_NAME, new int[] {0});
+        }
+        if (!degradedThisEvent.add(driverName)) {
+            return;
+        }
+        Integer n = degradedBy.get(driverName);
+        degradedBy.put(driverName, n == null ? 1 : n + 1);
+    }
+
+    /**
+     * Reset the run statistics.
+     */
+    public void clearStatistics() {
+        nEvents = 0;
+        nDegraded = 0;
+        maxTime = 0.;
+        sumTime = 0.;
+        degradedBy.clear();
+    }
+
+    public int getEventCount() {
+        return nEvents;
+    }
+
+    public int getDegradedCount() {
+        return nDegraded;
+    }
+
+    /**
+     * @return number of events degraded by each driver since the last {@link #clearStatistics()}
+     */
+    public Map<String, Integer> getDegradedCounts() {
+        return degradedBy;
+    }
+
+    @Override
+    public String toString() {
+        String s = String.format("EventTimeBudget: budget=%.1f ms, events=%d, degraded=%d (%.3f%%), mean time=%.2f ms, max time=%.1f ms\n",
+                budget, nEvents, nDegraded, nEvents > 0 ? 100. * nDegraded / nEvents : 0., nEvents > 0 ? sumTime / nEvents : 0., maxTime);
+        for (Map.Entry<String, Integer> entry : degradedBy.entrySet()) {
+            s += String.format("    %s: %d\n", entry.getKey(), entry.getValue());
+        }
+        return s;
+    }
+}
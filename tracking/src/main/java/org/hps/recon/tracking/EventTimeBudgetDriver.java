@@ -0,0 +1,56 @@
+package org.hps.recon.tracking;
+
+import java.util.logging.Logger;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.util.Driver;
+
+/**
+ * Starts the {@link EventTimeBudget} clock for each event and reports the per-run statistics of degraded events.
+ * It must be the first driver of the reconstruction chain, ahead of the tracking drivers that consult the budget.
+ */
+public class EventTimeBudgetDriver extends Driver {
+
+    private static final Logger LOGGER = Logger.getLogger(EventTimeBudgetDriver.class.getPackage().getName());
+
+    private final EventTimeBudget budget = EventTimeBudget.instance();
+    private int currentRun = -1;
+
+    /**
+     * Set the wall-clock budget per event, in milliseconds. Zero or negative (the default) disables it.
+     *
+     * @param budget budget in milliseconds
+     */
+    public void setBudget(double budget) {
+        this.budget.setBudget(budget);
+    }
+
+    @Override
+    protected void startOfData() {
+        budget.clearStatistics();
+    }
+
+    @Override
+    protected void process(EventHeader event) {
+        // The previous event is finished once the next one arrives.
+        budget.endEvent();
+        if (event.getRunNumber() != currentRun) {
+            report();
+            currentRun = event.getRunNumber();
+        }
+        budget.startEvent(event);
+    }
+
+    @Override
+    protected void endOfData() {
+        budget.endEvent();
+        report();
+    }
+
+    private void report() {
+        if (currentRun != -1 && budget.isEnabled() && budget.getEventCount() > 0) {
+            LOGGER.info("Run " + currentRun + " " + budget.toString());
+        }
+        budget.clearStatistics();
+    }
+}
@@ -186,9 +186,10 @@ public class MergeTrackCollections extends Driver {
         
         if (doPlots) {
             numTracksPreAmbi.fill(ambi.getTracks().size());
+            TrackHitIndex hitIndex = new TrackHitIndex(ambi.getTracks());
             for (Track trk : ambi.getTracks()) {
                 trackScoresPreAmbi.fill(ambi.getScore(trk));
-                sharedHitsPreAmbi.fill(TrackUtils.numberOfSharedHits(trk, ambi.getTracks()));
+                sharedHitsPreAmbi.fill(hitIndex.numberOfSharedHits(trk));
                 numHitsPreAmbi.fill(trk.getTrackerHits().size());
             }
         }
@@ -216,9 +217,10 @@ public class MergeTrackCollections extends Driver {
             numDuplicateTracks.fill(ambi.getDuplicateTracks().size());
             numSharedTracks.fill(ambi.getSharedTracks().size());
 
+            TrackHitIndex hitIndex = new TrackHitIndex(deduplicatedTracks);
             for (Track trk : deduplicatedTracks) {
                 trackScoresPostAmbi.fill(ambi.getScore(trk));
-                sharedHitsPostAmbi.fill(TrackUtils.numberOfSharedHits(trk, deduplicatedTracks));
+                sharedHitsPostAmbi.fill(hitIndex.numberOfSharedHits(trk));
                 numHitsPostAmbi.fill(trk.getTrackerHits().size());
             }
         }
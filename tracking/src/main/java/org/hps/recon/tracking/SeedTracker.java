@@ -133,9 +133,17 @@ public class SeedTracker extends org.lcsim.recon.tracking.seedtracker.SeedTracke
         _finder.clearTrackSeedList();
 
         // Loop over strategies and perform track finding
+        // Once the event time budget is used up the remaining strategies are skipped
+        EventTimeBudget budget = EventTimeBudget.instance();
+        boolean reduced = false;
         for (SeedStrategy strategy : _strategylist) {
             if(hitcol.size()>maxHelicalTrackHits)
                 continue;
+            if (budget.isExceeded()) {
+                budget.degrade("SeedTracker");
+                reduced = true;
+                break;
+            }
             // Set the strategy for the diagnostics
             if (_diag != null)
                 _diag.fireStrategyChanged(strategy);
@@ -157,7 +165,7 @@ public class SeedTracker extends org.lcsim.recon.tracking.seedtracker.SeedTracke
         List<SeedCandidate> trackseeds = _finder.getTrackSeeds();
         ((HelixFitter) _helixfitter).setIterative(true);
 
-        if (_iterativeConfirmedFits > 0) {
+        if (_iterativeConfirmedFits > 0 && !reduced) {
             // Iteratively re-fit tracks to take into account helix and hit position correlations
             if (this.debug)
                 System.out.printf("%s: Iteratively improve %d seeds\n", this.getClass().getSimpleName(), trackseeds.size());
@@ -367,6 +367,20 @@ public class ShaperLinearFitAlgorithm implements ShaperFitAlgorithm, FCNBase {
         return doLinFit_ejml(times);
     }
 
+    /**
+     * The used samples divided by their noise, and the noise variances. They are the same for all the points of a fit.
+     */
+    private DMatrixRMaj[] weightedSamples() {
+        DMatrixRMaj y_vec_ejml = new DMatrixRMaj(1,nUsedSamples);
+        DMatrixRMaj var_vec_ejml = new DMatrixRMaj(1,nUsedSamples);
+        for (int j=0; j<nUsedSamples; j++) {
+            double sigma_j = sigma[firstUsedSample + j];
+            y_vec_ejml.set(0,j,y[firstUsedSample + j] / sigma_j);
+            var_vec_ejml.set(0,j, sigma_j*sigma_j);
+        }
+        return new DMatrixRMaj[] {y_vec_ejml, var_vec_ejml};
+    }
+
     private FunctionMinimum minuitFit(double[] guess_t) {
         if (debug) {
             System.out.print("y for fit:\t");
@@ -445,6 +459,17 @@ public class ShaperLinearFitAlgorithm implements ShaperFitAlgorithm, FCNBase {
     }
     
     private double doLinFit_ejml(double[] times) {
+        DMatrixRMaj[] samples = weightedSamples();
+        return doLinFit_ejml(times, samples[0], samples[1], true);
+    }
+
+    /**
+     * @param weightedY the used samples divided by their noise, from {@link #weightedSamples()}; not modified
+     * @param var_vec_ejml the noise variances of the used samples, from {@link #weightedSamples()}
+     * @param storeResults true to keep the fitted amplitudes, their errors and the pedestal
+     * @return the square root of the chi2 of the linear fit of the amplitudes at the given times
+     */
+    private double doLinFit_ejml(double[] times, DMatrixRMaj weightedY, DMatrixRMaj var_vec_ejml, boolean storeResults) {
         
         boolean debug = false;
         boolean canFit = true;
@@ -466,8 +491,8 @@ public class ShaperLinearFitAlgorithm implements ShaperFitAlgorithm, FCNBase {
         //RealVector var_vec = new ArrayRealVector(nUsedSamples);
         
         DMatrixRMaj sc_mat_ejml = new DMatrixRMaj(nAmplitudes,nUsedSamples);
-        DMatrixRMaj y_vec_ejml = new DMatrixRMaj(1,nUsedSamples);
-        DMatrixRMaj var_vec_ejml = new DMatrixRMaj(1,nUsedSamples);
+        // the residuals are computed in place
+        DMatrixRMaj y_vec_ejml = weightedY.copy();
         
         
         /*
@@ -489,13 +514,10 @@ public class ShaperLinearFitAlgorithm implements ShaperFitAlgorithm, FCNBase {
         
         //ejml
         
-        for (int j=0; j<nUsedSamples; j++) {
-            double sigma_j = sigma[firstUsedSample + j];
-            if (fitPedestal) {
-                sc_mat_ejml.set(nFittedPulses,j,1.0/sigma_j);
+        if (fitPedestal) {
+            for (int j=0; j<nUsedSamples; j++) {
+                sc_mat_ejml.set(nFittedPulses,j,1.0/sigma[firstUsedSample + j]);
             }
-            y_vec_ejml.set(0,j,y[firstUsedSample + j] / sigma_j);
-            var_vec_ejml.set(0,j, sigma_j*sigma_j);
         }
         
         if (debug) {
@@ -708,6 +730,9 @@ public class ShaperLinearFitAlgorithm implements ShaperFitAlgorithm, FCNBase {
             System.out.println("PF:: CHECK NOMINAL CHI2="+chisq+"    EJML CHI2="+chisq_ejml);
         */
         
+        if (!storeResults) {
+            return chisq_ejml;
+        }
         for (int i = 0; i < nFittedPulses; i++) {
             //amplitudes[firstFittedPulse + i] = solved_amplitudes.getEntry(i);
             //amplitudeErrors[firstFittedPulse + i] = Math.sqrt(amplitude_err.getEntry(i));
@@ -808,4 +833,19 @@ public class ShaperLinearFitAlgorithm implements ShaperFitAlgorithm, FCNBase {
         return doLinFit_ejml(times);
         //return doLinFit(times);
     }
+
+    /**
+     * Evaluates the points of a numerical derivative with the weighted samples computed once. The amplitudes of the
+     * last point are kept, as when the points are evaluated one by one. The fits have one or two parameters, too few
+     * points for a parallel evaluation to pay off, so the function does not declare itself thread safe.
+     */
+    @Override
+    public double[] valueOf(double[][] points) {
+        DMatrixRMaj[] samples = weightedSamples();
+        double[] values = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            values[i] = doLinFit_ejml(points[i], samples[0], samples[1], i == points.length - 1);
+        }
+        return values;
+    }
 }
@@ -94,7 +94,7 @@ public class SimpleAmbiguityResolver extends AmbiguityResolver {
      * @override
      */
     protected boolean areShared(Track trk1, Track trk2) {
-        if (TrackUtils.numberOfSharedHits(trk1, trk2) > this.shareThreshold)
+        if (hitIndex.numberOfSharedHits(trk1, trk2) > this.shareThreshold)
             return true;
         return false;
     }
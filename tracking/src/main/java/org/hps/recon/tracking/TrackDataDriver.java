@@ -93,6 +93,7 @@ public final class TrackDataDriver extends Driver {
     @Override
     protected void process(EventHeader event) {
         int runNumber = event.getRunNumber();
+        TrackExtrapolations extrapolations = TrackExtrapolations.read(event);
 
         // Check if the event contains a collection of the type Track. If it
         // doesn't skip the event.
@@ -214,21 +215,13 @@ public final class TrackDataDriver extends Driver {
 
                 // Extrapolate the track to the face of the Ecal and get the TrackState
                 if (TrackType.isGBL(track.getType())) {
-                    
-                    TrackState stateEcal = TrackUtils.getTrackExtrapAtEcalRK(track, bFieldMap,runNumber);
-                    if (stateEcal != null)
-                        track.getTrackStates().add(stateEcal);
+                    TrackExtrapolations.addTrackState(track, extrapolations.getAtEcal(track, bFieldMap, runNumber));
                 }
 
                 // Extrapolate the track to the face of the Hodoscope and get the TrackState
                 if (TrackType.isGBL(track.getType())) {
-                    TrackState stateHodo1 = TrackUtils.getTrackExtrapAtHodoRK(track, bFieldMap, 1);
-                    if (stateHodo1 != null)
-                        track.getTrackStates().add(stateHodo1);
-
-                    TrackState stateHodo2 = TrackUtils.getTrackExtrapAtHodoRK(track, bFieldMap, 2);
-                    if (stateHodo2 != null)
-                        track.getTrackStates().add(stateHodo2);
+                    TrackExtrapolations.addTrackState(track, extrapolations.getAtHodo(track, bFieldMap, 1));
+                    TrackExtrapolations.addTrackState(track, extrapolations.getAtHodo(track, bFieldMap, 2));
                 }
 
                 LOGGER.fine(Integer.toString(track.getTrackStates().size()) + " track states for this track at this point:");
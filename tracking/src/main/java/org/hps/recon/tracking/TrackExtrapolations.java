@@ -0,0 +1,164 @@
+package org.hps.recon.tracking;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackState;
+import org.lcsim.event.base.BaseTrackState;
+import org.lcsim.geometry.FieldMap;
+
+/**
+ * Per-event cache of the Runge-Kutta extrapolations of tracks to the standard surfaces downstream of the tracker
+ * (ECal face and hodoscope layers).
+ * <p>
+ * Each track is stepped through the field map at most once per surface and event; later requests for the same track
+ * and surface return the same {@link BaseTrackState}, or <code>null</code> again if the track could not be
+ * extrapolated. {@link org.hps.recon.tracking.gbl.SimpleGBLTrajAliDriver} extrapolates its refitted tracks to the
+ * ECal through the cache, so that {@link TrackDataDriver} run on them afterwards reuses these states. Drivers that add
+ * the extrapolated states to the track should do so with {@link #addTrackState(Track, TrackState)}, so that a state
+ * is never added twice when several drivers ask for it. Consumers that only need the states already on the track
+ * should keep using {@link TrackStateUtils#getTrackStateAtECal(Track)} and friends.
+ * <p>
+ * The cache is stored as an event item, not as a collection, so it is not written to LCIO. It assumes that the field
+ * map and run number are fixed within an event.
+ */
+public final class TrackExtrapolations {
+
+    /**
+     * Name of the event item holding the cache.
+     */
+    public static final String COLLECTION_NAME = "TrackExtrapolations";
+
+    private static final int ECAL = 0;
+    private static final int HODO_L1 = 1;
+    private static final int HODO_L2 = 2;
+    private static final int N_SURFACES = 3;
+
+    /**
+     * Extrapolation of a track to one of the surfaces.
+     */
+    interface Extrapolator {
+
+        /**
+         * @param track the track
+         * @param fieldMap the field map
+         * @param surface the surface: the ECal face, or hodoscope layer 1 or 2
+         * @param runNumber the run number
+         * @return the state at the surface, or <code>null</code> if the track cannot be extrapolated
+         */
+        BaseTrackState extrapolate(Track track, FieldMap fieldMap, int surface, int runNumber);
+    }
+
+    private static final Extrapolator RUNGE_KUTTA = new Extrapolator() {
+        public BaseTrackState extrapolate(Track track, FieldMap fieldMap, int surface, int runNumber) {
+            if (surface == ECAL) {
+                return TrackUtils.getTrackExtrapAtEcalRK(track, fieldMap, runNumber);
+            }
+            return TrackUtils.getTrackExtrapAtHodoRK(track, fieldMap, surface == HODO_L2 ? 2 : 1);
+        }
+    };
+
+    /**
+     * Extrapolations of a track, including the ones that gave no state.
+     */
+    private static final class Entry {
+
+        final BaseTrackState[] states = new BaseTrackState[N_SURFACES];
+        final boolean[] done = new boolean[N_SURFACES];
+    }
+
+    private final Map<Track, Entry> entries = new IdentityHashMap<Track, Entry>();
+    private final Extrapolator extrapolator;
+
+    private TrackExtrapolations() {
+        this(RUNGE_KUTTA);
+    }
+
+    TrackExtrapolations(Extrapolator extrapolator) {
+        this.extrapolator = extrapolator;
+    }
+
+    /**
+     * Get the extrapolation cache of an event, creating an empty one if it is not there yet.
+     *
+     * @param event the event
+     * @return the extrapolation cache
+     */
+    public static TrackExtrapolations read(final EventHeader event) {
+        if (event.hasItem(COLLECTION_NAME)) {
+            return (TrackExtrapolations) event.get(COLLECTION_NAME);
+        }
+        final TrackExtrapolations extrapolations = new TrackExtrapolations();
+        event.put(COLLECTION_NAME, extrapolations);
+        return extrapolations;
+    }
+
+    /**
+     * Add a state to a track unless that same state object is already there.
+     *
+     * @param track the track
+     * @param state the state, may be <code>null</code>
+     * @return true if the state was added
+     */
+    public static boolean addTrackState(final Track track, final TrackState state) {
+        if (state == null) {
+            return false;
+        }
+        final List<TrackState> trackStates = track.getTrackStates();
+        for (final TrackState existing : trackStates) {
+            if (existing == state) {
+                return false;
+            }
+        }
+        trackStates.add(state);
+        return true;
+    }
+
+    /**
+     * Get the state of a track at the ECal face, see {@link TrackUtils#getTrackExtrapAtEcalRK(Track, FieldMap, int)}.
+     *
+     * @param track the track
+     * @param fieldMap the field map
+     * @param runNumber the run number, which selects the ECal position
+     * @return the state at the ECal face, or <code>null</code> if the track has no state at the last hit
+     */
+    public BaseTrackState getAtEcal(final Track track, final FieldMap fieldMap, final int runNumber) {
+        return get(track, fieldMap, ECAL, runNumber);
+    }
+
+    /**
+     * Get the state of a track at a hodoscope layer, see
+     * {@link TrackUtils#getTrackExtrapAtHodoRK(Track, FieldMap, int)}.
+     *
+     * @param track the track
+     * @param fieldMap the field map
+     * @param hodoLayer the hodoscope layer, 1 or 2
+     * @return the state at the hodoscope layer, or <code>null</code> if the track has no state at the last hit
+     */
+    public BaseTrackState getAtHodo(final Track track, final FieldMap fieldMap, final int hodoLayer) {
+        return get(track, fieldMap, hodoLayer == 2 ? HODO_L2 : HODO_L1, 0);
+    }
+
+    /**
+     * @return number of tracks with at least one cached extrapolation
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private BaseTrackState get(final Track track, final FieldMap fieldMap, final int surface, final int runNumber) {
+        Entry entry = entries.get(track);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(track, entry);
+        }
+        if (!entry.done[surface]) {
+            entry.states[surface] = extrapolator.extrapolate(track, fieldMap, surface, runNumber);
+            entry.done[surface] = true;
+        }
+        return entry.states[surface];
+    }
+}
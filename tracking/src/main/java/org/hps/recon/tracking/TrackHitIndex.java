@@ -0,0 +1,244 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackerHit;
+
+/**
+ * Incidence index between tracks and their hits. Every distinct hit gets an integer index, every track a sorted array
+ * of the indices of its hits, and every hit the list of tracks using it. Shared-hit counts between two tracks are then
+ * a merge of two short sorted arrays, and whether a hit is used by another track is a single lookup, instead of
+ * rescanning the hit lists of all other tracks as in {@link TrackUtils#isSharedHit(TrackerHit, List)}.
+ * <p>
+ * Hits are compared with <code>equals</code>, like in {@link TrackUtils}; tracks by identity.
+ */
+public class TrackHitIndex {
+
+    private final Map<TrackerHit, Integer> hitIndices = new HashMap<TrackerHit, Integer>();
+    private final List<List<Track>> hitTracks = new ArrayList<List<Track>>();
+    private final Map<Track, int[]> trackHits = new IdentityHashMap<Track, int[]>();
+    private final Map<Track, Integer> trackOrder = new IdentityHashMap<Track, Integer>();
+
+    public TrackHitIndex() {
+    }
+
+    /**
+     * @param tracks the tracks to index
+     */
+    public TrackHitIndex(List<Track> tracks) {
+        addTracks(tracks);
+    }
+
+    public void addTracks(List<Track> tracks) {
+        for (Track track : tracks) {
+            addTrack(track);
+        }
+    }
+
+    /**
+     * Add a track and its hits to the index.
+     *
+     * @param track the track
+     * @return false if the track was already in the index
+     */
+    public boolean addTrack(Track track) {
+        if (trackHits.containsKey(track)) {
+            return false;
+        }
+        List<TrackerHit> hits = track.getTrackerHits();
+        int[] indices = new int[hits.size()];
+        int n = 0;
+        for (TrackerHit hit : hits) {
+            Integer index = hitIndices.get(hit);
+            if (index == null) {
+                index = hitTracks.size();
+                hitIndices.put(hit, index);
+                hitTracks.add(new ArrayList<Track>(2));
+            }
+            indices[n++] = index;
+        }
+        Arrays.sort(indices);
+        // a hit listed twice on a track counts once
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || indices[i] != indices[unique - 1]) {
+                indices[unique++] = indices[i];
+                hitTracks.get(indices[i]).add(track);
+            }
+        }
+        trackHits.put(track, unique == n ? indices : Arrays.copyOf(indices, unique));
+        trackOrder.put(track, trackOrder.size());
+        return true;
+    }
+
+    public void clear() {
+        hitIndices.clear();
+        hitTracks.clear();
+        trackHits.clear();
+        trackOrder.clear();
+    }
+
+    public boolean contains(Track track) {
+        return trackHits.containsKey(track);
+    }
+
+    /**
+     * @param hit the hit
+     * @return the number of tracks in the index using the hit
+     */
+    public int getTrackCount(TrackerHit hit) {
+        Integer index = hitIndices.get(hit);
+        return index == null ? 0 : hitTracks.get(index).size();
+    }
+
+    /**
+     * @param hit the hit
+     * @return the tracks in the index using the hit, in the order they were added
+     */
+    public List<Track> getTracks(TrackerHit hit) {
+        Integer index = hitIndices.get(hit);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(hitTracks.get(index));
+    }
+
+    /**
+     * @param hit the hit
+     * @param track the track the hit is on
+     * @return true if a track in the index other than the given one uses the hit
+     */
+    public boolean isSharedHit(TrackerHit hit, Track track) {
+        Integer index = hitIndices.get(hit);
+        if (index == null) {
+            return false;
+        }
+        for (Track other : hitTracks.get(index)) {
+            if (other != track) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param track a track in the index
+     * @return the number of hits of the track that are used by any other track in the index, as
+     *         {@link TrackUtils#numberOfSharedHits(Track, List)}
+     */
+    public int numberOfSharedHits(Track track) {
+        int nShared = 0;
+        for (int index : getHitIndices(track)) {
+            if (hitTracks.get(index).size() > 1) {
+                nShared++;
+            }
+        }
+        return nShared;
+    }
+
+    /**
+     * @param track1 a track in the index
+     * @param track2 a track in the index
+     * @return the number of hits the two tracks have in common, 0 if they are the same track, as
+     *         {@link TrackUtils#numberOfSharedHits(Track, Track)}
+     */
+    public int numberOfSharedHits(Track track1, Track track2) {
+        if (track1 == track2) {
+            return 0;
+        }
+        final int[] hits1 = getHitIndices(track1);
+        final int[] hits2 = getHitIndices(track2);
+        int nShared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < hits1.length && j < hits2.length) {
+            if (hits1[i] < hits2[j]) {
+                i++;
+            } else if (hits1[i] > hits2[j]) {
+                j++;
+            } else {
+                nShared++;
+                i++;
+                j++;
+            }
+        }
+        return nShared;
+    }
+
+    /**
+     * @param track a track in the index
+     * @param other a track in the index
+     * @return true if all hits of <code>other</code> are on <code>track</code>
+     */
+    public boolean containsAll(Track track, Track other) {
+        final int[] hits = getHitIndices(track);
+        final int[] otherHits = getHitIndices(other);
+        if (otherHits.length > hits.length) {
+            return false;
+        }
+        int i = 0;
+        for (int index : otherHits) {
+            while (i < hits.length && hits[i] < index) {
+                i++;
+            }
+            if (i == hits.length || hits[i] != index) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * @param track a track in the index
+     * @return the other tracks in the index that share at least one hit with the track, each once, in no particular
+     *         order
+     */
+    public List<Track> getSharingTracks(Track track) {
+        List<Track> sharing = new ArrayList<Track>();
+        Map<Track, Boolean> seen = new IdentityHashMap<Track, Boolean>();
+        seen.put(track, Boolean.TRUE);
+        for (int index : getHitIndices(track)) {
+            for (Track other : hitTracks.get(index)) {
+                if (seen.put(other, Boolean.TRUE) == null) {
+                    sharing.add(other);
+                }
+            }
+        }
+        return sharing;
+    }
+
+    /**
+     * @param track a track in the index
+     * @return the track sharing the most hits with the given one, the first added on a tie, or the track itself if
+     *         it shares no hits, as {@link TrackUtils#mostSharedHitTrack(Track, List)}
+     */
+    public Track mostSharedHitTrack(Track track) {
+        Track sharedTrack = track;
+        int mostShared = 0;
+        for (Track other : getSharingTracks(track)) {
+            int nShared = numberOfSharedHits(track, other);
+            if (nShared > mostShared
+                    || (nShared == mostShared && trackOrder.get(other) < trackOrder.get(sharedTrack))) {
+                mostShared = nShared;
+                sharedTrack = other;
+            }
+        }
+        return sharedTrack;
+    }
+
+    private int[] getHitIndices(Track track) {
+        int[] indices = trackHits.get(track);
+        if (indices == null) {
+            throw new IllegalArgumentException("Track is not in the hit index.");
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,464 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.MCParticle;
+import org.lcsim.event.RawTrackerHit;
+import org.lcsim.event.SimTrackerHit;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackerHit;
+
+/**
+ * Per-event truth association of the SVT: strip hits (<code>RawTrackerHit</code>) to the <code>SimTrackerHit</code>s
+ * that made them, and those to their <code>MCParticle</code>s, in both directions.
+ * <p>
+ * It is built once per event from the <code>SVTTrueHitRelations</code> and the active and inactive
+ * <code>SimTrackerHit</code> collections. Raw hits, sim hits and particles are given integer indices and the relations
+ * are stored as compressed index arrays, so the lookups that the truth-matching code repeats for every hit of every
+ * track (<code>RelationalTable.allFrom</code>, scans of all sim hits for those of one particle) are array reads. The
+ * association is stored as an event item with {@link #read(EventHeader)}, so all truth-matching drivers of a job share
+ * it; it is not written to LCIO. Drivers reading other sim hit collections than the default ones get their own
+ * association, see {@link #read(EventHeader, String, String)}.
+ */
+public final class TrackerTruthAssociation {
+
+    /**
+     * Name of the event item holding the association.
+     */
+    public static final String COLLECTION_NAME = "TrackerTruthAssociation";
+
+    public static final String RELATIONS_COLLECTION_NAME = "SVTTrueHitRelations";
+    public static final String SIM_HITS_COLLECTION_NAME = "TrackerHits";
+    public static final String INACTIVE_SIM_HITS_COLLECTION_NAME = "TrackerHits_Inactive";
+
+    private final Map<RawTrackerHit, Integer> rawIndices = new IdentityHashMap<RawTrackerHit, Integer>();
+    private final Map<SimTrackerHit, Integer> simIndices = new IdentityHashMap<SimTrackerHit, Integer>();
+    private final Map<MCParticle, Integer> particleIndices = new IdentityHashMap<MCParticle, Integer>();
+    private final List<SimTrackerHit> simHits = new ArrayList<SimTrackerHit>();
+    private final List<MCParticle> particles = new ArrayList<MCParticle>();
+    private final List<SimTrackerHit> activeHits;
+
+    // particle index of each sim hit, -1 if none
+    private int[] simParticle = new int[64];
+    // raw hit -> sim hits
+    private int[] rawSimStart;
+    private int[] rawSimHits;
+    // particle -> active and inactive sim hits
+    private int[] particleSimStart;
+    private int[] particleSimHits;
+    private int[] particleInactiveStart;
+    private int[] particleInactiveHits;
+    // layers of the active sim hits of each particle
+    private long[] particleLayers;
+
+    // scratch for track matching, indexed by particle
+    private long[] matchLayers;
+
+    /**
+     * Get the truth association of an event, building it if it is not there yet.
+     *
+     * @param event the event
+     * @return the association, or <code>null</code> if the event has no SVT truth relations
+     */
+    public static TrackerTruthAssociation read(final EventHeader event) {
+        return read(event, SIM_HITS_COLLECTION_NAME, INACTIVE_SIM_HITS_COLLECTION_NAME);
+    }
+
+    /**
+     * Get the truth association of an event for the given sim hit collections, building it if it is not there yet.
+     *
+     * @param event the event
+     * @param simHitsCollectionName the sim hits in active silicon
+     * @param inactiveSimHitsCollectionName the sim hits in inactive material
+     * @return the association, or <code>null</code> if the event has no SVT truth relations
+     */
+    public static TrackerTruthAssociation read(final EventHeader event, final String simHitsCollectionName,
+            final String inactiveSimHitsCollectionName) {
+        String itemName = COLLECTION_NAME;
+        if (!SIM_HITS_COLLECTION_NAME.equals(simHitsCollectionName)
+                || !INACTIVE_SIM_HITS_COLLECTION_NAME.equals(inactiveSimHitsCollectionName)) {
+            itemName += "_" + simHitsCollectionName + "_" + inactiveSimHitsCollectionName;
+        }
+        if (event.hasItem(itemName)) {
+            return (TrackerTruthAssociation) event.get(itemName);
+        }
+        if (!event.hasCollection(LCRelation.class, RELATIONS_COLLECTION_NAME)) {
+            return null;
+        }
+        final TrackerTruthAssociation truth = new TrackerTruthAssociation(event.get(LCRelation.class,
+                RELATIONS_COLLECTION_NAME), getSimHits(event, simHitsCollectionName), getSimHits(event,
+                inactiveSimHitsCollectionName));
+        event.put(itemName, truth);
+        return truth;
+    }
+
+    private static List<SimTrackerHit> getSimHits(final EventHeader event, final String collectionName) {
+        if (event.hasCollection(SimTrackerHit.class, collectionName)) {
+            return event.get(SimTrackerHit.class, collectionName);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Build the association.
+     *
+     * @param relations the raw hit to sim hit relations
+     * @param activeHits the sim hits in active silicon
+     * @param inactiveHits the sim hits in inactive material, may be empty
+     */
+    public TrackerTruthAssociation(List<LCRelation> relations, List<SimTrackerHit> activeHits,
+            List<SimTrackerHit> inactiveHits) {
+
+        this.activeHits = activeHits;
+        for (SimTrackerHit hit : activeHits) {
+            indexSimHit(hit);
+        }
+        final int nActive = simHits.size();
+
+        // raw -> sim pairs, in relation order
+        int[] pairRaw = new int[relations.size()];
+        int[] pairSim = new int[relations.size()];
+        int nPairs = 0;
+        for (LCRelation relation : relations) {
+            if (relation == null || relation.getFrom() == null || relation.getTo() == null) {
+                continue;
+            }
+            RawTrackerHit raw = (RawTrackerHit) relation.getFrom();
+            Integer rawIndex = rawIndices.get(raw);
+            if (rawIndex == null) {
+                rawIndex = rawIndices.size();
+                rawIndices.put(raw, rawIndex);
+            }
+            pairRaw[nPairs] = rawIndex;
+            pairSim[nPairs] = indexSimHit((SimTrackerHit) relation.getTo());
+            nPairs++;
+        }
+        final int nRaw = rawIndices.size();
+        rawSimStart = new int[nRaw + 1];
+        rawSimHits = new int[nPairs];
+        rawSimHits = Arrays.copyOf(rawSimHits, fill(nRaw, pairRaw, pairSim, nPairs, rawSimStart, rawSimHits));
+
+        // particle -> inactive sim hits; these get indices after the active and related ones
+        final int firstInactive = simHits.size();
+        for (SimTrackerHit hit : inactiveHits) {
+            indexSimHit(hit);
+        }
+        final int nParticles = particles.size();
+        particleSimStart = new int[nParticles + 1];
+        particleSimHits = new int[nActive];
+        particleLayers = new long[nParticles];
+        groupByParticle(0, nActive, particleSimStart, particleSimHits);
+        for (int s = 0; s < nActive; s++) {
+            int p = simParticle[s];
+            int layer = simHits.get(s).getLayer();
+            if (p >= 0 && layer >= 0 && layer < 64) {
+                particleLayers[p] |= 1L << layer;
+            }
+        }
+        particleInactiveStart = new int[nParticles + 1];
+        particleInactiveHits = new int[simHits.size() - firstInactive];
+        groupByParticle(firstInactive, simHits.size(), particleInactiveStart, particleInactiveHits);
+
+        matchLayers = new long[nParticles];
+    }
+
+    private int indexSimHit(SimTrackerHit hit) {
+        Integer index = simIndices.get(hit);
+        if (index != null) {
+            return index;
+        }
+        index = simHits.size();
+        simIndices.put(hit, index);
+        simHits.add(hit);
+        if (index == simParticle.length) {
+            simParticle = Arrays.copyOf(simParticle, 2 * index);
+        }
+        MCParticle particle = hit.getMCParticle();
+        if (particle == null) {
+            simParticle[index] = -1;
+        } else {
+            Integer p = particleIndices.get(particle);
+            if (p == null) {
+                p = particles.size();
+                particleIndices.put(particle, p);
+                particles.add(particle);
+            }
+            simParticle[index] = p;
+        }
+        return index;
+    }
+
+    /**
+     * Fill compressed rows from (row, value) pairs, keeping the pair order within a row and dropping repeated values.
+     *
+     * @return the number of values stored
+     */
+    private static int fill(int nRows, int[] rows, int[] values, int nPairs, int[] start, int[] out) {
+        int[] count = new int[nRows + 1];
+        for (int i = 0; i < nPairs; i++) {
+            count[rows[i] + 1]++;
+        }
+        for (int r = 0; r < nRows; r++) {
+            count[r + 1] += count[r];
+        }
+        int[] tmp = new int[nPairs];
+        int[] pos = Arrays.copyOf(count, nRows);
+        for (int i = 0; i < nPairs; i++) {
+            tmp[pos[rows[i]]++] = values[i];
+        }
+        int n = 0;
+        for (int r = 0; r < nRows; r++) {
+            start[r] = n;
+            for (int i = count[r]; i < count[r + 1]; i++) {
+                boolean repeated = false;
+                for (int j = start[r]; j < n; j++) {
+                    if (out[j] == tmp[i]) {
+                        repeated = true;
+                        break;
+                    }
+                }
+                if (!repeated) {
+                    out[n++] = tmp[i];
+                }
+            }
+        }
+        start[nRows] = n;
+        return n;
+    }
+
+    private void groupByParticle(int firstSim, int lastSim, int[] start, int[] out) {
+        final int nParticles = start.length - 1;
+        int[] count = new int[nParticles + 1];
+        for (int s = firstSim; s < lastSim; s++) {
+            if (simParticle[s] >= 0) {
+                count[simParticle[s] + 1]++;
+            }
+        }
+        for (int p = 0; p < nParticles; p++) {
+            count[p + 1] += count[p];
+        }
+        System.arraycopy(count, 0, start, 0, nParticles + 1);
+        int[] pos = Arrays.copyOf(count, nParticles);
+        for (int s = firstSim; s < lastSim; s++) {
+            if (simParticle[s] >= 0) {
+                out[pos[simParticle[s]]++] = s;
+            }
+        }
+    }
+
+    /**
+     * @param rawHit a strip hit
+     * @return the sim hits that made the strip hit, as <code>RelationalTable.allFrom</code> of the truth relations
+     */
+    public List<SimTrackerHit> getSimHits(RawTrackerHit rawHit) {
+        Integer r = rawIndices.get(rawHit);
+        if (r == null) {
+            return Collections.emptyList();
+        }
+        return simHitList(rawSimHits, rawSimStart[r], rawSimStart[r + 1]);
+    }
+
+    /**
+     * @param particle a particle
+     * @return the particle's sim hits in active silicon, in collection order
+     */
+    public List<SimTrackerHit> getSimHits(MCParticle particle) {
+        Integer p = particleIndices.get(particle);
+        if (p == null) {
+            return Collections.emptyList();
+        }
+        return simHitList(particleSimHits, particleSimStart[p], particleSimStart[p + 1]);
+    }
+
+    /**
+     * @param particle a particle
+     * @return the particle's sim hits in inactive material, in collection order
+     */
+    public List<SimTrackerHit> getInactiveSimHits(MCParticle particle) {
+        Integer p = particleIndices.get(particle);
+        if (p == null) {
+            return Collections.emptyList();
+        }
+        return simHitList(particleInactiveHits, particleInactiveStart[p], particleInactiveStart[p + 1]);
+    }
+
+    /**
+     * @param particle a particle
+     * @return the layers with a sim hit of the particle in active silicon
+     */
+    public Set<Integer> getLayers(MCParticle particle) {
+        Integer p = particleIndices.get(particle);
+        return toLayers(p == null ? 0 : particleLayers[p]);
+    }
+
+    /**
+     * @param particle a particle
+     * @return the number of layers with a sim hit of the particle in active silicon
+     */
+    public int getLayerCount(MCParticle particle) {
+        Integer p = particleIndices.get(particle);
+        return p == null ? 0 : Long.bitCount(particleLayers[p]);
+    }
+
+    /**
+     * @param hits a list of sim hits
+     * @return true if the particle lookups of this association are over exactly this list of active sim hits
+     */
+    public boolean isActiveSimHits(List<SimTrackerHit> hits) {
+        return hits == activeHits;
+    }
+
+    /**
+     * Match a track to the particle whose sim hits made its strip hits on the most layers, as
+     * <code>TrackTruthMatching</code> does. The layers of a particle are those of its sim hits
+     * (<code>SimTrackerHit.getLayer()</code>) related to the strip hits of the track. Ties go to the particle with the
+     * highest energy.
+     *
+     * @param track the track
+     * @param isKalman true if each hit of the track is a single strip; otherwise each hit is a pair of strips and counts
+     *            as two hits
+     * @return the match
+     */
+    public TrackMatch matchTrack(Track track, boolean isKalman) {
+        long trackLayers = 0;
+        int[] seen = new int[8];
+        int nSeen = 0;
+        for (TrackerHit hit : track.getTrackerHits()) {
+            for (RawTrackerHit rawHit : hit.getRawHits()) {
+                trackLayers |= layerBit(rawHit.getLayerNumber());
+                Integer r = rawIndices.get(rawHit);
+                if (r == null) {
+                    continue;
+                }
+                for (int k = rawSimStart[r]; k < rawSimStart[r + 1]; k++) {
+                    final int s = rawSimHits[k];
+                    final int p = simParticle[s];
+                    if (p < 0) {
+                        continue;
+                    }
+                    if (matchLayers[p] == 0) {
+                        if (nSeen == seen.length) {
+                            seen = Arrays.copyOf(seen, 2 * nSeen);
+                        }
+                        seen[nSeen++] = p;
+                    }
+                    // keeps the particle seen even if its layer is out of range
+                    matchLayers[p] |= layerBit(simHits.get(s).getLayer()) | Long.MIN_VALUE;
+                }
+            }
+        }
+        int best = -1;
+        int bestCount = 0;
+        for (int i = 0; i < nSeen; i++) {
+            final int p = seen[i];
+            final int count = Long.bitCount(matchLayers[p] & Long.MAX_VALUE);
+            if (count > bestCount || (count == bestCount && count > 0
+                    && particles.get(p).getEnergy() > particles.get(best).getEnergy())) {
+                bestCount = count;
+                best = p;
+            }
+        }
+        final long bestLayers = best >= 0 ? matchLayers[best] & Long.MAX_VALUE : 0;
+        for (int i = 0; i < nSeen; i++) {
+            matchLayers[seen[i]] = 0;
+        }
+        final int nHits = track.getTrackerHits().size() * (isKalman ? 1 : 2);
+        return new TrackMatch(best >= 0 ? particles.get(best) : null, nHits, trackLayers, bestLayers);
+    }
+
+    private static long layerBit(int layer) {
+        return layer >= 0 && layer < 63 ? 1L << layer : 0;
+    }
+
+    private List<SimTrackerHit> simHitList(int[] indices, int from, int to) {
+        List<SimTrackerHit> list = new ArrayList<SimTrackerHit>(to - from);
+        for (int k = from; k < to; k++) {
+            list.add(simHits.get(indices[k]));
+        }
+        return list;
+    }
+
+    private static Set<Integer> toLayers(long mask) {
+        Set<Integer> layers = new TreeSet<Integer>();
+        for (long m = mask; m != 0; m &= m - 1) {
+            layers.add(Long.numberOfTrailingZeros(m));
+        }
+        return layers;
+    }
+
+    /**
+     * Result of {@link TrackerTruthAssociation#matchTrack(Track, boolean)}.
+     */
+    public static final class TrackMatch {
+
+        private final MCParticle particle;
+        private final int nHits;
+        private final long trackLayers;
+        private final long goodLayers;
+
+        private TrackMatch(MCParticle particle, int nHits, long trackLayers, long goodLayers) {
+            this.particle = particle;
+            this.nHits = nHits;
+            this.trackLayers = trackLayers;
+            this.goodLayers = goodLayers;
+        }
+
+        /**
+         * @return the best-matching particle, or <code>null</code> if no particle contributed to the track
+         */
+        public MCParticle getMCParticle() {
+            return particle;
+        }
+
+        /**
+         * @return number of strip hits of the track
+         */
+        public int getNHits() {
+            return nHits;
+        }
+
+        /**
+         * @return number of layers where the best particle contributed to the hits on the track
+         */
+        public int getNGoodHits() {
+            return Long.bitCount(goodLayers);
+        }
+
+        /**
+         * @return hits minus good hits
+         */
+        public int getNBadHits() {
+            return nHits - getNGoodHits();
+        }
+
+        /**
+         * @return good hits / hits, 0 for a track without hits
+         */
+        public double getPurity() {
+            return nHits == 0 ? 0 : (double) getNGoodHits() / nHits;
+        }
+
+        /**
+         * @return the layers of the strip hits of the track
+         */
+        public Set<Integer> getLayersOnTrack() {
+            return toLayers(trackLayers);
+        }
+
+        /**
+         * @return the layers where the best particle contributed to the hits on the track
+         */
+        public Set<Integer> getGoodHitLayers() {
+            return toLayers(goodLayers);
+        }
+    }
+}
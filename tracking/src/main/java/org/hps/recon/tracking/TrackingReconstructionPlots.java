@@ -208,6 +208,7 @@ public class TrackingReconstructionPlots extends Driver {
         double momentum_param = 2.99792458e-04;
 
         aida.histogram1D("Tracks per Event").fill(tracks.size());
+        TrackHitIndex hitIndex = new TrackHitIndex(tracks);
 
         for (Track trk : tracks) {
 
@@ -216,8 +217,8 @@ public class TrackingReconstructionPlots extends Driver {
                 isTop = true;
             }
 
-            Track trackShared = TrackUtils.mostSharedHitTrack(trk, tracks);
-            int maxShared = TrackUtils.numberOfSharedHits(trk, trackShared);
+            Track trackShared = hitIndex.mostSharedHitTrack(trk);
+            int maxShared = hitIndex.numberOfSharedHits(trk, trackShared);
             aida.histogram1D("Shared Hits on Track").fill(maxShared);
 
             double pt = Math.abs((1 / trk.getTrackStates().get(0).getOmega()) * bfield * momentum_param);
@@ -0,0 +1,237 @@
+package org.hps.recon.tracking.gbl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hep.physics.vec.Hep3Matrix;
+import hep.physics.vec.Hep3Vector;
+
+import org.hps.recon.tracking.gbl.matrix.Matrix;
+import org.lcsim.detector.tracker.silicon.AlignableDetectorElement;
+import org.lcsim.detector.tracker.silicon.HpsSiSensor;
+import org.lcsim.detector.tracker.silicon.SiSensor;
+
+/**
+ * Frame-to-frame derivative matrices of the composite alignment structures, computed once per detector for each
+ * sensor, so that the global derivatives of a hit with respect to the structures holding its sensor are obtained with
+ * a few 6x6 products on primitive arrays instead of rebuilding the matrices from the geometry for every hit.
+ * <p>
+ * For the structure alignment the levels are the alignable mother of the sensor and its parent; the derivatives of
+ * each level are the sensor derivatives times the C matrix of the sensor frame in the level frame, and the labels are
+ * the sensor labels with the millepede ID of the level. For the center of mass alignment the levels are the parents
+ * of the sensor in the alignable volume tree; the C matrices are chained from level to level and the labels are the
+ * ones of the volumes.
+ */
+final class AlignmentDerivativeCache {
+
+    /** Number of rigid body parameters of an alignable structure. */
+    static final int NPARS = 6;
+
+    private final Map<Integer, Entry> entries = new HashMap<Integer, Entry>();
+
+    /**
+     * The derivative tables of one sensor.
+     */
+    static final class Entry {
+
+        private final HpsSiSensor sensor;
+        private final String[] names;
+        private final double[][] cMatrices;
+        private final int[] millepedeIds;
+        private final int[][] labels;
+        private final boolean chained;
+
+        /**
+         * @param cMatrices the row packed C matrices of the levels, or null if the sensor is not in the tree
+         * @param millepedeIds the millepede IDs of the levels, which replace the sensor ID in the sensor labels
+         * @param labels the labels of the levels, or null to use <code>millepedeIds</code>
+         * @param chained true if the C matrix of a level applies to the derivatives of the previous level
+         */
+        Entry(HpsSiSensor sensor, String[] names, double[][] cMatrices, int[] millepedeIds, int[][] labels,
+                boolean chained) {
+            this.sensor = sensor;
+            this.names = names;
+            this.cMatrices = cMatrices;
+            this.millepedeIds = millepedeIds;
+            this.labels = labels;
+            this.chained = chained;
+        }
+
+        HpsSiSensor getSensor() {
+            return sensor;
+        }
+
+        /**
+         * @return false if the sensor is not in the alignable volume tree, in which case there are no levels
+         */
+        boolean isInTree() {
+            return cMatrices != null;
+        }
+
+        int getNumLevels() {
+            return cMatrices == null ? 0 : cMatrices.length;
+        }
+
+        String getLevelName(int level) {
+            return names[level];
+        }
+
+        /**
+         * @return the C matrix of a level, row packed
+         */
+        double[] getCMatrix(int level) {
+            return cMatrices[level];
+        }
+
+        /**
+         * Compute the derivatives of all the levels.
+         *
+         * @param sensorDers the derivatives with respect to the sensor parameters
+         * @param sensorLabels the labels of the sensor parameters
+         * @param ders output: the derivatives, <code>NPARS</code> per level
+         * @param outLabels output: the labels, <code>NPARS</code> per level
+         */
+        void computeDerivatives(double[] sensorDers, int[] sensorLabels, double[] ders, int[] outLabels) {
+            if (sensorDers.length != NPARS) {
+                throw new IllegalArgumentException("Matrix inner dimensions must agree.");
+            }
+            double[] in = sensorDers;
+            int offset = 0;
+            for (int level = 0; level < cMatrices.length; level++) {
+                final double[] c = cMatrices[level];
+                for (int j = 0; j < NPARS; j++) {
+                    double s = 0;
+                    for (int k = 0; k < NPARS; k++) {
+                        s += in[k] * c[k * NPARS + j];
+                    }
+                    ders[offset + j] = s;
+                    outLabels[offset + j] = labels != null ? labels[level][j]
+                            : (sensorLabels[j] / 100) * 100 + millepedeIds[level];
+                }
+                if (chained) {
+                    in = new double[NPARS];
+                    System.arraycopy(ders, offset, in, 0, NPARS);
+                }
+                offset += NPARS;
+            }
+        }
+    }
+
+    private AlignmentDerivativeCache() {
+    }
+
+    /**
+     * Build the tables for the structure alignment. The alignable mothers of the sensors must be assigned.
+     *
+     * @param sensors the sensors
+     * @return the tables
+     */
+    static AlignmentDerivativeCache forStructures(List<SiSensor> sensors) {
+        AlignmentDerivativeCache cache = new AlignmentDerivativeCache();
+        FrameToFrameDers f2fD = new FrameToFrameDers();
+        for (SiSensor sensor : sensors) {
+            HpsSiSensor hpsSensor = (HpsSiSensor) sensor;
+            AlignableDetectorElement mother = hpsSensor.getAdeMother();
+            if (mother == null || !(mother.getParent() instanceof AlignableDetectorElement)) {
+                continue;
+            }
+            AlignableDetectorElement[] levels = {mother, (AlignableDetectorElement) mother.getParent()};
+
+            Hep3Matrix Rgtos = hpsSensor.getGeometry().getLocalToGlobal().getRotation().getRotationMatrix();
+            Hep3Vector Tgtos = hpsSensor.getGeometry().getLocalToGlobal().getTranslation().getTranslationVector();
+
+            String[] names = new String[levels.length];
+            double[][] cMatrices = new double[levels.length][];
+            int[] millepedeIds = new int[levels.length];
+            for (int level = 0; level < levels.length; level++) {
+                Hep3Matrix Rgtoc = levels[level].getlocalToGlobal().getRotation().getRotationMatrix();
+                Hep3Vector Tgtoc = levels[level].getlocalToGlobal().getTranslation().getTranslationVector();
+                names[level] = levels[level].getName();
+                cMatrices[level] = f2fD.getDerivative(Rgtos, Rgtoc, Tgtos, Tgtoc).getRowPackedCopy();
+                millepedeIds[level] = levels[level].getMillepedeId();
+            }
+            cache.put(hpsSensor, new Entry(hpsSensor, names, cMatrices, millepedeIds, null, false));
+        }
+        return cache;
+    }
+
+    /**
+     * Build the tables for the center of mass alignment.
+     *
+     * @param sensors the sensors
+     * @param asb the alignable volume tree
+     * @return the tables
+     */
+    static AlignmentDerivativeCache forAlignableVolumes(List<SiSensor> sensors, AlignmentStructuresBuilder asb) {
+        AlignmentDerivativeCache cache = new AlignmentDerivativeCache();
+        for (SiSensor sensor : sensors) {
+            HpsSiSensor hpsSensor = (HpsSiSensor) sensor;
+            AlignableVolume alignableSensor = asb.getAlignableVolume(hpsSensor.getName() + "_AV");
+            if (alignableSensor == null) {
+                cache.put(hpsSensor, new Entry(hpsSensor, null, null, null, null, true));
+                continue;
+            }
+            int nLevels = 0;
+            for (AlignableVolume parent = alignableSensor.getParent(); parent != null; parent = parent.getParent()) {
+                nLevels++;
+            }
+            String[] names = new String[nLevels];
+            double[][] cMatrices = new double[nLevels][];
+            int[][] labels = new int[nLevels][NPARS];
+            String daughterName = alignableSensor.getName();
+            AlignableVolume parent = alignableSensor.getParent();
+            for (int level = 0; level < nLevels; level++) {
+                names[level] = parent.getName();
+                cMatrices[level] = parent.getCMatrix(daughterName).getRowPackedCopy();
+                List<Integer> parentLabels = parent.getLabels();
+                for (int j = 0; j < NPARS && j < parentLabels.size(); j++) {
+                    labels[level][j] = parentLabels.get(j);
+                }
+                daughterName = parent.getName();
+                parent = parent.getParent();
+            }
+            cache.put(hpsSensor, new Entry(hpsSensor, names, cMatrices, null, labels, true));
+        }
+        return cache;
+    }
+
+    /**
+     * Get the tables of the sensor of a hit, identified as in the millepede labels.
+     *
+     * @param volume 2 for the bottom volume, the top volume otherwise
+     * @param millepedeId the millepede ID of the sensor
+     * @return the tables, or null if there is no such sensor
+     */
+    Entry get(int volume, int millepedeId) {
+        return entries.get(key(volume == 2 ? 2 : 1, millepedeId));
+    }
+
+    // Same match as the sensor search of the driver: the last sensor with the millepede ID whose name contains the
+    // volume letter.
+    private void put(HpsSiSensor sensor, Entry entry) {
+        if (sensor.getName().contains("t")) {
+            entries.put(key(1, sensor.getMillepedeId()), entry);
+        }
+        if (sensor.getName().contains("b")) {
+            entries.put(key(2, sensor.getMillepedeId()), entry);
+        }
+    }
+
+    private static int key(int volume, int millepedeId) {
+        return volume * 1000 + millepedeId;
+    }
+
+    /**
+     * Print a row packed C matrix.
+     */
+    static void print(double[] cMatrix) {
+        Matrix m = new Matrix(NPARS, NPARS);
+        for (int i = 0; i < NPARS; i++) {
+            for (int j = 0; j < NPARS; j++) {
+                m.set(i, j, cMatrix[i * NPARS + j]);
+            }
+        }
+        m.print(6, 6);
+    }
+}
@@ -8,6 +8,7 @@ import hep.physics.vec.Hep3Vector;
 import hep.physics.vec.BasicHep3Vector;
 
 import org.apache.commons.math3.util.Pair;
+import org.hps.recon.tracking.EventTimeBudget;
 import org.hps.recon.tracking.MaterialSupervisor;
 import org.hps.recon.tracking.MultipleScattering;
 import org.hps.recon.tracking.TrackUtils;
@@ -226,7 +227,14 @@ public class GBLRefitterDriver extends Driver {
         List<LCRelation> trackResidualsRelations          = new ArrayList<LCRelation>();
         
         //Map<Track, Track> inputToRefitted = new HashMap<Track, Track>();
+        EventTimeBudget budget = EventTimeBudget.instance();
         for (Track track : tracks) {
+            // Once the event time budget is used up the remaining tracks are not refit and have no GBL track;
+            // the event is flagged as degraded so that it can be told apart from an event without GBL tracks
+            if (budget.isExceeded()) {
+                budget.degrade("GBLRefitterDriver");
+                break;
+            }
             List<TrackerHit> temp = TrackUtils.getStripHits(track, hitToStrips, hitToRotated);
             if (temp.size() == 0)
                 //               System.out.println("GBLRefitterDriver::process  did not find any strip hits on this track???");
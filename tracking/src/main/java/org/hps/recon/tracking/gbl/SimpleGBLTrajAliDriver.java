@@ -34,6 +34,7 @@ import org.hps.recon.tracking.gbl.matrix.Matrix;
 //import org.apache.commons.math3.util.Pair;
 import org.hps.recon.tracking.MaterialSupervisor;
 import org.hps.recon.tracking.MultipleScattering;
+import org.hps.recon.tracking.TrackExtrapolations;
 import org.hps.recon.tracking.TrackUtils;
 import org.hps.recon.tracking.TrackResidualsData;
 import org.hps.record.StandardCuts;
@@ -51,7 +52,6 @@ import org.lcsim.event.RawTrackerHit;
 import org.lcsim.event.RelationalTable;
 import org.lcsim.event.Track;
 import org.lcsim.event.base.BaseTrack;
-import org.lcsim.event.base.BaseTrackState;
 
 //Fiducial cuts on the calorimeter cluster
 import org.hps.record.triggerbank.TriggerModule;
@@ -172,7 +172,7 @@ public class SimpleGBLTrajAliDriver extends Driver {
     AlignmentStructuresBuilder asb;
     
     //Calculator for Frame to Frame derivatives
-    private FrameToFrameDers f2fD = new FrameToFrameDers();
+    private AlignmentDerivativeCache derivativeCache;
         
     //Setting 0 is a single refit, 1 refit twice and so on..
     private int gblRefitIterations = 5; 
@@ -472,16 +472,21 @@ public class SimpleGBLTrajAliDriver extends Driver {
             
             //Dump the constrain file
             MakeAlignmentConstraintFile();
+
+            //The frame to frame derivatives only depend on the geometry
+            derivativeCache = AlignmentDerivativeCache.forStructures(sensors);
         }
         else {
             asb = new AlignmentStructuresBuilder(sensors);
             asb.MakeAlignmentConstraintFile();
+            derivativeCache = AlignmentDerivativeCache.forAlignableVolumes(sensors, asb);
         }
     }
     
     @Override
     protected void process(EventHeader event) {
 	int runNumber = event.getRunNumber();
+	TrackExtrapolations extrapolations = TrackExtrapolations.read(event);
 
         //Track collection
        
@@ -813,10 +818,7 @@ public class SimpleGBLTrajAliDriver extends Driver {
                 for ( GblPointJna gblpoint : points_on_traj) {
                     
                     
-                    if (!doCOMAlignment)
-                        ComputeStructureDerivatives(gblpoint);
-                    else
-                        ComputeCOMDerivatives(gblpoint);
+                    addCompositeDerivatives(gblpoint);
                     
                 }//point loop
                 
@@ -883,10 +885,10 @@ public class SimpleGBLTrajAliDriver extends Driver {
 		
 		// Extrapolate to the ECAL and make a new trackState there.
 
+		// The state goes to the event's extrapolation cache, so that a TrackDataDriver run on the output
+		// tracks reuses it instead of stepping the track through the field map again
 		Track gblTrk = newTrack.getFirst();
-		BaseTrackState ts_ecal = new BaseTrackState();
-		ts_ecal = TrackUtils.getTrackExtrapAtEcalRK(gblTrk, bFieldMap, runNumber);
-		gblTrk.getTrackStates().add(ts_ecal);
+		TrackExtrapolations.addTrackState(gblTrk, extrapolations.getAtEcal(gblTrk, bFieldMap, runNumber));
                 
                 //To make sure that the track fit converged
                 if (writeMilleBinary) {
@@ -1026,41 +1028,6 @@ public class SimpleGBLTrajAliDriver extends Driver {
     }
     
     
-    //Get the derivatives
-    
-    private void addGlobalDerivatives(List<Double> derBuff, List<Integer> labBuff, 
-                                      Hep3Matrix Rgtosc, Hep3Vector Tgtosc, Matrix g_ders,
-                                      AlignableDetectorElement ade, List<Integer> baseLabels) {
-        
-        Hep3Matrix Rgtoc = ade.getlocalToGlobal().getRotation().getRotationMatrix();
-        Hep3Vector Tgtoc = ade.getlocalToGlobal().getTranslation().getTranslationVector();
-        Matrix C_matrix  = f2fD.getDerivative(Rgtosc, Rgtoc, Tgtosc, Tgtoc);
-        
-        //Compute the composite structure derivatives
-        //dr/dac = dr/dai * dai/dac = dr/dai * Ci
-        Matrix c_derGlobal = g_ders.times(C_matrix);
-        
-        //Change the sensor ID to the composite structure one                                                                           
-        for (int ilabel = 0; ilabel < baseLabels.size(); ilabel++) {
-            Integer c_label = (baseLabels.get(ilabel) / 100) * 100 + ade.getMillepedeId();
-            labBuff.add(c_label);
-            derBuff.add(c_derGlobal.get(0,ilabel));
-        }
-        
-        if (debugAlignmentDs) {
-
-            System.out.printf("PF::Print the Composite %s Transform:\n", ade.getName());
-            System.out.println(Rgtoc.toString());
-            System.out.println(Tgtoc.toString());
-            C_matrix.print(6,6);
-            
-            System.out.printf("PF::addGlobalDerivatives::Labels\n");
-            System.out.println(labBuff.toString());
-            System.out.printf("PF::addGlobalDerivatives::Ders\n");
-            System.out.println(derBuff.toString());
-        }
-    }
-    
     //Custom constraint 
     private void getSensorConstraints(AlignableDetectorElement ade, List<SiSensor> hps_sensors, List<String> constraints, boolean MPIIFormat) {
         
@@ -1071,6 +1038,8 @@ public class SimpleGBLTrajAliDriver extends Driver {
         //Get the amount of constraints (should be 6)
         int nc = ade.getMPIILabels().size();
         
+        FrameToFrameDers f2fD = new FrameToFrameDers();
+        
         //loop on the sensors list:
         
         //System.out.println("PF::CustomConstraint::"+ade.getName());
@@ -1126,6 +1095,8 @@ public class SimpleGBLTrajAliDriver extends Driver {
         
         //Get the amount of constraints (should be 6)
         int nc = ade.getMPIILabels().size();
+        
+        FrameToFrameDers f2fD = new FrameToFrameDers();
                 
         // loop on the children
         for (IDetectorElement i_de : ade.getChildren()) {
@@ -1606,133 +1577,6 @@ public class SimpleGBLTrajAliDriver extends Driver {
     };
 
 
-    private void ComputeCOMDerivatives(GblPointJna gblpoint) {
-        if (gblpoint.getNumMeasurements() == 0)
-            return;
-
-        List<Integer> labels = new ArrayList<Integer>();
-        Matrix g_ders = gblpoint.getGlobalLabelsAndDerivatives(labels);
-        
-        if (labels.size() < 1) 
-            return;
-
-        //The MPII ID + Volume is used to get the correct composite structure
-        // 1 for top  2 for bottom
-        int volume = labels.get(0) / MilleParameter.half_offset;
-        
-        String volname = "top";
-        String volname_s = "t";
-        
-        if (volume == 2)  {
-            volname= "bottom";
-            volname_s = "b";
-        }
-        
-        //sensor label % 100
-        int mpid = labels.get(0) % 100;
-        
-        if (debugAlignmentDs) {
-            System.out.println(labels.toString());
-            g_ders.print(6,6);
-        }
-        
-        
-        HpsSiSensor mysensor = null;
-        for (SiSensor sensor : sensors) {
-            
-            if (sensor.getName().contains(volname_s)) {
-                if (((HpsSiSensor) sensor).getMillepedeId() == mpid) {
-                    mysensor = (HpsSiSensor) sensor;
-                }
-            }
-        }
-        
-        if (mysensor == null)
-            throw new RuntimeException("Couldn't find HpsSensor for the volume/millepede ID " + volname_s+"/"+String.valueOf(mpid));
-
-        //Holds the derivatives and labels buffers
-        List<Double> derBuff = new ArrayList<Double>();
-        List<Integer> labBuff = new ArrayList<Integer>();
-        
-        //Get the alignable sensor from the tree
-                            
-        AlignableVolume alignable_sensor = asb.getAlignableVolume(mysensor.getName()+"_AV");
-        
-        //Check against null
-                            
-        if (alignable_sensor == null)  {
-            System.out.println("Alignable Sensor " + mysensor.getName()+"_AV   Not found in the alignment tree");
-            return;
-        }
-        
-        //if (debugAlignmentDs) {
-        //    alignable_sensor.Print();
-        //}
-        
-        //Get the alignable trxee hierarchy:
-        AlignableVolume av_parent = alignable_sensor.getParent();
-        String av_d_name = alignable_sensor.getName();
-        Matrix c_derGlobal = g_ders;
-        while (av_parent != null) {
-            List <Integer> c_labels = new ArrayList<Integer>();
-            if (debugAlignmentDs) {
-                System.out.println("PARENT::" + av_parent.getName());
-            }
-            //Get the CMatrix of the parent and update the c_derGlobal
-            c_derGlobal = c_derGlobal.times(av_parent.getCMatrix(av_d_name));
-            //Check the derivatives
-            if (debugAlignmentDs) {
-                System.out.println("Derivatives for " + av_parent.getName());
-            }
-            //c_derGlobal.print(6,6);
-            //Change to the composite structure ID
-            for (int ilabel = 0; ilabel<labels.size(); ilabel++) {
-                //Integer c_label = (labels.get(ilabel) / 100) * 100 + av_parent.getMillepedeId();
-                Integer c_label = av_parent.getLabels().get(ilabel);
-                derBuff.add(c_derGlobal.get(0,ilabel));                                              
-                labBuff.add(c_label);
-            }
-            //System.out.println(c_labels.toString());
-                                    
-            //Update the daughter
-            av_d_name = av_parent.getName();
-            //Update the parent
-            av_parent = av_parent.getParent();
-        }
-                            
-        //Copy the labels for the composite structure
-        List<Integer> c_labGlobal = new ArrayList<Integer>();
-        c_labGlobal.addAll(labBuff);
-                            
-        //Add the labels and the derivatives to the points.
-        Matrix allDer = new Matrix(1, labels.size() + c_labGlobal.size());
-        for (int ider = 0; ider< labels.size(); ider++) {
-            allDer.set(0,ider,g_ders.get(0,ider));
-        }
-                            
-        for (int ider = 0; ider < c_labGlobal.size(); ider++) {
-            allDer.set(0,ider+labels.size(),derBuff.get(ider));
-        }
-                            
-        //Join the two lists
-        List<Integer> all_labels = new ArrayList<Integer>();
-        all_labels.addAll(labels);
-        all_labels.addAll(c_labGlobal);
-                            
-        if (debugAlignmentDs) {
-            System.out.println("PF:: Labels and derivatives");
-                                
-            //Print all data to be written to the binary:
-            System.out.println(all_labels.toString());
-            allDer.print(6,6);
-            System.out.println("========================");
-        }
-                            
-        gblpoint.addGlobals(all_labels,allDer);
-                            
-                            
-    }
-    
     private HashMap<Track,Cluster> GetClustersFromParticles(List<ReconstructedParticle> particles) {
 
         HashMap<Track,Cluster> tracksAndclusters = new HashMap<Track,Cluster>();
@@ -1754,8 +1598,8 @@ public class SimpleGBLTrajAliDriver extends Driver {
     }
 
 
-    //This will compute and add to the buffers the derivatives 
-    private void ComputeStructureDerivatives(GblPointJna gblpoint) {
+    //Add the composite structure derivatives to the point, from the tables made at detector setup
+    private void addCompositeDerivatives(GblPointJna gblpoint) {
         if (gblpoint.getNumMeasurements() == 0)
             return;
         
@@ -1769,14 +1613,6 @@ public class SimpleGBLTrajAliDriver extends Driver {
         // 1 for top  2 for bottom
         int volume = labels.get(0) / MilleParameter.half_offset;
         
-        String volname = "top";
-        String volname_s = "t";
-        
-        if (volume == 2)  {
-            volname= "bottom";
-            volname_s = "b";
-        }
-        
         //sensor label % 100
         int mpid = labels.get(0) % 100;
         
@@ -1785,88 +1621,48 @@ public class SimpleGBLTrajAliDriver extends Driver {
             g_ders.print(6,6);
         }
         
+        AlignmentDerivativeCache.Entry entry = derivativeCache.get(volume, mpid);
         
-        HpsSiSensor mysensor = null;
-        for (SiSensor sensor : sensors) {
-            
-            if (sensor.getName().contains(volname_s)) {
-                if (((HpsSiSensor) sensor).getMillepedeId() == mpid) {
-                    mysensor = (HpsSiSensor) sensor;
-                }
-            }
-        }
-        
-        if (mysensor == null)
-            throw new RuntimeException("Couldn't find HpsSensor for the volume/millepede ID " + volname_s+"/"+String.valueOf(mpid));
-        
+        if (entry == null)
+            throw new RuntimeException("Couldn't find HpsSensor for the volume/millepede ID " + (volume == 2 ? "b" : "t")+"/"+String.valueOf(mpid));
         
-        //Holds the derivatives and labels buffers
-        List<Double> derBuff = new ArrayList<Double>();
-        List<Integer> labBuff = new ArrayList<Integer>();
+        if (!entry.isInTree()) {
+            System.out.println("Alignable Sensor " + entry.getSensor().getName()+"_AV   Not found in the alignment tree");
+            return;
+        }
         
-
-
-        //###############################################//
-        //Get the sensor frame
+        int nders = labels.size();
+        double[] sensorDers = new double[nders];
+        int[] sensorLabels = new int[nders];
+        for (int ider = 0; ider < nders; ider++) {
+            sensorDers[ider] = g_ders.get(0,ider);
+            sensorLabels[ider] = labels.get(ider);
+        }
         
-        Hep3Matrix Rgtos = mysensor.getGeometry().getLocalToGlobal().getRotation().getRotationMatrix();
-        Hep3Vector Tgtos = mysensor.getGeometry().getLocalToGlobal().getTranslation().getTranslationVector();
+        int nc = entry.getNumLevels() * AlignmentDerivativeCache.NPARS;
+        double[] c_ders = new double[nc];
+        int[] c_labels = new int[nc];
+        entry.computeDerivatives(sensorDers, sensorLabels, c_ders, c_labels);
         
         if (debugAlignmentDs) {
-            System.out.printf("PF::Print the Sensor %s Transform:\n", mysensor.getName());
-            System.out.println(Rgtos.toString());
-            System.out.println(Tgtos.toString());
+            for (int level = 0; level < entry.getNumLevels(); level++) {
+                System.out.printf("PF:: The sensor %s is contained in the structure %s\n", entry.getSensor().getName(), entry.getLevelName(level));
+                AlignmentDerivativeCache.print(entry.getCMatrix(level));
+            }
         }
         
-        
-                        
-        //Modules:
-        
-        AlignableDetectorElement myade_Mod =  (AlignableDetectorElement) mysensor.getAdeMother();
-        
-        if (debugAlignmentDs) 
-            System.out.printf("PF:: The sensor vol %s and mpid %s corresponds to %s is contained in the structure %s\n\n\n", volname, mpid, mysensor.getName(),myade_Mod.getName());
-        
-        //Modules
-        addGlobalDerivatives(derBuff, labBuff,
-                             Rgtos,Tgtos, g_ders,
-                             myade_Mod, labels);
-        
-        //UChannels:
-        AlignableDetectorElement myade_UC = (AlignableDetectorElement) mysensor.getAdeMother().getParent();
-        
-        if (debugAlignmentDs)
-            System.out.printf("PF:: The sensor vol %s and mpid %s corresponds to %s is contained in the structure %s\n\n\n", volname, mpid, mysensor.getName(),myade_UC.getName());
-        
-        
-        //UChannels
-        addGlobalDerivatives(derBuff, labBuff,
-                             Rgtos,Tgtos, g_ders,
-                             myade_UC, labels);
-        
-        
-        
-        //Copy the labels for the composite structure
-        List<Integer> c_labGlobal = new ArrayList<Integer>();
-        c_labGlobal.addAll(labBuff);
-        
         //Add the labels and the derivatives to the points.
-        Matrix allDer = new Matrix(1, labels.size() + c_labGlobal.size());
-        for (int ider = 0; ider< labels.size(); ider++) {
-            allDer.set(0,ider,g_ders.get(0,ider));
+        Matrix allDer = new Matrix(1, nders + nc);
+        List<Integer> all_labels = new ArrayList<Integer>(nders + nc);
+        all_labels.addAll(labels);
+        for (int ider = 0; ider < nders; ider++) {
+            allDer.set(0,ider,sensorDers[ider]);
         }
-        
-        for (int ider = 0; ider < c_labGlobal.size(); ider++) {
-            allDer.set(0,ider+labels.size(),derBuff.get(ider));
+        for (int ider = 0; ider < nc; ider++) {
+            allDer.set(0,ider+nders,c_ders[ider]);
+            all_labels.add(c_labels[ider]);
         }
         
-        //Join the two lists
-        List<Integer> all_labels = new ArrayList<Integer>();
-        all_labels.addAll(labels);
-        all_labels.addAll(c_labGlobal);
-        
-        
-        
         if (debugAlignmentDs) {
             System.out.println("PF:: Labels and derivatives");
             
@@ -43,6 +43,7 @@ public class KalmanParams {
     double [] minSeedE;
     double edgeTolerance;
     int debugEvent = -1;        // event number to trace in KalmanPatRecHPS, -1 = none
+    boolean useSeedIndex = true; // restrict the seed search to hits inside the time and road windows (false = exhaustive)
     static final int numLayers = 14;
     
     private int[] Swap = {1,0, 3,2, 5,4, 7,6, 9,8, 11,10, 13,12};
@@ -87,6 +88,7 @@ public class KalmanParams {
         System.out.format("  Hit time window vs running mean (iter1, iter2; 0=legacy): %8.2f, %8.2f ns\n", hitTimeWindow[0], hitTimeWindow[1]);
         System.out.format("  Max total track time spread (iter1, iter2; 0=off): %8.2f, %8.2f ns\n", maxTotalSpread[0], maxTotalSpread[1]);
         System.out.format("  Threshold to remove redundant seeds (-1 to disable): %8.2f\n", seedCompThr);
+        System.out.format("  Windowed seed search using the per-event hit index: %b\n", useSeedIndex);
         System.out.format("  Maximum chi^2 for 5-hit tracks with a vertex constraint: %8.2f\n", mxChi2Vtx);
         System.out.format("  Default origin to use for vertex constraints:\n");
         for (int i=0; i<3; ++i) {
@@ -434,6 +436,15 @@ public class KalmanParams {
         debugEvent = evt;
     }
 
+    /**
+     * Use the per-event hit index to restrict the seed search. The seeds found are identical either way;
+     * false forces the exhaustive search, which is only useful for validation.
+     */
+    public void setUseSeedIndex(boolean use) {
+        logger.log(Level.CONFIG,String.format("Setting the windowed seed search to %b.", use));
+        useSeedIndex = use;
+    }
+
     public void setMaxChi2(double xMx) {
         if (xMx <= 0.) {
             logger.log(Level.WARNING,String.format("Max chi2 of %8.2f not allowed.", xMx));
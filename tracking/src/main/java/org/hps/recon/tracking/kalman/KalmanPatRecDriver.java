@@ -74,6 +74,7 @@ public class KalmanPatRecDriver extends Driver {
     private double maxZ0;              // Maximum dz (or Z0) at the target plane for a seed and the final track
     private double edgeTolerance = -1.0;      // Tolerance on the seed detector-bounds check; <0 (default) keeps the KalmanParams default (1 mm); 0 enforces zero tolerance
     private int debugEvent = -1;       // Event to trace seed-by-seed in KalmanPatRecHPS; -1 = none
+    private boolean useSeedIndex = true;  // Windowed seed search; false reverts to the exhaustive search for validation
     private double maxChi2;            // Maximum Kalman chi^2 per hit for a track candidate
     // private int minHits;               // Minimum number of hits on a track
     private int minHitsTopIter1;               // Minimum number of hits on a track--top, first iteration
@@ -239,6 +240,7 @@ public class KalmanPatRecDriver extends Driver {
         if (maxChi2 != 0.0) kPar.setMaxChi2(maxChi2);
         if (edgeTolerance >= 0.0) kPar.setEdgeTolerance(edgeTolerance);
         kPar.setDebugEvent(debugEvent);
+        kPar.setUseSeedIndex(useSeedIndex);
 	//        if (minHits != 0) kPar.setMinHits(minHits);
         if (minHitsTopIter1 != 0) kPar.setMinHitsTopIter1(minHitsTopIter1);
         if (minHitsTopIter2 != 0) kPar.setMinHitsTopIter2(minHitsTopIter2);
@@ -677,6 +679,10 @@ public class KalmanPatRecDriver extends Driver {
     public void setDebugEvent(int debugEvent) {
         this.debugEvent = debugEvent;
     }
+    /** Restrict the seed search to hits inside the time and road windows (default true); false runs the exhaustive search. */
+    public void setUseSeedIndex(boolean useSeedIndex) {
+        this.useSeedIndex = useSeedIndex;
+    }
     // public void setMinHits(int minHits) {
     //     this.minHits = minHits;
     // }
@@ -14,6 +14,7 @@ import java.util.logging.Logger;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.dense.row.MatrixFeatures_DDRM;
+import org.hps.recon.tracking.EventTimeBudget;
 import org.hps.util.Pair;
 import org.lcsim.event.EventHeader;
 import org.lcsim.event.TrackerHit;
@@ -23,6 +24,7 @@ import org.lcsim.event.TrackerHit;
  * Algorithm:
  *    1. Loop over starting strategies, each involving at least 3 stereo planes and 2 non-stereo planes
  *    2. Make all possible seeds by selecting a hit from each of the 5 planes
+ *         (a per-event SeedHitIndex restricts each plane to the hits that can still pass the seed time and road cuts)
  *    3. Do a linear helix fit to the 5 hits in each seed and select helices that project near to the target origin
  *    4. Sort the seeds by quality and then loop over them and use them to start the Kalman filter working outward toward the ECAL
  *         Smooth back to the beginning of the seed and then filter inward toward the vertex to make a candidate track.
@@ -68,6 +70,8 @@ class KalmanPatRecHPS {
     private static long startTime;
     static int [] nBadCov = {0, 0};
     private ArrayList<TrackCandidate> candidateList;  
+    private SeedHitIndex seedIndex;
+    private int [][] seedCand;       // Candidate hit indices for each layer of the seed being built
 
     KalmanPatRecHPS(KalmanParams kPar) {
         startTime = (long)0.;
@@ -95,6 +99,8 @@ class KalmanPatRecHPS {
         
         p0 = new Plane(new Vec(0., kPar.beamSpot[1], 0.), new Vec(0., 1., 0.));  // xy plane at the target position
         candidateList = new ArrayList<TrackCandidate>();
+        seedIndex = new SeedHitIndex(KalmanParams.numLayers);
+        seedCand = new int[5][];
         eventNumber = 0;
     }
     
@@ -137,6 +143,8 @@ class KalmanPatRecHPS {
             }
             moduleList.get(thisSi.Layer).add(thisSi);
         }
+        seedIndex.build(lyrHits, kPar.useSeedIndex);
+        for (int i = 0; i < seedCand.length; ++i) seedCand[i] = seedIndex.newBuffer(seedCand[i]);
 
         if (debug) {
             double runTime = (double)((System.nanoTime() - startTime)/1000000.);
@@ -181,10 +189,18 @@ class KalmanPatRecHPS {
             System.out.format("\n");
         }
 
+        // If the event time budget is already used up, run only the first of the configured iterations, which is
+        // the one with the tighter cuts and the shorter list of seed strategies when both are configured
+        EventTimeBudget budget = EventTimeBudget.instance();
+        boolean reduced = budget.isExceeded();
+        if (reduced) budget.degrade("KalmanPatRecHPS");
+        final int firstTrial = KalmanParams.mxTrials - kPar.nTrials;
+        
         // Loop over seed strategies, each with 2 non-stereo layers and 3 stereo layers
         // For each strategy generate a seed track for every hit combination
         // Keep only those pointing more-or-less back to the origin and not too curved
-        for (int trial = KalmanParams.mxTrials - kPar.nTrials; trial < KalmanParams.mxTrials; trial++) {
+        for (int trial = firstTrial; trial < KalmanParams.mxTrials; trial++) {
+            if (reduced && trial > firstTrial) break;
             int candID = topBottom*1000 + trial*100 + 1;
             if (debug) {
                 double runTime = (double)((System.nanoTime() - startTime)/1000000.);
@@ -214,6 +230,11 @@ class KalmanPatRecHPS {
 	    
             for (int iList = 0; iList<kPar.lyrList[topBottom].size(); ++iList) {
                 if (trial == 0 && iList > kPar.maxListIter1) break;	
+                if (!reduced && budget.isExceeded()) {
+                    reduced = true;
+                    budget.degrade("KalmanPatRecHPS");
+                }
+                if (reduced && iList > kPar.maxListIter1) break;
                 int[] list = kPar.lyrList[topBottom].get(iList);
                 int nLyrs = list.length;
                 int middleLyr = 2;
@@ -228,7 +249,10 @@ class KalmanPatRecHPS {
                 }
                 ArrayList<SeedTrack> seedList = new ArrayList<SeedTrack>();
                 int[] idx = new int[nLyrs];
-                for (idx[0] = 0; idx[0] < lyrHits.get(list[0]).size(); idx[0]++) {
+                double seedSpreadMax = (kPar.seedTimeSpread[trial] > 0.) ? kPar.seedTimeSpread[trial] : kPar.mxTdif[trial];
+                int nCand0 = seedWindow(0, list, idx, trial, seedSpreadMax);
+                for (int i0 = 0; i0 < nCand0; i0++) {
+                    idx[0] = seedCand[0][i0];
                     KalHit kht = lyrHits.get(list[0]).get(idx[0]);
                     Measurement hit = kht.hit;
                     if (hit.tracks.size() > 0) continue; // don't use hits already on KalTrack tracks
@@ -236,10 +260,12 @@ class KalmanPatRecHPS {
                     SiModule mod = kht.module;
                     ah[0] = mod.isStereo;
                     if (!mod.isStereo) {
-                        zh[0] = mod.toGlobal(new Vec(0.,hit.v,0.)).v[2];
-                        yh[0] = mod.p.X().v[1];
+                        zh[0] = seedIndex.zGlobal(list[0], idx[0]);
+                        yh[0] = seedIndex.yModule(list[0], idx[0]);
                     }                 
-                    for (idx[1] = 0; idx[1] < lyrHits.get(list[1]).size(); idx[1]++) {
+                    int nCand1 = seedWindow(1, list, idx, trial, seedSpreadMax);
+                    for (int i1 = 0; i1 < nCand1; i1++) {
+                        idx[1] = seedCand[1][i1];
                         kht = lyrHits.get(list[1]).get(idx[1]);
                         hit = kht.hit;
                         if (hit.tracks.size() > 0) continue;
@@ -247,11 +273,13 @@ class KalmanPatRecHPS {
                         mod = kht.module;
                         ah[1] = mod.isStereo;
                         if (!mod.isStereo) {
-                            zh[1] = mod.toGlobal(new Vec(0.,hit.v,0.)).v[2];
-                            yh[1] = mod.p.X().v[1];
+                            zh[1] = seedIndex.zGlobal(list[1], idx[1]);
+                            yh[1] = seedIndex.yModule(list[1], idx[1]);
                             if (seedNoGood(1, trial)) continue;
                         }
-                        for (idx[2] = 0; idx[2] < lyrHits.get(list[2]).size(); idx[2]++) {
+                        int nCand2 = seedWindow(2, list, idx, trial, seedSpreadMax);
+                        for (int i2 = 0; i2 < nCand2; i2++) {
+                            idx[2] = seedCand[2][i2];
                             kht = lyrHits.get(list[2]).get(idx[2]);
                             hit = kht.hit;
                             if (hit.tracks.size() > 0) continue;
@@ -259,11 +287,13 @@ class KalmanPatRecHPS {
                             mod = kht.module;
                             ah[2] = mod.isStereo;
                             if (!mod.isStereo) {
-                                zh[2] = mod.toGlobal(new Vec(0.,hit.v,0.)).v[2];
-                                yh[2] = mod.p.X().v[1];
+                                zh[2] = seedIndex.zGlobal(list[2], idx[2]);
+                                yh[2] = seedIndex.yModule(list[2], idx[2]);
                                 if (seedNoGood(2, trial)) continue;
                             }
-                            for (idx[3] = 0; idx[3] < lyrHits.get(list[3]).size(); idx[3]++) {
+                            int nCand3 = seedWindow(3, list, idx, trial, seedSpreadMax);
+                            for (int i3 = 0; i3 < nCand3; i3++) {
+                                idx[3] = seedCand[3][i3];
                                 kht = lyrHits.get(list[3]).get(idx[3]);
                                 hit = kht.hit;
                                 if (hit.tracks.size() > 0) continue;
@@ -271,11 +301,13 @@ class KalmanPatRecHPS {
                                 mod = kht.module;
                                 ah[3] = mod.isStereo;
                                 if (!mod.isStereo) {
-                                    zh[3] = mod.toGlobal(new Vec(0.,hit.v,0.)).v[2];
-                                    yh[3] = mod.p.X().v[1];
+                                    zh[3] = seedIndex.zGlobal(list[3], idx[3]);
+                                    yh[3] = seedIndex.yModule(list[3], idx[3]);
                                     if (seedNoGood(3, trial)) continue;
                                 }
-                                for (idx[4] = 0; idx[4] < lyrHits.get(list[4]).size(); idx[4]++) {
+                                int nCand4 = seedWindow(4, list, idx, trial, seedSpreadMax);
+                                for (int i4 = 0; i4 < nCand4; i4++) {
+                                    idx[4] = seedCand[4][i4];
                                     kht = lyrHits.get(list[4]).get(idx[4]);
                                     hit = kht.hit;
                                     if (hit.tracks.size() > 0) continue;
@@ -283,8 +315,8 @@ class KalmanPatRecHPS {
                                     mod = kht.module;
                                     ah[4] = mod.isStereo;
                                     if (!mod.isStereo) {
-                                        zh[4] = mod.toGlobal(new Vec(0.,hit.v,0.)).v[2];
-                                        yh[4] = mod.p.X().v[1];
+                                        zh[4] = seedIndex.zGlobal(list[4], idx[4]);
+                                        yh[4] = seedIndex.yModule(list[4], idx[4]);
                                         if (seedNoGood(4, trial)) continue;
                                     }
                                     ArrayList<KalHit> hitList = new ArrayList<KalHit>(5);
@@ -298,7 +330,6 @@ class KalmanPatRecHPS {
                                         tmin = Math.min(tmin, ht.hit.time);
                                         tmax = Math.max(tmax, ht.hit.time);
                                     }
-                                    double seedSpreadMax = (kPar.seedTimeSpread[trial] > 0.) ? kPar.seedTimeSpread[trial] : kPar.mxTdif[trial];
                                     if (tmax - tmin > seedSpreadMax) {
                                         if (debug) {
                                             System.out.format("KalmanPatRecHPS: skipping seed %d %d %d %d %d with tdif=%8.2f\n Hits:  ", 
@@ -843,7 +874,7 @@ class KalmanPatRecHPS {
                                 }
                             }
                             if (!foundIt) {
-                                logger.log(Level.WARNING, String.format("KalmanPatRecHPS event %d, missing site for candidate track", eventNumber));
+                                logger.log(Level.WARNING, () -> String.format("KalmanPatRecHPS event %d, missing site for candidate track", eventNumber));
                             }
                             //if (debug) System.out.format("KalmanPatRecHPS: marking hit on layer %d of candidate %d\n", hit.module.Layer, candidateTrack.ID);
                             hit.tkrCandidates.add(candidateTrack);
@@ -935,7 +966,7 @@ class KalmanPatRecHPS {
                                                             }
                                                         }
                                                         if (!foundIt) {
-                                                            logger.log(Level.WARNING, String.format("KalmanPatRecHPS event %d, missing site for candidate track", eventNumber));
+                                                            logger.log(Level.WARNING, () -> String.format("KalmanPatRecHPS event %d, missing site for candidate track", eventNumber));
                                                         }
                                                         if (!hit.tkrCandidates.contains(tkr)) hit.tkrCandidates.add(tkr);
                                                     }
@@ -1120,7 +1151,7 @@ class KalmanPatRecHPS {
                             tksToPrune.add(tkr); 
                             int idx = TkrList.indexOf(tkr);
                             if (idx < 0) {
-                                logger.log(Level.WARNING,String.format("Bad reference from hit to track. Track %d, Layer = %d\n", tkr.ID, module.Layer));
+                                logger.log(Level.WARNING, () -> String.format("Bad reference from hit to track. Track %d, Layer = %d\n", tkr.ID, module.Layer));
                                 //module.print("with bad reference");
                                 //for (KalTrack tkr2 : TkrList) {
                                 //    tkr2.print("all tracks");
@@ -1136,7 +1167,7 @@ class KalmanPatRecHPS {
                             if (tkr == bestTkr) continue; // Keep the hit on the best track
                             int idx = tkr.whichSite(module);
                             if (idx < 0) {
-                                logger.log(Level.WARNING,String.format("KalmanPatRecHPS: bad reference from module to site. Track %d, Layer = %d\n", tkr.ID, module.Layer));
+                                logger.log(Level.WARNING, () -> String.format("KalmanPatRecHPS: bad reference from module to site. Track %d, Layer = %d\n", tkr.ID, module.Layer));
                             } else {
                                 MeasurementSite site = tkr.SiteList.get(idx);
                                 if (debug) {
@@ -1144,7 +1175,7 @@ class KalmanPatRecHPS {
                                             tkr.ID, module.Layer, site.chi2inc);
                                 }
                                 if (site.chi2inc > kPar.mxChi2double) {
-                                    if (!site.smoothed) logger.log(Level.WARNING,String.format("OOPS, why isn't this site smoothed at layer %d?",site.m.Layer));
+                                    if (!site.smoothed) logger.log(Level.WARNING, () -> String.format("OOPS, why isn't this site smoothed at layer %d?",site.m.Layer));
                                     if (tkr.removeHit(site, kPar.mxChi2Inc, Math.max(kPar.mxTdif[0], kPar.mxTdif[1]))) {
                                         if (debug) {
                                             System.out.format("KalmanPatRecHPS: added a hit after removing one for Track %d, Layer %d\n",tkr.ID, module.Layer);
@@ -1675,7 +1706,7 @@ class KalmanPatRecHPS {
             if (site.hitID >= 0) firstSite = site;
             MeasurementSite nxtSite = tkrCand.sites.get(idx+1);
             if (nxtSite.m.Layer-site.m.Layer > 1) {
-                logger.warning(String.format("Event %d, Track candidate %d has missing layer %d", eventNumber, tkrCand.ID, site.m.Layer+1));
+                logger.warning(() -> String.format("Event %d, Track candidate %d has missing layer %d", eventNumber, tkrCand.ID, site.m.Layer+1));
             }
         }
         if (firstSite == null) tkrCand.print("firstSite null", false);
@@ -1791,6 +1822,33 @@ class KalmanPatRecHPS {
         }
     }    
     
+    // Fill seedCand[j] with the hits of layer list[j] that can make a good seed together with the hits already chosen
+    // in layers list[0] through list[j-1]. Only the seed time-spread cut and the seedNoGood road are used, so the
+    // window is never tighter than the exhaustive search.
+    private int seedWindow(int j, int [] list, int [] idx, int iter, double spread) {
+        double tMin = Double.NaN;
+        double tMax = Double.NaN;
+        if (j > 0) {
+            tMin = 1.e10;
+            tMax = -1.e10;
+            for (int i = 0; i < j; ++i) {
+                double t = lyrHits.get(list[i]).get(idx[i]).hit.time;
+                tMin = Math.min(tMin, t);
+                tMax = Math.max(tMax, t);
+            }
+        }
+        int iAxial = -1;
+        for (int i = 0; i < j; ++i) {
+            if (!ah[i]) {
+                iAxial = i;
+                break;
+            }
+        }
+        double zI = (iAxial >= 0) ? zh[iAxial] : Double.NaN;
+        double yI = (iAxial >= 0) ? yh[iAxial] : 0.;
+        return seedIndex.window(list[j], tMin, tMax, spread, iAxial >= 0, zI, yI, kPar.tanlMax[iter], kPar.dzMax[iter], seedCand[j]);
+    }
+
     // Quick check on where the seed track is heading, using only the two axial layers in the seed
     private boolean seedNoGood(int j, int iter) {
         // j must point to an axial layer in the seed.
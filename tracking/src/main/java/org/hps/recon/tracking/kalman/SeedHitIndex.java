@@ -0,0 +1,279 @@
+package org.hps.recon.tracking.kalman;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Per-event index of the hits in each tracker layer, used by KalmanPatRecHPS to restrict the seed search.
+ * Each layer is sorted once by hit time and, for axial layers, by the global z of the hit. For a partial seed
+ * the pattern recognition then asks only for the hits that can still pass the seed time-spread cut and, on
+ * axial layers, the straight-line road to the target (the seedNoGood cut).
+ * The windows are always a superset of what the exact cuts accept, and the returned indices are in the
+ * original layer order, so the seeds are formed in exactly the same order as by the exhaustive search.
+ */
+class SeedHitIndex {
+    private static final double margin = 1.e-6;   // Relative slack on window edges, so that rounding never cuts tighter than the exact tests
+
+    private boolean enabled;
+    private int nLayers;
+    private int [] nHits;
+    private double [][] time;      // Hit times, in layer-list order
+    private double [][] zGlb;      // Global z of the hit, axial layers only
+    private double [][] yMod;      // Global y of the module holding the hit
+    private boolean [] axial;      // True if every module with hits in the layer is axial
+    private double [] yMin;        // Range of module y locations in the layer
+    private double [] yMax;
+    private int [][] byTime;       // Hit indices sorted by time (NaN last)
+    private double [][] tSorted;
+    private int [] nTimeNaN;
+    private int [][] byZ;          // Hit indices sorted by global z (NaN last), axial layers only
+    private double [][] zSorted;
+    private int [] nZNaN;
+    private boolean [] mark;       // Scratch for intersecting two windows
+
+    SeedHitIndex(int nLayers) {
+        this.nLayers = nLayers;
+        nHits = new int[nLayers];
+        time = new double[nLayers][];
+        zGlb = new double[nLayers][];
+        yMod = new double[nLayers][];
+        axial = new boolean[nLayers];
+        yMin = new double[nLayers];
+        yMax = new double[nLayers];
+        byTime = new int[nLayers][];
+        tSorted = new double[nLayers][];
+        nTimeNaN = new int[nLayers];
+        byZ = new int[nLayers][];
+        zSorted = new double[nLayers][];
+        nZNaN = new int[nLayers];
+        mark = new boolean[0];
+    }
+
+    /**
+     * Index the hits of one event.
+     * @param lyrHits  list of hits in each layer, in the order used by the seed loops
+     * @param enabled  if false, every window is the full layer, which reproduces the exhaustive search
+     */
+    void build(ArrayList<ArrayList<KalHit>> lyrHits, boolean enabled) {
+        this.enabled = enabled;
+        int mxHits = 0;
+        for (int lyr = 0; lyr < nLayers; ++lyr) {
+            ArrayList<KalHit> hits = lyrHits.get(lyr);
+            int n = hits.size();
+            nHits[lyr] = n;
+            mxHits = Math.max(mxHits, n);
+            time[lyr] = new double[n];
+            zGlb[lyr] = new double[n];
+            yMod[lyr] = new double[n];
+            axial[lyr] = n > 0;
+            yMin[lyr] = Double.MAX_VALUE;
+            yMax[lyr] = -Double.MAX_VALUE;
+            for (int i = 0; i < n; ++i) {
+                KalHit kht = hits.get(i);
+                SiModule mod = kht.module;
+                time[lyr][i] = kht.hit.time;
+                yMod[lyr][i] = mod.p.X().v[1];
+                yMin[lyr] = Math.min(yMin[lyr], yMod[lyr][i]);
+                yMax[lyr] = Math.max(yMax[lyr], yMod[lyr][i]);
+                if (mod.isStereo) {
+                    axial[lyr] = false;
+                    zGlb[lyr][i] = Double.NaN;
+                } else {
+                    zGlb[lyr][i] = mod.toGlobal(new Vec(0., kht.hit.v, 0.)).v[2];
+                }
+            }
+            if (!enabled) continue;
+            byTime[lyr] = sortedIndices(time[lyr]);
+            tSorted[lyr] = gather(time[lyr], byTime[lyr]);
+            nTimeNaN[lyr] = countNaN(tSorted[lyr]);
+            if (axial[lyr]) {
+                byZ[lyr] = sortedIndices(zGlb[lyr]);
+                zSorted[lyr] = gather(zGlb[lyr], byZ[lyr]);
+                nZNaN[lyr] = countNaN(zSorted[lyr]);
+            }
+        }
+        if (mark.length < mxHits) mark = new boolean[mxHits];
+    }
+
+    /**
+     * Global z of an axial hit, identical to the value computed from SiModule.toGlobal in the seed loops
+     */
+    double zGlobal(int lyr, int i) {
+        return zGlb[lyr][i];
+    }
+
+    /**
+     * Global y of the module holding the hit
+     */
+    double yModule(int lyr, int i) {
+        return yMod[lyr][i];
+    }
+
+    /**
+     * Allocate a buffer large enough to hold any window of this event
+     */
+    int [] newBuffer(int [] buf) {
+        int mx = 0;
+        for (int lyr = 0; lyr < nLayers; ++lyr) mx = Math.max(mx, nHits[lyr]);
+        if (buf == null || buf.length < mx) return new int[mx];
+        return buf;
+    }
+
+    /**
+     * Find the hits of a layer compatible with a partial seed.
+     * @param lyr      tracker layer
+     * @param tMinP    earliest hit time in the partial seed (NaN for no time constraint)
+     * @param tMaxP    latest hit time in the partial seed
+     * @param spread   maximum allowed time spread of the seed
+     * @param useRoad  apply the axial road defined by zI, yI
+     * @param zI       global z of the first axial hit of the partial seed
+     * @param yI       global y of that hit's module
+     * @param tanlMax  seed cut on tan(lambda)
+     * @param dzMax    seed cut on the z intercept at the target
+     * @param out      receives the indices of the candidate hits, in ascending order
+     * @return number of candidate hits
+     */
+    int window(int lyr, double tMinP, double tMaxP, double spread, boolean useRoad, double zI, double yI,
+            double tanlMax, double dzMax, int [] out) {
+        int n = nHits[lyr];
+        boolean timeCut = enabled && !Double.isNaN(tMinP) && !Double.isNaN(tMaxP) && !Double.isNaN(spread);
+        boolean roadCut = enabled && useRoad && axial[lyr] && !Double.isNaN(zI);
+        if (!timeCut && !roadCut) {
+            for (int i = 0; i < n; ++i) out[i] = i;
+            return n;
+        }
+
+        // Candidate ranges in the sorted arrays, excluding the NaN tails which always pass
+        int tLo = 0, tHi = n - nTimeNaN[lyr];
+        if (timeCut) {
+            double slack = margin * (1.0 + Math.abs(spread) + Math.abs(tMinP) + Math.abs(tMaxP));
+            tLo = lowerBound(tSorted[lyr], tHi, tMaxP - spread - slack);
+            tHi = upperBound(tSorted[lyr], tHi, tMinP + spread + slack);
+        }
+        int zLo = 0, zHi = 0;
+        if (roadCut) {
+            double [] zRange = road(lyr, zI, yI, tanlMax, dzMax);
+            zHi = n - nZNaN[lyr];
+            if (zRange == null) {
+                zLo = 0;
+                zHi = 0;
+            } else {
+                zLo = lowerBound(zSorted[lyr], zHi, zRange[0]);
+                zHi = upperBound(zSorted[lyr], zHi, zRange[1]);
+            }
+        }
+
+        int nOut = 0;
+        if (!roadCut || (timeCut && tHi - tLo <= zHi - zLo)) {
+            // Walk the time window and test the road directly
+            double [] zR = roadCut ? road(lyr, zI, yI, tanlMax, dzMax) : null;
+            for (int k = tLo; k < tHi; ++k) {
+                int i = byTime[lyr][k];
+                if (roadCut && !inRoad(zGlb[lyr][i], zR)) continue;
+                out[nOut++] = i;
+            }
+            for (int k = n - nTimeNaN[lyr]; k < n; ++k) {
+                int i = byTime[lyr][k];
+                if (roadCut && !inRoad(zGlb[lyr][i], zR)) continue;
+                out[nOut++] = i;
+            }
+        } else {
+            // Walk the road window and test the time directly
+            if (timeCut) {
+                for (int k = tLo; k < tHi; ++k) mark[byTime[lyr][k]] = true;
+                for (int k = n - nTimeNaN[lyr]; k < n; ++k) mark[byTime[lyr][k]] = true;
+            }
+            for (int k = zLo; k < zHi; ++k) {
+                int i = byZ[lyr][k];
+                if (!timeCut || mark[i]) out[nOut++] = i;
+            }
+            for (int k = n - nZNaN[lyr]; k < n; ++k) {
+                int i = byZ[lyr][k];
+                if (!timeCut || mark[i]) out[nOut++] = i;
+            }
+            if (timeCut) Arrays.fill(mark, 0, n, false);
+        }
+        Arrays.sort(out, 0, nOut);
+        return nOut;
+    }
+
+    // Range of global z on layer lyr for which the line through (yI, zI) satisfies |slope| < tanlMax and |z0| < dzMax.
+    // Returns null if no z can pass.
+    private double [] road(int lyr, double zI, double yI, double tanlMax, double dzMax) {
+        double sLo = -tanlMax;
+        double sHi = tanlMax;
+        if (yI > 0.) {
+            sLo = Math.max(sLo, (zI - dzMax) / yI);
+            sHi = Math.min(sHi, (zI + dzMax) / yI);
+        } else if (yI < 0.) {
+            sLo = Math.max(sLo, (zI + dzMax) / yI);
+            sHi = Math.min(sHi, (zI - dzMax) / yI);
+        }
+        double sSlack = margin * (1.0 + Math.abs(sLo) + Math.abs(sHi));
+        sLo -= sSlack;
+        sHi += sSlack;
+        if (sLo > sHi) return null;
+        double dy1 = yMin[lyr] - yI;
+        double dy2 = yMax[lyr] - yI;
+        double z1 = sLo * dy1, z2 = sLo * dy2, z3 = sHi * dy1, z4 = sHi * dy2;
+        double zLo = zI + Math.min(Math.min(z1, z2), Math.min(z3, z4));
+        double zHi = zI + Math.max(Math.max(z1, z2), Math.max(z3, z4));
+        double zSlack = margin * (1.0 + Math.abs(zLo) + Math.abs(zHi));
+        double [] range = {zLo - zSlack, zHi + zSlack};
+        return range;
+    }
+
+    private static boolean inRoad(double z, double [] range) {
+        if (Double.isNaN(z)) return true;
+        if (range == null) return false;
+        return z >= range[0] && z <= range[1];
+    }
+
+    // First index in a[0..n) with a[k] >= x
+    private static int lowerBound(double [] a, int n, double x) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // First index in a[0..n) with a[k] > x
+    private static int upperBound(double [] a, int n, double x) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int [] sortedIndices(final double [] key) {
+        Integer [] order = new Integer[key.length];
+        for (int i = 0; i < key.length; ++i) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return Double.compare(key[i1], key[i2]);
+            }
+        });
+        int [] idx = new int[key.length];
+        for (int i = 0; i < key.length; ++i) idx[i] = order[i];
+        return idx;
+    }
+
+    private static double [] gather(double [] a, int [] idx) {
+        double [] b = new double[idx.length];
+        for (int i = 0; i < idx.length; ++i) b[i] = a[idx[i]];
+        return b;
+    }
+
+    private static int countNaN(double [] sorted) {
+        int cnt = 0;
+        for (int k = sorted.length - 1; k >= 0 && Double.isNaN(sorted[k]); --k) cnt++;
+        return cnt;
+    }
+}
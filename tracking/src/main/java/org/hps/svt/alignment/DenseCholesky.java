@@ -0,0 +1,66 @@
+package org.hps.svt.alignment;
+
+/**
+ * Cholesky decomposition and solution of dense symmetric positive definite systems stored row major in a flat array,
+ * for the local fits of {@link MillepedeAccumulator} and the global solution of {@link MillepedeSolver}.
+ */
+final class DenseCholesky {
+
+    private DenseCholesky() {
+    }
+
+    /**
+     * Replace the lower triangle of a matrix with its Cholesky factor L, such that A = L L^T. The upper triangle is
+     * not used.
+     *
+     * @param a the matrix
+     * @param n the dimension
+     * @return false if the matrix is not positive definite
+     */
+    static boolean decompose(double[] a, int n) {
+        for (int j = 0; j < n; j++) {
+            double d = a[j * n + j];
+            for (int k = 0; k < j; k++) {
+                d -= a[j * n + k] * a[j * n + k];
+            }
+            if (!(d > 0)) {
+                return false;
+            }
+            d = Math.sqrt(d);
+            a[j * n + j] = d;
+            for (int i = j + 1; i < n; i++) {
+                double s = a[i * n + j];
+                for (int k = 0; k < j; k++) {
+                    s -= a[i * n + k] * a[j * n + k];
+                }
+                a[i * n + j] = s / d;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solve A x = b in place with the factor of {@link #decompose(double[], int)}.
+     *
+     * @param l the factor
+     * @param n the dimension
+     * @param b the right hand side, replaced with the solution
+     * @param offset the offset of the right hand side in its array
+     */
+    static void solve(double[] l, int n, double[] b, int offset) {
+        for (int i = 0; i < n; i++) {
+            double s = b[offset + i];
+            for (int k = 0; k < i; k++) {
+                s -= l[i * n + k] * b[offset + k];
+            }
+            b[offset + i] = s / l[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double s = b[offset + i];
+            for (int k = i + 1; k < n; k++) {
+                s -= l[k * n + i] * b[offset + k];
+            }
+            b[offset + i] = s / l[i * n + i];
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.hps.svt.alignment;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reader of the Millepede-II binary files written by {@link org.hps.recon.tracking.gbl.MilleBinary} and by the GBL
+ * library through {@link org.hps.recon.tracking.gbl.MilleBinaryJna}.
+ * <p>
+ * A record is a little endian int with the number of words 2n (negative if the values are in double precision),
+ * followed by n values and n ints. Files ending in <code>.gz</code> are read through a gzip stream.
+ */
+public class MilleRecordReader implements AutoCloseable {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+    private double[] values = new double[1024];
+    private int[] ints = new int[1024];
+    private int size = 0;
+
+    /**
+     * Open a binary file.
+     *
+     * @param fileName the file name
+     * @throws IOException if the file can not be opened
+     */
+    public MilleRecordReader(String fileName) throws IOException {
+        FileInputStream in = new FileInputStream(fileName);
+        if (fileName.endsWith(".gz")) {
+            channel = Channels.newChannel(new GZIPInputStream(in, 1 << 16));
+        } else {
+            channel = in.getChannel();
+        }
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return false at the end of the file
+     * @throws IOException if the file can not be read or ends inside a record
+     */
+    public boolean next() throws IOException {
+        ((Buffer) header).clear();
+        if (!fill(header, true)) {
+            return false;
+        }
+        ((Buffer) header).flip();
+        final int nWords = header.getInt();
+        final boolean doublePrecision = nWords < 0;
+        size = Math.abs(nWords) / 2;
+        final int nBytes = size * ((doublePrecision ? 8 : 4) + 4);
+        if (buffer.capacity() < nBytes) {
+            buffer = ByteBuffer.allocate(nBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (values.length < size) {
+            values = new double[size];
+            ints = new int[size];
+        }
+        ((Buffer) buffer).clear();
+        ((Buffer) buffer).limit(nBytes);
+        fill(buffer, false);
+        ((Buffer) buffer).flip();
+        for (int i = 0; i < size; i++) {
+            values[i] = doublePrecision ? buffer.getDouble() : buffer.getFloat();
+        }
+        for (int i = 0; i < size; i++) {
+            ints[i] = buffer.getInt();
+        }
+        return true;
+    }
+
+    private boolean fill(ByteBuffer target, boolean eofAllowed) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                if (eofAllowed && target.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Millepede binary file ends inside a record.");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of words of the current record, including the leading error count word
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the values of the current record; the array is reused by the next record
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    /**
+     * @return the ints of the current record; the array is reused by the next record
+     */
+    public int[] getInts() {
+        return ints;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
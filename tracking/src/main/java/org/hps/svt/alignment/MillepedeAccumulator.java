@@ -0,0 +1,361 @@
+package org.hps.svt.alignment;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accumulator of the global normal equations of a Millepede alignment, used by one thread of
+ * {@link MillepedeSolver}.
+ * <p>
+ * Each record (track) is fitted alone for its local parameters, which are then eliminated, so that the record adds
+ * <code>sum w g g^T - G Gamma^-1 G^T</code> to the global matrix and <code>sum w r g - G Gamma^-1 beta</code> to the
+ * right hand side, where <code>Gamma</code> and <code>beta</code> are the local normal equations and <code>G</code>
+ * the global-local block. The global matrix is kept sparse, as a hash map of its upper triangle indexed by the pair of
+ * labels.
+ */
+final class MillepedeAccumulator {
+
+    private final Map<Integer, Double> startValues;
+    private final Set<Integer> fixedLabels;
+    private final double maxChi2PerNdf;
+
+    final LongDoubleMap matrix = new LongDoubleMap(1 << 12);
+    final LongDoubleMap vector = new LongDoubleMap(1 << 10);
+    final LongDoubleMap entries = new LongDoubleMap(1 << 10);
+
+    long records = 0;
+    long rejectedRecords = 0;
+    double chi2Sum = 0;
+    long ndfSum = 0;
+
+    // Measurements of the current record.
+    private int nMeas;
+    private double[] meas = new double[64];
+    private double[] weight = new double[64];
+    private int[] locStart = new int[65];
+    private int[] globStart = new int[65];
+    private int nLoc;
+    private int[] locIndex = new int[256];
+    private double[] locDer = new double[256];
+    private int nGlob;
+    private int[] globLabel = new int[1024];
+    private double[] globDer = new double[1024];
+
+    MillepedeAccumulator(Map<Integer, Double> startValues, Set<Integer> fixedLabels, double maxChi2PerNdf) {
+        this.startValues = startValues;
+        this.fixedLabels = fixedLabels;
+        this.maxChi2PerNdf = maxChi2PerNdf;
+    }
+
+    /**
+     * Add a record.
+     *
+     * @param values the values of the record
+     * @param ints the ints of the record
+     * @param size the number of words
+     * @return false if the record was rejected
+     */
+    boolean addRecord(double[] values, int[] ints, int size) {
+        records++;
+        if (!parse(values, ints, size)) {
+            rejectedRecords++;
+            return false;
+        }
+
+        // Local normal equations.
+        int nPar = 0;
+        for (int i = 0; i < nLoc; i++) {
+            nPar = Math.max(nPar, locIndex[i]);
+        }
+        final double[] gamma = new double[nPar * nPar];
+        final double[] beta = new double[nPar];
+        for (int m = 0; m < nMeas; m++) {
+            for (int i = locStart[m]; i < locStart[m + 1]; i++) {
+                final int a = locIndex[i] - 1;
+                beta[a] += weight[m] * meas[m] * locDer[i];
+                for (int j = locStart[m]; j < locStart[m + 1]; j++) {
+                    gamma[a * nPar + locIndex[j] - 1] += weight[m] * locDer[i] * locDer[j];
+                }
+            }
+        }
+        if (nMeas <= nPar || !DenseCholesky.decompose(gamma, nPar)) {
+            rejectedRecords++;
+            return false;
+        }
+        final double[] local = beta.clone();
+        DenseCholesky.solve(gamma, nPar, local, 0);
+
+        // Local fit quality.
+        double chi2 = 0;
+        for (int m = 0; m < nMeas; m++) {
+            double residual = meas[m];
+            for (int i = locStart[m]; i < locStart[m + 1]; i++) {
+                residual -= locDer[i] * local[locIndex[i] - 1];
+            }
+            chi2 += weight[m] * residual * residual;
+        }
+        final int ndf = nMeas - nPar;
+        if (chi2 / ndf > maxChi2PerNdf) {
+            rejectedRecords++;
+            return false;
+        }
+        chi2Sum += chi2;
+        ndfSum += ndf;
+
+        // Global labels of the record and their position in the record matrices.
+        final int[] labels = Arrays.copyOf(globLabel, nGlob);
+        Arrays.sort(labels);
+        int nLabels = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (i == 0 || labels[i] != labels[i - 1]) {
+                labels[nLabels++] = labels[i];
+            }
+        }
+        final int[] position = new int[nGlob];
+        for (int i = 0; i < nGlob; i++) {
+            position[i] = Arrays.binarySearch(labels, 0, nLabels, globLabel[i]);
+        }
+
+        // Global and global-local blocks of the record.
+        final double[] c = new double[nLabels * nLabels];
+        final double[] b = new double[nLabels];
+        final double[] g = new double[nLabels * nPar];
+        for (int m = 0; m < nMeas; m++) {
+            for (int i = globStart[m]; i < globStart[m + 1]; i++) {
+                final int p = position[i];
+                final double wd = weight[m] * globDer[i];
+                b[p] += wd * meas[m];
+                for (int j = globStart[m]; j < globStart[m + 1]; j++) {
+                    c[p * nLabels + position[j]] += wd * globDer[j];
+                }
+                for (int j = locStart[m]; j < locStart[m + 1]; j++) {
+                    g[p * nPar + locIndex[j] - 1] += wd * locDer[j];
+                }
+            }
+        }
+
+        // Eliminate the local parameters: c -= G Gamma^-1 G^T, b -= G Gamma^-1 beta.
+        final double[] x = new double[nPar];
+        for (int q = 0; q < nLabels; q++) {
+            System.arraycopy(g, q * nPar, x, 0, nPar);
+            DenseCholesky.solve(gamma, nPar, x, 0);
+            for (int p = 0; p <= q; p++) {
+                double s = 0;
+                for (int k = 0; k < nPar; k++) {
+                    s += g[p * nPar + k] * x[k];
+                }
+                c[p * nLabels + q] -= s;
+            }
+            double s = 0;
+            for (int k = 0; k < nPar; k++) {
+                s += g[q * nPar + k] * local[k];
+            }
+            b[q] -= s;
+        }
+
+        for (int p = 0; p < nLabels; p++) {
+            vector.add(labels[p], b[p]);
+            for (int q = p; q < nLabels; q++) {
+                if (c[p * nLabels + q] != 0) {
+                    matrix.add(key(labels[p], labels[q]), c[p * nLabels + q]);
+                }
+            }
+        }
+        for (int i = 0; i < nGlob; i++) {
+            entries.add(globLabel[i], 1);
+        }
+        return true;
+    }
+
+    /**
+     * Split a record into measurements, dropping the special data blocks and the derivatives of the fixed parameters
+     * and subtracting the start values of the parameters from the measurements.
+     */
+    private boolean parse(double[] values, int[] ints, int size) {
+        nMeas = 0;
+        nLoc = 0;
+        nGlob = 0;
+        int pos = 1;
+        while (pos < size) {
+            if (ints[pos] != 0) {
+                return false;
+            }
+            final double value = values[pos++];
+            if (value == 0 && pos < size && ints[pos] == 0 && values[pos] < 0) {
+                // Special data block: (0, 0) then (-n, 0) and n words.
+                pos += 1 + (int) -values[pos];
+                continue;
+            }
+            ensureMeasCapacity();
+            meas[nMeas] = value;
+            locStart[nMeas] = nLoc;
+            while (pos < size && ints[pos] != 0) {
+                ensureLocCapacity();
+                locIndex[nLoc] = ints[pos];
+                locDer[nLoc++] = values[pos++];
+            }
+            if (pos >= size || values[pos] <= 0) {
+                return false;
+            }
+            weight[nMeas] = 1 / (values[pos] * values[pos]);
+            pos++;
+            globStart[nMeas] = nGlob;
+            while (pos < size && ints[pos] != 0) {
+                final int label = ints[pos];
+                final double der = values[pos++];
+                final Double start = startValues.get(label);
+                if (start != null) {
+                    meas[nMeas] -= der * start;
+                }
+                if (!fixedLabels.contains(label)) {
+                    ensureGlobCapacity();
+                    globLabel[nGlob] = label;
+                    globDer[nGlob++] = der;
+                }
+            }
+            nMeas++;
+        }
+        locStart[nMeas] = nLoc;
+        globStart[nMeas] = nGlob;
+        return nMeas > 0;
+    }
+
+    private void ensureMeasCapacity() {
+        if (nMeas + 1 >= meas.length) {
+            meas = Arrays.copyOf(meas, 2 * meas.length);
+            weight = Arrays.copyOf(weight, 2 * weight.length);
+            locStart = Arrays.copyOf(locStart, meas.length + 1);
+            globStart = Arrays.copyOf(globStart, meas.length + 1);
+        }
+    }
+
+    private void ensureLocCapacity() {
+        if (nLoc == locIndex.length) {
+            locIndex = Arrays.copyOf(locIndex, 2 * nLoc);
+            locDer = Arrays.copyOf(locDer, 2 * nLoc);
+        }
+    }
+
+    private void ensureGlobCapacity() {
+        if (nGlob == globLabel.length) {
+            globLabel = Arrays.copyOf(globLabel, 2 * nGlob);
+            globDer = Arrays.copyOf(globDer, 2 * nGlob);
+        }
+    }
+
+    /**
+     * Add the sums of another accumulator to this one.
+     */
+    void merge(MillepedeAccumulator other) {
+        matrix.addAll(other.matrix);
+        vector.addAll(other.vector);
+        entries.addAll(other.entries);
+        records += other.records;
+        rejectedRecords += other.rejectedRecords;
+        chi2Sum += other.chi2Sum;
+        ndfSum += other.ndfSum;
+    }
+
+    /**
+     * Key of a matrix element in the upper triangle.
+     */
+    static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    static int row(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int column(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Open addressing hash map from long to double values that are summed.
+     */
+    static final class LongDoubleMap {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private double[] values;
+        private int size = 0;
+
+        LongDoubleMap(int capacity) {
+            keys = new long[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void add(long key, double value) {
+            int slot = slot(keys, key);
+            if (keys[slot] == EMPTY) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    slot = slot(keys, key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] += value;
+        }
+
+        double get(long key) {
+            final int slot = slot(keys, key);
+            return keys[slot] == EMPTY ? 0 : values[slot];
+        }
+
+        void addAll(LongDoubleMap other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != EMPTY) {
+                    add(other.keys[i], other.values[i]);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the keys, in no particular order
+         */
+        long[] keys() {
+            final long[] result = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    result[n++] = key;
+                }
+            }
+            return result;
+        }
+
+        private void grow() {
+            final long[] oldKeys = keys;
+            final double[] oldValues = values;
+            keys = new long[2 * oldKeys.length];
+            values = new double[2 * oldKeys.length];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    final int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long[] keys, long key) {
+            final int mask = keys.length - 1;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (h ^ (h >>> 32)) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
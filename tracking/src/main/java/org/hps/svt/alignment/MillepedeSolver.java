@@ -0,0 +1,687 @@
+package org.hps.svt.alignment;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+
+/**
+ * Solver of the global alignment fit from Millepede-II binary files, in place of the external <code>pede</code>
+ * program for the linear fits used in the SVT alignment.
+ * <p>
+ * The records of the binary files are read in one thread and their normal equations are accumulated by several
+ * threads (see {@link MillepedeAccumulator}), after the local parameters of each record are eliminated. The global
+ * system is then solved, with the linear constraints as Lagrange multipliers, either with a dense Cholesky
+ * decomposition, which needs the constraints and the fixed parameters to remove all the undefined directions, or
+ * with the MINRES iterative method on the sparse system.
+ * <p>
+ * The steering files use the <code>pede</code> syntax for the <code>Parameter</code> and <code>Constraint</code>
+ * sections, such as the constraint file written by {@link org.hps.recon.tracking.gbl.SimpleGBLTrajAliDriver}; a
+ * negative pre-sigma fixes a parameter and a positive one adds a regularization term. The result is written in the
+ * format of <code>millepede.res</code>, so that it can be given to {@link BuildMillepedeCompact} to update the
+ * compact description of the detector.
+ */
+public class MillepedeSolver {
+
+    private static final Logger LOGGER = Logger.getLogger(MillepedeSolver.class.getPackage().getName());
+
+    /**
+     * Methods of solution of the global system.
+     */
+    public enum Method {
+        CHOLESKY, MINRES
+    }
+
+    private static final int BATCH_SIZE = 256;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Method method = Method.MINRES;
+    private double maxChi2PerNdf = Double.POSITIVE_INFINITY;
+    private int minEntries = 0;
+    private double tolerance = 1e-10;
+    private int maxIterations = 0;
+
+    private final Map<Integer, Double> startValues = new HashMap<Integer, Double>();
+    private final Map<Integer, Double> presigmas = new HashMap<Integer, Double>();
+    private final Set<Integer> fixedLabels = new HashSet<Integer>();
+    private final List<Constraint> constraints = new ArrayList<Constraint>();
+
+    private final List<MillepedeAccumulator> accumulators = new ArrayList<MillepedeAccumulator>();
+    private MillepedeAccumulator total = null;
+    private Map<Integer, Double> results = null;
+
+    /**
+     * A linear constraint <code>sum c_i p_i = value</code>.
+     */
+    private static final class Constraint {
+        final double value;
+        final List<Integer> labels = new ArrayList<Integer>();
+        final List<Double> coefficients = new ArrayList<Double>();
+
+        Constraint(double value) {
+            this.value = value;
+        }
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setMethod(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * @param maxChi2PerNdf records whose local fit has a larger chi^2 per degree of freedom are rejected
+     */
+    public void setMaxChi2PerNdf(double maxChi2PerNdf) {
+        this.maxChi2PerNdf = maxChi2PerNdf;
+    }
+
+    /**
+     * @param minEntries parameters with fewer measurements are not fitted
+     */
+    public void setMinEntries(int minEntries) {
+        this.minEntries = minEntries;
+    }
+
+    /**
+     * @param tolerance relative residual at which the MINRES iterations stop
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @param maxIterations maximum number of MINRES iterations, or 0 for ten times the size of the system
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Fix a parameter at its start value.
+     */
+    public void fixParameter(int label) {
+        fixedLabels.add(label);
+    }
+
+    /**
+     * Add a linear constraint <code>sum coefficients[i] * p(labels[i]) = value</code>.
+     */
+    public void addConstraint(double value, int[] labels, double[] coefficients) {
+        Constraint constraint = new Constraint(value);
+        for (int i = 0; i < labels.length; i++) {
+            constraint.labels.add(labels[i]);
+            constraint.coefficients.add(coefficients[i]);
+        }
+        constraints.add(constraint);
+    }
+
+    /**
+     * Read the <code>Parameter</code> and <code>Constraint</code> sections of a <code>pede</code> steering file.
+     * The other sections are ignored. This must be done before the binary files are read.
+     *
+     * @param fileName the steering file
+     * @throws IOException if the file can not be read
+     */
+    public void readSteering(String fileName) throws IOException {
+        if (!accumulators.isEmpty()) {
+            throw new IllegalStateException("The steering must be read before the binary files.");
+        }
+        BufferedReader reader = new BufferedReader(new FileReader(fileName));
+        try {
+            String section = "";
+            Constraint constraint = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('!');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("*")) {
+                    continue;
+                }
+                String[] tokens = line.split("\\s+");
+                if (!isNumber(tokens[0])) {
+                    section = tokens[0].toLowerCase(Locale.US);
+                    if (section.equals("constraint")) {
+                        constraint = new Constraint(tokens.length > 1 ? Double.parseDouble(tokens[1]) : 0);
+                        constraints.add(constraint);
+                    } else if (!section.startsWith("parameter")) {
+                        LOGGER.fine("Ignoring steering line " + line);
+                    }
+                    continue;
+                }
+                if (section.startsWith("parameter")) {
+                    int label = Integer.parseInt(tokens[0]);
+                    double start = tokens.length > 1 ? Double.parseDouble(tokens[1]) : 0;
+                    double presigma = tokens.length > 2 ? Double.parseDouble(tokens[2]) : 0;
+                    if (start != 0) {
+                        startValues.put(label, start);
+                    }
+                    presigmas.put(label, presigma);
+                    if (presigma < 0) {
+                        fixedLabels.add(label);
+                    }
+                } else if (section.equals("constraint")) {
+                    for (int i = 0; i + 1 < tokens.length; i += 2) {
+                        constraint.labels.add(Integer.parseInt(tokens[i]));
+                        constraint.coefficients.add(Double.parseDouble(tokens[i + 1]));
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isNumber(String token) {
+        try {
+            Double.parseDouble(token);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accumulate the records of Millepede-II binary files.
+     *
+     * @param fileNames the binary files
+     * @throws IOException if a file can not be read
+     */
+    public void accumulate(String... fileNames) throws IOException {
+        while (accumulators.size() < threads) {
+            accumulators.add(new MillepedeAccumulator(startValues, fixedLabels, maxChi2PerNdf));
+        }
+        total = null;
+        results = null;
+
+        final BlockingQueue<MillepedeAccumulator> idle = new ArrayBlockingQueue<MillepedeAccumulator>(threads);
+        idle.addAll(accumulators.subList(0, threads));
+        final Semaphore inFlight = new Semaphore(2 * threads);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (String fileName : fileNames) {
+                LOGGER.info("Reading " + fileName);
+                MilleRecordReader reader = new MilleRecordReader(fileName);
+                try {
+                    List<double[]> values = new ArrayList<double[]>(BATCH_SIZE);
+                    List<int[]> ints = new ArrayList<int[]>(BATCH_SIZE);
+                    boolean more = true;
+                    while (more && error.get() == null) {
+                        more = reader.next();
+                        if (more) {
+                            values.add(Arrays.copyOf(reader.getValues(), reader.getSize()));
+                            ints.add(Arrays.copyOf(reader.getInts(), reader.getSize()));
+                        }
+                        if (values.size() == BATCH_SIZE || (!more && !values.isEmpty())) {
+                            inFlight.acquireUninterruptibly();
+                            final List<double[]> batchValues = values;
+                            final List<int[]> batchInts = ints;
+                            executor.execute(() -> {
+                                try {
+                                    MillepedeAccumulator accumulator = idle.take();
+                                    try {
+                                        for (int i = 0; i < batchValues.size(); i++) {
+                                            double[] v = batchValues.get(i);
+                                            accumulator.addRecord(v, batchInts.get(i), v.length);
+                                        }
+                                    } finally {
+                                        idle.put(accumulator);
+                                    }
+                                } catch (Throwable t) {
+                                    error.compareAndSet(null, t);
+                                } finally {
+                                    inFlight.release();
+                                }
+                            });
+                            values = new ArrayList<double[]>(BATCH_SIZE);
+                            ints = new ArrayList<int[]>(BATCH_SIZE);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while accumulating the Millepede records.", e);
+            }
+        }
+        if (error.get() != null) {
+            throw new RuntimeException("Error accumulating the Millepede records.", error.get());
+        }
+    }
+
+    /**
+     * Solve the global system.
+     *
+     * @return the parameter values (start values plus fitted corrections) of the fitted parameters by label
+     */
+    public Map<Integer, Double> solve() {
+        total = new MillepedeAccumulator(startValues, fixedLabels, maxChi2PerNdf);
+        for (MillepedeAccumulator accumulator : accumulators) {
+            total.merge(accumulator);
+        }
+        LOGGER.info(String.format("%d records, %d rejected, chi^2/ndf of the local fits %.4f", total.records,
+                total.rejectedRecords, total.ndfSum > 0 ? total.chi2Sum / total.ndfSum : 0.));
+
+        // Fitted parameters.
+        TreeSet<Integer> active = new TreeSet<Integer>();
+        for (long label : total.vector.keys()) {
+            if (total.entries.get(label) >= minEntries) {
+                active.add((int) label);
+            }
+        }
+        final int[] labels = new int[active.size()];
+        final Map<Integer, Integer> index = new HashMap<Integer, Integer>();
+        int n = 0;
+        for (int label : active) {
+            index.put(label, n);
+            labels[n++] = label;
+        }
+
+        // Global matrix in compressed rows, both triangles.
+        long[] keys = total.matrix.keys();
+        int[] rowCount = new int[n + 1];
+        for (long key : keys) {
+            Integer i = index.get(MillepedeAccumulator.row(key));
+            Integer j = index.get(MillepedeAccumulator.column(key));
+            if (i != null && j != null) {
+                rowCount[i + 1]++;
+                if (!i.equals(j)) {
+                    rowCount[j + 1]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            rowCount[i + 1] += rowCount[i];
+        }
+        final int[] rowStart = rowCount.clone();
+        final int[] columns = new int[rowStart[n]];
+        final double[] elements = new double[rowStart[n]];
+        int[] fill = Arrays.copyOf(rowStart, n);
+        for (long key : keys) {
+            Integer i = index.get(MillepedeAccumulator.row(key));
+            Integer j = index.get(MillepedeAccumulator.column(key));
+            if (i != null && j != null) {
+                double element = total.matrix.get(key);
+                if (i.equals(j)) {
+                    Double presigma = presigmas.get(labels[i]);
+                    if (presigma != null && presigma > 0) {
+                        element += 1 / (presigma * presigma);
+                    }
+                }
+                columns[fill[i]] = j;
+                elements[fill[i]++] = element;
+                if (!i.equals(j)) {
+                    columns[fill[j]] = i;
+                    elements[fill[j]++] = element;
+                }
+            }
+        }
+        final double[] rhs = new double[n];
+        for (int i = 0; i < n; i++) {
+            rhs[i] = total.vector.get(labels[i]);
+        }
+
+        // Constraints on the corrections of the fitted parameters.
+        List<int[]> constraintColumns = new ArrayList<int[]>();
+        List<double[]> constraintCoefficients = new ArrayList<double[]>();
+        List<Double> constraintValues = new ArrayList<Double>();
+        for (Constraint constraint : constraints) {
+            double value = constraint.value;
+            List<Integer> c = new ArrayList<Integer>();
+            List<Double> a = new ArrayList<Double>();
+            for (int k = 0; k < constraint.labels.size(); k++) {
+                Double start = startValues.get(constraint.labels.get(k));
+                if (start != null) {
+                    value -= constraint.coefficients.get(k) * start;
+                }
+                Integer i = index.get(constraint.labels.get(k));
+                if (i != null) {
+                    c.add(i);
+                    a.add(constraint.coefficients.get(k));
+                }
+            }
+            if (c.isEmpty()) {
+                continue;
+            }
+            int[] cc = new int[c.size()];
+            double[] aa = new double[a.size()];
+            for (int k = 0; k < cc.length; k++) {
+                cc[k] = c.get(k);
+                aa[k] = a.get(k);
+            }
+            constraintColumns.add(cc);
+            constraintCoefficients.add(aa);
+            constraintValues.add(value);
+        }
+        final int m = constraintValues.size();
+        LOGGER.info(String.format("Solving for %d parameters with %d constraints, %d matrix elements, using %s", n, m,
+                elements.length, method));
+
+        double[] correction;
+        if (method == Method.CHOLESKY) {
+            correction = solveCholesky(n, rowStart, columns, elements, rhs, constraintColumns, constraintCoefficients,
+                    constraintValues);
+        } else {
+            correction = solveMinres(n, rowStart, columns, elements, rhs, constraintColumns, constraintCoefficients,
+                    constraintValues);
+        }
+
+        results = new HashMap<Integer, Double>();
+        for (int i = 0; i < n; i++) {
+            Double start = startValues.get(labels[i]);
+            results.put(labels[i], (start == null ? 0 : start) + correction[i]);
+        }
+        return results;
+    }
+
+    private double[] solveCholesky(int n, int[] rowStart, int[] columns, double[] elements, double[] rhs,
+            List<int[]> constraintColumns, List<double[]> constraintCoefficients, List<Double> constraintValues) {
+        double[] c = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                c[i * n + columns[k]] = elements[k];
+            }
+        }
+        double[] x = rhs.clone();
+
+        // With the constraints A x = v, C x + A^T l = b is solved as (C + s A^T A) x + A^T l = b + s A^T v, where
+        // the matrix is positive definite when the constraints remove the undefined directions of C.
+        final int m = constraintValues.size();
+        if (m > 0) {
+            double trace = 0;
+            double constraintTrace = 0;
+            for (int i = 0; i < n; i++) {
+                trace += c[i * n + i];
+            }
+            for (double[] aa : constraintCoefficients) {
+                for (double a : aa) {
+                    constraintTrace += a * a;
+                }
+            }
+            final double scale = constraintTrace > 0 ? trace / constraintTrace : 1;
+            for (int a = 0; a < m; a++) {
+                int[] cc = constraintColumns.get(a);
+                double[] aa = constraintCoefficients.get(a);
+                for (int k = 0; k < cc.length; k++) {
+                    x[cc[k]] += scale * aa[k] * constraintValues.get(a);
+                    for (int l = 0; l < cc.length; l++) {
+                        c[cc[k] * n + cc[l]] += scale * aa[k] * aa[l];
+                    }
+                }
+            }
+        }
+        if (!DenseCholesky.decompose(c, n)) {
+            throw new RuntimeException("The global matrix is not positive definite; fix or constrain the undefined "
+                    + "parameters, or use the MINRES method.");
+        }
+        DenseCholesky.solve(c, n, x, 0);
+
+        // Then x = y - C'^-1 A^T l with (A C'^-1 A^T) l = A y - v, y = C'^-1 b'.
+        if (m > 0) {
+            double[] z = new double[m * n];
+            for (int a = 0; a < m; a++) {
+                int[] cc = constraintColumns.get(a);
+                double[] aa = constraintCoefficients.get(a);
+                for (int k = 0; k < cc.length; k++) {
+                    z[a * n + cc[k]] += aa[k];
+                }
+                DenseCholesky.solve(c, n, z, a * n);
+            }
+            double[] s = new double[m * m];
+            double[] lambda = new double[m];
+            for (int a = 0; a < m; a++) {
+                int[] cc = constraintColumns.get(a);
+                double[] aa = constraintCoefficients.get(a);
+                for (int k = 0; k < cc.length; k++) {
+                    lambda[a] += aa[k] * x[cc[k]];
+                    for (int b = 0; b < m; b++) {
+                        s[a * m + b] += aa[k] * z[b * n + cc[k]];
+                    }
+                }
+                lambda[a] -= constraintValues.get(a);
+            }
+            if (!DenseCholesky.decompose(s, m)) {
+                throw new RuntimeException("The constraints are not independent.");
+            }
+            DenseCholesky.solve(s, m, lambda, 0);
+            for (int a = 0; a < m; a++) {
+                for (int i = 0; i < n; i++) {
+                    x[i] -= z[a * n + i] * lambda[a];
+                }
+            }
+        }
+        return x;
+    }
+
+    private double[] solveMinres(final int n, final int[] rowStart, final int[] columns, final double[] elements,
+            double[] rhs, final List<int[]> constraintColumns, final List<double[]> constraintCoefficients,
+            List<Double> constraintValues) {
+        final int m = constraintValues.size();
+        final int size = n + m;
+        double[] b = Arrays.copyOf(rhs, size);
+        for (int a = 0; a < m; a++) {
+            b[n + a] = constraintValues.get(a);
+        }
+
+        // Product with [[C, A^T], [A, 0]].
+        final double[] out = new double[size];
+        Function<double[], double[]> product = v -> {
+            Arrays.fill(out, 0);
+            for (int i = 0; i < n; i++) {
+                double s = 0;
+                for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                    s += elements[k] * v[columns[k]];
+                }
+                out[i] = s;
+            }
+            for (int a = 0; a < m; a++) {
+                int[] cc = constraintColumns.get(a);
+                double[] aa = constraintCoefficients.get(a);
+                for (int k = 0; k < cc.length; k++) {
+                    out[cc[k]] += aa[k] * v[n + a];
+                    out[n + a] += aa[k] * v[cc[k]];
+                }
+            }
+            return out;
+        };
+
+        // MINRES (Paige and Saunders), without preconditioning.
+        double[] x = new double[size];
+        double[] r1 = b.clone();
+        double[] r2 = b.clone();
+        double[] y = b.clone();
+        double[] w = new double[size];
+        double[] w1 = new double[size];
+        double[] w2 = new double[size];
+        double[] v = new double[size];
+        final double beta1 = Math.sqrt(dot(b, b));
+        if (beta1 == 0) {
+            return x;
+        }
+        double oldb = 0;
+        double beta = beta1;
+        double dbar = 0;
+        double epsln = 0;
+        double phibar = beta1;
+        double cs = -1;
+        double sn = 0;
+        final int maxIter = maxIterations > 0 ? maxIterations : 10 * size;
+        int iter = 0;
+        while (iter < maxIter && phibar > tolerance * beta1) {
+            iter++;
+            for (int i = 0; i < size; i++) {
+                v[i] = y[i] / beta;
+            }
+            double[] av = product.apply(v);
+            System.arraycopy(av, 0, y, 0, size);
+            if (iter >= 2) {
+                for (int i = 0; i < size; i++) {
+                    y[i] -= (beta / oldb) * r1[i];
+                }
+            }
+            final double alfa = dot(v, y);
+            for (int i = 0; i < size; i++) {
+                y[i] -= (alfa / beta) * r2[i];
+            }
+            double[] t = r1;
+            r1 = r2;
+            r2 = t;
+            System.arraycopy(y, 0, r2, 0, size);
+            oldb = beta;
+            beta = Math.sqrt(dot(r2, r2));
+            final double oldeps = epsln;
+            final double delta = cs * dbar + sn * alfa;
+            final double gbar = sn * dbar - cs * alfa;
+            epsln = sn * beta;
+            dbar = -cs * beta;
+            final double gamma = Math.max(Math.hypot(gbar, beta), Double.MIN_NORMAL);
+            cs = gbar / gamma;
+            sn = beta / gamma;
+            final double phi = cs * phibar;
+            phibar = sn * phibar;
+            t = w1;
+            w1 = w2;
+            w2 = w;
+            w = t;
+            for (int i = 0; i < size; i++) {
+                w[i] = (v[i] - oldeps * w1[i] - delta * w2[i]) / gamma;
+                x[i] += phi * w[i];
+            }
+            if (beta == 0) {
+                break;
+            }
+        }
+        LOGGER.info(String.format("MINRES stopped after %d iterations with relative residual %.3e", iter,
+                phibar / beta1));
+        return Arrays.copyOf(x, n);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) {
+            s += a[i] * b[i];
+        }
+        return s;
+    }
+
+    /**
+     * Write the parameters in the <code>millepede.res</code> format: label, value and pre-sigma of each parameter of
+     * the data and the steering. Parameters that were not fitted have their start value.
+     *
+     * @param fileName the output file
+     * @throws IOException if the file can not be written
+     */
+    public void writeResults(String fileName) throws IOException {
+        if (results == null) {
+            throw new IllegalStateException("The global system was not solved.");
+        }
+        TreeSet<Integer> labels = new TreeSet<Integer>(results.keySet());
+        labels.addAll(presigmas.keySet());
+        for (long label : total.entries.keys()) {
+            labels.add((int) label);
+        }
+        PrintWriter writer = new PrintWriter(fileName);
+        try {
+            writer.println("Parameter   ! first 3 elements per line are significant (if used as input)");
+            for (int label : labels) {
+                Double value = results.get(label);
+                if (value == null) {
+                    value = startValues.containsKey(label) ? startValues.get(label) : 0;
+                }
+                double presigma = presigmas.containsKey(label) ? presigmas.get(label) : 0;
+                writer.println(String.format(Locale.US, "%10d %13.5e %13.5e %8d", label, value, presigma,
+                        (long) total.entries.get(label)));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static Options createCmdLineOpts() {
+        Options options = new Options();
+        options.addOption(new Option("s", true, "Steering or constraint file in the pede format (repeatable)."));
+        options.addOption(new Option("o", true, "The name of the result file (default millepede.res)."));
+        options.addOption(new Option("m", true, "Solution method: minres (default) or cholesky."));
+        options.addOption(new Option("t", true, "Number of accumulation threads."));
+        options.addOption(new Option("c", true, "Maximum chi^2/ndf of the local fits."));
+        options.addOption(new Option("e", true, "Minimum number of entries of a fitted parameter."));
+        return options;
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        Options options = createCmdLineOpts();
+        CommandLineParser parser = new PosixParser();
+        CommandLine cl = null;
+        try {
+            cl = parser.parse(options, args);
+        } catch (ParseException e) {
+            throw new RuntimeException("Problem parsing command line options.", e);
+        }
+        if (cl.getArgs().length == 0) {
+            HelpFormatter help = new HelpFormatter();
+            help.printHelp("MillepedeSolver [options] binary files", options);
+            System.exit(1);
+        }
+
+        MillepedeSolver solver = new MillepedeSolver();
+        if (cl.hasOption("m")) {
+            solver.setMethod(Method.valueOf(cl.getOptionValue("m").toUpperCase(Locale.US)));
+        }
+        if (cl.hasOption("t")) {
+            solver.setThreads(Integer.parseInt(cl.getOptionValue("t")));
+        }
+        if (cl.hasOption("c")) {
+            solver.setMaxChi2PerNdf(Double.parseDouble(cl.getOptionValue("c")));
+        }
+        if (cl.hasOption("e")) {
+            solver.setMinEntries(Integer.parseInt(cl.getOptionValue("e")));
+        }
+        if (cl.hasOption("s")) {
+            for (String steering : cl.getOptionValues("s")) {
+                solver.readSteering(steering);
+            }
+        }
+        solver.accumulate(cl.getArgs());
+        solver.solve();
+        solver.writeResults(cl.hasOption("o") ? cl.getOptionValue("o") : "millepede.res");
+    }
+}
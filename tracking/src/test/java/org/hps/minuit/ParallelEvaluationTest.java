@@ -0,0 +1,173 @@
+package org.hps.minuit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Test that evaluating the points of the numerical gradient and of the Hessian in parallel gives the same results,
+ * bit for bit and with the same number of calls, as evaluating them serially, for a thread-safe quadratic and
+ * Rosenbrock function.
+ */
+public class ParallelEvaluationTest extends TestCase {
+
+    /**
+     * Thread-safe function that counts its batch evaluations.
+     */
+    private static abstract class CountingFcn implements FCNBase {
+
+        final AtomicInteger batches = new AtomicInteger();
+
+        public double[] valueOf(double[][] points) {
+            batches.incrementAndGet();
+            return FCNBase.super.valueOf(points);
+        }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+
+    /**
+     * chi2 = x^T W x, so that the covariance is the inverse of W.
+     */
+    private static class Quadratic extends CountingFcn {
+
+        static final double[][] W = {{2., 1., 0.}, {1., 2., 1.}, {0., 1., 2.}};
+        static final double[][] COV = {{0.75, -0.5, 0.25}, {-0.5, 1., -0.5}, {0.25, -0.5, 0.75}};
+        static final double[] MIN = {0.3, -1.2, 2.5};
+
+        public double valueOf(double[] par) {
+            double chi2 = 0;
+            for (int i = 0; i < 3; i++) {
+                for (int j = 0; j < 3; j++) {
+                    chi2 += (par[i] - MIN[i]) * W[i][j] * (par[j] - MIN[j]);
+                }
+            }
+            return chi2;
+        }
+    }
+
+    private static class Rosenbrock extends CountingFcn {
+
+        public double valueOf(double[] par) {
+            double f = 0;
+            for (int i = 0; i + 1 < par.length; i++) {
+                f += 100. * Math.pow(par[i + 1] - par[i] * par[i], 2) + Math.pow(1. - par[i], 2);
+            }
+            return f;
+        }
+    }
+
+    public void testGradient() {
+        double[] par = {-1.2, 1.0, 0.8, 1.3};
+        double[] err = {0.1, 0.1, 0.2, 0.05};
+        CountingFcn serialFcn = new Rosenbrock();
+        CountingFcn parallelFcn = new Rosenbrock();
+        MnUserFcn serial = userFcn(serialFcn, par, err);
+        MnUserFcn parallel = userFcn(parallelFcn, par, err);
+        FunctionGradient g = gradient(serial, par, err, false);
+        FunctionGradient gp = gradient(parallel, par, err, true);
+        checkSame(g.grad(), gp.grad());
+        checkSame(g.g2(), gp.g2());
+        checkSame(g.gstep(), gp.gstep());
+        assertEquals(serial.numOfCalls(), parallel.numOfCalls());
+        checkPaths(serialFcn, parallelFcn);
+
+        // the gradient of the Rosenbrock function
+        assertEquals(-400. * -1.2 * (1.0 - 1.44) - 2. * (1. + 1.2), g.grad().get(0), 1e-3);
+    }
+
+    public void testHesse() {
+        double[] par = {0.3, -1.2, 2.5};
+        double[] err = {0.5, 0.5, 0.5};
+        CountingFcn serialFcn = new Quadratic();
+        CountingFcn parallelFcn = new Quadratic();
+        MnUserParameterState s = new MnHesse(strategy(false)).calculate(serialFcn, par, err);
+        MnUserParameterState sp = new MnHesse(strategy(true)).calculate(parallelFcn, par, err);
+        checkSame(s, sp);
+        checkPaths(serialFcn, parallelFcn);
+
+        MnUserCovariance cov = s.covariance();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                assertEquals(Quadratic.COV[i][j], cov.get(i, j), 1e-6);
+            }
+        }
+    }
+
+    public void testMigrad() {
+        double[] par = {-1.2, 1.0, 0.9};
+        double[] err = {0.1, 0.1, 0.1};
+        CountingFcn serialFcn = new Rosenbrock();
+        CountingFcn parallelFcn = new Rosenbrock();
+        FunctionMinimum min = new MnMigrad(serialFcn, new MnUserParameterState(par, err), strategy(false)).minimize();
+        FunctionMinimum minp = new MnMigrad(parallelFcn, new MnUserParameterState(par, err), strategy(true)).minimize();
+        assertEquals(min.isValid(), minp.isValid());
+        assertEquals(min.nfcn(), minp.nfcn());
+        assertEquals(min.fval(), minp.fval(), 0.);
+        checkSame(min.userState(), minp.userState());
+        checkPaths(serialFcn, parallelFcn);
+
+        // the minimum of the Rosenbrock function
+        assertTrue(min.isValid());
+        for (double value : min.userState().params()) {
+            assertEquals(1., value, 1e-3);
+        }
+    }
+
+    private static MnStrategy strategy(boolean parallel) {
+        MnStrategy strategy = new MnStrategy(2);
+        strategy.setParallelEvaluation(parallel);
+        return strategy;
+    }
+
+    private static MnUserFcn userFcn(FCNBase fcn, double[] par, double[] err) {
+        return new MnUserFcn(fcn, 1., new MnUserParameterState(par, err).trafo());
+    }
+
+    private static FunctionGradient gradient(MnUserFcn mfcn, double[] par, double[] err, boolean parallel) {
+        MnUserParameterState state = new MnUserParameterState(par, err);
+        MnAlgebraicVector x = new MnAlgebraicVector(par.length);
+        for (int i = 0; i < par.length; i++) {
+            x.set(i, state.intParameters().get(i));
+        }
+        MinimumParameters p = new MinimumParameters(x, mfcn.valueOf(x));
+        return new Numerical2PGradientCalculator(mfcn, state.trafo(), strategy(parallel)).gradient(p);
+    }
+
+    /**
+     * The serial evaluation goes through the batch method of the function, the parallel one evaluates each point.
+     */
+    private static void checkPaths(CountingFcn serialFcn, CountingFcn parallelFcn) {
+        assertTrue(serialFcn.batches.get() > 0);
+        assertEquals(0, parallelFcn.batches.get());
+    }
+
+    private static void checkSame(MnAlgebraicVector expected, MnAlgebraicVector actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), 0.);
+        }
+    }
+
+    private static void checkSame(MnUserParameterState expected, MnUserParameterState actual) {
+        assertEquals(expected.isValid(), actual.isValid());
+        assertEquals(expected.nfcn(), actual.nfcn());
+        assertEquals(expected.fval(), actual.fval(), 0.);
+        double[] p = expected.params();
+        double[] pp = actual.params();
+        assertEquals(p.length, pp.length);
+        for (int i = 0; i < p.length; i++) {
+            assertEquals(p[i], pp[i], 0.);
+        }
+        MnUserCovariance cov = expected.covariance();
+        MnUserCovariance covp = actual.covariance();
+        assertEquals(cov.nrow(), covp.nrow());
+        for (int i = 0; i < cov.nrow(); i++) {
+            for (int j = 0; j <= i; j++) {
+                assertEquals(cov.get(i, j), covp.get(i, j), 0.);
+            }
+        }
+    }
+}
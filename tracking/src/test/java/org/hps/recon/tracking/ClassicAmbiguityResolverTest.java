@@ -0,0 +1,89 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackerHit;
+import org.lcsim.event.base.BaseRawTrackerHit;
+import org.lcsim.event.base.BaseTrack;
+import org.lcsim.event.base.BaseTrackerHit;
+
+/**
+ * Test that the track scores of {@link ClassicAmbiguityResolver} do not depend on the order of the input collections,
+ * and that, as before the track-hit index, every hit of an operable track scores as shared since the track itself is
+ * one of the operable tracks.
+ */
+public class ClassicAmbiguityResolverTest extends TestCase {
+
+    public void testScoresIndependentOfInputOrder() {
+        // one hit per stereo layer of each track, tracks of different collections sharing some of them
+        TrackerHit[] hits = new TrackerHit[12];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = makeHit(2 * (i % 6) + 1);
+        }
+        Track a = makeTrack(hits[0], hits[1], hits[2], hits[3], hits[4], hits[5]);
+        Track b = makeTrack(hits[0], hits[1], hits[8], hits[9], hits[10], hits[11]);
+        Track c = makeTrack(hits[6], hits[7], hits[2], hits[9], hits[10], hits[5]);
+        Track d = makeTrack(hits[6], hits[7], hits[8], hits[3], hits[4], hits[11]);
+        List<Track> list1 = Arrays.asList(a, b);
+        List<Track> list2 = Arrays.asList(c);
+        List<Track> list3 = Arrays.asList(d);
+
+        List<List<Track>> order = new ArrayList<List<Track>>(Arrays.asList(list1, list2, list3));
+        ClassicAmbiguityResolver resolver = makeResolver();
+        resolver.initializeFromCollection(order);
+        double[] scores = {resolver.getScore(a), resolver.getScore(b), resolver.getScore(c), resolver.getScore(d)};
+
+        // d shares all its hits with the other tracks, but scores the same on its own
+        ClassicAmbiguityResolver alone = makeResolver();
+        alone.initializeFromCollection(Collections.singletonList(list3));
+        assertEquals(scores[3], alone.getScore(d), 1e-9);
+        // a and d have the same chi2 and a hit on each layer
+        assertEquals(scores[0], scores[3], 1e-9);
+
+        Collections.reverse(order);
+        for (int n = 0; n < 3; n++) {
+            resolver.resetResolver();
+            resolver.initializeFromCollection(order);
+            assertEquals(scores[0], resolver.getScore(a), 1e-9);
+            assertEquals(scores[1], resolver.getScore(b), 1e-9);
+            assertEquals(scores[2], resolver.getScore(c), 1e-9);
+            assertEquals(scores[3], resolver.getScore(d), 1e-9);
+            Collections.rotate(order, 1);
+        }
+    }
+
+    private static ClassicAmbiguityResolver makeResolver() {
+        // every layer has a hit, so the acceptance is never consulted
+        return new ClassicAmbiguityResolver(null);
+    }
+
+    private static Track makeTrack(TrackerHit... hits) {
+        BaseTrack track = new BaseTrack();
+        for (TrackerHit hit : hits) {
+            track.addHit(hit);
+        }
+        track.setChisq(3.);
+        track.setNDF(7);
+        return track;
+    }
+
+    /**
+     * A tracker hit whose only raw hit is on the given SVT layer, as needed for scoring
+     */
+    private static TrackerHit makeHit(final int layer) {
+        BaseTrackerHit hit = new BaseTrackerHit();
+        hit.getRawHits().add(new BaseRawTrackerHit(0, 0, new short[6]) {
+            @Override
+            public int getLayerNumber() {
+                return layer;
+            }
+        });
+        return hit;
+    }
+}
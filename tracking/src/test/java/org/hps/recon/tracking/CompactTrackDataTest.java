@@ -0,0 +1,208 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackState;
+import org.lcsim.event.TrackerHit;
+import org.lcsim.event.base.BaseLCRelation;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.event.base.BaseTrack;
+import org.lcsim.event.base.BaseTrackState;
+import org.lcsim.event.base.BaseTrackerHit;
+
+/**
+ * Test that a track packed into {@link CompactTrackData} and unpacked again keeps its parameters, covariances (to
+ * float precision), track states, hits and relations, directly and through {@link CompactTrackWriterDriver} and
+ * {@link CompactTrackReaderDriver}.
+ */
+public class CompactTrackDataTest extends TestCase {
+
+    private static final int[] LOCATIONS = {TrackState.AtIP, TrackState.AtFirstHit, TrackState.AtLastHit,
+            TrackState.AtCalorimeter};
+
+    public void testRoundTrip() {
+        List<TrackerHit> hits = makeHits(10);
+        BaseTrack track = makeTrack(hits.get(7), hits.get(2), hits.get(5), hits.get(0));
+        Map<TrackerHit, Integer> hitIndices = new IdentityHashMap<TrackerHit, Integer>();
+        for (int i = 0; i < hits.size(); i++) {
+            hitIndices.put(hits.get(i), i);
+        }
+        int[][] related = {{2, -1}, {}, {-6, 0, 3}};
+
+        CompactTrackData compact = new CompactTrackData(track, hitIndices, related);
+        BaseTrack unpacked = CompactTrackData.toTrack(compact, hits);
+        checkTrack(track, unpacked);
+        assertEquals(track.getTrackerHits(), unpacked.getTrackerHits());
+
+        int[][] unpackedRelated = CompactTrackData.getRelatedIndices(compact);
+        assertEquals(related.length, unpackedRelated.length);
+        for (int r = 0; r < related.length; r++) {
+            assertTrue(Arrays.equals(related[r], unpackedRelated[r]));
+        }
+    }
+
+    public void testWithoutHits() {
+        List<TrackerHit> hits = makeHits(4);
+        BaseTrack track = makeTrack(hits.get(1), hits.get(3));
+
+        // hits are not stored
+        CompactTrackData compact = new CompactTrackData(track, null, new int[0][]);
+        BaseTrack unpacked = CompactTrackData.toTrack(compact, hits);
+        checkTrack(track, unpacked);
+        assertTrue(unpacked.getTrackerHits().isEmpty());
+        assertEquals(0, CompactTrackData.getRelatedIndices(compact).length);
+
+        // a hit that is not in the persisted collection is dropped
+        Map<TrackerHit, Integer> hitIndices = new IdentityHashMap<TrackerHit, Integer>();
+        hitIndices.put(hits.get(3), 0);
+        compact = new CompactTrackData(track, hitIndices, new int[0][]);
+        assertEquals(Arrays.asList(hits.get(0)), CompactTrackData.toTrack(compact, hits).getTrackerHits());
+    }
+
+    public void testDrivers() {
+        List<TrackerHit> hits = makeHits(8);
+        List<GenericObject> data = makeObjects(3);
+        List<GenericObject> others = makeObjects(4);
+        List<Track> tracks = new ArrayList<Track>();
+        tracks.add(makeTrack(hits.get(0), hits.get(1), hits.get(2)));
+        tracks.add(makeTrack(hits.get(5), hits.get(6)));
+
+        // track data point to the tracks, the tracks point to the other objects
+        List<LCRelation> dataRelations = new ArrayList<LCRelation>();
+        dataRelations.add(new BaseLCRelation(data.get(2), tracks.get(0)));
+        dataRelations.add(new BaseLCRelation(data.get(0), tracks.get(1)));
+        List<LCRelation> otherRelations = new ArrayList<LCRelation>();
+        otherRelations.add(new BaseLCRelation(tracks.get(1), others.get(3)));
+        otherRelations.add(new BaseLCRelation(tracks.get(1), others.get(0)));
+        String[] relationCollections = {"KFTrackDataRelations:KFTrackData", "OtherRelations:Others"};
+
+        EventHeader event = new BaseLCSimEvent(1000, 1, "test");
+        event.put("Hits", hits, TrackerHit.class, 0);
+        event.put("KFTrackData", data, GenericObject.class, 0);
+        event.put("Others", others, GenericObject.class, 0);
+        event.put("Tracks", tracks, Track.class, 0);
+        event.put("KFTrackDataRelations", dataRelations, LCRelation.class, 0);
+        event.put("OtherRelations", otherRelations, LCRelation.class, 0);
+        CompactTrackWriterDriver writer = new CompactTrackWriterDriver();
+        writer.setTrackCollectionName("Tracks");
+        writer.setHitCollectionName("Hits");
+        writer.setRelationCollections(relationCollections);
+        writer.startOfData();
+        writer.process(event);
+
+        EventHeader readEvent = new BaseLCSimEvent(1000, 1, "test");
+        readEvent.put("Hits", hits, TrackerHit.class, 0);
+        readEvent.put("KFTrackData", data, GenericObject.class, 0);
+        readEvent.put("Others", others, GenericObject.class, 0);
+        readEvent.put("TracksCompact", event.get(GenericObject.class, "TracksCompact"), GenericObject.class, 0);
+        CompactTrackReaderDriver reader = new CompactTrackReaderDriver();
+        reader.setTrackCollectionName("Tracks");
+        reader.setHitCollectionName("Hits");
+        reader.setRelationCollections(relationCollections);
+        reader.startOfData();
+        reader.process(readEvent);
+
+        List<Track> readTracks = readEvent.get(Track.class, "Tracks");
+        assertEquals(tracks.size(), readTracks.size());
+        for (int i = 0; i < tracks.size(); i++) {
+            checkTrack(tracks.get(i), readTracks.get(i));
+            assertEquals(tracks.get(i).getTrackerHits(), readTracks.get(i).getTrackerHits());
+        }
+
+        // relations keep their direction
+        List<LCRelation> readData = readEvent.get(LCRelation.class, "KFTrackDataRelations");
+        assertEquals(2, readData.size());
+        assertSame(data.get(2), readData.get(0).getFrom());
+        assertSame(readTracks.get(0), readData.get(0).getTo());
+        assertSame(data.get(0), readData.get(1).getFrom());
+        assertSame(readTracks.get(1), readData.get(1).getTo());
+        List<LCRelation> readOthers = readEvent.get(LCRelation.class, "OtherRelations");
+        assertEquals(2, readOthers.size());
+        assertSame(readTracks.get(1), readOthers.get(0).getFrom());
+        assertSame(others.get(3), readOthers.get(0).getTo());
+        assertSame(readTracks.get(1), readOthers.get(1).getFrom());
+        assertSame(others.get(0), readOthers.get(1).getTo());
+    }
+
+    private static void checkTrack(Track expected, Track actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getNDF(), actual.getNDF());
+        assertEquals(expected.fitSuccess(), actual.fitSuccess());
+        assertEquals(expected.getChi2(), actual.getChi2(), tolerance(expected.getChi2()));
+        assertTrue(Arrays.equals(expected.getSubdetectorHitNumbers(), actual.getSubdetectorHitNumbers()));
+        List<TrackState> expectedStates = expected.getTrackStates();
+        List<TrackState> actualStates = actual.getTrackStates();
+        assertEquals(expectedStates.size(), actualStates.size());
+        for (int s = 0; s < expectedStates.size(); s++) {
+            TrackState e = expectedStates.get(s);
+            TrackState a = actualStates.get(s);
+            assertEquals(e.getLocation(), a.getLocation());
+            assertEquals(e.getBLocal(), a.getBLocal(), tolerance(e.getBLocal()));
+            checkValues(e.getParameters(), a.getParameters());
+            checkValues(e.getReferencePoint(), a.getReferencePoint());
+            checkValues(e.getCovMatrix(), a.getCovMatrix());
+        }
+        // the track parameters are those of the first state
+        checkValues(expectedStates.get(0).getParameters(), actual.getTrackParameters());
+    }
+
+    private static void checkValues(double[] expected, double[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(expected[k], actual[k], tolerance(expected[k]));
+        }
+    }
+
+    private static double tolerance(double value) {
+        return 1e-6 * Math.abs(value) + 1e-30;
+    }
+
+    private static BaseTrack makeTrack(TrackerHit... hits) {
+        BaseTrack track = new BaseTrack();
+        for (TrackerHit hit : hits) {
+            track.addHit(hit);
+        }
+        track.setTrackType(1 << 5 | 1);
+        track.setChisq(12.345678);
+        track.setNDF(2 * hits.length - 5);
+        track.setFitSuccess(true);
+        track.setSubdetectorHitNumbers(new int[] {hits.length, 0, 3});
+        for (int s = 0; s < LOCATIONS.length; s++) {
+            double[] parameters = {0.123 + s, -0.0456 * s, 3.1e-4, -1.234 + s, 0.0321};
+            double[] referencePoint = {100. * s, -2.5 + s, 0.75};
+            double[] covariance = new double[15];
+            for (int k = 0; k < covariance.length; k++) {
+                covariance[k] = (k + 1) * Math.pow(10., -3 - k % 5) * (s + 1) * (k % 3 == 1 ? -1 : 1);
+            }
+            track.getTrackStates().add(new BaseTrackState(parameters, referencePoint, covariance, LOCATIONS[s],
+                    -0.52 - 0.01 * s));
+        }
+        return track;
+    }
+
+    private static List<TrackerHit> makeHits(int n) {
+        List<TrackerHit> hits = new ArrayList<TrackerHit>();
+        for (int i = 0; i < n; i++) {
+            hits.add(new BaseTrackerHit());
+        }
+        return hits;
+    }
+
+    private static List<GenericObject> makeObjects(int n) {
+        List<GenericObject> objects = new ArrayList<GenericObject>();
+        for (int i = 0; i < n; i++) {
+            objects.add(new TrackData());
+        }
+        return objects;
+    }
+}
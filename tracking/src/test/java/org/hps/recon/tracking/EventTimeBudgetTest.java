@@ -0,0 +1,75 @@
+package org.hps.recon.tracking;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.base.BaseLCSimEvent;
+
+/**
+ * Test the expiry of the {@link EventTimeBudget} and the flagging and counting of degraded events.
+ */
+public class EventTimeBudgetTest extends TestCase {
+
+    private final EventTimeBudget budget = EventTimeBudget.instance();
+
+    @Override
+    protected void setUp() {
+        budget.clearStatistics();
+    }
+
+    @Override
+    protected void tearDown() {
+        budget.endEvent();
+        budget.setBudget(-1.);
+        budget.clearStatistics();
+    }
+
+    public void testDisabled() throws Exception {
+        budget.setBudget(0.);
+        EventHeader event = new BaseLCSimEvent(1000, 1, "test");
+        budget.startEvent(event);
+        Thread.sleep(5);
+        assertFalse(budget.isExceeded());
+        assertFalse(event.getIntegerParameters().containsKey(EventTimeBudget.FLAG_NAME));
+    }
+
+    public void testExpiry() throws Exception {
+        budget.setBudget(20.);
+
+        // An event within its budget is flagged good
+        EventHeader event = new BaseLCSimEvent(1000, 1, "test");
+        budget.startEvent(event);
+        assertFalse(budget.isExceeded());
+        assertEquals(1, event.getIntegerParameters().get(EventTimeBudget.FLAG_NAME)[0]);
+        budget.endEvent();
+
+        // An event past its budget is flagged degraded once a driver reduces its work
+        event = new BaseLCSimEvent(1000, 2, "test");
+        budget.startEvent(event);
+        Thread.sleep(40);
+        assertTrue(budget.isExceeded());
+        assertFalse(budget.isDegraded());
+        budget.degrade("SeedTracker");
+        budget.degrade("SeedTracker");
+        budget.degrade("GBLRefitterDriver");
+        assertTrue(budget.isDegraded());
+        assertEquals(0, event.getIntegerParameters().get(EventTimeBudget.FLAG_NAME)[0]);
+        budget.endEvent();
+
+        // Outside of an event the budget is never exceeded
+        assertFalse(budget.isExceeded());
+
+        // The next event starts with a fresh clock and flag
+        event = new BaseLCSimEvent(1000, 3, "test");
+        budget.startEvent(event);
+        assertFalse(budget.isExceeded());
+        assertFalse(budget.isDegraded());
+        assertEquals(1, event.getIntegerParameters().get(EventTimeBudget.FLAG_NAME)[0]);
+        budget.endEvent();
+
+        assertEquals(3, budget.getEventCount());
+        assertEquals(1, budget.getDegradedCount());
+        assertEquals(Integer.valueOf(1), budget.getDegradedCounts().get("SeedTracker"));
+        assertEquals(Integer.valueOf(1), budget.getDegradedCounts().get("GBLRefitterDriver"));
+    }
+}
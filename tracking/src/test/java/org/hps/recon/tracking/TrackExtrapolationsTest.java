@@ -0,0 +1,96 @@
+package org.hps.recon.tracking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.Track;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.event.base.BaseTrack;
+import org.lcsim.event.base.BaseTrackState;
+import org.lcsim.geometry.FieldMap;
+
+/**
+ * Test that {@link TrackExtrapolations} extrapolates each track at most once per surface: a second lookup returns
+ * the cached state, or the cached absence of a state, without extrapolating again.
+ */
+public class TrackExtrapolationsTest extends TestCase {
+
+    /**
+     * Extrapolator recording its calls, which gives no state for the tracks without hits.
+     */
+    private static class CountingExtrapolator implements TrackExtrapolations.Extrapolator {
+
+        final List<Track> tracks = new ArrayList<Track>();
+        final List<Integer> surfaces = new ArrayList<Integer>();
+
+        public BaseTrackState extrapolate(Track track, FieldMap fieldMap, int surface, int runNumber) {
+            tracks.add(track);
+            surfaces.add(surface);
+            return track.getTrackerHits().isEmpty() ? null : new BaseTrackState();
+        }
+    }
+
+    public void testSecondLookup() {
+        CountingExtrapolator extrapolator = new CountingExtrapolator();
+        TrackExtrapolations extrapolations = new TrackExtrapolations(extrapolator);
+        Track track = new BaseTrack();
+        track.getTrackerHits().add(null);
+        Track other = new BaseTrack();
+        other.getTrackerHits().add(null);
+
+        BaseTrackState atEcal = extrapolations.getAtEcal(track, null, 10031);
+        assertNotNull(atEcal);
+        assertEquals(1, extrapolator.tracks.size());
+        assertSame(atEcal, extrapolations.getAtEcal(track, null, 10031));
+        assertEquals(1, extrapolator.tracks.size());
+
+        // each surface and each track is extrapolated once
+        BaseTrackState atHodo1 = extrapolations.getAtHodo(track, null, 1);
+        BaseTrackState atHodo2 = extrapolations.getAtHodo(track, null, 2);
+        assertNotSame(atHodo1, atHodo2);
+        assertNotSame(atEcal, atHodo1);
+        BaseTrackState otherAtEcal = extrapolations.getAtEcal(other, null, 10031);
+        assertNotSame(atEcal, otherAtEcal);
+        assertEquals(4, extrapolator.tracks.size());
+        assertEquals(3, extrapolator.surfaces.subList(0, 3).stream().distinct().count());
+
+        assertSame(atHodo1, extrapolations.getAtHodo(track, null, 1));
+        assertSame(atHodo2, extrapolations.getAtHodo(track, null, 2));
+        assertSame(otherAtEcal, extrapolations.getAtEcal(other, null, 10031));
+        assertEquals(4, extrapolator.tracks.size());
+        assertEquals(2, extrapolations.size());
+    }
+
+    public void testNoState() {
+        CountingExtrapolator extrapolator = new CountingExtrapolator();
+        TrackExtrapolations extrapolations = new TrackExtrapolations(extrapolator);
+        Track track = new BaseTrack();
+        assertNull(extrapolations.getAtEcal(track, null, 10031));
+        assertNull(extrapolations.getAtEcal(track, null, 10031));
+        assertEquals(1, extrapolator.tracks.size());
+    }
+
+    public void testAddTrackState() {
+        CountingExtrapolator extrapolator = new CountingExtrapolator();
+        TrackExtrapolations extrapolations = new TrackExtrapolations(extrapolator);
+        Track track = new BaseTrack();
+        track.getTrackerHits().add(null);
+
+        // two drivers adding the state at the ECal, e.g. the GBL alignment refit and then TrackDataDriver
+        assertTrue(TrackExtrapolations.addTrackState(track, extrapolations.getAtEcal(track, null, 10031)));
+        assertFalse(TrackExtrapolations.addTrackState(track, extrapolations.getAtEcal(track, null, 10031)));
+        assertFalse(TrackExtrapolations.addTrackState(track, null));
+        assertEquals(1, track.getTrackStates().size());
+        assertEquals(1, extrapolator.tracks.size());
+    }
+
+    public void testRead() {
+        EventHeader event = new BaseLCSimEvent(10031, 1, "test");
+        TrackExtrapolations extrapolations = TrackExtrapolations.read(event);
+        assertSame(extrapolations, TrackExtrapolations.read(event));
+        assertNotSame(extrapolations, TrackExtrapolations.read(new BaseLCSimEvent(10031, 2, "test")));
+    }
+}
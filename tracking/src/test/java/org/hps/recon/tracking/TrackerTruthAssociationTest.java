@@ -0,0 +1,320 @@
+package org.hps.recon.tracking;
+
+import hep.physics.particle.properties.ParticlePropertyManager;
+import hep.physics.vec.BasicHep3Vector;
+import hep.physics.vec.BasicHepLorentzVector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.hps.recon.tracking.TrackerTruthAssociation.TrackMatch;
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.LCRelation;
+import org.lcsim.event.MCParticle;
+import org.lcsim.event.RawTrackerHit;
+import org.lcsim.event.RelationalTable;
+import org.lcsim.event.SimTrackerHit;
+import org.lcsim.event.Track;
+import org.lcsim.event.TrackerHit;
+import org.lcsim.event.base.BaseLCRelation;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.event.base.BaseMCParticle;
+import org.lcsim.event.base.BaseRawTrackerHit;
+import org.lcsim.event.base.BaseRelationalTable;
+import org.lcsim.event.base.BaseSimTrackerHit;
+import org.lcsim.event.base.BaseTrack;
+import org.lcsim.event.base.BaseTrackerHit;
+
+/**
+ * Test the lookups of {@link TrackerTruthAssociation} against the per-call lookups they replace: a
+ * <code>RelationalTable</code> of the truth relations for the sim hits of a strip hit, scans of the sim hit
+ * collections for the sim hits and layers of a particle, and the layer counting of <code>TrackTruthMatching</code>
+ * for the particle matched to a track.
+ */
+public class TrackerTruthAssociationTest extends TestCase {
+
+    private final List<MCParticle> particles = new ArrayList<MCParticle>();
+    private final List<SimTrackerHit> activeHits = new ArrayList<SimTrackerHit>();
+    private final List<SimTrackerHit> inactiveHits = new ArrayList<SimTrackerHit>();
+    private final List<RawTrackerHit> rawHits = new ArrayList<RawTrackerHit>();
+    private final List<LCRelation> relations = new ArrayList<LCRelation>();
+
+    private Random rnd;
+
+    @Override
+    protected void setUp() {
+        rnd = new Random(20211);
+        for (int i = 0; i < 6; i++) {
+            particles.add(makeParticle(1.0 + i));
+        }
+        // particle that only left hits in inactive material
+        MCParticle inactiveOnly = makeParticle(0.5);
+        particles.add(inactiveOnly);
+
+        for (int i = 0; i < 60; i++) {
+            // some sim hits without a particle
+            MCParticle particle = rnd.nextInt(10) == 0 ? null : particles.get(rnd.nextInt(6));
+            activeHits.add(makeSimHit(particle, 1 + rnd.nextInt(14)));
+        }
+        for (int i = 0; i < 20; i++) {
+            inactiveHits.add(makeSimHit(i % 3 == 0 ? inactiveOnly : particles.get(rnd.nextInt(6)), 1 + rnd.nextInt(14)));
+        }
+
+        // strip hits made by one to three sim hits, with some relations repeated
+        for (int i = 0; i < 40; i++) {
+            RawTrackerHit rawHit = makeRawHit(1 + rnd.nextInt(14));
+            rawHits.add(rawHit);
+            int n = 1 + rnd.nextInt(3);
+            for (int j = 0; j < n; j++) {
+                relations.add(new BaseLCRelation(rawHit, activeHits.get(rnd.nextInt(activeHits.size()))));
+            }
+            if (rnd.nextInt(5) == 0) {
+                relations.add(relations.get(relations.size() - 1));
+            }
+        }
+        // a strip hit with a relation to a sim hit that is not in the active collection
+        RawTrackerHit extraRaw = makeRawHit(3);
+        rawHits.add(extraRaw);
+        relations.add(new BaseLCRelation(extraRaw, makeSimHit(particles.get(0), 3)));
+        // a strip hit without any relation
+        rawHits.add(makeRawHit(5));
+    }
+
+    public void testSimHitsOfStripHits() {
+        TrackerTruthAssociation truth = new TrackerTruthAssociation(relations, activeHits, inactiveHits);
+        RelationalTable rawtomc = relationalTable();
+        for (RawTrackerHit rawHit : rawHits) {
+            Set<SimTrackerHit> expected = rawtomc.allFrom(rawHit);
+            List<SimTrackerHit> simHits = truth.getSimHits(rawHit);
+            assertEquals(expected.size(), simHits.size());
+            assertEquals(expected, new HashSet<SimTrackerHit>(simHits));
+        }
+    }
+
+    public void testSimHitsAndLayersOfParticles() {
+        TrackerTruthAssociation truth = new TrackerTruthAssociation(relations, activeHits, inactiveHits);
+        List<MCParticle> all = new ArrayList<MCParticle>(particles);
+        // a particle that left no hits at all
+        all.add(makeParticle(1.0));
+        for (MCParticle particle : all) {
+            assertEquals(hitsOf(particle, activeHits), truth.getSimHits(particle));
+            assertEquals(hitsOf(particle, inactiveHits), truth.getInactiveSimHits(particle));
+            Set<Integer> layers = layersOf(particle, activeHits);
+            assertEquals(layers, truth.getLayers(particle));
+            assertEquals(layers.size(), truth.getLayerCount(particle));
+        }
+        assertTrue(truth.isActiveSimHits(activeHits));
+        assertFalse(truth.isActiveSimHits(new ArrayList<SimTrackerHit>(activeHits)));
+    }
+
+    public void testMatchTrack() {
+        TrackerTruthAssociation truth = new TrackerTruthAssociation(relations, activeHits, inactiveHits);
+        RelationalTable rawtomc = relationalTable();
+        for (int i = 0; i < 50; i++) {
+            // tracks of one to six strip pairs, including the strip hits without truth
+            int nHits = 1 + rnd.nextInt(6);
+            List<RawTrackerHit> trackRawHits = new ArrayList<RawTrackerHit>();
+            for (int j = 0; j < 2 * nHits; j++) {
+                trackRawHits.add(rawHits.get(rnd.nextInt(rawHits.size())));
+            }
+            Track track = makeTrack(trackRawHits, 2);
+
+            // count the layers of each particle as TrackTruthMatching does
+            Map<MCParticle, Set<Integer>> layers = new HashMap<MCParticle, Set<Integer>>();
+            Set<Integer> trackLayers = new HashSet<Integer>();
+            for (RawTrackerHit rawHit : trackRawHits) {
+                trackLayers.add(rawHit.getLayerNumber());
+                for (Object simHit : rawtomc.allFrom(rawHit)) {
+                    MCParticle particle = ((SimTrackerHit) simHit).getMCParticle();
+                    if (particle != null) {
+                        if (!layers.containsKey(particle)) {
+                            layers.put(particle, new HashSet<Integer>());
+                        }
+                        layers.get(particle).add(((SimTrackerHit) simHit).getLayer());
+                    }
+                }
+            }
+            MCParticle best = null;
+            for (Map.Entry<MCParticle, Set<Integer>> entry : layers.entrySet()) {
+                if (best == null || entry.getValue().size() > layers.get(best).size()
+                        || (entry.getValue().size() == layers.get(best).size()
+                        && entry.getKey().getEnergy() > best.getEnergy())) {
+                    best = entry.getKey();
+                }
+            }
+
+            TrackMatch match = truth.matchTrack(track, false);
+            assertSame(best, match.getMCParticle());
+            int nGood = best == null ? 0 : layers.get(best).size();
+            assertEquals(2 * nHits, match.getNHits());
+            assertEquals(nGood, match.getNGoodHits());
+            assertEquals(2 * nHits - nGood, match.getNBadHits());
+            assertEquals((double) nGood / (2 * nHits), match.getPurity(), 1e-12);
+            assertEquals(trackLayers, match.getLayersOnTrack());
+            assertEquals(best == null ? new HashSet<Integer>() : layers.get(best), match.getGoodHitLayers());
+
+            // Kalman tracks count each strip once; the scratch state of the previous match is cleared
+            TrackMatch kalmanMatch = truth.matchTrack(makeTrack(trackRawHits, 1), true);
+            assertSame(best, kalmanMatch.getMCParticle());
+            assertEquals(2 * nHits, kalmanMatch.getNHits());
+            assertEquals(nGood, kalmanMatch.getNGoodHits());
+        }
+    }
+
+    public void testMatchTrackTies() {
+        MCParticle soft = makeParticle(1.0);
+        MCParticle hard = makeParticle(2.0);
+        List<SimTrackerHit> simHits = new ArrayList<SimTrackerHit>();
+        List<LCRelation> trackRelations = new ArrayList<LCRelation>();
+        List<RawTrackerHit> trackRawHits = new ArrayList<RawTrackerHit>();
+        for (int layer = 1; layer <= 8; layer++) {
+            RawTrackerHit rawHit = makeRawHit(layer);
+            trackRawHits.add(rawHit);
+            // the soft particle is on layers 1 to 7, twice on layer 3, and the hard one on layers 1, 2, 7 and 8
+            for (MCParticle particle : new MCParticle[] {soft, hard}) {
+                if (particle == soft ? layer < 8 : (layer <= 2 || layer >= 7)) {
+                    SimTrackerHit simHit = makeSimHit(particle, layer);
+                    simHits.add(simHit);
+                    trackRelations.add(new BaseLCRelation(rawHit, simHit));
+                }
+            }
+            if (layer == 3) {
+                SimTrackerHit simHit = makeSimHit(soft, layer);
+                simHits.add(simHit);
+                trackRelations.add(new BaseLCRelation(rawHit, simHit));
+            }
+        }
+        TrackerTruthAssociation truth = new TrackerTruthAssociation(trackRelations, simHits,
+                new ArrayList<SimTrackerHit>());
+
+        TrackMatch match = truth.matchTrack(makeTrack(trackRawHits, 2), false);
+        assertSame(soft, match.getMCParticle());
+        assertEquals(8, match.getNHits());
+        assertEquals(7, match.getNGoodHits());
+        assertEquals(1, match.getNBadHits());
+        assertEquals(7.0 / 8.0, match.getPurity(), 1e-12);
+
+        // on layers 1, 2 and 7 both particles have three layers and the higher energy wins
+        List<RawTrackerHit> tied = new ArrayList<RawTrackerHit>();
+        for (int layer : new int[] {1, 2, 7}) {
+            tied.add(trackRawHits.get(layer - 1));
+        }
+        match = truth.matchTrack(makeTrack(tied, 1), true);
+        assertSame(hard, match.getMCParticle());
+        assertEquals(3, match.getNHits());
+        assertEquals(3, match.getNGoodHits());
+        assertEquals(1.0, match.getPurity(), 1e-12);
+
+        // strip hits without truth
+        List<RawTrackerHit> noTruth = new ArrayList<RawTrackerHit>();
+        noTruth.add(makeRawHit(1));
+        noTruth.add(makeRawHit(2));
+        match = truth.matchTrack(makeTrack(noTruth, 2), false);
+        assertNull(match.getMCParticle());
+        assertEquals(0, match.getNGoodHits());
+        assertEquals(0.0, match.getPurity(), 1e-12);
+        assertTrue(match.getGoodHitLayers().isEmpty());
+    }
+
+    public void testRead() {
+        EventHeader event = new BaseLCSimEvent(1000, 1, "test");
+        assertNull(TrackerTruthAssociation.read(event));
+
+        event.put(TrackerTruthAssociation.RELATIONS_COLLECTION_NAME, relations, LCRelation.class, 0);
+        event.put(TrackerTruthAssociation.SIM_HITS_COLLECTION_NAME, activeHits, SimTrackerHit.class, 0);
+        event.put("OtherTrackerHits", inactiveHits, SimTrackerHit.class, 0);
+        TrackerTruthAssociation truth = TrackerTruthAssociation.read(event);
+        assertSame(truth, TrackerTruthAssociation.read(event));
+        assertTrue(truth.isActiveSimHits(event.get(SimTrackerHit.class, TrackerTruthAssociation.SIM_HITS_COLLECTION_NAME)));
+
+        // other sim hit collections get their own association
+        TrackerTruthAssociation other = TrackerTruthAssociation.read(event, "OtherTrackerHits",
+                TrackerTruthAssociation.INACTIVE_SIM_HITS_COLLECTION_NAME);
+        assertNotSame(truth, other);
+        assertSame(other, TrackerTruthAssociation.read(event, "OtherTrackerHits",
+                TrackerTruthAssociation.INACTIVE_SIM_HITS_COLLECTION_NAME));
+        for (MCParticle particle : particles) {
+            assertEquals(layersOf(particle, inactiveHits), other.getLayers(particle));
+        }
+    }
+
+    private RelationalTable relationalTable() {
+        RelationalTable rawtomc = new BaseRelationalTable(RelationalTable.Mode.MANY_TO_MANY,
+                RelationalTable.Weighting.UNWEIGHTED);
+        for (LCRelation relation : relations) {
+            rawtomc.add(relation.getFrom(), relation.getTo());
+        }
+        return rawtomc;
+    }
+
+    private static List<SimTrackerHit> hitsOf(MCParticle particle, List<SimTrackerHit> hits) {
+        List<SimTrackerHit> list = new ArrayList<SimTrackerHit>();
+        for (SimTrackerHit hit : hits) {
+            if (hit.getMCParticle() == particle) {
+                list.add(hit);
+            }
+        }
+        return list;
+    }
+
+    private static Set<Integer> layersOf(MCParticle particle, List<SimTrackerHit> hits) {
+        Set<Integer> layers = new HashSet<Integer>();
+        for (SimTrackerHit hit : hits) {
+            if (hit.getMCParticle() == particle) {
+                layers.add(hit.getLayer());
+            }
+        }
+        return layers;
+    }
+
+    /**
+     * Make a track with the given strip hits, grouped into tracker hits of one (Kalman) or two strips.
+     */
+    private static Track makeTrack(List<RawTrackerHit> rawHits, int stripsPerHit) {
+        BaseTrack track = new BaseTrack();
+        for (int i = 0; i < rawHits.size(); i += stripsPerHit) {
+            TrackerHit hit = new BaseTrackerHit();
+            for (int j = i; j < i + stripsPerHit && j < rawHits.size(); j++) {
+                hit.getRawHits().add(rawHits.get(j));
+            }
+            track.getTrackerHits().add(hit);
+        }
+        return track;
+    }
+
+    private static MCParticle makeParticle(double energy) {
+        return new BaseMCParticle(new BasicHep3Vector(0, 0, 0), new BasicHepLorentzVector(energy, new double[] {0, 0,
+                energy}), ParticlePropertyManager.getParticlePropertyProvider().get(11), 1, 0);
+    }
+
+    /**
+     * Make a sim hit on the given layer, which otherwise comes from the detector element of the hit.
+     */
+    private static SimTrackerHit makeSimHit(MCParticle particle, final int layer) {
+        return new BaseSimTrackerHit(new double[3], 0, new double[3], 0, 0, 0, particle, null, null) {
+            @Override
+            public int getLayer() {
+                return layer;
+            }
+        };
+    }
+
+    /**
+     * Make a strip hit on the given layer, which otherwise comes from the detector element of the hit.
+     */
+    private static RawTrackerHit makeRawHit(final int layer) {
+        return new BaseRawTrackerHit(0, 0, new short[6]) {
+            @Override
+            public int getLayerNumber() {
+                return layer;
+            }
+        };
+    }
+}
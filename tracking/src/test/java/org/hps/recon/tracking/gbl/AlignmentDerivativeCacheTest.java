@@ -0,0 +1,135 @@
+package org.hps.recon.tracking.gbl;
+
+import hep.physics.vec.BasicHep3Matrix;
+import hep.physics.vec.BasicHep3Vector;
+import hep.physics.vec.Hep3Matrix;
+import hep.physics.vec.Hep3Vector;
+
+import junit.framework.TestCase;
+
+import org.hps.recon.tracking.gbl.matrix.Matrix;
+
+/**
+ * Test that the composite structure derivatives of {@link AlignmentDerivativeCache.Entry} are the ones the alignment
+ * driver computed per hit, <code>g_ders.times(C)</code> with the C matrix of {@link FrameToFrameDers}, for a stereo
+ * sensor of layer 3 in its module and U-channel.
+ */
+public class AlignmentDerivativeCacheTest extends TestCase {
+
+    private static final int NPARS = AlignmentDerivativeCache.NPARS;
+
+    // sensor, module and U-channel frames: local to global rotations and translations
+    private static final Hep3Matrix R_SENSOR = rotation(0.0305, 0.1, 3.1416);
+    private static final Hep3Vector T_SENSOR = new BasicHep3Vector(3.7752, 111.75, 20.770);
+    private static final Hep3Matrix R_MODULE = rotation(0.0305, 0.05, 0.);
+    private static final Hep3Vector T_MODULE = new BasicHep3Vector(3.6, 107.7, 20.9);
+    private static final Hep3Matrix R_UCHANNEL = rotation(0.0305, 0., 0.);
+    private static final Hep3Vector T_UCHANNEL = new BasicHep3Vector(0., 150., 21.5);
+
+    private static final double[] SENSOR_DERS = {0.998, -0.0305, 0.061, -12.3, 0.45, 7.8};
+    private static final int[] SENSOR_LABELS = {11105, 11205, 11305, 12105, 12205, 12305};
+
+    public void testStructures() {
+        FrameToFrameDers f2fD = new FrameToFrameDers();
+        Matrix[] c = {f2fD.getDerivative(R_SENSOR, R_MODULE, T_SENSOR, T_MODULE),
+                f2fD.getDerivative(R_SENSOR, R_UCHANNEL, T_SENSOR, T_UCHANNEL)};
+        int[] millepedeIds = {61, 80};
+        AlignmentDerivativeCache.Entry entry = new AlignmentDerivativeCache.Entry(null,
+                new String[] {"module_L3t", "uchannel_L13t"}, packed(c), millepedeIds, null, false);
+
+        double[] ders = new double[2 * NPARS];
+        int[] labels = new int[2 * NPARS];
+        entry.computeDerivatives(SENSOR_DERS, SENSOR_LABELS, ders, labels);
+
+        Matrix g_ders = derivatives();
+        for (int level = 0; level < c.length; level++) {
+            Matrix expected = g_ders.times(c[level]);
+            for (int j = 0; j < NPARS; j++) {
+                assertEquals(expected.get(0, j), ders[level * NPARS + j], 0.);
+                assertEquals((SENSOR_LABELS[j] / 100) * 100 + millepedeIds[level], labels[level * NPARS + j]);
+            }
+        }
+    }
+
+    public void testAlignableVolumes() {
+        // the C matrices of the center of mass alignment are from a volume to its parent
+        FrameToFrameDers f2fD = new FrameToFrameDers();
+        Matrix[] c = {f2fD.getDerivative(R_SENSOR, R_MODULE, T_SENSOR, T_MODULE),
+                f2fD.getDerivative(R_MODULE, R_UCHANNEL, T_MODULE, T_UCHANNEL)};
+        int[][] levelLabels = {{11161, 11261, 11361, 12161, 12261, 12361}, {11180, 11280, 11380, 12180, 12280, 12380}};
+        AlignmentDerivativeCache.Entry entry = new AlignmentDerivativeCache.Entry(null,
+                new String[] {"module_L3t_AV", "uchannel_L13t_AV"}, packed(c), null, levelLabels, true);
+        assertEquals(2, entry.getNumLevels());
+
+        double[] ders = new double[2 * NPARS];
+        int[] labels = new int[2 * NPARS];
+        entry.computeDerivatives(SENSOR_DERS, SENSOR_LABELS, ders, labels);
+
+        Matrix c_derGlobal = derivatives();
+        for (int level = 0; level < c.length; level++) {
+            c_derGlobal = c_derGlobal.times(c[level]);
+            for (int j = 0; j < NPARS; j++) {
+                assertEquals(c_derGlobal.get(0, j), ders[level * NPARS + j], 0.);
+                assertEquals(levelLabels[level][j], labels[level * NPARS + j]);
+            }
+        }
+    }
+
+    public void testNotInTree() {
+        AlignmentDerivativeCache.Entry entry = new AlignmentDerivativeCache.Entry(null, null, null, null, null, true);
+        assertFalse(entry.isInTree());
+        assertEquals(0, entry.getNumLevels());
+    }
+
+    public void testWrongDimension() {
+        FrameToFrameDers f2fD = new FrameToFrameDers();
+        Matrix[] c = {f2fD.getDerivative(R_SENSOR, R_MODULE, T_SENSOR, T_MODULE)};
+        AlignmentDerivativeCache.Entry entry = new AlignmentDerivativeCache.Entry(null, new String[] {"module_L3t"},
+                packed(c), new int[] {61}, null, false);
+        try {
+            entry.computeDerivatives(new double[NPARS - 1], SENSOR_LABELS, new double[NPARS], new int[NPARS]);
+            fail("derivatives of the wrong dimension must be rejected");
+        } catch (IllegalArgumentException e) {
+            // as Matrix.times
+        }
+    }
+
+    private static Matrix derivatives() {
+        Matrix g_ders = new Matrix(1, NPARS);
+        for (int j = 0; j < NPARS; j++) {
+            g_ders.set(0, j, SENSOR_DERS[j]);
+        }
+        return g_ders;
+    }
+
+    private static double[][] packed(Matrix[] c) {
+        double[][] packed = new double[c.length][];
+        for (int level = 0; level < c.length; level++) {
+            packed[level] = c[level].getRowPackedCopy();
+        }
+        return packed;
+    }
+
+    /**
+     * Rotation by angles around x, then z, then y.
+     */
+    private static Hep3Matrix rotation(double ax, double az, double ay) {
+        double[][] rx = {{1, 0, 0}, {0, Math.cos(ax), -Math.sin(ax)}, {0, Math.sin(ax), Math.cos(ax)}};
+        double[][] rz = {{Math.cos(az), -Math.sin(az), 0}, {Math.sin(az), Math.cos(az), 0}, {0, 0, 1}};
+        double[][] ry = {{Math.cos(ay), 0, Math.sin(ay)}, {0, 1, 0}, {-Math.sin(ay), 0, Math.cos(ay)}};
+        double[][] r = multiply(ry, multiply(rz, rx));
+        return new BasicHep3Matrix(r[0][0], r[0][1], r[0][2], r[1][0], r[1][1], r[1][2], r[2][0], r[2][1], r[2][2]);
+    }
+
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] c = new double[3][3];
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 3; k++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+}
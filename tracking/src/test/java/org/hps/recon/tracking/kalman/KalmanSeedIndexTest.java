@@ -0,0 +1,163 @@
+package org.hps.recon.tracking.kalman;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.lcsim.geometry.field.FieldOverlay;
+
+/**
+ * Run the Kalman pattern recognition with the windowed seed search of {@link SeedHitIndex} and with the exhaustive
+ * seed search on identical simulated events, and check that both find the same tracks. The geometry is the bottom
+ * tracker used in {@link PatRecTest}, in a uniform field.
+ */
+public class KalmanSeedIndexTest extends TestCase {
+
+    private static final int nEvents = 20;
+    private static final int nHelices = 3;
+    private static final double resolution = 0.006;
+    private static final double thickness = 0.32;
+
+    /**
+     * Uniform field, in HPS global coordinates and Tesla, as returned by the hps-java field map.
+     */
+    private static class UniformField extends FieldOverlay {
+        public double[] getField(double[] position) {
+            double[] b = {0., -0.52, 0.};
+            return b;
+        }
+    }
+
+    public void testSameTracks() {
+        int nTracks = 0;
+        for (int evt = 0; evt < nEvents; evt++) {
+            long rndSeed = 1234567L + 7919L * evt;
+            ArrayList<KalTrack> windowed = runPatRec(true, rndSeed);
+            ArrayList<KalTrack> exhaustive = runPatRec(false, rndSeed);
+
+            assertEquals("event " + evt + " number of tracks", exhaustive.size(), windowed.size());
+            for (int i = 0; i < windowed.size(); i++) {
+                KalTrack tkW = windowed.get(i);
+                KalTrack tkE = exhaustive.get(i);
+                String what = "event " + evt + " track " + i;
+                assertEquals(what + " hits", hitList(tkE), hitList(tkW));
+                assertEquals(what + " chi2", tkE.chi2, tkW.chi2, 1.e-9 * Math.max(1., tkE.chi2));
+                double[] aW = tkW.originHelixParms();
+                double[] aE = tkE.originHelixParms();
+                for (int j = 0; j < 5; j++) {
+                    assertEquals(what + " helix parameter " + j, aE[j], aW[j], 1.e-9 * Math.max(1., Math.abs(aE[j])));
+                }
+            }
+            nTracks += windowed.size();
+        }
+        assertTrue("too few tracks found to be a meaningful comparison: " + nTracks, nTracks >= nEvents * nHelices / 2);
+    }
+
+    /**
+     * The hits of a track as "layer:detector:hit index" strings, in site order. Both runs simulate the same event from
+     * the same random seed, so the hit indices refer to the same measurements.
+     */
+    private static ArrayList<String> hitList(KalTrack tk) {
+        ArrayList<String> hits = new ArrayList<String>();
+        for (MeasurementSite site : tk.SiteList) {
+            if (site.hitID < 0) continue;
+            hits.add(site.m.Layer + ":" + site.m.detector + ":" + site.hitID);
+        }
+        return hits;
+    }
+
+    /**
+     * Simulate one event, with a few helices plus noise hits, and run the pattern recognition on it.
+     */
+    private static ArrayList<KalTrack> runPatRec(boolean useSeedIndex, long rndSeed) {
+        Random rnd = new Random(rndSeed);
+        UniformField fM = new UniformField();
+        ArrayList<SiModule> SiModules = makeModules(fM);
+
+        // Noise hits, out of time as often as in time
+        for (SiModule thisSi : SiModules) {
+            int nNoise = rnd.nextInt(4);
+            for (int i = 0; i < nNoise; i++) {
+                double ys = thisSi.yExtent[0] + rnd.nextDouble() * (thisSi.yExtent[1] - thisSi.yExtent[0]);
+                double t = -40. + 80. * rnd.nextDouble();
+                Vec pntGlobal = thisSi.toGlobal(new Vec(0., ys, 0.));
+                thisSi.addMeasurement(new Measurement(ys, 0., resolution, t, 10., pntGlobal, 999.));
+            }
+        }
+
+        // Hits from helices scattered at each plane
+        HelixPlaneIntersect hpi = new HelixPlaneIntersect();
+        Vec helixOrigin = new Vec(0., 0., 0.);
+        for (int ih = 0; ih < nHelices; ih++) {
+            double Q = rnd.nextBoolean() ? 1. : -1.;
+            double p = 1.0 + 1.5 * rnd.nextDouble();
+            double phi = (91. + 0.5 * rnd.nextGaussian()) * Math.PI / 180.;
+            double theta = (88.5 + 0.3 * rnd.nextGaussian()) * Math.PI / 180.;
+            double t0 = 2. * rnd.nextGaussian();
+            Vec momentum = new Vec(p * Math.cos(phi) * Math.sin(theta), p * Math.sin(phi) * Math.sin(theta), p * Math.cos(theta));
+            Helix tk = new Helix(Q, helixOrigin, momentum, helixOrigin, fM, rnd);
+            for (int icm = 0; icm < SiModules.size(); icm++) {
+                SiModule thisSi = SiModules.get(icm);
+                double phiInt = tk.planeIntersect(thisSi.p);
+                if (Double.isNaN(phiInt)) break;
+                Vec pInt = new Vec(3);
+                Vec rscat = hpi.rkIntersect(thisSi.p, tk.atPhiGlobal(0.), tk.getMomGlobal(0.), Q, fM, pInt);
+                Vec rDet = thisSi.toLocal(rscat);
+                if (rDet.v[0] > thisSi.xExtent[1] || rDet.v[0] < thisSi.xExtent[0] || rDet.v[1] > thisSi.yExtent[1]
+                        || rDet.v[1] < thisSi.yExtent[0]) {
+                    continue;
+                }
+                double m1 = rDet.v[1] + resolution * rnd.nextGaussian();
+                double t = t0 + 2. * rnd.nextGaussian();
+                Measurement thisM1 = new Measurement(m1, 0., resolution, t, 10., rscat, rDet.v[1]);
+                thisM1.addMC(ih);
+                thisSi.addMeasurement(thisM1);
+                if (icm + 1 < SiModules.size()) tk = tk.randomScat(thisSi.p, rscat, pInt, thisSi.thickness);
+            }
+        }
+
+        KalmanParams kPar = new KalmanParams();
+        kPar.setIterations(2);
+        kPar.setUseSeedIndex(useSeedIndex);
+        KalmanPatRecHPS patRec = new KalmanPatRecHPS(kPar);
+        double[] vtx = {0., 0., 0.};
+        double[][] vtxCov = {{0.01, 0., 0.}, {0., 0.25, 0.}, {0., 0., 0.0025}};
+        patRec.patRecSetVtx(vtx, vtxCov);
+        return patRec.kalmanPatRec(null, null, SiModules, 0);
+    }
+
+    /**
+     * The bottom tracker of {@link PatRecTest}.
+     */
+    private static ArrayList<SiModule> makeModules(UniformField fM) {
+        ArrayList<SiModule> SiModules = new ArrayList<SiModule>();
+        addModule(SiModules, 2, 0, true, new Vec(3.4814, 103.69, 20.781), new Vec(-0.030928, -0.99952, 0.00056169), -0.100076, fM);
+        addModule(SiModules, 3, 0, false, new Vec(3.7752, 111.75, 20.770), new Vec(0.029092, 0.99957, 0.0031495), 0.000303, fM);
+        addModule(SiModules, 4, 0, true, new Vec(6.6595, 203.81, 22.296), new Vec(-0.029875, -0.99954, 0.0053661), -0.099851, fM);
+        addModule(SiModules, 5, 0, false, new Vec(6.7661, 211.87, 22.281), new Vec(0.028940, 0.99958, 0.0028008), 0.000145, fM);
+        addModule(SiModules, 6, 0, true, new Vec(9.4835, 303.76, 23.796), new Vec(-0.029471, -0.99955, 0.0048642), -0.100012, fM);
+        addModule(SiModules, 7, 0, false, new Vec(9.7121, 311.63, 23.777), new Vec(0.027875, 0.99961, -0.0027053), 0.000106, fM);
+        addModule(SiModules, 8, 0, true, new Vec(-35.087, 505.57, 29.328), new Vec(-0.029044, -0.99958, 0.0022785), -0.049060, fM);
+        addModule(SiModules, 8, 1, true, new Vec(65.791, 502.52, 24.294), new Vec(-0.030402, -0.99954, 0.0012687), -0.050671, fM);
+        addModule(SiModules, 9, 0, false, new Vec(-34.848, 513.08, 26.824), new Vec(0.030086, 0.99954, -0.0021664), 0.000199, fM);
+        addModule(SiModules, 9, 1, false, new Vec(65.958, 510.03, 26.821), new Vec(0.030452, 0.99954, -0.00060382), 0.000194, fM);
+        addModule(SiModules, 10, 0, true, new Vec(-29.010, 705.47, 32.358), new Vec(-0.030508, -0.99953, -0.00048837), -0.050035, fM);
+        addModule(SiModules, 10, 1, true, new Vec(71.778, 702.43, 27.322), new Vec(-0.029627, -0.99956, -0.0015542), -0.050102, fM);
+        addModule(SiModules, 11, 0, false, new Vec(-28.846, 713.07, 29.845), new Vec(0.029810, 0.99956, -0.00084633), 0.000172, fM);
+        addModule(SiModules, 11, 1, false, new Vec(72.034, 710.03, 29.845), new Vec(0.030891, 0.99952, 0.00016092), 0.000205, fM);
+        addModule(SiModules, 12, 0, true, new Vec(-22.879, 905.35, 35.309), new Vec(-0.029214, -0.99957, 0.0019280), -0.049801, fM);
+        addModule(SiModules, 12, 1, true, new Vec(77.869, 902.35, 30.284), new Vec(-0.029989, -0.99955, -0.00062471), -0.049863, fM);
+        addModule(SiModules, 13, 0, false, new Vec(-22.795, 912.89, 32.839), new Vec(0.028266, 0.99960, -0.0014105), 0.000107, fM);
+        addModule(SiModules, 13, 1, false, new Vec(78.097, 909.99, 32.835), new Vec(0.030889, 0.99952, -0.00029751), 0.000071, fM);
+        return SiModules;
+    }
+
+    private static void addModule(ArrayList<SiModule> SiModules, int layer, int detector, boolean isStereo, Vec point, Vec normal,
+            double angle, UniformField fM) {
+        double width = layer < 8 ? 200. : 100.;
+        double height = layer < 8 ? 47.17 : 40.34;
+        Plane plnInt = new Plane(point, normal, angle);
+        SiModules.add(new SiModule(layer, plnInt, isStereo, width, height, false, thickness, fM, detector));
+    }
+}
@@ -0,0 +1,103 @@
+package org.hps.svt.alignment;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.hps.recon.tracking.gbl.MilleBinary;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the global alignment solution of {@link MillepedeSolver} on straight tracks crossing planes with known
+ * offsets.
+ */
+public class MillepedeSolverTest extends TestCase {
+
+    private static final double[] Z = {0, 10, 20, 30, 40, 50};
+    private static final double[] OFFSETS = {0, 0.02, -0.01, 0.03, -0.015, 0};
+
+    private File writeBinary() throws Exception {
+        File file = File.createTempFile("millepede", ".bin");
+        file.deleteOnExit();
+        MilleBinary mille = new MilleBinary(file.getPath());
+        Random random = new Random(1);
+        for (int track = 0; track < 2000; track++) {
+            double intercept = random.nextGaussian();
+            double slope = 0.05 * random.nextGaussian();
+            for (int plane = 0; plane < Z.length; plane++) {
+                float measurement = (float) (intercept + slope * Z[plane] + OFFSETS[plane]);
+                List<Double> derLocal = Arrays.asList(1.0, Z[plane]);
+                mille.addData(measurement, 0.01f, Arrays.asList(1, 2), derLocal, Arrays.asList(label(plane)),
+                        Arrays.asList(1.0));
+            }
+            mille.writeRecord();
+        }
+        mille.close();
+        return file;
+    }
+
+    private static int label(int plane) {
+        return 11101 + plane;
+    }
+
+    private static void checkOffsets(Map<Integer, Double> results) {
+        for (int plane = 0; plane < Z.length; plane++) {
+            Double value = results.get(label(plane));
+            assertEquals("offset of plane " + plane, OFFSETS[plane], value == null ? 0 : value, 1e-4);
+        }
+    }
+
+    public void testCholeskyWithFixedPlanes() throws Exception {
+        File binary = writeBinary();
+        MillepedeSolver solver = new MillepedeSolver();
+        solver.setMethod(MillepedeSolver.Method.CHOLESKY);
+        solver.setThreads(3);
+        solver.fixParameter(label(0));
+        solver.fixParameter(label(Z.length - 1));
+        solver.accumulate(binary.getPath());
+        checkOffsets(solver.solve());
+    }
+
+    public void testMinresWithConstraints() throws Exception {
+        File binary = writeBinary();
+
+        // Fix the overall shift and shear of the planes, which the tracks can not measure.
+        double sum = 0;
+        double moment = 0;
+        for (int plane = 0; plane < Z.length; plane++) {
+            sum += OFFSETS[plane];
+            moment += Z[plane] * OFFSETS[plane];
+        }
+        File steering = File.createTempFile("steering", ".txt");
+        steering.deleteOnExit();
+        PrintWriter writer = new PrintWriter(steering);
+        writer.println("Constraint " + sum + "    ! shift");
+        for (int plane = 0; plane < Z.length; plane++) {
+            writer.println(label(plane) + " 1.0");
+        }
+        writer.println("Constraint " + moment + "    ! shear");
+        for (int plane = 0; plane < Z.length; plane++) {
+            writer.println(label(plane) + " " + Z[plane]);
+        }
+        writer.close();
+
+        for (MillepedeSolver.Method method : MillepedeSolver.Method.values()) {
+            MillepedeSolver solver = new MillepedeSolver();
+            solver.setMethod(method);
+            solver.readSteering(steering.getPath());
+            solver.accumulate(binary.getPath());
+            checkOffsets(solver.solve());
+
+            File result = File.createTempFile("millepede", ".res");
+            result.deleteOnExit();
+            solver.writeResults(result.getPath());
+            List<String> lines = Files.readAllLines(result.toPath());
+            assertEquals(1 + Z.length, lines.size());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.hps.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.lcsim.event.EventHeader.LCMetaData;
+import org.lcsim.event.SimCalorimeterHit;
+import org.lcsim.event.base.BaseSimCalorimeterHit;
+
+/**
+ * Cell-indexed accumulation of <code>SimCalorimeterHit</code> MC contributions.
+ * <p>
+ * Contributions from any number of events are appended to primitive arrays and chained per cell, so overlaying a hit
+ * on an occupied cell costs the same as on an empty one. The merged hits are built once, with arrays of their final
+ * size, by {@link #build(LCMetaData, boolean)}. This replaces growing the contribution arrays of a hit every time
+ * another bunch hits the same cell.
+ */
+public class CalorimeterHitAccumulator {
+
+    private static final int INITIAL_CELLS = 256;
+    private static final int INITIAL_CONTRIBUTIONS = 1024;
+
+    private final Map<Long, Integer> cellSlots = new HashMap<Long, Integer>();
+
+    // per cell
+    private int nCells = 0;
+    private long[] cellIds = new long[INITIAL_CELLS];
+    private double[] rawEnergies = new double[INITIAL_CELLS];
+    private double[] hitTimes = new double[INITIAL_CELLS];
+    private int[] nHits = new int[INITIAL_CELLS];
+    private int[] firstContribution = new int[INITIAL_CELLS];
+    private int[] lastContribution = new int[INITIAL_CELLS];
+    private int[] nContributions = new int[INITIAL_CELLS];
+
+    // per MC contribution, chained per cell through next
+    private int nTotal = 0;
+    private Object[] particles = new Object[INITIAL_CONTRIBUTIONS];
+    private float[] energies = new float[INITIAL_CONTRIBUTIONS];
+    private float[] times = new float[INITIAL_CONTRIBUTIONS];
+    private int[] pdgs = new int[INITIAL_CONTRIBUTIONS];
+    private int[] next = new int[INITIAL_CONTRIBUTIONS];
+
+    /**
+     * Add a whole hit with all its MC contributions, keeping its MC particles.
+     *
+     * @param hit the hit
+     * @param hasPDG true if the PDG codes of the contributions are stored
+     */
+    public void addHit(SimCalorimeterHit hit, boolean hasPDG) {
+        int slot = startHit(hit.getCellID(), hit.getRawEnergy(), hit.getTime());
+        int n = hit.getMCParticleCount();
+        for (int i = 0; i != n; i++) {
+            addContribution(slot, hit.getMCParticle(i), (float) hit.getContributedEnergy(i),
+                    (float) hit.getContributedTime(i), hasPDG ? hit.getPDG(i) : 0);
+        }
+    }
+
+    /**
+     * Start a new hit on a cell. Its MC contributions are then added with
+     * {@link #addContribution(int, Object, float, float, int)}.
+     *
+     * @param cellId the cell ID
+     * @param rawEnergy the raw energy of the hit, kept if it is the only hit on the cell
+     * @param time the time of the hit, kept if it is the only hit on the cell
+     * @return the slot of the cell
+     */
+    public int startHit(long cellId, double rawEnergy, double time) {
+        Integer slot = cellSlots.get(cellId);
+        if (slot == null) {
+            if (nCells == cellIds.length) {
+                growCells();
+            }
+            slot = nCells++;
+            cellSlots.put(cellId, slot);
+            cellIds[slot] = cellId;
+            rawEnergies[slot] = rawEnergy;
+            hitTimes[slot] = time;
+            nHits[slot] = 0;
+            firstContribution[slot] = -1;
+            lastContribution[slot] = -1;
+            nContributions[slot] = 0;
+        }
+        nHits[slot]++;
+        return slot;
+    }
+
+    /**
+     * Add an MC contribution to the cell in the given slot.
+     *
+     * @param slot the slot returned by {@link #startHit(long, double, double)}
+     * @param particle the contributing MC particle, may be <code>null</code>
+     * @param energy the contributed energy
+     * @param time the contribution time
+     * @param pdg the PDG code of the contribution
+     */
+    public void addContribution(int slot, Object particle, float energy, float time, int pdg) {
+        if (nTotal == particles.length) {
+            growContributions();
+        }
+        int j = nTotal++;
+        particles[j] = particle;
+        energies[j] = energy;
+        times[j] = time;
+        pdgs[j] = pdg;
+        next[j] = -1;
+        if (lastContribution[slot] < 0) {
+            firstContribution[slot] = j;
+        } else {
+            next[lastContribution[slot]] = j;
+        }
+        lastContribution[slot] = j;
+        nContributions[slot]++;
+    }
+
+    /**
+     * @return number of distinct cells hit so far
+     */
+    public int getCellCount() {
+        return nCells;
+    }
+
+    /**
+     * Build one hit per cell, in the order the cells were first hit. A cell hit once keeps the raw energy and time of
+     * its hit. A cell hit more than once gets the sum of its contributed energies as raw energy and its time
+     * recalculated from its contributions, as {@link MergeBunches} always did for merged hits.
+     *
+     * @param meta the meta data of the collection the hits are put into
+     * @param hasPDG true if the PDG codes of the contributions are stored
+     * @return the merged hits
+     */
+    public List<SimCalorimeterHit> build(LCMetaData meta, boolean hasPDG) {
+        List<SimCalorimeterHit> hits = new ArrayList<SimCalorimeterHit>(nCells);
+        for (int slot = 0; slot != nCells; slot++) {
+            int n = nContributions[slot];
+            Object[] mcpList = new Object[n];
+            float[] eneList = new float[n];
+            float[] timeList = new float[n];
+            int[] pdgList = hasPDG ? new int[n] : null;
+            double rawEnergy = 0.;
+            int i = 0;
+            for (int j = firstContribution[slot]; j >= 0; j = next[j]) {
+                mcpList[i] = particles[j];
+                eneList[i] = energies[j];
+                rawEnergy += eneList[i];
+                timeList[i] = times[j];
+                if (hasPDG) {
+                    pdgList[i] = pdgs[j];
+                }
+                i++;
+            }
+            // need to set time to 0 so it is recalculated from the timeList
+            double time = 0.;
+            if (nHits[slot] == 1) {
+                rawEnergy = rawEnergies[slot];
+                time = hitTimes[slot];
+            }
+            hits.add(new BaseSimCalorimeterHit(cellIds[slot], rawEnergy, time, mcpList, eneList, timeList, pdgList,
+                    meta));
+        }
+        return hits;
+    }
+
+    /**
+     * Forget all cells and contributions, keeping the allocated arrays.
+     */
+    public void clear() {
+        cellSlots.clear();
+        Arrays.fill(particles, 0, nTotal, null);
+        nCells = 0;
+        nTotal = 0;
+    }
+
+    private void growCells() {
+        int n = 2 * cellIds.length;
+        cellIds = Arrays.copyOf(cellIds, n);
+        rawEnergies = Arrays.copyOf(rawEnergies, n);
+        hitTimes = Arrays.copyOf(hitTimes, n);
+        nHits = Arrays.copyOf(nHits, n);
+        firstContribution = Arrays.copyOf(firstContribution, n);
+        lastContribution = Arrays.copyOf(lastContribution, n);
+        nContributions = Arrays.copyOf(nContributions, n);
+    }
+
+    private void growContributions() {
+        int n = 2 * particles.length;
+        particles = Arrays.copyOf(particles, n);
+        energies = Arrays.copyOf(energies, n);
+        times = Arrays.copyOf(times, n);
+        pdgs = Arrays.copyOf(pdgs, n);
+        next = Arrays.copyOf(next, n);
+    }
+}
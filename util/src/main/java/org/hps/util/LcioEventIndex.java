@@ -0,0 +1,637 @@
+package org.hps.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.lcio.LCIOReader;
+
+/**
+ * Index of the events of an LCIO file by run and event number, for random access.
+ * <p>
+ * The index holds the byte offset and length of each event in the file, that is of its event header record and the
+ * event record following it. It is built by scanning the SIO record headers of the file, which only decodes the event
+ * header records and skips over the event data, and is kept in a sidecar file next to the LCIO file (the file name
+ * with {@link #SUFFIX} appended) so that it only has to be built once. A sidecar that does not match the length or
+ * modification time of the LCIO file is rebuilt.
+ * <p>
+ * An event is then read with an {@link LCIOReader} started at its offset, see {@link #openReader(int)}, instead of
+ * reading all the events in front of it.
+ */
+public final class LcioEventIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(LcioEventIndex.class.getPackage().getName());
+
+    /** Suffix of the sidecar index file. */
+    public static final String SUFFIX = ".idx";
+
+    private static final int INDEX_MAGIC = 0x4c494458; // "LIDX"
+    private static final int INDEX_VERSION = 1;
+
+    private static final int RECORD_MARKER = 0xabadcafe;
+    private static final int BLOCK_MARKER = 0xdeadbeef;
+    private static final int RECORD_HEADER_SIZE = 24;
+    private static final int BLOCK_HEADER_SIZE = 16;
+    private static final int VERSION_1_1 = (1 << 16) | 1;
+    private static final int COMPRESSED_BIT = 0x1;
+    private static final String EVENT_HEADER_RECORD_NAME = "LCEventHeader";
+    private static final String EVENT_RECORD_NAME = "LCEvent";
+
+    private final File file;
+    private final long fileLength;
+    private final long fileLastModified;
+    private final int[] runNumbers;
+    private final int[] eventNumbers;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final Map<Long, Integer> indices;
+
+    private LcioEventIndex(File file, long fileLength, long fileLastModified, int[] runNumbers, int[] eventNumbers,
+            long[] offsets, int[] lengths) {
+        this.file = file;
+        this.fileLength = fileLength;
+        this.fileLastModified = fileLastModified;
+        this.runNumbers = runNumbers;
+        this.eventNumbers = eventNumbers;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.indices = new HashMap<Long, Integer>(2 * runNumbers.length);
+        int nDuplicates = 0;
+        for (int i = 0; i < runNumbers.length; i++) {
+            // keep the first of repeated run and event numbers
+            if (indices.containsKey(key(runNumbers[i], eventNumbers[i]))) {
+                nDuplicates++;
+            } else {
+                indices.put(key(runNumbers[i], eventNumbers[i]), i);
+            }
+        }
+        if (nDuplicates > 0) {
+            LOGGER.warning(nDuplicates + " events with repeated run and event numbers in " + file.getPath()
+                    + "; only the first of each is found by run and event number");
+        }
+    }
+
+    /**
+     * Get the index of an LCIO file, from its sidecar file if it is up to date, or else by scanning the file. A newly
+     * built index is saved to the sidecar file if the directory is writable.
+     *
+     * @param file the LCIO file
+     * @return the index
+     * @throws IOException if the LCIO file cannot be read
+     */
+    public static LcioEventIndex open(File file) throws IOException {
+        File indexFile = getIndexFile(file);
+        if (indexFile.exists()) {
+            try {
+                LcioEventIndex index = read(file, indexFile);
+                if (index != null) {
+                    return index;
+                }
+                LOGGER.info("Index " + indexFile.getPath() + " is out of date and will be rebuilt");
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error reading index " + indexFile.getPath() + "; rebuilding it", e);
+            }
+        }
+        LcioEventIndex index = build(file);
+        try {
+            index.write(indexFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write index " + indexFile.getPath(), e);
+        }
+        return index;
+    }
+
+    /**
+     * @param file the LCIO file
+     * @return the sidecar index file of the LCIO file
+     */
+    public static File getIndexFile(File file) {
+        return new File(file.getPath() + SUFFIX);
+    }
+
+    /**
+     * Build the index of an LCIO file by scanning its records. The sidecar index file is neither read nor written.
+     *
+     * @param file the LCIO file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not an LCIO file
+     */
+    public static LcioEventIndex build(File file) throws IOException {
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        int[] runs = new int[1024];
+        int[] events = new int[1024];
+        long[] offsets = new long[1024];
+        int[] lengths = new int[1024];
+        int n = 0;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(256);
+            long position = 0;
+            long headerOffset = -1;
+            int run = 0;
+            int event = 0;
+            while (position < length) {
+                final RecordHeader record = readRecordHeader(channel, header, position, file);
+                final String name = record.name;
+                final int dataLength = record.dataLength;
+                final long dataOffset = position + record.headerLength;
+                final long next = dataOffset + pad(dataLength);
+
+                if (EVENT_HEADER_RECORD_NAME.equals(name)) {
+                    ByteBuffer data = ByteBuffer.allocate(dataLength);
+                    readFully(channel, data, dataOffset);
+                    data.flip();
+                    if (record.isCompressed()) {
+                        data = inflate(data, record.uncompressedLength);
+                    }
+                    // first block of the record: length, marker, version, name length and name, then the run and
+                    // event numbers
+                    data.getInt();
+                    if (data.getInt() != BLOCK_MARKER) {
+                        throw new IOException("No SIO block in event header record at byte " + position + " of "
+                                + file.getPath());
+                    }
+                    data.getInt();
+                    final int blockNameLength = data.getInt();
+                    data.position(data.position() + pad(blockNameLength));
+                    run = data.getInt();
+                    event = data.getInt();
+                    headerOffset = position;
+                } else if (EVENT_RECORD_NAME.equals(name) && headerOffset >= 0) {
+                    if (n == runs.length) {
+                        runs = Arrays.copyOf(runs, 2 * n);
+                        events = Arrays.copyOf(events, 2 * n);
+                        offsets = Arrays.copyOf(offsets, 2 * n);
+                        lengths = Arrays.copyOf(lengths, 2 * n);
+                    }
+                    runs[n] = run;
+                    events[n] = event;
+                    offsets[n] = headerOffset;
+                    lengths[n] = (int) (next - headerOffset);
+                    n++;
+                    headerOffset = -1;
+                } else {
+                    // run headers and LCIO random access records
+                    headerOffset = -1;
+                }
+                position = next;
+            }
+        } finally {
+            raf.close();
+        }
+        LOGGER.fine("Indexed " + n + " events in " + file.getPath());
+        return new LcioEventIndex(file, length, lastModified, Arrays.copyOf(runs, n), Arrays.copyOf(events, n),
+                Arrays.copyOf(offsets, n), Arrays.copyOf(lengths, n));
+    }
+
+    /**
+     * Read the index of an LCIO file from an index file.
+     *
+     * @param file the LCIO file
+     * @param indexFile the index file
+     * @return the index, or <code>null</code> if the index file does not match the LCIO file
+     * @throws IOException if the index file cannot be read
+     */
+    public static LcioEventIndex read(File file, File indexFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return null;
+            }
+            final long length = in.readLong();
+            final long lastModified = in.readLong();
+            if (length != file.length() || lastModified != file.lastModified()) {
+                return null;
+            }
+            final int n = in.readInt();
+            int[] runs = new int[n];
+            int[] events = new int[n];
+            long[] offsets = new long[n];
+            int[] lengths = new int[n];
+            for (int i = 0; i < n; i++) {
+                runs[i] = in.readInt();
+                events[i] = in.readInt();
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+            return new LcioEventIndex(file, length, lastModified, runs, events, offsets, lengths);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Write the index to an index file.
+     *
+     * @param indexFile the index file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File indexFile) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(fileLength);
+            out.writeLong(fileLastModified);
+            out.writeInt(offsets.length);
+            for (int i = 0; i < offsets.length; i++) {
+                out.writeInt(runNumbers[i]);
+                out.writeInt(eventNumbers[i]);
+                out.writeLong(offsets[i]);
+                out.writeInt(lengths[i]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of events in the file
+     */
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * @param index the position of the event in the file
+     * @return the run number of the event
+     */
+    public int getRunNumber(int index) {
+        return runNumbers[index];
+    }
+
+    /**
+     * @param index the position of the event in the file
+     * @return the event number of the event
+     */
+    public int getEventNumber(int index) {
+        return eventNumbers[index];
+    }
+
+    /**
+     * @param index the position of the event in the file
+     * @return the byte offset of the event in the file
+     */
+    public long getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Find an event by run and event number.
+     *
+     * @param run the run number
+     * @param event the event number
+     * @return the position of the event in the file, or -1 if it is not in the file
+     */
+    public int indexOf(int run, int event) {
+        Integer index = indices.get(key(run, event));
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Open a reader whose next event is the event at the given position. The reader continues with the following
+     * events of the file and must be closed by the caller.
+     *
+     * @param index the position of the event in the file
+     * @return the reader
+     * @throws IOException if the file cannot be opened
+     */
+    public LCIOReader openReader(int index) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            in.getChannel().position(offsets[index]);
+            return new LCIOReader(new BufferedInputStream(in));
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read a single event.
+     *
+     * @param index the position of the event in the file
+     * @return the event
+     * @throws IOException if the event cannot be read
+     */
+    public EventHeader read(int index) throws IOException {
+        LCIOReader reader = openReader(index);
+        try {
+            return reader.read();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Copy the records of an event unchanged to a stream, e.g. to write a skim of the file without decoding the
+     * events. Files made of such copies are valid LCIO files.
+     *
+     * @param index the position of the event in the file
+     * @param out the stream to write to
+     * @throws IOException if the event cannot be read or written
+     */
+    public void copyEvent(int index, OutputStream out) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] buffer = new byte[lengths[index]];
+            raf.seek(offsets[index]);
+            raf.readFully(buffer);
+            out.write(buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Read the number of elements of some collections of an event without reading the event itself. Only the SIO block
+     * headers of the event record are read, and the parameters and element count at the start of the requested
+     * collection blocks; the other blocks are skipped, and the record is not read any further once all the requested
+     * collections have been found. A compressed record still has to be inflated up to the last requested collection.
+     * <p>
+     * This is meant for pre-selecting events on the presence and size of a few collections before reading them.
+     *
+     * @param index the position of the event in the file
+     * @param names the names of the collections
+     * @return the number of elements of each collection, or -1 for the collections that are not in the event
+     * @throws IOException if the event cannot be read
+     */
+    public int[] readCollectionSizes(int index, String[] names) throws IOException {
+        final int[] sizes = new int[names.length];
+        Arrays.fill(sizes, -1);
+        final Map<String, Integer> wanted = new HashMap<String, Integer>();
+        for (int i = 0; i < names.length; i++) {
+            wanted.put(names[i], i);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(256);
+            // the event header record, then the event record
+            long position = offsets[index];
+            RecordHeader record = readRecordHeader(channel, header, position, file);
+            position += record.headerLength + pad(record.dataLength);
+            record = readRecordHeader(channel, header, position, file);
+            if (!EVENT_RECORD_NAME.equals(record.name)) {
+                throw new IOException("No event record at byte " + position + " of " + file.getPath());
+            }
+            final long dataOffset = position + record.headerLength;
+
+            final DataInput data;
+            final long dataLength;
+            if (record.isCompressed()) {
+                ByteBuffer compressed = ByteBuffer.allocate(record.dataLength);
+                readFully(channel, compressed, dataOffset);
+                data = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed.array())));
+                dataLength = record.uncompressedLength;
+            } else {
+                // the blocks that are not needed are skipped with seeks
+                raf.seek(dataOffset);
+                data = raf;
+                dataLength = record.dataLength;
+            }
+
+            long read = 0;
+            int found = 0;
+            byte[] blockName = new byte[64];
+            while (found < wanted.size() && read < dataLength) {
+                // block header: length, marker, version, name length and name
+                final int blockLength = data.readInt();
+                if (data.readInt() != BLOCK_MARKER) {
+                    throw new IOException("No SIO block in event record at byte " + position + " of "
+                            + file.getPath());
+                }
+                final int version = data.readInt();
+                final int nameLength = data.readInt();
+                if (pad(nameLength) > blockName.length) {
+                    blockName = new byte[pad(nameLength)];
+                }
+                data.readFully(blockName, 0, pad(nameLength));
+                final Integer i = wanted.get(new String(blockName, 0, nameLength, "US-ASCII"));
+                int skip = blockLength - BLOCK_HEADER_SIZE - pad(nameLength);
+                if (i != null) {
+                    // collection block: flags, parameters, number of elements, then the elements
+                    data.readInt();
+                    skip -= 4;
+                    if (version > VERSION_1_1) {
+                        skip -= skipParameters(data);
+                    }
+                    sizes[i] = data.readInt();
+                    skip -= 4;
+                    found++;
+                }
+                skipFully(data, skip);
+                read += blockLength;
+            }
+        } finally {
+            raf.close();
+        }
+        return sizes;
+    }
+
+    /**
+     * Header of an SIO record.
+     */
+    private static final class RecordHeader {
+
+        int headerLength;
+        int options;
+        int dataLength;
+        int uncompressedLength;
+        String name;
+
+        boolean isCompressed() {
+            return (options & COMPRESSED_BIT) != 0;
+        }
+    }
+
+    private static RecordHeader readRecordHeader(FileChannel channel, ByteBuffer header, long position, File file)
+            throws IOException {
+        // record header: header length, marker, options, data length, uncompressed length, name length
+        RecordHeader record = new RecordHeader();
+        header.clear();
+        header.limit(RECORD_HEADER_SIZE);
+        readFully(channel, header, position);
+        header.flip();
+        record.headerLength = header.getInt();
+        if (header.getInt() != RECORD_MARKER) {
+            throw new IOException("No SIO record at byte " + position + " of " + file.getPath());
+        }
+        record.options = header.getInt();
+        record.dataLength = header.getInt();
+        record.uncompressedLength = header.getInt();
+        final int nameLength = header.getInt();
+        if (nameLength > header.capacity()) {
+            throw new IOException("Bad SIO record name length at byte " + position + " of " + file.getPath());
+        }
+        header.clear();
+        header.limit(nameLength);
+        readFully(channel, header, position + RECORD_HEADER_SIZE);
+        record.name = new String(header.array(), 0, nameLength, "US-ASCII");
+        return record;
+    }
+
+    /**
+     * Skip the integer, float and string parameters of a collection.
+     *
+     * @return the number of bytes skipped
+     */
+    private static int skipParameters(DataInput in) throws IOException {
+        int skipped = 0;
+        for (int type = 0; type < 3; type++) {
+            final int nParameters = in.readInt();
+            skipped += 4;
+            for (int i = 0; i < nParameters; i++) {
+                // key, number of values and values
+                skipped += skipString(in);
+                final int nValues = in.readInt();
+                skipped += 4;
+                if (type < 2) {
+                    skipFully(in, 4 * nValues);
+                    skipped += 4 * nValues;
+                } else {
+                    for (int j = 0; j < nValues; j++) {
+                        skipped += skipString(in);
+                    }
+                }
+            }
+        }
+        return skipped;
+    }
+
+    private static int skipString(DataInput in) throws IOException {
+        final int length = pad(in.readInt());
+        skipFully(in, length);
+        return 4 + length;
+    }
+
+    private static void skipFully(DataInput in, int n) throws IOException {
+        while (n > 0) {
+            int skipped = in.skipBytes(n);
+            if (skipped <= 0) {
+                in.readByte();
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    private static long key(int run, int event) {
+        return ((long) run << 32) | (event & 0xffffffffL);
+    }
+
+    private static int pad(int length) {
+        return (length + 3) & ~3;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new EOFException("Truncated SIO record at byte " + position);
+            }
+            position += n;
+        }
+    }
+
+    private static ByteBuffer inflate(ByteBuffer data, int uncompressedLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.array(), 0, data.limit());
+            byte[] out = new byte[uncompressedLength];
+            int n = 0;
+            while (n < uncompressedLength && !inflater.finished()) {
+                int m = inflater.inflate(out, n, uncompressedLength - n);
+                if (m == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += m;
+            }
+            return ByteBuffer.wrap(out, 0, n);
+        } catch (DataFormatException e) {
+            throw new IOException("Bad compressed SIO record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Build or update the index of an LCIO file and optionally copy a list of events from it to a new file.
+     *
+     * @param args LCIO file, and optionally a text file of run and event number pairs and an output file
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.out.println("java LcioEventIndex <input.slcio> [<events.txt> <output.slcio>]");
+            System.exit(0);
+        }
+        LcioEventIndex index = open(new File(args[0]));
+        System.out.format("Indexed %d events in %s\n", index.size(), args[0]);
+        if (args.length == 1) {
+            return;
+        }
+
+        // same list format as LcioEventSkimmer: pairs of run and event numbers
+        List<Integer> selected = new ArrayList<Integer>();
+        Scanner scan = new Scanner(new File(args[1]));
+        try {
+            while (scan.hasNextInt()) {
+                int run = scan.nextInt();
+                if (!scan.hasNextInt()) {
+                    break;
+                }
+                int event = scan.nextInt();
+                int i = index.indexOf(run, event);
+                if (i < 0) {
+                    LOGGER.warning("Run " + run + " event " + event + " is not in " + args[0]);
+                } else {
+                    selected.add(i);
+                }
+            }
+        } finally {
+            scan.close();
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(args[2]));
+        try {
+            for (int i : selected) {
+                index.copyEvent(i, out);
+            }
+        } finally {
+            out.close();
+        }
+        System.out.format("Copied %d events to %s\n", selected.size(), args[2]);
+    }
+}
@@ -44,7 +44,7 @@ public class MergeBunches extends Driver {
     double offsetT = startT;
     int bunchCounter = 0;
     int eventCounter = 0;
-    protected Map<String, Map<Long, SimCalorimeterHit>> caloHitMap;
+    protected Map<String, CalorimeterHitAccumulator> caloHitAccumulators;
     protected List<MCParticle> overlayMcParticles;
     protected List<MCParticle> allMcParticles;
     protected Map<MCParticle, MCParticle> mcParticleReferences;
@@ -65,7 +65,7 @@ public class MergeBunches extends Driver {
 
         // LCIODriver lcioDriver = new LCIODriver(outFile);
         writer = new LCIOWriter(outFile);
-        caloHitMap = new HashMap<String, Map<Long, SimCalorimeterHit>>();
+        caloHitAccumulators = new HashMap<String, CalorimeterHitAccumulator>();
         overlayMcParticles = new ArrayList<MCParticle>();
         allMcParticles = new ArrayList<MCParticle>();
         mcParticleReferences = new HashMap<MCParticle, MCParticle>();
@@ -84,6 +84,7 @@ public class MergeBunches extends Driver {
             eventCounter++;
             offsetT = startT;
             bunchCounter = 0;
+            buildMergedCaloHits(newEvent);
             try {
                 writer.write(newEvent);
             } catch (IOException ex) {
@@ -265,82 +266,40 @@ public class MergeBunches extends Driver {
             }
             // System.out.println("Overlaid TrackerHits!");
         } else if (collectionType.isAssignableFrom(SimCalorimeterHit.class)) {
-            // SimCalorimeterHits: need to merge hits in cells which are hit in both events
-            // check if map has already been filled
-            Map<Long, SimCalorimeterHit> hitMap;
-            List<SimCalorimeterHit> signalCaloHits = event.get(SimCalorimeterHit.class, collectionName);
-            if (!caloHitMap.containsKey(collectionName)) {
-                // build map of cells which are hit in signalEvent
-                hitMap = new HashMap<Long, SimCalorimeterHit>();
-                for (SimCalorimeterHit hit : signalCaloHits) {
-                    hitMap.put(hit.getCellID(), hit);
+            // SimCalorimeterHits: need to merge hits in cells which are hit in both events.
+            // The contributions are accumulated per cell and the merged hits are built once the event is complete.
+            CalorimeterHitAccumulator accumulator = caloHitAccumulators.get(collectionName);
+            boolean hasPDG = LCIOUtil.bitTest(collection.getFlags(), LCIOConstants.CHBIT_PDG);
+            if (accumulator == null) {
+                // start from the cells which are hit in signalEvent
+                accumulator = new CalorimeterHitAccumulator();
+                for (SimCalorimeterHit hit : event.get(SimCalorimeterHit.class, collectionName)) {
+                    accumulator.addHit(hit, hasPDG);
                 }
-                caloHitMap.put(collectionName, hitMap);
-            } else {
-                hitMap = caloHitMap.get(collectionName);
+                caloHitAccumulators.put(collectionName, accumulator);
             }
 
-            boolean hasPDG = LCIOUtil.bitTest(collection.getFlags(), LCIOConstants.CHBIT_PDG);
             // loop over the hits from the overlay event
             int nHitsMerged = 0;
             int nSimCaloHits = overlayEntries.size();
             for (SimCalorimeterHit hit : (List<SimCalorimeterHit>) overlayEntries) {
-                long cellID = hit.getCellID();
-
                 nHitsMerged++;
                 if (this.getHistogramLevel() > HLEVEL_HIGH && nHitsMerged % 100 == 0)
                     System.out.print("Merged " + nHitsMerged + " / " + nSimCaloHits + " hits\n");
-                if (hitMap.containsKey(cellID)) {
-                    SimCalorimeterHit oldHit = hitMap.get(hit.getCellID());
-                    int nHitMcP = oldHit.getMCParticleCount();
-                    int nOverlayMcP = hit.getMCParticleCount();
-                    int nMcP = nHitMcP + nOverlayMcP;
-                    // arrays of mc particle contributions to the hit
-                    Object[] mcpList = new Object[nMcP];
-                    float[] eneList = new float[nMcP];
-                    float[] timeList = new float[nMcP];
-                    int[] pdgList = null;
-                    if (hasPDG)
-                        pdgList = new int[nMcP];
-                    double rawEnergy = 0.;
-                    // fill arrays with values from hit
-                    for (int i = 0; i != nHitMcP; i++) {
-                        mcpList[i] = oldHit.getMCParticle(i);
-                        eneList[i] = (float) oldHit.getContributedEnergy(i);
-                        timeList[i] = (float) oldHit.getContributedTime(i);
-                        if (hasPDG)
-                            pdgList[i] = oldHit.getPDG(i);
-                        rawEnergy += eneList[i];
-                    }
-                    // add values of overlay hit
-                    for (int i = 0; i != nOverlayMcP; i++) {
-                        int j = nHitMcP + i;
-                        MCParticle hitMC = hit.getMCParticle(i);
-                        if (hitMC != null) {
-                            if (!mcParticleReferences.containsKey(hitMC)) {
-                                this.addOverlayMcParticle(hitMC);
-                            }
-                            mcpList[j] = mcParticleReferences.get(hitMC);
+                int slot = accumulator.startHit(hit.getCellID(), hit.getRawEnergy(), hit.getTime());
+                int nOverlayMcP = hit.getMCParticleCount();
+                for (int i = 0; i != nOverlayMcP; i++) {
+                    MCParticle hitMC = hit.getMCParticle(i);
+                    MCParticle mcp = null;
+                    if (hitMC != null) {
+                        if (!mcParticleReferences.containsKey(hitMC)) {
+                            this.addOverlayMcParticle(hitMC);
                         }
-                        eneList[j] = (float) hit.getContributedEnergy(i);
-                        timeList[j] = (float) hit.getContributedTime(i);
-                        if (hasPDG)
-                            pdgList[j] = hit.getPDG(i);
-                        rawEnergy += eneList[j];
+                        mcp = mcParticleReferences.get(hitMC);
                     }
-                    // need to set time to 0 so it is recalculated from the timeList
-                    SimCalorimeterHit mergedHit = new BaseSimCalorimeterHit(oldHit.getCellID(), rawEnergy, 0., mcpList,
-                            eneList, timeList, pdgList, collection);
-                    // replace old hit with merged hit
-                    signalCaloHits.remove(oldHit);
-                    signalCaloHits.add(mergedHit);
-                    hitMap.put(cellID, mergedHit);
-                } else {
-                    SimCalorimeterHit overlayHit = copySimCalorimeterHit(hit, collection, hasPDG);
-                    signalCaloHits.add(overlayHit);
-                    hitMap.put(cellID, overlayHit);
+                    accumulator.addContribution(slot, mcp, (float) hit.getContributedEnergy(i),
+                            (float) hit.getContributedTime(i), hasPDG ? hit.getPDG(i) : 0);
                 }
-
             }
         } else if (collectionType.isAssignableFrom(GenericObject.class)) {
             // need to implement all kinds of possible GenericObjects separately
@@ -359,41 +318,21 @@ public class MergeBunches extends Driver {
     }
 
     /**
-     * Deep copy of an SimCalorimeterHit. Necessary in order to be able to close an overlay event.
+     * Replaces the SimCalorimeterHit collections of a completed event by the hits merged in
+     * {@link #mergeCollections(LCMetaData, LCMetaData, double)} and resets the accumulators for the next event.
      * 
-     * @param hit The hit to be copied
-     * @param meta The meta data that will be attached to the hit
-     * @param hasPDG Flag if the pdg code of the mc contriutions should be saved
-     * @return The copied SimCalorimeterHit
+     * @param event the completed event
      */
-    protected SimCalorimeterHit copySimCalorimeterHit(SimCalorimeterHit hit, LCMetaData meta, boolean hasPDG) {
-        long id = hit.getCellID();
-        double rawEnergy = hit.getRawEnergy();
-        double time = hit.getTime();
-        int nMCP = hit.getMCParticleCount();
-        Object[] mcparts = new Object[nMCP];
-        float[] energies = new float[nMCP];
-        float[] times = new float[nMCP];
-        int[] pdgs = null;
-        if (hasPDG)
-            pdgs = new int[nMCP];
-        // fill arrays with values from hit
-        for (int i = 0; i != nMCP; i++) {
-            MCParticle hitMC = hit.getMCParticle(i);
-            if (hitMC != null) {
-                this.addOverlayMcParticle(hitMC);
-                mcparts[i] = mcParticleReferences.get(hitMC);
-            }
-            energies[i] = (float) hit.getContributedEnergy(i);
-            times[i] = (float) hit.getContributedTime(i);
-            if (hasPDG)
-                pdgs[i] = hit.getPDG(i);
+    protected void buildMergedCaloHits(EventHeader event) {
+        for (Map.Entry<String, CalorimeterHitAccumulator> entry : caloHitAccumulators.entrySet()) {
+            List<SimCalorimeterHit> hits = event.get(SimCalorimeterHit.class, entry.getKey());
+            LCMetaData meta = event.getMetaData(hits);
+            boolean hasPDG = LCIOUtil.bitTest(meta.getFlags(), LCIOConstants.CHBIT_PDG);
+            List<SimCalorimeterHit> merged = entry.getValue().build(meta, hasPDG);
+            hits.clear();
+            hits.addAll(merged);
         }
-
-        BaseSimCalorimeterHit copyHit = new BaseSimCalorimeterHit(id, rawEnergy, time, mcparts, energies, times, pdgs,
-                meta);
-
-        return copyHit;
+        caloHitAccumulators.clear();
     }
 
     /**
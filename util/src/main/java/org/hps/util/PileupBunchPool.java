@@ -0,0 +1,371 @@
+package org.hps.util;
+
+import java.io.File;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.EventHeader.LCMetaData;
+import org.lcsim.event.MCParticle;
+import org.lcsim.event.SimCalorimeterHit;
+import org.lcsim.event.base.BaseMCParticle;
+import org.lcsim.lcio.LCIOConstants;
+import org.lcsim.lcio.LCIOReader;
+import org.lcsim.lcio.LCIOUtil;
+import org.lcsim.lcio.LCIOWriter;
+
+/**
+ * Pool of beam-background bunches overlaid as calorimeter pileup on signal events.
+ * <p>
+ * The bunches are read once and their <code>SimCalorimeterHit</code> collections are stored in primitive arrays,
+ * together with copies of the contributing MC particles. Each signal event is then overlaid with bunches sampled from
+ * the pool, each shifted in time like in {@link MergeBunches}, and the contributions are merged per cell with a
+ * {@link CalorimeterHitAccumulator}. The bunches used for an event only depend on the job seed of the
+ * {@link RandomService} and on the position of the event in the input, so the output is the same whatever the number
+ * of threads.
+ * <p>
+ * The pool only covers calorimeter hits; tracker pileup still goes through {@link MergeBunches}. The times of the
+ * pooled MC particles are not shifted, since a pooled particle can be used by several events at different offsets;
+ * the shifted times are those of the hit contributions.
+ */
+public class PileupBunchPool {
+
+    private static final Logger LOGGER = Logger.getLogger(PileupBunchPool.class.getPackage().getName());
+
+    /**
+     * The calorimeter hits of one collection of a pooled bunch.
+     */
+    static final class CompactHits {
+        final String collectionName;
+        final int flags;
+        final String readoutName;
+        final int nHits;
+        final long[] cellIds;
+        final double[] rawEnergies;
+        final float[] hitTimes;
+        final int[] firstContribution; // nHits + 1 entries
+        final MCParticle[] particles;
+        final float[] energies;
+        final float[] times;
+        final int[] pdgs;
+
+        CompactHits(LCMetaData meta, List<SimCalorimeterHit> hits, Map<MCParticle, MCParticle> copies) {
+            collectionName = meta.getName();
+            flags = meta.getFlags();
+            String[] readout = meta.getStringParameters().get("READOUT_NAME");
+            readoutName = readout != null ? readout[0] : null;
+            boolean hasPDG = LCIOUtil.bitTest(flags, LCIOConstants.CHBIT_PDG);
+            nHits = hits.size();
+            cellIds = new long[nHits];
+            rawEnergies = new double[nHits];
+            hitTimes = new float[nHits];
+            firstContribution = new int[nHits + 1];
+            int nTotal = 0;
+            for (SimCalorimeterHit hit : hits) {
+                nTotal += hit.getMCParticleCount();
+            }
+            particles = new MCParticle[nTotal];
+            energies = new float[nTotal];
+            times = new float[nTotal];
+            pdgs = hasPDG ? new int[nTotal] : null;
+            int j = 0;
+            for (int ihit = 0; ihit != nHits; ihit++) {
+                SimCalorimeterHit hit = hits.get(ihit);
+                cellIds[ihit] = hit.getCellID();
+                rawEnergies[ihit] = hit.getRawEnergy();
+                hitTimes[ihit] = (float) hit.getTime();
+                firstContribution[ihit] = j;
+                for (int i = 0; i != hit.getMCParticleCount(); i++, j++) {
+                    MCParticle mcp = hit.getMCParticle(i);
+                    particles[j] = mcp != null ? copyWithAncestors(mcp, copies) : null;
+                    energies[j] = (float) hit.getContributedEnergy(i);
+                    times[j] = (float) hit.getContributedTime(i);
+                    if (hasPDG) {
+                        pdgs[j] = hit.getPDG(i);
+                    }
+                }
+            }
+            firstContribution[nHits] = j;
+        }
+
+        /**
+         * Add the hits, shifted in time, to an accumulator.
+         */
+        void addTo(CalorimeterHitAccumulator accumulator, double offset) {
+            float dt = (float) offset;
+            for (int ihit = 0; ihit != nHits; ihit++) {
+                int slot = accumulator.startHit(cellIds[ihit], rawEnergies[ihit], hitTimes[ihit] + offset);
+                for (int j = firstContribution[ihit]; j != firstContribution[ihit + 1]; j++) {
+                    accumulator.addContribution(slot, particles[j], energies[j], times[j] + dt,
+                            pdgs != null ? pdgs[j] : 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * One pooled bunch: its calorimeter hit collections and the MC particles they refer to.
+     */
+    static final class Bunch {
+        final List<CompactHits> collections = new ArrayList<CompactHits>();
+        final List<MCParticle> particles = new ArrayList<MCParticle>();
+    }
+
+    private final List<Bunch> bunches = new ArrayList<Bunch>();
+
+    private int nBunchesPerEvent = 40;
+    private double startTime = -40.0;
+    private double deltaTime = 2.0;
+
+    /**
+     * Read up to <code>maxBunches</code> bunches from LCIO files into the pool.
+     *
+     * @param files the background files, read in order
+     * @param maxBunches maximum number of bunches to keep
+     * @throws IOException if a file cannot be opened
+     */
+    public void load(List<File> files, int maxBunches) throws IOException {
+        for (File file : files) {
+            LCIOReader reader = new LCIOReader(file);
+            try {
+                while (bunches.size() < maxBunches) {
+                    EventHeader event;
+                    try {
+                        event = reader.read();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    addBunch(event);
+                }
+            } finally {
+                reader.close();
+            }
+            if (bunches.size() >= maxBunches) {
+                break;
+            }
+        }
+        LOGGER.info("Loaded " + bunches.size() + " bunches into the pileup pool");
+    }
+
+    /**
+     * Add a bunch to the pool.
+     *
+     * @param event the background bunch
+     */
+    void addBunch(EventHeader event) {
+        bunches.add(compact(event));
+    }
+
+    private static Bunch compact(EventHeader event) {
+        Bunch bunch = new Bunch();
+        Map<MCParticle, MCParticle> copies = new IdentityHashMap<MCParticle, MCParticle>();
+        for (List<SimCalorimeterHit> hits : event.get(SimCalorimeterHit.class)) {
+            bunch.collections.add(new CompactHits(event.getMetaData(hits), hits, copies));
+        }
+        bunch.particles.addAll(copies.values());
+        return bunch;
+    }
+
+    /**
+     * Copy an MC particle and its ancestors, setting the parent-daughter relations between the copies.
+     */
+    private static MCParticle copyWithAncestors(MCParticle particle, Map<MCParticle, MCParticle> copies) {
+        MCParticle copy = copies.get(particle);
+        if (copy == null) {
+            copy = MergeBunches.copyMcParticle(particle);
+            copies.put(particle, copy);
+            for (MCParticle parent : particle.getParents()) {
+                ((BaseMCParticle) copyWithAncestors(parent, copies)).addDaughter(copy);
+            }
+        }
+        return copy;
+    }
+
+    public int size() {
+        return bunches.size();
+    }
+
+    public void setBunchesPerEvent(int nBunchesPerEvent) {
+        this.nBunchesPerEvent = nBunchesPerEvent;
+    }
+
+    /**
+     * Set the time offsets of the overlaid bunches: bunch i is shifted by <code>startTime + i * deltaTime</code>.
+     *
+     * @param startTime offset of the first bunch in ns
+     * @param deltaTime spacing of the bunches in ns
+     */
+    public void setBunchTiming(double startTime, double deltaTime) {
+        this.startTime = startTime;
+        this.deltaTime = deltaTime;
+    }
+
+    /**
+     * Overlay bunches sampled from the pool on a signal event. The calorimeter hit collections of the event are
+     * replaced by the merged hits, and the pooled MC particles that were used are added to its MC particle collection.
+     *
+     * @param event the signal event
+     * @param rng the stream used to sample the bunches
+     */
+    public void overlay(EventHeader event, RandomStream rng) {
+        if (bunches.isEmpty()) {
+            throw new IllegalStateException("The pileup pool is empty.");
+        }
+        Map<String, CalorimeterHitAccumulator> accumulators = new HashMap<String, CalorimeterHitAccumulator>();
+        Map<String, CompactHits> layouts = new HashMap<String, CompactHits>();
+        Map<MCParticle, Boolean> usedParticles = new IdentityHashMap<MCParticle, Boolean>();
+
+        for (int ibunch = 0; ibunch != nBunchesPerEvent; ibunch++) {
+            Bunch bunch = bunches.get(rng.nextInt(bunches.size()));
+            double offset = startTime + ibunch * deltaTime;
+            for (CompactHits hits : bunch.collections) {
+                CalorimeterHitAccumulator accumulator = accumulators.get(hits.collectionName);
+                if (accumulator == null) {
+                    accumulator = new CalorimeterHitAccumulator();
+                    if (event.hasCollection(SimCalorimeterHit.class, hits.collectionName)) {
+                        List<SimCalorimeterHit> signalHits = event.get(SimCalorimeterHit.class, hits.collectionName);
+                        boolean hasPDG = LCIOUtil.bitTest(event.getMetaData(signalHits).getFlags(),
+                                LCIOConstants.CHBIT_PDG);
+                        for (SimCalorimeterHit hit : signalHits) {
+                            accumulator.addHit(hit, hasPDG);
+                        }
+                    }
+                    accumulators.put(hits.collectionName, accumulator);
+                    layouts.put(hits.collectionName, hits);
+                }
+                hits.addTo(accumulator, offset);
+            }
+            for (MCParticle mcp : bunch.particles) {
+                usedParticles.put(mcp, Boolean.TRUE);
+            }
+        }
+
+        for (Map.Entry<String, CalorimeterHitAccumulator> entry : accumulators.entrySet()) {
+            String name = entry.getKey();
+            List<SimCalorimeterHit> hits;
+            if (event.hasCollection(SimCalorimeterHit.class, name)) {
+                hits = event.get(SimCalorimeterHit.class, name);
+            } else {
+                CompactHits layout = layouts.get(name);
+                hits = new ArrayList<SimCalorimeterHit>();
+                if (layout.readoutName != null) {
+                    event.put(name, hits, SimCalorimeterHit.class, layout.flags, layout.readoutName);
+                } else {
+                    event.put(name, hits, SimCalorimeterHit.class, layout.flags);
+                }
+            }
+            LCMetaData meta = event.getMetaData(hits);
+            List<SimCalorimeterHit> merged = entry.getValue().build(meta,
+                    LCIOUtil.bitTest(meta.getFlags(), LCIOConstants.CHBIT_PDG));
+            hits.clear();
+            hits.addAll(merged);
+        }
+
+        if (event.hasCollection(MCParticle.class, EventHeader.MC_PARTICLES)) {
+            event.get(MCParticle.class, EventHeader.MC_PARTICLES).addAll(usedParticles.keySet());
+        } else {
+            event.put(EventHeader.MC_PARTICLES, new ArrayList<MCParticle>(usedParticles.keySet()), MCParticle.class,
+                    0);
+        }
+    }
+
+    /**
+     * Overlay pileup on a block of events, on several threads. Event i of the block is overlaid with the stream
+     * {@link RandomService#newStream(String, long)} of index <code>firstIndex + i</code>, so the result does not depend
+     * on the number of threads or on the block size. The events are modified in place and keep their order.
+     *
+     * @param events the signal events
+     * @param firstIndex position of the first event of the block in the input
+     * @param executor the executor running the overlays
+     */
+    public void overlay(List<EventHeader> events, final long firstIndex, ExecutorService executor) {
+        List<Future<?>> futures = new ArrayList<Future<?>>(events.size());
+        for (int i = 0; i != events.size(); i++) {
+            final EventHeader event = events.get(i);
+            final long index = firstIndex + i;
+            futures.add(executor.submit(new Callable<Void>() {
+                public Void call() {
+                    overlay(event, RandomService.newStream(PileupBunchPool.class.getName(), index));
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while overlaying pileup", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error overlaying pileup", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Overlay pileup from a pool of background bunches on a signal file.
+     *
+     * @param args background file, number of pooled bunches, signal file, output file, bunches per event, seed and
+     *            number of threads
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("java PileupBunchPool <background.slcio> <poolSize> <signal.slcio> <output.slcio> "
+                    + "[<bunchesPerEvent> [<seed> [<threads>]]]");
+            System.exit(0);
+        }
+        PileupBunchPool pool = new PileupBunchPool();
+        pool.load(Collections.singletonList(new File(args[0])), Integer.parseInt(args[1]));
+        if (args.length > 4) {
+            pool.setBunchesPerEvent(Integer.parseInt(args[4]));
+        }
+        if (args.length > 5) {
+            RandomService.setSeed(Long.parseLong(args[5]));
+        }
+        int nThreads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        LCIOReader reader = new LCIOReader(new File(args[2]));
+        LCIOWriter writer = new LCIOWriter(args[3]);
+        int blockSize = 16 * nThreads;
+        List<EventHeader> block = new ArrayList<EventHeader>(blockSize);
+        long nEvents = 0;
+        try {
+            boolean done = false;
+            while (!done) {
+                block.clear();
+                while (block.size() < blockSize) {
+                    try {
+                        block.add(reader.read());
+                    } catch (EOFException e) {
+                        done = true;
+                        break;
+                    }
+                }
+                pool.overlay(block, nEvents, executor);
+                for (EventHeader event : block) {
+                    writer.write(event);
+                }
+                nEvents += block.size();
+            }
+        } finally {
+            executor.shutdown();
+            reader.close();
+            writer.close();
+        }
+        System.out.format("Overlaid pileup on %d events\n", nEvents);
+    }
+}
@@ -1,10 +1,12 @@
 package org.hps.util;
 
-import java.util.Random;
-
+/**
+ * Gaussian random numbers from the stream of the calling thread in the {@link RandomService}. Drivers should rather
+ * hold their own stream from {@link RandomService#getStream(String)}.
+ */
 public class RandomGaussian {
 
-    private static Random randNumberGenerator;
+    private static final String STREAM_NAME = RandomGaussian.class.getName();
 
     /**
      * Class shouldn't be instantiated by anyone
@@ -20,8 +22,6 @@ public class RandomGaussian {
      * @return Gaussian distributed number
      */
     public static double getGaussian(double mean, double sigma) {
-        if (randNumberGenerator == null)
-            randNumberGenerator = new Random();
-        return mean + randNumberGenerator.nextGaussian() * sigma;
+        return RandomService.getStream(STREAM_NAME).nextGaussian(mean, sigma);
     }
 }
@@ -0,0 +1,14 @@
+package org.hps.util;
+
+import org.lcsim.util.Driver;
+
+/**
+ * Sets the job seed of the {@link RandomService} from the steering file. The seed is applied when the parameter is
+ * set, before any driver starts, so this driver can be placed anywhere in the execute list.
+ */
+public class RandomSeedDriver extends Driver {
+
+    public void setSeed(int seed) {
+        RandomService.setSeed(seed);
+    }
+}
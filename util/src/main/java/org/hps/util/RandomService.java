@@ -0,0 +1,117 @@
+package org.hps.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Source of the random number streams of a job, all derived from a single job seed.
+ * <p>
+ * Each driver gets its own stream by name with {@link #getStream(String)}, so adding or removing a driver does not
+ * change the numbers seen by the others. Streams are kept per thread: a thread always gets the same stream for a name,
+ * and threads never share one. Work split into tasks whose result must not depend on the number of threads should
+ * use {@link #newStream(String, long)} with e.g. the event index instead.
+ * <p>
+ * The job seed is taken from the <code>hps.random.seed</code> system property, or set with {@link #setSeed(long)}
+ * (see {@link RandomSeedDriver}). Without either, a seed is drawn from the clock and logged, so that the job can be
+ * reproduced.
+ */
+public final class RandomService {
+
+    private static final Logger LOGGER = Logger.getLogger(RandomService.class.getPackage().getName());
+
+    /** Name of the system property holding the job seed. */
+    public static final String SEED_PROPERTY = "hps.random.seed";
+
+    private static volatile long seed;
+    private static volatile int generation = 0;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ThreadLocal<ThreadStreams> threadStreams = new ThreadLocal<ThreadStreams>() {
+        @Override
+        protected ThreadStreams initialValue() {
+            return new ThreadStreams(threadCount.getAndIncrement());
+        }
+    };
+
+    static {
+        Long property = Long.getLong(SEED_PROPERTY);
+        if (property != null) {
+            seed = property;
+        } else {
+            seed = mix(System.nanoTime() ^ System.currentTimeMillis());
+            LOGGER.info("No " + SEED_PROPERTY + " given; using job seed " + seed);
+        }
+    }
+
+    private static final class ThreadStreams {
+        final int threadIndex;
+        int generation = -1;
+        final Map<String, RandomStream> streams = new HashMap<String, RandomStream>();
+
+        ThreadStreams(int threadIndex) {
+            this.threadIndex = threadIndex;
+        }
+    }
+
+    private RandomService() {
+    }
+
+    /**
+     * Set the job seed. Streams obtained afterwards are derived from the new seed; streams already held by drivers are
+     * not affected, so the seed should be set before the drivers start.
+     *
+     * @param seed the job seed
+     */
+    public static synchronized void setSeed(long seed) {
+        RandomService.seed = seed;
+        generation++;
+        LOGGER.config("Job seed set to " + seed);
+    }
+
+    public static long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the stream of the current thread for a name. The first thread asking for streams gets the same numbers in
+     * every job with the same seed.
+     *
+     * @param name the stream name, usually the driver class name
+     * @return the stream
+     */
+    public static RandomStream getStream(String name) {
+        ThreadStreams local = threadStreams.get();
+        if (local.generation != generation) {
+            local.streams.clear();
+            local.generation = generation;
+        }
+        RandomStream stream = local.streams.get(name);
+        if (stream == null) {
+            stream = new RandomStream(mix(mix(seed + name.hashCode()) + local.threadIndex));
+            local.streams.put(name, stream);
+        }
+        return stream;
+    }
+
+    /**
+     * Create a new stream for a name and an index, independent of the thread it is used on.
+     *
+     * @param name the stream name
+     * @param index e.g. the index of the event or task
+     * @return the new stream
+     */
+    public static RandomStream newStream(String name, long index) {
+        return new RandomStream(mix(mix(seed + name.hashCode()) ^ mix(index)));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
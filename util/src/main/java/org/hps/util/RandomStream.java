@@ -0,0 +1,180 @@
+package org.hps.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * A stream of random numbers backed by a <code>SplittableRandom</code>, with a ziggurat Gaussian generator and bulk
+ * fill methods for noise arrays.
+ * <p>
+ * A stream is not thread-safe: each thread or task should use its own, obtained from {@link RandomService} or with
+ * {@link #split()}.
+ */
+public final class RandomStream {
+
+    // Ziggurat tables of Marsaglia and Tsang (2000) for the standard normal distribution, 128 layers
+    private static final int N_LAYERS = 128;
+    private static final double R = 3.442619855899;
+    private static final int[] KN = new int[N_LAYERS];
+    private static final double[] WN = new double[N_LAYERS];
+    private static final double[] FN = new double[N_LAYERS];
+
+    static {
+        final double m1 = 2147483648.0;
+        final double vn = 9.91256303526217e-3;
+        double dn = R;
+        double tn = dn;
+        double q = vn / Math.exp(-.5 * dn * dn);
+        KN[0] = (int) ((dn / q) * m1);
+        KN[1] = 0;
+        WN[0] = q / m1;
+        WN[N_LAYERS - 1] = dn / m1;
+        FN[0] = 1.;
+        FN[N_LAYERS - 1] = Math.exp(-.5 * dn * dn);
+        for (int i = N_LAYERS - 2; i >= 1; i--) {
+            dn = Math.sqrt(-2. * Math.log(vn / dn + Math.exp(-.5 * dn * dn)));
+            KN[i + 1] = (int) ((dn / tn) * m1);
+            tn = dn;
+            FN[i] = Math.exp(-.5 * dn * dn);
+            WN[i] = dn / m1;
+        }
+    }
+
+    private final SplittableRandom rng;
+
+    /**
+     * Create a stream from a seed. Jobs should get their streams from {@link RandomService} instead, so that they all
+     * derive from the job seed.
+     *
+     * @param seed the seed
+     */
+    public RandomStream(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private RandomStream(SplittableRandom rng) {
+        this.rng = rng;
+    }
+
+    /**
+     * Split off an independent stream, e.g. for a task run on another thread. Splitting in the same order always gives
+     * the same streams.
+     *
+     * @return the new stream
+     */
+    public RandomStream split() {
+        return new RandomStream(rng.split());
+    }
+
+    public long nextLong() {
+        return rng.nextLong();
+    }
+
+    public int nextInt() {
+        return rng.nextInt();
+    }
+
+    /**
+     * @param bound the upper bound, exclusive
+     * @return a uniform integer in [0, bound)
+     */
+    public int nextInt(int bound) {
+        return rng.nextInt(bound);
+    }
+
+    /**
+     * @return a uniform double in [0, 1)
+     */
+    public double nextDouble() {
+        return rng.nextDouble();
+    }
+
+    public boolean nextBoolean() {
+        return rng.nextBoolean();
+    }
+
+    /**
+     * @return a standard normal number, from the ziggurat method
+     */
+    public double nextGaussian() {
+        // Take the layer and the abscissa from different bits of one draw.
+        long bits = rng.nextLong();
+        int hz = (int) (bits >> 32);
+        int iz = (int) bits & (N_LAYERS - 1);
+        if (Math.abs(hz) < KN[iz]) {
+            return hz * WN[iz];
+        }
+        return gaussianTail(hz, iz);
+    }
+
+    private double gaussianTail(int hz, int iz) {
+        while (true) {
+            double x = hz * WN[iz];
+            if (iz == 0) {
+                // Sample from the tail beyond R.
+                double y;
+                do {
+                    x = -Math.log(1. - rng.nextDouble()) / R;
+                    y = -Math.log(1. - rng.nextDouble());
+                } while (y + y < x * x);
+                return hz > 0 ? R + x : -R - x;
+            }
+            if (FN[iz] + rng.nextDouble() * (FN[iz - 1] - FN[iz]) < Math.exp(-.5 * x * x)) {
+                return x;
+            }
+            long bits = rng.nextLong();
+            hz = (int) (bits >> 32);
+            iz = (int) bits & (N_LAYERS - 1);
+            if (Math.abs(hz) < KN[iz]) {
+                return hz * WN[iz];
+            }
+        }
+    }
+
+    /**
+     * @param mean the mean of the distribution
+     * @param sigma the standard deviation of the distribution
+     * @return a Gaussian distributed number
+     */
+    public double nextGaussian(double mean, double sigma) {
+        return mean + nextGaussian() * sigma;
+    }
+
+    /**
+     * Fill an array with Gaussian distributed numbers.
+     *
+     * @param values the array to fill
+     * @param mean the mean of the distribution
+     * @param sigma the standard deviation of the distribution
+     */
+    public void fillGaussian(double[] values, double mean, double sigma) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = mean + nextGaussian() * sigma;
+        }
+    }
+
+    /**
+     * Add Gaussian noise with zero mean to a range of an array.
+     *
+     * @param values the array
+     * @param offset the first index
+     * @param length the number of entries
+     * @param sigma the standard deviation of the noise
+     */
+    public void addGaussian(double[] values, int offset, int length, double sigma) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] += nextGaussian() * sigma;
+        }
+    }
+
+    /**
+     * Add Gaussian noise with zero mean and a standard deviation per entry to an array.
+     *
+     * @param values the array
+     * @param sigmas the standard deviations, at least as long as <code>values</code>
+     */
+    public void addGaussian(double[] values, double[] sigmas) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] += nextGaussian() * sigmas[i];
+        }
+    }
+}
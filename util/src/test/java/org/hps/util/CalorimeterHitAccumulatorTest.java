@@ -0,0 +1,155 @@
+package org.hps.util;
+
+import hep.physics.particle.properties.ParticlePropertyManager;
+import hep.physics.vec.BasicHep3Vector;
+import hep.physics.vec.BasicHepLorentzVector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.EventHeader.LCMetaData;
+import org.lcsim.event.MCParticle;
+import org.lcsim.event.SimCalorimeterHit;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.event.base.BaseMCParticle;
+import org.lcsim.event.base.BaseSimCalorimeterHit;
+import org.lcsim.lcio.LCIOConstants;
+
+/**
+ * Test the per-cell merging of {@link CalorimeterHitAccumulator}: the contributions, energy and time of the merged
+ * hits, and that nothing is carried over from one event to the next.
+ */
+public class CalorimeterHitAccumulatorTest extends TestCase {
+
+    private LCMetaData meta;
+    private final List<MCParticle> particles = new ArrayList<MCParticle>();
+
+    @Override
+    protected void setUp() {
+        EventHeader event = new BaseLCSimEvent(1000, 1, "test");
+        List<SimCalorimeterHit> hits = new ArrayList<SimCalorimeterHit>();
+        event.put("EcalHits", hits, SimCalorimeterHit.class, 1 << LCIOConstants.CHBIT_PDG);
+        meta = event.getMetaData(hits);
+        for (int i = 0; i < 4; i++) {
+            particles.add(new BaseMCParticle(new BasicHep3Vector(0, 0, 0), new BasicHepLorentzVector(1.0 + i,
+                    new double[] {0, 0, 1.0 + i}), ParticlePropertyManager.getParticlePropertyProvider().get(11), 1,
+                    0));
+        }
+    }
+
+    public void testMerge() {
+        CalorimeterHitAccumulator accumulator = new CalorimeterHitAccumulator();
+        accumulator.addHit(makeHit(1, 0.15, 5.0, 0, 1), true);
+        accumulator.addHit(makeHit(2, 0.2, 7.0, 2), true);
+        // a pileup hit on the first cell
+        int slot = accumulator.startHit(1, 0.05, 12.0);
+        accumulator.addContribution(slot, particles.get(3), 0.05f, 12.0f, -11);
+        assertEquals(2, accumulator.getCellCount());
+
+        List<SimCalorimeterHit> hits = accumulator.build(meta, true);
+        assertEquals(2, hits.size());
+
+        // the merged cell has the contributions of both hits in order, the sum of their energies, and its time
+        // recalculated from them
+        SimCalorimeterHit merged = hits.get(0);
+        assertEquals(1, merged.getCellID());
+        assertEquals(3, merged.getMCParticleCount());
+        assertSame(particles.get(0), merged.getMCParticle(0));
+        assertSame(particles.get(1), merged.getMCParticle(1));
+        assertSame(particles.get(3), merged.getMCParticle(2));
+        assertEquals(-11, merged.getPDG(2));
+        assertEquals((double) 0.05f, merged.getContributedEnergy(2), 1e-12);
+        assertEquals(12.0, merged.getContributedTime(2), 1e-6);
+        double energy = (double) 0.075f + (double) 0.075f + (double) 0.05f;
+        assertEquals(energy, merged.getRawEnergy(), 1e-12);
+        SimCalorimeterHit expected = new BaseSimCalorimeterHit(1, energy, 0., new Object[] {particles.get(0),
+                particles.get(1), particles.get(3)}, new float[] {0.075f, 0.075f, 0.05f}, new float[] {5.0f, 5.0f,
+                12.0f}, new int[] {11, 11, -11}, meta);
+        assertEquals(expected.getTime(), merged.getTime(), 1e-6);
+
+        // a cell hit once keeps its hit
+        SimCalorimeterHit single = hits.get(1);
+        assertEquals(2, single.getCellID());
+        assertEquals(0.2, single.getRawEnergy(), 1e-12);
+        assertEquals(7.0, single.getTime(), 1e-12);
+        assertEquals(1, single.getMCParticleCount());
+    }
+
+    public void testClear() {
+        CalorimeterHitAccumulator accumulator = new CalorimeterHitAccumulator();
+        accumulator.addHit(makeHit(1, 0.15, 5.0, 0, 1), true);
+        accumulator.addHit(makeHit(2, 0.2, 7.0, 2), true);
+        accumulator.build(meta, true);
+
+        // the next event starts from empty cells
+        accumulator.clear();
+        assertEquals(0, accumulator.getCellCount());
+        assertTrue(accumulator.build(meta, true).isEmpty());
+        accumulator.addHit(makeHit(2, 0.3, 9.0, 3), true);
+        List<SimCalorimeterHit> hits = accumulator.build(meta, true);
+        assertEquals(1, hits.size());
+        assertEquals(2, hits.get(0).getCellID());
+        assertEquals(1, hits.get(0).getMCParticleCount());
+        assertSame(particles.get(3), hits.get(0).getMCParticle(0));
+        assertEquals(0.3, hits.get(0).getRawEnergy(), 1e-12);
+        assertEquals(9.0, hits.get(0).getTime(), 1e-12);
+    }
+
+    public void testManyCells() {
+        // more cells and contributions than the initial arrays hold, over two events
+        CalorimeterHitAccumulator accumulator = new CalorimeterHitAccumulator();
+        Random random = new Random(34);
+        for (int event = 0; event < 2; event++) {
+            accumulator.clear();
+            Map<Long, Double> energies = new HashMap<Long, Double>();
+            Map<Long, Integer> counts = new HashMap<Long, Integer>();
+            List<Long> order = new ArrayList<Long>();
+            for (int i = 0; i < 3000; i++) {
+                long cellId = random.nextInt(600);
+                float energy = 0.001f * (1 + random.nextInt(100));
+                int slot = accumulator.startHit(cellId, energy, 10.0);
+                accumulator.addContribution(slot, particles.get(random.nextInt(4)), energy, 10.0f, 11);
+                if (!energies.containsKey(cellId)) {
+                    order.add(cellId);
+                    energies.put(cellId, 0.);
+                    counts.put(cellId, 0);
+                }
+                energies.put(cellId, energies.get(cellId) + energy);
+                counts.put(cellId, counts.get(cellId) + 1);
+            }
+            assertEquals(order.size(), accumulator.getCellCount());
+            List<SimCalorimeterHit> hits = accumulator.build(meta, true);
+            assertEquals(order.size(), hits.size());
+            for (int i = 0; i < hits.size(); i++) {
+                long cellId = order.get(i);
+                assertEquals(cellId, hits.get(i).getCellID());
+                assertEquals(counts.get(cellId).intValue(), hits.get(i).getMCParticleCount());
+                assertEquals(energies.get(cellId), hits.get(i).getRawEnergy(), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Make a hit with one contribution of each of the given particles, sharing its energy and at its time.
+     */
+    private SimCalorimeterHit makeHit(long cellId, double energy, double time, int... particleIndices) {
+        int n = particleIndices.length;
+        Object[] mcps = new Object[n];
+        float[] energies = new float[n];
+        float[] times = new float[n];
+        int[] pdgs = new int[n];
+        for (int i = 0; i < n; i++) {
+            mcps[i] = particles.get(particleIndices[i]);
+            energies[i] = (float) (energy / n);
+            times[i] = (float) time;
+            pdgs[i] = 11;
+        }
+        return new BaseSimCalorimeterHit(cellId, energy, time, mcps, energies, times, pdgs, meta);
+    }
+}
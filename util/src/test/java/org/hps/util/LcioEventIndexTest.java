@@ -0,0 +1,211 @@
+package org.hps.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.GenericObject;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.lcio.LCIOReader;
+import org.lcsim.lcio.LCIOWriter;
+import org.lcsim.util.test.TestUtil.TestOutputFile;
+
+/**
+ * Test {@link LcioEventIndex} on a small LCIO file written with {@link LCIOWriter}: the run and event numbers and
+ * offsets of the events, finding them by run and event number, reading and copying single events, and reading the
+ * sizes of their collections without decoding them.
+ */
+public class LcioEventIndexTest extends TestCase {
+
+    private static final int[] RUNS = {5000, 5000, 5000, 5001, 5001};
+    private static final int[] EVENTS = {10, 11, 3, 10, 12};
+
+    private File file;
+
+    /**
+     * Generic object holding one integer.
+     */
+    private static class IntObject implements GenericObject {
+
+        private final int value;
+
+        IntObject(int value) {
+            this.value = value;
+        }
+
+        public int getNInt() {
+            return 1;
+        }
+
+        public int getNFloat() {
+            return 0;
+        }
+
+        public int getNDouble() {
+            return 0;
+        }
+
+        public int getIntVal(int index) {
+            return value;
+        }
+
+        public float getFloatVal(int index) {
+            return 0;
+        }
+
+        public double getDoubleVal(int index) {
+            return 0;
+        }
+
+        public boolean isFixedSize() {
+            return true;
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        file = new TestOutputFile("LcioEventIndexTest.slcio");
+        File indexFile = LcioEventIndex.getIndexFile(file);
+        if (indexFile.exists()) {
+            indexFile.delete();
+        }
+        LCIOWriter writer = new LCIOWriter(file);
+        for (int i = 0; i < RUNS.length; i++) {
+            // events of different sizes
+            EventHeader event = new BaseLCSimEvent(RUNS[i], EVENTS[i], "test");
+            event.getIntegerParameters().put("payload", payload(i));
+            // collections of different sizes, one with parameters and one missing from an event
+            List<GenericObject> first = objects(i);
+            event.put("First", first, GenericObject.class, 0);
+            event.getMetaData(first).getStringParameters().put("comment", new String[] {"event", "" + i});
+            event.getMetaData(first).getIntegerParameters().put("index", new int[] {i});
+            if (i != 2) {
+                event.put("Second", objects(2 * i), GenericObject.class, 0);
+            }
+            writer.write(event);
+        }
+        writer.close();
+    }
+
+    public void testOffsets() throws IOException {
+        LcioEventIndex index = LcioEventIndex.build(file);
+        assertEquals(RUNS.length, index.size());
+        assertFalse("building the index must not write a sidecar", LcioEventIndex.getIndexFile(file).exists());
+        long end = -1;
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(RUNS[i], index.getRunNumber(i));
+            assertEquals(EVENTS[i], index.getEventNumber(i));
+            assertTrue("events must not overlap", index.getOffset(i) >= end);
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            index.copyEvent(i, copy);
+            end = index.getOffset(i) + copy.size();
+        }
+        assertTrue(end <= file.length());
+    }
+
+    public void testGotoEvent() throws IOException {
+        LcioEventIndex index = LcioEventIndex.build(file);
+        assertEquals(-1, index.indexOf(5000, 12));
+        assertEquals(-1, index.indexOf(5002, 10));
+
+        // go to each event, in reverse order, and check that it is read from its offset
+        for (int i = RUNS.length - 1; i >= 0; i--) {
+            int ordinal = index.indexOf(RUNS[i], EVENTS[i]);
+            assertEquals(i, ordinal);
+            LCIOReader reader = index.openReader(ordinal);
+            try {
+                checkEvent(reader.read(), i);
+                // the reader continues with the following events
+                for (int j = i + 1; j < RUNS.length; j++) {
+                    checkEvent(reader.read(), j);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    public void testCopyEvents() throws IOException {
+        LcioEventIndex index = LcioEventIndex.build(file);
+        File skim = new TestOutputFile("LcioEventIndexTest_skim.slcio");
+        FileOutputStream out = new FileOutputStream(skim);
+        try {
+            index.copyEvent(3, out);
+            index.copyEvent(1, out);
+        } finally {
+            out.close();
+        }
+        LCIOReader reader = new LCIOReader(skim);
+        try {
+            checkEvent(reader.read(), 3);
+            checkEvent(reader.read(), 1);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public void testCollectionSizes() throws IOException {
+        LcioEventIndex index = LcioEventIndex.build(file);
+        String[] names = {"Second", "Missing", "First"};
+        for (int i = 0; i < index.size(); i++) {
+            int[] sizes = index.readCollectionSizes(i, names);
+            assertEquals(i == 2 ? -1 : 2 * i, sizes[0]);
+            assertEquals(-1, sizes[1]);
+            assertEquals(i, sizes[2]);
+        }
+        // the sizes agree with the decoded events
+        for (int i = index.size() - 1; i >= 0; i--) {
+            EventHeader event = index.read(i);
+            assertEquals(index.readCollectionSizes(i, names)[2], event.get(GenericObject.class, "First").size());
+        }
+    }
+
+    public void testSidecar() throws IOException {
+        File indexFile = LcioEventIndex.getIndexFile(file);
+        LcioEventIndex built = LcioEventIndex.open(file);
+        assertTrue(indexFile.exists());
+        LcioEventIndex read = LcioEventIndex.read(file, indexFile);
+        assertNotNull(read);
+        assertEquals(built.size(), read.size());
+        for (int i = 0; i < built.size(); i++) {
+            assertEquals(built.getOffset(i), read.getOffset(i));
+            assertEquals(built.getRunNumber(i), read.getRunNumber(i));
+            assertEquals(built.getEventNumber(i), read.getEventNumber(i));
+        }
+
+        // a sidecar that no longer matches the file is not used
+        assertTrue(file.setLastModified(file.lastModified() - 10000));
+        assertNull(LcioEventIndex.read(file, indexFile));
+    }
+
+    private static int[] payload(int i) {
+        int[] payload = new int[50 + 100 * i];
+        for (int j = 0; j < payload.length; j++) {
+            payload[j] = i * j;
+        }
+        return payload;
+    }
+
+    private static List<GenericObject> objects(int n) {
+        List<GenericObject> objects = new ArrayList<GenericObject>();
+        for (int i = 0; i < n; i++) {
+            objects.add(new IntObject(i));
+        }
+        return objects;
+    }
+
+    private static void checkEvent(EventHeader event, int i) {
+        assertEquals(RUNS[i], event.getRunNumber());
+        assertEquals(EVENTS[i], event.getEventNumber());
+        int[] payload = event.getIntegerParameters().get("payload");
+        assertNotNull(payload);
+        assertEquals(payload(i).length, payload.length);
+        assertEquals(payload(i)[payload.length - 1], payload[payload.length - 1]);
+    }
+}
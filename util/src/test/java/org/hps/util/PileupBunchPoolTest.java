@@ -0,0 +1,137 @@
+package org.hps.util;
+
+import hep.physics.particle.properties.ParticlePropertyManager;
+import hep.physics.vec.BasicHep3Vector;
+import hep.physics.vec.BasicHepLorentzVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import org.lcsim.event.EventHeader;
+import org.lcsim.event.MCParticle;
+import org.lcsim.event.SimCalorimeterHit;
+import org.lcsim.event.base.BaseLCSimEvent;
+import org.lcsim.event.base.BaseMCParticle;
+import org.lcsim.event.base.BaseSimCalorimeterHit;
+import org.lcsim.lcio.LCIOConstants;
+
+/**
+ * Test that {@link PileupBunchPool} overlays the bunches drawn from the stream of each event: the same bunches for the
+ * same job seed and event position, whatever the number of threads.
+ */
+public class PileupBunchPoolTest extends TestCase {
+
+    private static final String COLLECTION = "EcalHits";
+    private static final int NBUNCHES = 50;
+    private static final int BUNCHES_PER_EVENT = 6;
+
+    private PileupBunchPool pool;
+
+    @Override
+    protected void setUp() {
+        RandomService.setSeed(20210);
+        pool = new PileupBunchPool();
+        pool.setBunchesPerEvent(BUNCHES_PER_EVENT);
+        pool.setBunchTiming(-10.0, 2.0);
+        // bunch b has one hit on cell 1000 + b
+        for (int b = 0; b < NBUNCHES; b++) {
+            EventHeader bunch = new BaseLCSimEvent(0, b, "test");
+            List<SimCalorimeterHit> hits = new ArrayList<SimCalorimeterHit>();
+            bunch.put(COLLECTION, hits, SimCalorimeterHit.class, 1 << LCIOConstants.CHBIT_PDG);
+            MCParticle particle = new BaseMCParticle(new BasicHep3Vector(0, 0, 0), new BasicHepLorentzVector(1.0,
+                    new double[] {0, 0, 1.0}), ParticlePropertyManager.getParticlePropertyProvider().get(11), 1, 0);
+            hits.add(new BaseSimCalorimeterHit(1000 + b, 0.01, 20.0, new Object[] {particle}, new float[] {0.01f},
+                    new float[] {20.0f}, new int[] {11}, bunch.getMetaData(hits)));
+            pool.addBunch(bunch);
+        }
+        assertEquals(NBUNCHES, pool.size());
+    }
+
+    public void testSelection() {
+        EventHeader event = makeSignalEvent(1);
+        pool.overlay(event, RandomService.newStream(PileupBunchPool.class.getName(), 7));
+
+        // the bunches are those drawn from the stream, shifted by their position in the event
+        RandomStream stream = RandomService.newStream(PileupBunchPool.class.getName(), 7);
+        List<Long> cells = new ArrayList<Long>();
+        List<Double> times = new ArrayList<Double>();
+        cells.add(1L);
+        times.add(5.0);
+        for (int i = 0; i < BUNCHES_PER_EVENT; i++) {
+            long cell = 1000 + stream.nextInt(NBUNCHES);
+            if (!cells.contains(cell)) {
+                cells.add(cell);
+                times.add(20.0 - 10.0 + 2.0 * i);
+            }
+        }
+        List<SimCalorimeterHit> hits = event.get(SimCalorimeterHit.class, COLLECTION);
+        assertEquals(cells.size(), hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            assertEquals(cells.get(i).longValue(), hits.get(i).getCellID());
+        }
+        assertEquals(5.0, hits.get(0).getTime(), 1e-12);
+        assertEquals(0.05, hits.get(0).getRawEnergy(), 1e-12);
+        // the contribution times of a bunch used once are shifted
+        for (int i = 1; i < hits.size(); i++) {
+            if (hits.get(i).getMCParticleCount() == 1) {
+                assertEquals(times.get(i), hits.get(i).getContributedTime(0), 1e-5);
+            }
+        }
+
+        // the same position gives the same bunches, another one other bunches
+        EventHeader same = makeSignalEvent(2);
+        pool.overlay(same, RandomService.newStream(PileupBunchPool.class.getName(), 7));
+        assertEquals(cellIds(event), cellIds(same));
+        EventHeader other = makeSignalEvent(3);
+        pool.overlay(other, RandomService.newStream(PileupBunchPool.class.getName(), 8));
+        assertFalse(cellIds(event).equals(cellIds(other)));
+    }
+
+    public void testThreads() {
+        List<EventHeader> serial = new ArrayList<EventHeader>();
+        for (int i = 0; i < 20; i++) {
+            EventHeader event = makeSignalEvent(i);
+            pool.overlay(event, RandomService.newStream(PileupBunchPool.class.getName(), 100 + i));
+            serial.add(event);
+        }
+
+        List<EventHeader> threaded = new ArrayList<EventHeader>();
+        for (int i = 0; i < 20; i++) {
+            threaded.add(makeSignalEvent(i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            pool.overlay(threaded.subList(0, 7), 100, executor);
+            pool.overlay(threaded.subList(7, 20), 107, executor);
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(cellIds(serial.get(i)), cellIds(threaded.get(i)));
+        }
+    }
+
+    private static List<Long> cellIds(EventHeader event) {
+        List<Long> cellIds = new ArrayList<Long>();
+        for (SimCalorimeterHit hit : event.get(SimCalorimeterHit.class, COLLECTION)) {
+            cellIds.add(hit.getCellID());
+        }
+        return cellIds;
+    }
+
+    /**
+     * Make a signal event with one hit on cell 1.
+     */
+    private static EventHeader makeSignalEvent(int eventNumber) {
+        EventHeader event = new BaseLCSimEvent(1000, eventNumber, "test");
+        List<SimCalorimeterHit> hits = new ArrayList<SimCalorimeterHit>();
+        event.put(COLLECTION, hits, SimCalorimeterHit.class, 1 << LCIOConstants.CHBIT_PDG);
+        hits.add(new BaseSimCalorimeterHit(1, 0.05, 5.0, new Object[] {null}, new float[] {0.05f},
+                new float[] {5.0f}, new int[] {0}, event.getMetaData(hits)));
+        return event;
+    }
+}
@@ -0,0 +1,141 @@
+package org.hps.util;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the ziggurat Gaussian of {@link RandomStream}: the mean, variance, skewness and kurtosis of a large sample,
+ * the fractions beyond 1 to 4 standard deviations, which include the tail beyond the base layer of the ziggurat, and
+ * a chi-square test of the shape in narrow bins, which would show errors in the layer tables.
+ */
+public class RandomStreamTest extends TestCase {
+
+    private static final int N = 2000000;
+
+    // P(|x| > k) for a standard normal distribution
+    private static final double[] K = {1., 2., 3., 3.5, 4.};
+    private static final double[] TWO_SIDED_TAIL = {0.31731050786291415, 0.04550026389635842, 0.0026997960632601866,
+            4.6525815807108e-4, 6.334248366623996e-5};
+
+    public void testMoments() {
+        RandomStream stream = new RandomStream(20190);
+        double s1 = 0, s2 = 0, s3 = 0, s4 = 0;
+        for (int i = 0; i < N; i++) {
+            double x = stream.nextGaussian();
+            double x2 = x * x;
+            s1 += x;
+            s2 += x2;
+            s3 += x2 * x;
+            s4 += x2 * x2;
+        }
+        double mean = s1 / N;
+        double variance = s2 / N - mean * mean;
+        // 5 standard deviations of each estimate
+        assertEquals(0., mean, 5. * Math.sqrt(1. / N));
+        assertEquals(1., variance, 5. * Math.sqrt(2. / N));
+        assertEquals(0., s3 / N, 5. * Math.sqrt(15. / N));
+        assertEquals(3., s4 / N, 5. * Math.sqrt(96. / N));
+    }
+
+    public void testTails() {
+        RandomStream stream = new RandomStream(20191);
+        int[] beyond = new int[K.length];
+        int positive = 0;
+        for (int i = 0; i < N; i++) {
+            double x = stream.nextGaussian();
+            if (x > 0) {
+                positive++;
+            }
+            for (int k = 0; k < K.length; k++) {
+                if (Math.abs(x) > K[k]) {
+                    beyond[k]++;
+                }
+            }
+        }
+        assertEquals(0.5 * N, positive, 5. * Math.sqrt(0.25 * N));
+        for (int k = 0; k < K.length; k++) {
+            double expected = N * TWO_SIDED_TAIL[k];
+            assertEquals("beyond " + K[k] + " sigma", expected, beyond[k],
+                    5. * Math.sqrt(expected * (1. - TWO_SIDED_TAIL[k])));
+        }
+    }
+
+    public void testShape() {
+        // bins of 0.1 between -4 and 4, and one bin on each side for the tails
+        final int nBins = 80;
+        final double low = -4.;
+        final double width = 0.1;
+        RandomStream stream = new RandomStream(20192);
+        int[] counts = new int[nBins + 2];
+        for (int i = 0; i < N; i++) {
+            double x = stream.nextGaussian();
+            int bin = x < low ? 0 : Math.min(nBins + 1, 1 + (int) ((x - low) / width));
+            counts[bin]++;
+        }
+        double chi2 = 0;
+        double tail = TWO_SIDED_TAIL[K.length - 1] / 2.;
+        for (int bin = 0; bin < nBins + 2; bin++) {
+            double p;
+            if (bin == 0 || bin == nBins + 1) {
+                p = tail;
+            } else {
+                double a = low + (bin - 1) * width;
+                p = integrateDensity(a, a + width);
+            }
+            double expected = N * p;
+            chi2 += (counts[bin] - expected) * (counts[bin] - expected) / expected;
+        }
+        // 81 degrees of freedom: mean 81, standard deviation 12.7
+        assertTrue("chi2 = " + chi2, chi2 < 81. + 5. * Math.sqrt(2. * 81.));
+    }
+
+    public void testFillAndAdd() {
+        double[] values = new double[N / 4];
+        new RandomStream(20193).fillGaussian(values, 5., 2.);
+        checkMeanAndSigma(values, 5., 2.);
+
+        // the same seed gives the same numbers
+        double[] noise = new double[values.length];
+        new RandomStream(20193).addGaussian(noise, 0, noise.length, 2.);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i] - 5., noise[i], 1e-12);
+        }
+
+        double[] sigmas = new double[values.length];
+        Arrays.fill(sigmas, 0.5);
+        double[] shifted = new double[values.length];
+        Arrays.fill(shifted, -1.);
+        new RandomStream(20194).addGaussian(shifted, sigmas);
+        checkMeanAndSigma(shifted, -1., 0.5);
+    }
+
+    private static void checkMeanAndSigma(double[] values, double mean, double sigma) {
+        double s1 = 0, s2 = 0;
+        for (double value : values) {
+            s1 += value;
+            s2 += value * value;
+        }
+        int n = values.length;
+        double m = s1 / n;
+        assertEquals(mean, m, 5. * sigma / Math.sqrt(n));
+        assertEquals(sigma, Math.sqrt(s2 / n - m * m), 5. * sigma / Math.sqrt(2. * n));
+    }
+
+    /**
+     * Integral of the standard normal density with Simpson's rule.
+     */
+    private static double integrateDensity(double a, double b) {
+        final int steps = 100;
+        double h = (b - a) / steps;
+        double sum = density(a) + density(b);
+        for (int i = 1; i < steps; i++) {
+            sum += (i % 2 == 1 ? 4. : 2.) * density(a + i * h);
+        }
+        return sum * h / 3.;
+    }
+
+    private static double density(double x) {
+        return Math.exp(-0.5 * x * x) / Math.sqrt(2. * Math.PI);
+    }
+}